@@ -0,0 +1,30 @@
+package com.example.project.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the account details cache, bound from the {@code account.cache.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "account.cache")
+public class AccountCacheProperties {
+
+    /**
+     * Maximum number of cached accounts; 0 disables the cache.
+     */
+    private long maximumSize = 100_000;
+
+    /**
+     * How long an account stays cached after it was loaded.
+     * Bounds staleness when an invalidation from another node is lost.
+     */
+    private Duration ttl = Duration.ofSeconds(30);
+
+    /**
+     * How invalidations reach the other nodes; {@code in-process} only reaches this node.
+     */
+    private String bus = "in-process";
+}
@@ -0,0 +1,40 @@
+package com.example.project.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the account event streams of {@code GET /api/accounts/{id}/events}, bound from the
+ * {@code account.events.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "account.events")
+public class AccountEventProperties {
+
+    /**
+     * Events waiting to be written to one subscriber. A subscriber that falls this far behind is disconnected.
+     */
+    private int bufferSize = 16;
+
+    /**
+     * How long a stream stays open; clients reconnect after it ends.
+     */
+    private Duration timeout = Duration.ofMinutes(30);
+
+    /**
+     * Delay between two heartbeats, which keep idle streams open through proxies and detect closed ones.
+     */
+    private Duration heartbeatInterval = Duration.ofSeconds(30);
+
+    /**
+     * Threads reading changed accounts that have subscribers.
+     */
+    private int refreshThreads = 2;
+
+    /**
+     * Threads writing events to subscribers.
+     */
+    private int sendThreads = 4;
+}
@@ -0,0 +1,38 @@
+package com.example.project.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of bulk account imports, bound from the {@code account.import.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "account.import")
+public class AccountImportProperties {
+
+    /**
+     * Lines validated together and committed in one database transaction. An interrupted import resumes after its
+     * last committed chunk.
+     */
+    private int chunkSize = 5000;
+
+    /**
+     * Chunks validated at the same time, and the number of chunks read ahead of the one being written.
+     */
+    private int parallelism = 4;
+
+    /**
+     * Rejected lines listed in an import's report; all of them are counted and kept in the database.
+     */
+    private int maxReportedRejections = 1000;
+
+    /**
+     * File imported at startup by the {@code import} profile, a {@code .csv} or an {@code .ndjson} file.
+     */
+    private String file;
+
+    /**
+     * ID of the import of {@link #file}; running the same import again resumes it. Defaults to the file name.
+     */
+    private String id;
+}
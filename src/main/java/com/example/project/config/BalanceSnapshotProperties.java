@@ -0,0 +1,26 @@
+package com.example.project.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the balance checkpoints answering balance-as-of queries, bound from the
+ * {@code account.snapshots.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "account.snapshots")
+public class BalanceSnapshotProperties {
+
+    /**
+     * Delay between two checkpoint runs. Bounds the transactions replayed by a balance-as-of query.
+     */
+    private Duration interval = Duration.ofMinutes(15);
+
+    /**
+     * How far behind the current time checkpoints are taken. Must exceed the time between a transaction's
+     * creation time and its commit, including the write-behind delay of the {@code SHARDED} strategy.
+     */
+    private Duration settleTime = Duration.ofMinutes(1);
+}
@@ -0,0 +1,18 @@
+package com.example.project.config;
+
+import com.example.project.entity.id.GeneratedUuidGenerator;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Hands the {@code ids.*} settings to the Hibernate ID generators, which Hibernate instantiates itself.
+ */
+@Configuration
+public class IdGenerationConfig {
+
+    @Bean
+    public HibernatePropertiesCustomizer idPropertiesCustomizer(IdProperties idProperties) {
+        return properties -> properties.put(GeneratedUuidGenerator.ID_PROPERTIES, idProperties);
+    }
+}
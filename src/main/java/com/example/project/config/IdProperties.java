@@ -0,0 +1,35 @@
+package com.example.project.config;
+
+import com.example.project.entity.id.IdStyle;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Settings of entity ID generation, bound from the {@code ids.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "ids")
+public class IdProperties {
+
+    /**
+     * Style of the entities not listed in {@link #entities}.
+     */
+    private IdStyle defaultStyle = IdStyle.TIME_ORDERED;
+
+    /**
+     * Style per entity, keyed by lower-case entity name such as {@code account} or {@code transaction}.
+     */
+    private Map<String, IdStyle> entities = new HashMap<>();
+
+    /**
+     * @param entityName the entity name, in any case
+     * @return the style of the entity's IDs
+     */
+    public IdStyle styleOf(String entityName) {
+        return entities.getOrDefault(entityName.toLowerCase(Locale.ROOT), defaultStyle);
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.project.config;
+
+import com.example.project.service.ledger.ShardedLedger;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Keeps the beans doing background work eager when {@code spring.main.lazy-initialization} is on, as in the
+ * {@code fast-startup} profile. A lazy bean is only created on first use, which a background job may never see.
+ * Spring Boot already keeps beans with {@code @Scheduled} methods eager, such as the outbox publisher, the balance
+ * snapshots and the reconciliation; the filter here covers the work started on creation instead.
+ */
+@Configuration(proxyBeanMethods = false)
+public class LazyInitializationConfig {
+
+    /**
+     * Excludes the sharded ledger, which replays the transfers left in its journal by a crash when it starts.
+     * Created lazily, it would leave them out of the database until the first transfer.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter backgroundWorkExcludeFilter() {
+        return LazyInitializationExcludeFilter.forBeanTypes(ShardedLedger.class);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.project.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the reads of the current thread on the primary database, so they see every write already committed
+ * there, instead of going to a replica that may lag behind.
+ * <p>
+ * A request opts in with the {@value #HEADER} header, for example to read an account right after transferring
+ * money from it.
+ */
+public final class ReadYourWrites {
+
+    /**
+     * Request header that sends every read of the request to the primary when set to {@code true}.
+     */
+    public static final String HEADER = "Read-Your-Writes";
+
+    private static final ThreadLocal<Boolean> required = ThreadLocal.withInitial(() -> false);
+
+    private ReadYourWrites() {
+    }
+
+    /**
+     * @return whether reads of the current thread must go to the primary
+     */
+    public static boolean isRequired() {
+        return required.get();
+    }
+
+    /**
+     * Runs reads on the primary.
+     *
+     * @param reads the reads
+     * @return the result of the reads
+     */
+    public static <T> T onPrimary(Supplier<T> reads) {
+        boolean previous = required.get();
+        required.set(true);
+        try {
+            return reads.get();
+        } finally {
+            required.set(previous);
+        }
+    }
+
+    /**
+     * Sends the reads of requests carrying {@code Read-Your-Writes: true} to the primary.
+     */
+    static class Filter extends OncePerRequestFilter {
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                throws ServletException, IOException {
+            if (!Boolean.parseBoolean(request.getHeader(HEADER))) {
+                chain.doFilter(request, response);
+                return;
+            }
+            required.set(true);
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                required.remove();
+            }
+        }
+    }
+}
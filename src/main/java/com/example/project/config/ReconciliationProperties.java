@@ -0,0 +1,39 @@
+package com.example.project.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the ledger reconciliation, bound from the {@code reconciliation.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "reconciliation")
+public class ReconciliationProperties {
+
+    /**
+     * When a reconciliation run starts or resumes; {@code -} never runs it.
+     */
+    private String cron = "0 0 1 * * *";
+
+    /**
+     * Ranges reconciled at the same time by this node, each holding one database connection.
+     */
+    private int parallelism = 4;
+
+    /**
+     * Accounts per range. A range is reconciled in one read-only transaction and resumed as a whole.
+     */
+    private int rangeSize = 50_000;
+
+    /**
+     * Accounts fetched per round trip while a range is streamed.
+     */
+    private int fetchSize = 1000;
+
+    /**
+     * How long a claimed range may take before another worker takes it over, such as after a crash.
+     */
+    private Duration claimTimeout = Duration.ofHours(1);
+}
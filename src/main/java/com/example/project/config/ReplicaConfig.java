@@ -0,0 +1,80 @@
+package com.example.project.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Routes read-only transactions to the read replicas listed under {@code replicas.nodes}, active with
+ * {@code replicas.enabled=true}. The primary stays the application's {@code dataSource}; this configuration wraps
+ * it in a {@link ReplicaRoutingDataSource} and lets requests opt out with the {@value ReadYourWrites#HEADER} header.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(name = "replicas.enabled", havingValue = "true")
+public class ReplicaConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaConfig.class);
+
+    /**
+     * Wraps the primary data source, after the bulkhead of {@link VirtualThreadConfig} if there is one.
+     */
+    @Bean
+    static BeanPostProcessor replicaRoutingPostProcessor(ObjectProvider<ReplicaProperties> properties,
+                                                         ObjectProvider<DataSourceProperties> dataSourceProperties) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource primary) {
+                    ReplicaProperties replicaProperties = properties.getObject();
+                    List<ReplicaRoutingDataSource.Replica> replicas =
+                            createReplicas(replicaProperties, dataSourceProperties.getObject());
+                    log.info("Routing read-only transactions of {} to {} replicas", beanName, replicas.size());
+                    return new ReplicaRoutingDataSource(primary, replicas, replicaProperties);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    ReadYourWrites.Filter readYourWritesFilter() {
+        return new ReadYourWrites.Filter();
+    }
+
+    @Bean
+    MeterBinder replicaMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream()
+                .filter(ReplicaRoutingDataSource.class::isInstance)
+                .forEach(dataSource -> ((ReplicaRoutingDataSource) dataSource).bindTo(registry));
+    }
+
+    private static List<ReplicaRoutingDataSource.Replica> createReplicas(ReplicaProperties properties,
+                                                                         DataSourceProperties primary) {
+        List<ReplicaRoutingDataSource.Replica> replicas = new ArrayList<>();
+        for (ReplicaProperties.Node node : properties.getNodes()) {
+            String name = "replica-" + replicas.size();
+            HikariDataSource pool = new HikariDataSource();
+            pool.setPoolName(name);
+            pool.setJdbcUrl(node.getUrl());
+            pool.setUsername(node.getUsername() != null ? node.getUsername() : primary.determineUsername());
+            pool.setPassword(node.getPassword() != null ? node.getPassword() : primary.determinePassword());
+            pool.setMaximumPoolSize(node.getMaximumPoolSize());
+            pool.setReadOnly(true);
+            // Replicas may be down at startup; the health checks connect once they are up
+            pool.setInitializationFailTimeout(-1);
+            replicas.add(new ReplicaRoutingDataSource.Replica(name, pool));
+        }
+        return replicas;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.project.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings of the read replicas serving read-only transactions, bound from the {@code replicas.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "replicas")
+public class ReplicaProperties {
+
+    /**
+     * Routes read-only transactions to the replicas; without it every transaction uses the primary.
+     */
+    private boolean enabled = false;
+
+    /**
+     * How a replica is picked among the healthy ones.
+     */
+    private Selection selection = Selection.ROUND_ROBIN;
+
+    /**
+     * Replicas lagging further behind the primary are skipped until they catch up.
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /**
+     * Delay between two health and lag checks of every replica.
+     */
+    private Duration healthCheckInterval = Duration.ofSeconds(2);
+
+    /**
+     * Query returning the replication lag of a replica in seconds. The default is for PostgreSQL streaming
+     * replicas and reports no lag when the replica has replayed everything it received.
+     */
+    private String lagQuery = "select coalesce(case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 " +
+            "else extract(epoch from now() - pg_last_xact_replay_timestamp()) end, 0)";
+
+    private List<Node> nodes = new ArrayList<>();
+
+    public enum Selection {
+        /** Each read-only transaction takes the next healthy replica. */
+        ROUND_ROBIN,
+        /** Each read-only transaction takes the healthy replica with the fewest connections in use. */
+        LEAST_LOADED
+    }
+
+    @Data
+    public static class Node {
+
+        private String url;
+
+        /**
+         * Defaults to {@code spring.datasource.username}.
+         */
+        private String username;
+
+        /**
+         * Defaults to {@code spring.datasource.password}.
+         */
+        private String password;
+
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.project.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends read-only transactions to read replicas and everything else to the primary.
+ * <p>
+ * The physical connection of a transaction is only fetched by its first statement, once the transaction
+ * manager has marked the connection read-only or not. Read-only connections come from a healthy replica,
+ * picked round-robin or by fewest connections in use. A replica is healthy while it answers the lag query with a
+ * lag of at most {@code replicas.max-lag}; replicas are checked every {@code replicas.health-check-interval}.
+ * Reads go to the primary when no replica is healthy, when a replica refuses a connection, and on threads
+ * that require {@link ReadYourWrites}.
+ */
+public class ReplicaRoutingDataSource extends LazyConnectionDataSourceProxy implements AutoCloseable, MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final ReplicaProperties.Selection selection;
+    private final double maxLagSeconds;
+    private final String lagQuery;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder fallbacks = new LongAdder();
+    private final ScheduledExecutorService checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "replica-health");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Constructs the routing data source and starts checking the replicas. Replicas only serve reads after their
+     * first successful check.
+     *
+     * @param primary    the data source of the primary
+     * @param replicas   the replicas
+     * @param properties the replica configuration
+     */
+    public ReplicaRoutingDataSource(DataSource primary, List<Replica> replicas, ReplicaProperties properties) {
+        super(primary);
+        this.primary = primary;
+        this.replicas = List.copyOf(replicas);
+        this.selection = properties.getSelection();
+        this.maxLagSeconds = properties.getMaxLag().toMillis() / 1000.0;
+        this.lagQuery = properties.getLagQuery();
+        setReadOnlyDataSource(new ReplicaSelector());
+        long interval = properties.getHealthCheckInterval().toMillis();
+        checker.scheduleWithFixedDelay(this::checkReplicas, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Measures the lag of every replica and marks it healthy or not.
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                replica.lagSeconds = rs.next() ? rs.getDouble(1) : Double.NaN;
+                replica.healthy = replica.lagSeconds <= maxLagSeconds;
+            } catch (SQLException | RuntimeException ex) {
+                replica.lagSeconds = Double.NaN;
+                replica.healthy = false;
+            }
+            if (replica.healthy != wasHealthy) {
+                if (replica.healthy) {
+                    log.info("Replica {} is serving reads, lag {}s", replica.name, replica.lagSeconds);
+                } else {
+                    log.warn("Replica {} stopped serving reads, lag {}s", replica.name, replica.lagSeconds);
+                }
+            }
+        }
+    }
+
+    /**
+     * Exports {@code db.replica.lag} and {@code db.replica.healthy} per replica, and {@code db.replica.fallbacks},
+     * the read-only transactions sent to the primary because no replica was available.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (Replica replica : replicas) {
+            Gauge.builder("db.replica.lag", replica, r -> r.lagSeconds)
+                    .description("Replication lag of a replica measured by its last check")
+                    .baseUnit("seconds")
+                    .tag("replica", replica.name)
+                    .register(registry);
+            Gauge.builder("db.replica.healthy", replica, r -> r.healthy ? 1 : 0)
+                    .description("Whether a replica serves reads")
+                    .tag("replica", replica.name)
+                    .register(registry);
+        }
+        FunctionCounter.builder("db.replica.fallbacks", fallbacks, LongAdder::sum)
+                .description("Read-only transactions sent to the primary because no replica was available")
+                .register(registry);
+    }
+
+    @Override
+    public void close() throws Exception {
+        checker.shutdownNow();
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+        DataSource pool = primary;
+        while (!(pool instanceof AutoCloseable) && pool instanceof DelegatingDataSource delegating) {
+            pool = delegating.getTargetDataSource();
+        }
+        if (pool instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
+    }
+
+    private Replica select() {
+        int size = replicas.size();
+        if (selection == ReplicaProperties.Selection.LEAST_LOADED) {
+            Replica least = null;
+            int leastActive = Integer.MAX_VALUE;
+            for (Replica replica : replicas) {
+                int active;
+                if (replica.healthy && (active = replica.activeConnections()) < leastActive) {
+                    least = replica;
+                    leastActive = active;
+                }
+            }
+            return least;
+        }
+        int first = next.getAndIncrement();
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get(Math.floorMod(first + i, size));
+            if (replica.healthy) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * A read replica and its last known state.
+     */
+    public static final class Replica {
+
+        private final String name;
+        private final DataSource dataSource;
+        private volatile boolean healthy;
+        private volatile double lagSeconds = Double.NaN;
+
+        /**
+         * @param name       the name of the replica in logs and metrics
+         * @param dataSource the pool of the replica
+         */
+        public Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        private int activeConnections() {
+            if (dataSource instanceof HikariDataSource hikari) {
+                HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                return pool == null ? 0 : pool.getActiveConnections();
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * The data source of read-only connections.
+     */
+    private class ReplicaSelector extends AbstractDataSource {
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            if (ReadYourWrites.isRequired()) {
+                return primary.getConnection();
+            }
+            Replica replica = select();
+            if (replica != null) {
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException ex) {
+                    replica.healthy = false;
+                    log.warn("Replica {} refused a connection, reading from the primary", replica.name, ex);
+                }
+            }
+            fallbacks.increment();
+            return primary.getConnection();
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            throw new UnsupportedOperationException("Connections are only opened with the configured credentials");
+        }
+    }
+}
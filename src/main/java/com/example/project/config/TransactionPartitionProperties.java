@@ -0,0 +1,47 @@
+package com.example.project.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings of the monthly partitions of the {@code transaction} table, bound from the
+ * {@code transaction.partitions.*} properties. Only used on PostgreSQL.
+ */
+@Data
+@ConfigurationProperties(prefix = "transaction.partitions")
+public class TransactionPartitionProperties {
+
+    /**
+     * Number of months ahead of the current one that always have a partition.
+     */
+    private int premakeMonths = 3;
+
+    /**
+     * Number of months before the current one kept in the database; older partitions are archived and dropped.
+     * 0 keeps every partition.
+     */
+    private int retentionMonths = 13;
+
+    /**
+     * Delay between two runs of the partition maintenance; the first run is at startup.
+     */
+    private Duration maintenanceInterval = Duration.ofHours(1);
+
+    private Archive archive = new Archive();
+
+    @Data
+    public static class Archive {
+
+        /**
+         * Directory receiving the archive files of dropped partitions.
+         */
+        private String directory = "data/archive";
+
+        /**
+         * Transactions per compressed block of an archive file. An archive is read one whole block at a time.
+         */
+        private int blockSize = 8192;
+    }
+}
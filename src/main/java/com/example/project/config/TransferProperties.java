@@ -0,0 +1,199 @@
+package com.example.project.config;
+
+import com.example.project.enums.TransferStrategy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tuning knobs for the transfer endpoints, bound from the {@code transfer.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "transfer")
+public class TransferProperties {
+
+    /**
+     * How single transfers are applied to the account rows.
+     */
+    private TransferStrategy strategy = TransferStrategy.OPTIMISTIC;
+
+    private final Retry retry = new Retry();
+
+    private final Batch batch = new Batch();
+
+    private final Sharded sharded = new Sharded();
+
+    private final GroupCommit groupCommit = new GroupCommit();
+
+    private final Idempotency idempotency = new Idempotency();
+
+    private final Outbox outbox = new Outbox();
+
+    private final Limits limits = new Limits();
+
+    @Data
+    public static class Retry {
+
+        /**
+         * Total attempts for a transfer that fails with a serialization, deadlock or optimistic-lock error.
+         */
+        private int maxAttempts = 5;
+
+        /**
+         * Upper bound of the first backoff, doubled on every further attempt.
+         */
+        private Duration initialBackoff = Duration.ofMillis(5);
+
+        /**
+         * Cap for the exponential backoff.
+         */
+        private Duration maxBackoff = Duration.ofMillis(200);
+    }
+
+    @Data
+    public static class Batch {
+
+        /**
+         * Number of transfers applied per database transaction.
+         */
+        private int chunkSize = 500;
+
+        /**
+         * Maximum number of transfers accepted in a single batch request.
+         */
+        private int maxSize = 100_000;
+    }
+
+    @Data
+    public static class Sharded {
+
+        /**
+         * Number of in-memory shards, each owned by a single thread.
+         */
+        private int shards = Runtime.getRuntime().availableProcessors();
+
+        /**
+         * Directory holding the transfer journal segments.
+         */
+        private String journalDirectory = "data/transfer-journal";
+
+        /**
+         * How often journaled transfers are written behind to the database.
+         */
+        private Duration flushInterval = Duration.ofMillis(200);
+    }
+
+    @Data
+    public static class GroupCommit {
+
+        /**
+         * Most transfers applied together in one database transaction.
+         */
+        private int maxBatchSize = 256;
+
+        /**
+         * Longest time the first transfer of a group waits for others to join it.
+         */
+        private Duration maxWait = Duration.ofNanos(500_000);
+
+        /**
+         * Transfers waiting for a group; callers block while the queue is full.
+         */
+        private int queueCapacity = 10_000;
+    }
+
+    @Data
+    public static class Idempotency {
+
+        /**
+         * Maximum number of completed idempotency keys kept in memory.
+         */
+        private long cacheSize = 100_000;
+
+        /**
+         * How long a completed key stays in memory after it was written.
+         */
+        private Duration cacheTtl = Duration.ofMinutes(10);
+
+        /**
+         * How long a completed key is kept in the database; a retry after that runs the transfer again.
+         */
+        private Duration retention = Duration.ofHours(24);
+    }
+
+    @Data
+    public static class Outbox {
+
+        /**
+         * Whether completed transfers are written to the outbox and published.
+         */
+        private boolean enabled = true;
+
+        /**
+         * Where published events go: {@code in-process} or {@code file}.
+         */
+        private String sink = "in-process";
+
+        /**
+         * File the {@code file} sink appends events to, one JSON object per line.
+         */
+        private String file = "data/transfer-events.ndjson";
+
+        /**
+         * Maximum number of events published and deleted per partition and database transaction.
+         */
+        private int batchSize = 500;
+
+        /**
+         * Pause between two drains of the outbox.
+         */
+        private Duration pollInterval = Duration.ofMillis(100);
+    }
+
+    @Data
+    public static class Limits {
+
+        /**
+         * Whether transfers are checked against the velocity limits of their source account.
+         */
+        private boolean enabled = false;
+
+        /**
+         * Sliding windows, each limiting the transfers out of one account.
+         */
+        private List<Window> windows = new ArrayList<>();
+
+        /**
+         * How often accounts without a transfer in the longest window are dropped from memory.
+         */
+        private Duration evictionInterval = Duration.ofMinutes(1);
+
+        @Data
+        public static class Window {
+
+            /**
+             * Length of the window.
+             */
+            private Duration duration;
+
+            /**
+             * Number of buckets counting the window; it slides in steps of {@code duration / buckets}.
+             */
+            private int buckets = 10;
+
+            /**
+             * Most transfers out of one account within the window; 0 for no limit.
+             */
+            private long maxTransfers;
+
+            /**
+             * Largest total amount sent from one account within the window; unset for no limit.
+             */
+            private BigDecimal maxAmount;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.project.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * Extra wiring for running requests on virtual threads, active with {@code spring.threads.virtual.enabled=true}
+ * on Java 21. Spring Boot then runs Tomcat requests, {@code @Async} methods and scheduled tasks on virtual
+ * threads; this configuration guards the connection pool with a {@link BulkheadDataSource} and reports pinning.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    /**
+     * Wraps the Hikari pool in a bulkhead with one permit per pooled connection. Runs before the other post
+     * processors, so wrappers such as the replica routing see the guarded pool.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "virtual-threads.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+    static BeanPostProcessor bulkheadDataSourcePostProcessor(ObjectProvider<VirtualThreadProperties> properties) {
+        return new BulkheadDataSourcePostProcessor(properties);
+    }
+
+    /**
+     * Exports the number of requests waiting in the bulkhead as {@code db.bulkhead.queued}.
+     * Hikari's own {@code hikaricp.*} meters then only see the callers holding a permit.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "virtual-threads.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+    MeterBinder bulkheadMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream()
+                .map(dataSource -> dataSource instanceof ReplicaRoutingDataSource routing
+                        ? routing.getTargetDataSource() : dataSource)
+                .filter(BulkheadDataSource.class::isInstance)
+                .map(BulkheadDataSource.class::cast)
+                .forEach(dataSource -> Gauge.builder("db.bulkhead.queued", dataSource, BulkheadDataSource::getQueueLength)
+                        .description("Requests waiting for a database connection permit")
+                        .register(registry));
+    }
+
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(name = "virtual-threads.pinning.monitor", havingValue = "true", matchIfMissing = true)
+    VirtualThreadPinningMonitor virtualThreadPinningMonitor(VirtualThreadProperties properties) {
+        return new VirtualThreadPinningMonitor(properties.getPinning().getThreshold());
+    }
+
+    private record BulkheadDataSourcePostProcessor(ObjectProvider<VirtualThreadProperties> properties)
+            implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (bean instanceof HikariDataSource dataSource) {
+                log.info("Queueing connection requests of {} in a bulkhead of {} connections",
+                        beanName, dataSource.getMaximumPoolSize());
+                return new BulkheadDataSource(dataSource, dataSource.getMaximumPoolSize(),
+                        properties.getObject().getBulkhead().getAcquireTimeout());
+            }
+            return bean;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+    }
+}
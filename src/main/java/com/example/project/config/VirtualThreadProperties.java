@@ -0,0 +1,47 @@
+package com.example.project.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Settings that apply when requests run on virtual threads ({@code spring.threads.virtual.enabled}),
+ * bound from the {@code virtual-threads.*} properties.
+ */
+@Data
+@ConfigurationProperties(prefix = "virtual-threads")
+public class VirtualThreadProperties {
+
+    private final Bulkhead bulkhead = new Bulkhead();
+
+    private final Pinning pinning = new Pinning();
+
+    @Data
+    public static class Bulkhead {
+
+        /**
+         * Whether callers queue for a database connection in a fair semaphore sized to the connection pool.
+         */
+        private boolean enabled = true;
+
+        /**
+         * How long a caller waits in the queue before its request fails.
+         */
+        private Duration acquireTimeout = Duration.ofSeconds(30);
+    }
+
+    @Data
+    public static class Pinning {
+
+        /**
+         * Whether virtual threads pinned to their carrier are recorded with JFR and logged.
+         */
+        private boolean monitor = true;
+
+        /**
+         * Shortest pinning that is reported.
+         */
+        private Duration threshold = Duration.ofMillis(20);
+    }
+}
@@ -1,40 +1,92 @@
 package com.example.project.controller;
 
+import com.example.project.config.AccountEventProperties;
+import com.example.project.dto.AccountBalanceDTO;
 import com.example.project.dto.AccountDTO;
+import com.example.project.dto.AccountImportResponse;
+import com.example.project.dto.BatchTransferResponse;
+import com.example.project.dto.CursorPage;
 import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransactionHistoryDTO;
 import com.example.project.dto.TransferResponse;
+import com.example.project.service.AccountImportService;
 import com.example.project.service.AccountService;
+import com.example.project.service.BatchTransferService;
+import com.example.project.service.StripedBalanceService;
+import com.example.project.service.TransferService;
+import com.example.project.service.events.AccountEvent;
+import com.example.project.service.events.AccountEventHub;
+import com.example.project.service.events.AccountEventSink;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
 import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
 /**
  * REST controller for managing accounts and transferring money.
  * Provides endpoints for creating, retrieving, updating, deleting accounts, and transferring funds between accounts.
+ * Serves the servlet stack only; the {@code reactive} build serves the same routes with WebFlux.
  */
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequestMapping("/api")
 @Tag(name = "Account Management", description = "Operations related to account management")
 public class AccountController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final AccountService accountService;
+    private final AccountImportService accountImportService;
+    private final TransferService transferService;
+    private final BatchTransferService batchTransferService;
+    private final StripedBalanceService stripedBalanceService;
+    private final ObjectMapper objectMapper;
+    private final AccountEventHub accountEventHub;
+    private final AccountEventProperties accountEventProperties;
 
     /**
-     * Constructs a new AccountController with the specified AccountService.
+     * Constructs a new AccountController with the specified services.
      *
-     * @param accountService the account service to be used by this controller
+     * @param accountService         the account service to be used by this controller
+     * @param accountImportService   the service importing accounts in bulk
+     * @param transferService        the service applying single transfers
+     * @param batchTransferService   the service applying batched transfers
+     * @param stripedBalanceService  the service managing striped accounts
+     * @param objectMapper           the mapper writing exported accounts
+     * @param accountEventHub        the hub pushing account changes to their streams
+     * @param accountEventProperties the settings of the account event streams
      */
-    public AccountController(AccountService accountService) {
+    public AccountController(AccountService accountService, AccountImportService accountImportService,
+                             TransferService transferService, BatchTransferService batchTransferService,
+                             StripedBalanceService stripedBalanceService, ObjectMapper objectMapper,
+                             AccountEventHub accountEventHub, AccountEventProperties accountEventProperties) {
         this.accountService = accountService;
+        this.accountImportService = accountImportService;
+        this.transferService = transferService;
+        this.batchTransferService = batchTransferService;
+        this.stripedBalanceService = stripedBalanceService;
+        this.objectMapper = objectMapper;
+        this.accountEventHub = accountEventHub;
+        this.accountEventProperties = accountEventProperties;
     }
 
     /**
@@ -54,16 +106,73 @@ public class AccountController {
     }
 
     /**
-     * Retrieves a list of all accounts.
+     * Creates one account per line of a CSV or newline-delimited JSON upload.
+     * The upload is read as it arrives, so it is never held in memory.
      *
-     * @return a ResponseEntity containing the list of all accounts
+     * @param importId    the client-chosen ID of the import; sending the upload again with it resumes the import
+     * @param contentType the format of the upload, {@code text/csv} or {@code application/x-ndjson}
+     * @param upload      the upload
+     * @return a ResponseEntity containing the totals of the import and its rejected lines
+     */
+    @PostMapping("/accounts/import")
+    @Operation(summary = "Import accounts", description = "Creates one account per line of a CSV or NDJSON upload, "
+            + "resuming after the lines already imported under the same Import-Id.")
+    @ApiResponse(responseCode = "200", description = "Upload imported; rejected lines are listed in the response")
+    @ApiResponse(responseCode = "400", description = "Missing Import-Id, unsupported format or CSV header without a balance column")
+    @ApiResponse(responseCode = "409", description = "Import already running or finished")
+    public ResponseEntity<AccountImportResponse> importAccounts(
+            @RequestHeader(value = "Import-Id", required = false)
+            @Parameter(description = "Client-chosen ID of the import; resending the upload with it resumes the import") String importId,
+            @RequestHeader(value = "Content-Type", required = false) String contentType,
+            InputStream upload) {
+        AccountImportResponse response = accountImportService.importAccounts(
+                importId, AccountImportService.formatOf(contentType), upload);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Retrieves one page of accounts, ordered by ID.
+     *
+     * @param cursor the cursor returned with the previous page, omitted for the first page
+     * @param limit  the maximum number of accounts to return
+     * @return a ResponseEntity containing the page of accounts and the cursor of the next page
      */
     @GetMapping("/accounts")
-    @Operation(summary = "Retrieve all accounts", description = "Fetches a list of all accounts.")
+    @Operation(summary = "Retrieve accounts", description = "Fetches a page of accounts, ordered by ID.")
     @ApiResponse(responseCode = "200", description = "Accounts retrieved successfully")
-    public ResponseEntity<List<AccountDTO>> getAllAccounts() {
-        List<AccountDTO> accountDTOs = accountService.getAllAccounts();
-        return ResponseEntity.ok(accountDTOs);
+    @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
+    public ResponseEntity<CursorPage<AccountDTO>> getAllAccounts(
+            @RequestParam(required = false) @Parameter(description = "Cursor of the page to fetch") String cursor,
+            @RequestParam(defaultValue = "" + AccountService.DEFAULT_PAGE_SIZE)
+            @Parameter(description = "Maximum number of accounts to return") int limit) {
+        CursorPage<AccountDTO> page = accountService.getAccounts(cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Exports all accounts as newline-delimited JSON, one account per line.
+     * Accounts are written as they are read from the database, so the response is never held in memory.
+     *
+     * @return a ResponseEntity streaming all accounts
+     */
+    @GetMapping(value = "/accounts/export", produces = NDJSON)
+    @Operation(summary = "Export all accounts", description = "Streams all accounts as newline-delimited JSON.")
+    @ApiResponse(responseCode = "200", description = "Accounts exported successfully")
+    public ResponseEntity<StreamingResponseBody> exportAccounts() {
+        StreamingResponseBody body = outputStream -> {
+            try (SequenceWriter writer = objectMapper.writer()
+                    .withRootValueSeparator("\n")
+                    .writeValues(outputStream)) {
+                accountService.exportAccounts(account -> {
+                    try {
+                        writer.write(account);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
     }
 
     /**
@@ -117,15 +226,135 @@ public class AccountController {
         return ResponseEntity.ok("Account deleted");
     }
 
+    /**
+     * Retrieves one page of an account's transactions, sent or received, newest first.
+     *
+     * @param id     the ID of the account
+     * @param cursor the cursor returned with the previous page, omitted for the first page
+     * @param limit  the maximum number of transactions to return
+     * @return a ResponseEntity containing the page of transactions and the cursor of the next page
+     */
+    @GetMapping("/accounts/{id}/transactions")
+    @Operation(summary = "Retrieve account transactions", description = "Fetches a page of an account's transactions, newest first.")
+    @ApiResponse(responseCode = "200", description = "Transactions retrieved successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid cursor or page size")
+    @ApiResponse(responseCode = "404", description = "Account not found")
+    public ResponseEntity<CursorPage<TransactionHistoryDTO>> getAccountTransactions(
+            @PathVariable @Parameter(description = "ID of the account") UUID id,
+            @RequestParam(required = false) @Parameter(description = "Cursor of the page to fetch") String cursor,
+            @RequestParam(defaultValue = "" + AccountService.DEFAULT_PAGE_SIZE)
+            @Parameter(description = "Maximum number of transactions to return") int limit) {
+        CursorPage<TransactionHistoryDTO> page = accountService.getTransactions(id, cursor, limit);
+        return ResponseEntity.ok(page);
+    }
+
+    /**
+     * Retrieves the balance an account had at a point in time.
+     *
+     * @param id   the ID of the account
+     * @param asOf the point in time, as an ISO date-time such as {@code 2024-01-15T12:00:00}
+     * @return a ResponseEntity containing the balance at that time
+     */
+    @GetMapping("/accounts/{id}/balance")
+    @Operation(summary = "Retrieve a past balance", description = "Computes the balance of an account at a point in time.")
+    @ApiResponse(responseCode = "200", description = "Balance computed successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid time, or a time in the future or before the account's history")
+    @ApiResponse(responseCode = "404", description = "Account not found")
+    public ResponseEntity<AccountBalanceDTO> getAccountBalance(
+            @PathVariable @Parameter(description = "ID of the account") UUID id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            @Parameter(description = "Point in time of the balance") LocalDateTime asOf) {
+        AccountBalanceDTO balance = accountService.getBalance(id, asOf);
+        return ResponseEntity.ok(balance);
+    }
+
+    /**
+     * Streams the changes of an account as server-sent events: its current balance first, then a {@code balance}
+     * event after every committed change, and a {@code deleted} event if it is deleted.
+     * The stream ends after {@code account.events.timeout}, and clients reconnect.
+     *
+     * @param id the ID of the account
+     * @return the event stream
+     */
+    @GetMapping(value = "/accounts/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream account changes", description = "Pushes the balance and version of an account after every change.")
+    @ApiResponse(responseCode = "200", description = "Stream opened")
+    @ApiResponse(responseCode = "404", description = "Account not found")
+    public SseEmitter streamAccountEvents(
+            @PathVariable @Parameter(description = "ID of the account") UUID id) {
+        accountService.getAccount(id);
+        SseEmitter emitter = new SseEmitter(accountEventProperties.getTimeout().toMillis());
+        AccountEventHub.Subscription subscription = accountEventHub.subscribe(id, new AccountEventSink() {
+            @Override
+            public void send(AccountEvent event) throws IOException {
+                if (event.isHeartbeat()) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else {
+                    emitter.send(SseEmitter.event().name(event.name()).data(event.data(), MediaType.APPLICATION_JSON));
+                }
+            }
+
+            @Override
+            public void close() {
+                emitter.complete();
+            }
+        });
+        emitter.onCompletion(subscription::cancel);
+        emitter.onError(ex -> subscription.cancel());
+        return emitter;
+    }
+
+    /**
+     * Spreads the balance of a high fan-in account over several sub-balance rows,
+     * so concurrent transfers to it no longer serialize on a single row.
+     *
+     * @param id    the ID of the account to stripe
+     * @param count the number of stripes
+     * @return a ResponseEntity containing the account details
+     */
+    @PostMapping("/accounts/{id}/stripes")
+    @Operation(summary = "Stripe an account", description = "Spreads the balance of a hot account over several sub-balances.")
+    @ApiResponse(responseCode = "200", description = "Account striped successfully")
+    @ApiResponse(responseCode = "400", description = "Invalid stripe count or account already striped")
+    @ApiResponse(responseCode = "404", description = "Account not found")
+    public ResponseEntity<AccountDTO> stripeAccount(
+            @PathVariable @Parameter(description = "ID of the account to stripe") UUID id,
+            @RequestParam @Parameter(description = "Number of stripes") int count) {
+        AccountDTO accountDTO = stripedBalanceService.stripeAccount(id, count);
+        return ResponseEntity.ok(accountDTO);
+    }
+
     @PostMapping("/transfer")
     @Operation(summary = "Transfer money between accounts", description = "Transfers money from one account to another.")
     @ApiResponse(responseCode = "200", description = "Transfer successful")
     @ApiResponse(responseCode = "400", description = "Invalid request details")
     @ApiResponse(responseCode = "404", description = "Account not found")
+    @ApiResponse(responseCode = "409", description = "Transfer kept conflicting with concurrent transfers, or idempotency key reused for a different transfer")
+    @ApiResponse(responseCode = "429", description = "Velocity limit of the source account exceeded")
     @ApiResponse(responseCode = "500", description = "Internal server error")
     public ResponseEntity<TransferResponse> transferMoney(
-            @Valid @RequestBody @Parameter(description = "Details of the transfer request") TransactionDTO request) {
-        TransferResponse response = accountService.transferMoney(request);
+            @Valid @RequestBody @Parameter(description = "Details of the transfer request") TransactionDTO request,
+            @RequestHeader(value = "Idempotency-Key", required = false)
+            @Parameter(description = "Client-chosen key; retries with the same key are applied only once") String idempotencyKey) {
+        TransferResponse response = transferService.transfer(request, idempotencyKey);
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Applies a batch of transfers in chunked transactions.
+     * Every transfer gets its own result, so a rejected transfer does not fail the rest of the batch. A batch larger
+     * than {@code transfer.batch.max-size}, or holding a transfer that misses a required field, is rejected whole.
+     *
+     * @param requests the transfers to apply, in order
+     * @return a ResponseEntity containing one result per transfer
+     */
+    @PostMapping("/transfers/batch")
+    @Operation(summary = "Transfer money in batch", description = "Applies a list of transfers and reports a result per transfer.")
+    @ApiResponse(responseCode = "200", description = "Batch processed")
+    @ApiResponse(responseCode = "400", description = "Missing, empty or oversized batch, or a transfer without its accounts or amount")
+    public ResponseEntity<BatchTransferResponse> transferBatch(
+            @Valid @RequestBody @Parameter(description = "Transfers to apply") List<TransactionDTO> requests) {
+        BatchTransferResponse response = batchTransferService.transferBatch(requests);
         return ResponseEntity.ok(response);
     }
 }
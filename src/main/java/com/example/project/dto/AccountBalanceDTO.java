@@ -0,0 +1,14 @@
+package com.example.project.dto;
+
+import com.example.project.enums.Currency;
+import com.example.project.money.Money;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record AccountBalanceDTO(
+        UUID accountId,
+        Money balance,
+        Currency currency,
+        LocalDateTime asOf
+) {}
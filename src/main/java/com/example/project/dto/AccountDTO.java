@@ -1,14 +1,14 @@
 package com.example.project.dto;
 
+import com.example.project.money.Money;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.UUID;
 
 public record AccountDTO(
         UUID id,
-        @NotNull BigDecimal balance,
+        @NotNull Money balance,
         int version
 ) {}
\ No newline at end of file
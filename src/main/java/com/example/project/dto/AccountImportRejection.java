@@ -0,0 +1,6 @@
+package com.example.project.dto;
+
+public record AccountImportRejection(
+        long line,
+        String message
+) {}
@@ -0,0 +1,12 @@
+package com.example.project.dto;
+
+import java.util.List;
+
+public record AccountImportResponse(
+        String importId,
+        long resumedAfterLine,
+        long lines,
+        long imported,
+        long rejected,
+        List<AccountImportRejection> rejections
+) {}
@@ -0,0 +1,9 @@
+package com.example.project.dto;
+
+import java.util.List;
+
+public record BatchTransferResponse(
+        int applied,
+        int rejected,
+        List<BatchTransferResult> results
+) {}
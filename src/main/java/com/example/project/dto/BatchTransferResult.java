@@ -0,0 +1,15 @@
+package com.example.project.dto;
+
+import com.example.project.enums.BatchTransferStatus;
+import com.example.project.money.Money;
+
+import java.util.UUID;
+
+public record BatchTransferResult(
+        int index,
+        UUID sourceAccountId,
+        UUID targetAccountId,
+        Money amount,
+        BatchTransferStatus status,
+        String message
+) {}
@@ -1,16 +1,16 @@
 package com.example.project.dto;
 
 import com.example.project.enums.Currency;
+import com.example.project.money.Money;
 import jakarta.validation.constraints.NotNull;
 
-import java.math.BigDecimal;
 import java.util.UUID;
 
 
 public record TransactionDTO(
         @NotNull UUID sourceAccountId,
         @NotNull UUID targetAccountId,
-        @NotNull BigDecimal amount,
+        @NotNull Money amount,
         Currency currency,
         int version
 ){}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.example.project.dto;
+
+import com.example.project.enums.Currency;
+import com.example.project.money.Money;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record TransactionHistoryDTO(
+        UUID id,
+        UUID sourceAccountId,
+        UUID targetAccountId,
+        Money amount,
+        Currency currency,
+        LocalDateTime createdAt
+) {}
@@ -1,9 +1,10 @@
 package com.example.project.dto;
 
-import java.math.BigDecimal;
+import com.example.project.money.Money;
+
 import java.util.UUID;
 
 public record TransferResponse(
         String status,
-        BigDecimal amount
+        Money amount
 ) {}
\ No newline at end of file
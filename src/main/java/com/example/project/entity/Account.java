@@ -1,12 +1,13 @@
 package com.example.project.entity;
 
+import com.example.project.entity.id.GeneratedUuid;
 import com.example.project.enums.Currency;
+import com.example.project.money.Money;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.Objects;
 import java.util.UUID;
@@ -17,11 +18,11 @@ import java.util.UUID;
 @Entity
 public class Account {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedUuid
     private UUID id; // Use UUID for the id field
 
     @NotNull
-    private BigDecimal balance;
+    private Money balance;
 
     @Enumerated(EnumType.STRING)
     private final Currency currency = Currency.GBP; // Set default and only value to GBP
@@ -32,6 +33,16 @@ public class Account {
     @Version
     private int version;
 
+    /**
+     * Number of sub-balance rows the balance is spread over, 0 for a plain account.
+     * The balance column of a striped account stays 0, see {@link AccountBalanceStripe}.
+     */
+    private int stripeCount;
+
+    public boolean isStriped() {
+        return stripeCount > 0;
+    }
+
     @PrePersist
     protected void onCreate() {
         this.createdAt = LocalDateTime.now();
@@ -0,0 +1,43 @@
+package com.example.project.entity;
+
+import com.example.project.money.Money;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * One sub-balance of a striped account.
+ * Credits to a high fan-in account are spread over its stripes, so concurrent transfers
+ * lock different rows instead of queueing on the single account row.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+public class AccountBalanceStripe {
+    @EmbeddedId
+    private StripeId id;
+
+    @NotNull
+    private Money balance;
+
+    private int version;
+
+    public AccountBalanceStripe(UUID accountId, int stripe, Money balance) {
+        this.id = new StripeId(accountId, stripe);
+        this.balance = balance;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Embeddable
+    public static class StripeId implements Serializable {
+        private UUID accountId;
+        private int stripe;
+    }
+}
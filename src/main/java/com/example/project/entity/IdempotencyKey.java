@@ -0,0 +1,69 @@
+package com.example.project.entity;
+
+import com.example.project.money.Money;
+import jakarta.persistence.*;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+/**
+ * The stored outcome of a transfer submitted with an {@code Idempotency-Key} header.
+ * Keys are only ever inserted, so the entity reports itself as new and is persisted without a prior select.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+public class IdempotencyKey implements Persistable<String> {
+    @Id
+    private String idempotencyKey;
+
+    @NotNull
+    private String requestHash;
+
+    @NotNull
+    private String status;
+
+    private Money amount;
+
+    @NotNull
+    private LocalDateTime createdAt;
+
+    public IdempotencyKey(String idempotencyKey, String requestHash, String status, Money amount) {
+        this.idempotencyKey = idempotencyKey;
+        this.requestHash = requestHash;
+        this.status = status;
+        this.amount = amount;
+    }
+
+    @Override
+    public String getId() {
+        return idempotencyKey;
+    }
+
+    @Override
+    public boolean isNew() {
+        return true;
+    }
+
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        IdempotencyKey that = (IdempotencyKey) o;
+        return Objects.equals(idempotencyKey, that.idempotencyKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(idempotencyKey);
+    }
+}
@@ -1,12 +1,14 @@
 package com.example.project.entity;
 
+import com.example.project.entity.id.GeneratedUuid;
 import com.example.project.enums.Currency;
+import com.example.project.money.Money;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
-import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.Objects;
 import java.util.UUID;
 
@@ -15,7 +17,7 @@ import java.util.UUID;
 @Entity
 public class Transaction {
     @Id
-    @GeneratedValue(strategy = GenerationType.AUTO)
+    @GeneratedUuid
     private UUID id;
 
     @NotNull
@@ -25,14 +27,22 @@ public class Transaction {
     private UUID targetAccountId;
 
     @NotNull
-    private BigDecimal amount;
+    private Money amount;
 
     @Enumerated(EnumType.STRING)
     private final Currency currency = Currency.GBP; // Set default and only value to GBP
 
+    @NotNull
+    private LocalDateTime createdAt;
+
     @Version
     private int version;
 
+    @PrePersist
+    protected void onCreate() {
+        this.createdAt = LocalDateTime.now();
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
@@ -0,0 +1,43 @@
+package com.example.project.entity.id;
+
+import com.example.project.config.IdProperties;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.EventTypeSets;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+
+import java.lang.reflect.Member;
+import java.util.EnumSet;
+
+/**
+ * Hibernate generator behind {@link GeneratedUuid}. The style of each entity is looked up once, when the
+ * persistence unit is built, from the {@link IdProperties} placed in the Hibernate settings.
+ */
+public class GeneratedUuidGenerator implements BeforeExecutionGenerator {
+
+    /**
+     * Hibernate setting holding the {@link IdProperties}.
+     */
+    public static final String ID_PROPERTIES = "com.example.project.ids";
+
+    private final IdStyle style;
+
+    public GeneratedUuidGenerator(GeneratedUuid annotation, Member member, CustomIdGeneratorCreationContext context) {
+        Object settings = context.getServiceRegistry().requireService(ConfigurationService.class)
+                .getSettings().get(ID_PROPERTIES);
+        IdProperties idProperties = settings instanceof IdProperties properties ? properties : new IdProperties();
+        this.style = idProperties.styleOf(context.getRootClass().getJpaEntityName());
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return style.next();
+    }
+
+    @Override
+    public EnumSet<EventType> getEventTypes() {
+        return EventTypeSets.INSERT_ONLY;
+    }
+}
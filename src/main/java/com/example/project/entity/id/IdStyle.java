@@ -0,0 +1,34 @@
+package com.example.project.entity.id;
+
+import java.util.UUID;
+
+/**
+ * How new entity IDs are generated.
+ */
+public enum IdStyle {
+
+    /**
+     * Time-ordered version 7 UUIDs; new rows are inserted next to each other in the primary key index.
+     */
+    TIME_ORDERED {
+        @Override
+        public UUID next() {
+            return UuidV7.next();
+        }
+    },
+
+    /**
+     * Random version 4 UUIDs; new rows are spread over the whole primary key index.
+     */
+    RANDOM {
+        @Override
+        public UUID next() {
+            return UUID.randomUUID();
+        }
+    };
+
+    /**
+     * @return a new ID of this style
+     */
+    public abstract UUID next();
+}
@@ -0,0 +1,59 @@
+package com.example.project.entity.id;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates time-ordered version 7 UUIDs as defined by RFC 9562.
+ * <p>
+ * The first 48 bits are the Unix time in milliseconds and the next 12 bits a counter, so IDs generated by
+ * this JVM are strictly increasing, even within a millisecond and when the clock steps back. When more than
+ * 4096 IDs are generated in one millisecond the counter carries into the timestamp, which briefly runs ahead of
+ * the clock. The remaining 62 bits are random. They come from {@link ThreadLocalRandom}, so an ID is unique but
+ * not a secret.
+ * <p>
+ * Inserts of increasing keys append to the right edge of a B-tree index instead of splitting pages all over it.
+ */
+public final class UuidV7 {
+
+    private static final int COUNTER_BITS = 12;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+    private static final long VERSION = 0x7000L;
+    private static final long VARIANT = 0x8000_0000_0000_0000L;
+
+    /**
+     * The last timestamp and counter handed out, as {@code millis << 12 | counter}.
+     */
+    private static final AtomicLong last = new AtomicLong();
+
+    private UuidV7() {
+    }
+
+    /**
+     * @return a new UUID, greater than every UUID previously returned by this JVM
+     */
+    public static UUID next() {
+        long now = System.currentTimeMillis() << COUNTER_BITS;
+        long previous;
+        long current;
+        do {
+            previous = last.get();
+            current = Math.max(now, previous + 1);
+        } while (!last.compareAndSet(previous, current));
+
+        long mostSigBits = (current >>> COUNTER_BITS) << 16 | VERSION | (current & COUNTER_MASK);
+        long leastSigBits = ThreadLocalRandom.current().nextLong() >>> 2 | VARIANT;
+        return new UUID(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * @return the Unix time in milliseconds embedded in a version 7 UUID
+     */
+    public static long timestampOf(UUID uuid) {
+        if (uuid.version() != 7) {
+            throw new IllegalArgumentException("Not a version 7 UUID: " + uuid);
+        }
+        return uuid.getMostSignificantBits() >>> 16;
+    }
+}
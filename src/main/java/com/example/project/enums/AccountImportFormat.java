@@ -0,0 +1,6 @@
+package com.example.project.enums;
+
+public enum AccountImportFormat {
+    CSV,
+    NDJSON,
+}
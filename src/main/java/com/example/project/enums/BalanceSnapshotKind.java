@@ -0,0 +1,7 @@
+package com.example.project.enums;
+
+public enum BalanceSnapshotKind {
+    OPENING,
+    ADJUSTMENT,
+    SCHEDULED,
+}
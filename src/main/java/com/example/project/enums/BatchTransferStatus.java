@@ -0,0 +1,10 @@
+package com.example.project.enums;
+
+public enum BatchTransferStatus {
+    APPLIED,
+    INSUFFICIENT_FUNDS,
+    ACCOUNT_NOT_FOUND,
+    INVALID_REQUEST,
+    LIMIT_EXCEEDED,
+    FAILED,
+}
@@ -0,0 +1,9 @@
+package com.example.project.enums;
+
+public enum TransferStrategy {
+    OPTIMISTIC,
+    ATOMIC_UPDATE,
+    PESSIMISTIC_LOCK,
+    SHARDED,
+    GROUP_COMMIT,
+}
@@ -0,0 +1,7 @@
+package com.example.project.exception;
+
+public class CustomConflictException extends RuntimeException {
+    public CustomConflictException(String message) {
+        super(message);
+    }
+}
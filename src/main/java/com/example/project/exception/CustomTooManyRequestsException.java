@@ -0,0 +1,17 @@
+package com.example.project.exception;
+
+import java.time.Duration;
+
+public class CustomTooManyRequestsException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public CustomTooManyRequestsException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,7 @@
+package com.example.project.exception;
+
+public class InsufficientFundsException extends CustomBadRequestException {
+    public InsufficientFundsException() {
+        super("Insufficient balance in the source account.");
+    }
+}
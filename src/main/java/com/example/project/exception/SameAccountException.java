@@ -0,0 +1,7 @@
+package com.example.project.exception;
+
+public class SameAccountException extends CustomBadRequestException {
+    public SameAccountException() {
+        super("Source and target account IDs cannot be the same.");
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.project.exception;
+
+import java.time.Duration;
+
+public class VelocityLimitExceededException extends CustomTooManyRequestsException {
+    public VelocityLimitExceededException(String limit, Duration retryAfter) {
+        super("Transfer limit of the source account exceeded: " + limit + ".", retryAfter);
+    }
+}
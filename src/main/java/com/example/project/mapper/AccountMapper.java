@@ -1,14 +1,22 @@
 package com.example.project.mapper;
 
-
 import com.example.project.dto.AccountDTO;
 import com.example.project.entity.Account;
+import com.example.project.money.Money;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.factory.Mappers;
 
 @Mapper(componentModel = "spring")
 public interface AccountMapper {
 
     AccountDTO toDto(Account accountEntity);
+
+    /**
+     * Maps an account whose balance is not held in the entity, such as a striped account.
+     */
+    @Mapping(target = "balance", source = "balance")
+    AccountDTO toDto(Account accountEntity, Money balance);
+
     Account toEntity(AccountDTO accountDTO);
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+package com.example.project.money;
+
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.math.BigDecimal;
+
+/**
+ * An amount of GBP held as a {@code long} number of pence.
+ * Arithmetic is exact and throws {@link ArithmeticException} on overflow instead of wrapping around.
+ * Decimal input with non-zero digits beyond the pence is rejected, never rounded, so an amount is
+ * never silently changed. In JSON an amount is a plain number such as {@code 10.50}.
+ *
+ * @param minorUnits the amount in pence
+ */
+@Schema(type = "number", example = "10.50")
+@JsonSerialize(using = MoneyJson.Serializer.class)
+@JsonDeserialize(using = MoneyJson.Deserializer.class)
+public record Money(long minorUnits) implements Comparable<Money> {
+
+    /**
+     * Number of decimal places of an amount.
+     */
+    public static final int SCALE = 2;
+
+    public static final Money ZERO = new Money(0);
+
+    private static final int MINOR_PER_MAJOR = 100;
+
+    /**
+     * @return the amount of the given number of pence
+     */
+    public static Money ofMinor(long minorUnits) {
+        return minorUnits == 0 ? ZERO : new Money(minorUnits);
+    }
+
+    /**
+     * Converts a decimal amount exactly.
+     *
+     * @throws ArithmeticException if the amount has non-zero digits beyond the pence or does not fit in a {@code long}
+     */
+    public static Money of(BigDecimal amount) {
+        try {
+            return ofMinor(amount.movePointRight(SCALE).longValueExact());
+        } catch (ArithmeticException ex) {
+            throw new ArithmeticException("Amount must be a whole number of pence within range: " + amount.toPlainString());
+        }
+    }
+
+    /**
+     * Parses a decimal amount such as {@code 10}, {@code -0.5} or {@code 1234.50} without going through {@link BigDecimal}.
+     * Exponent notation is accepted as well.
+     *
+     * @throws NumberFormatException if the text is not a decimal number
+     * @throws ArithmeticException   if the amount has non-zero digits beyond the pence or does not fit in a {@code long}
+     */
+    public static Money parse(CharSequence text) {
+        int length = text.length();
+        int index = 0;
+        boolean negative = false;
+        if (length > 0 && (text.charAt(0) == '-' || text.charAt(0) == '+')) {
+            negative = text.charAt(0) == '-';
+            index++;
+        }
+        long minor = 0;
+        int digits = 0;
+        int decimals = -1;
+        for (; index < length; index++) {
+            char c = text.charAt(index);
+            if (c == '.' && decimals < 0) {
+                decimals = 0;
+            } else if (c >= '0' && c <= '9') {
+                digits++;
+                if (decimals >= SCALE) {
+                    if (c != '0') {
+                        throw new ArithmeticException("Amount must be a whole number of pence: " + text);
+                    }
+                    continue;
+                }
+                minor = Math.addExact(Math.multiplyExact(minor, 10), c - '0');
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else if (c == 'e' || c == 'E') {
+                return of(new BigDecimal(text.toString()));
+            } else {
+                throw new NumberFormatException("Not a decimal amount: " + text);
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Not a decimal amount: " + text);
+        }
+        for (int scale = Math.max(decimals, 0); scale < SCALE; scale++) {
+            minor = Math.multiplyExact(minor, 10);
+        }
+        return ofMinor(negative ? -minor : minor);
+    }
+
+    public Money plus(Money other) {
+        return ofMinor(Math.addExact(minorUnits, other.minorUnits));
+    }
+
+    public Money minus(Money other) {
+        return ofMinor(Math.subtractExact(minorUnits, other.minorUnits));
+    }
+
+    public Money negate() {
+        return ofMinor(Math.negateExact(minorUnits));
+    }
+
+    public boolean isZero() {
+        return minorUnits == 0;
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    public boolean isNegative() {
+        return minorUnits < 0;
+    }
+
+    public boolean isLessThan(Money other) {
+        return minorUnits < other.minorUnits;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    /**
+     * @return the amount as a decimal with a scale of {@value #SCALE}, for JDBC and other decimal APIs
+     */
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    /**
+     * @return the amount as a plain decimal with two decimal places, such as {@code -0.50}
+     */
+    @Override
+    public String toString() {
+        long major = minorUnits / MINOR_PER_MAJOR;
+        int minor = (int) Math.abs(minorUnits % MINOR_PER_MAJOR);
+        StringBuilder text = new StringBuilder(24);
+        if (minorUnits < 0 && major == 0) {
+            text.append('-');
+        }
+        text.append(major).append('.');
+        if (minor < 10) {
+            text.append('0');
+        }
+        return text.append(minor).toString();
+    }
+}
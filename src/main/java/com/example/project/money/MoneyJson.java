@@ -0,0 +1,48 @@
+package com.example.project.money;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+
+/**
+ * JSON codec of {@link Money}, reading and writing amounts as plain JSON numbers with no intermediate {@code BigDecimal}.
+ */
+final class MoneyJson {
+
+    private MoneyJson() {
+    }
+
+    static final class Serializer extends JsonSerializer<Money> {
+
+        @Override
+        public void serialize(Money value, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(value.toString());
+        }
+    }
+
+    /**
+     * Accepts JSON numbers and numeric strings. Amounts with non-zero digits beyond the pence are rejected.
+     */
+    static final class Deserializer extends JsonDeserializer<Money> {
+
+        @Override
+        public Money deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.currentToken();
+            if (token != JsonToken.VALUE_NUMBER_INT && token != JsonToken.VALUE_NUMBER_FLOAT && token != JsonToken.VALUE_STRING) {
+                return (Money) ctxt.handleUnexpectedToken(Money.class, p);
+            }
+            String text = p.getText().trim();
+            try {
+                return Money.parse(text);
+            } catch (ArithmeticException | NumberFormatException ex) {
+                return (Money) ctxt.handleWeirdStringValue(Money.class, text, ex.getMessage());
+            }
+        }
+    }
+}
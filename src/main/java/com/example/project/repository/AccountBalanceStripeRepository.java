@@ -0,0 +1,53 @@
+package com.example.project.repository;
+
+import com.example.project.entity.AccountBalanceStripe;
+import com.example.project.money.Money;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Stripes are only ever changed through single-statement updates, never through managed entities,
+ * so a stripe row is locked for no longer than the statement touching it needs.
+ */
+@Repository
+public interface AccountBalanceStripeRepository extends JpaRepository<AccountBalanceStripe, AccountBalanceStripe.StripeId> {
+
+    interface StripeBalance {
+        int getStripe();
+
+        BigDecimal getBalance();
+    }
+
+    @Query(value = "select coalesce(sum(balance), 0) from account_balance_stripe where account_id = :accountId",
+            nativeQuery = true)
+    BigDecimal sumBalance(@Param("accountId") UUID accountId);
+
+    /**
+     * Locks every stripe of an account, in stripe order.
+     */
+    @Query(value = "select stripe as stripe, balance as balance from account_balance_stripe " +
+            "where account_id = :accountId order by stripe for update", nativeQuery = true)
+    List<StripeBalance> findAllForUpdate(@Param("accountId") UUID accountId);
+
+    @Modifying
+    @Query("update AccountBalanceStripe s set s.balance = s.balance + :amount, s.version = s.version + 1 " +
+            "where s.id.accountId = :accountId and s.id.stripe = :stripe")
+    int credit(@Param("accountId") UUID accountId, @Param("stripe") int stripe, @Param("amount") Money amount);
+
+    @Modifying
+    @Query("update AccountBalanceStripe s set s.balance = s.balance - :amount, s.version = s.version + 1 " +
+            "where s.id.accountId = :accountId and s.id.stripe = :stripe and s.balance >= :amount")
+    int debitIfSufficient(@Param("accountId") UUID accountId, @Param("stripe") int stripe, @Param("amount") Money amount);
+
+    @Modifying
+    @Query("update AccountBalanceStripe s set s.balance = case when s.id.stripe = 0 then :balance else 0 end, " +
+            "s.version = s.version + 1 where s.id.accountId = :accountId")
+    int overwrite(@Param("accountId") UUID accountId, @Param("balance") Money balance);
+}
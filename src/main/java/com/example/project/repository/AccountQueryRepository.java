@@ -0,0 +1,69 @@
+package com.example.project.repository;
+
+import com.example.project.dto.AccountDTO;
+import com.example.project.money.Money;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Read-only account queries that bypass the persistence context.
+ * Rows are mapped straight to {@link AccountDTO}s, so reading many accounts never
+ * builds up managed entities. The balance of a striped account is the sum of its stripes.
+ */
+@Repository
+public class AccountQueryRepository {
+
+    private static final String SELECT_ACCOUNT =
+            "select a.id, a.version, case when a.stripe_count > 0 " +
+                    "then (select coalesce(sum(s.balance), 0) from account_balance_stripe s where s.account_id = a.id) " +
+                    "else a.balance end as balance " +
+                    "from account a ";
+
+    private static final RowMapper<AccountDTO> ACCOUNT_ROW_MAPPER = (rs, rowNum) -> new AccountDTO(
+            rs.getObject("id", UUID.class),
+            Money.of(rs.getBigDecimal("balance")),
+            rs.getInt("version"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AccountQueryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reads the accounts following the given id, in id order.
+     * Seeks on the primary key index, so every page costs the same no matter how deep it is.
+     *
+     * @param after the id of the last account of the previous page, or null for the first page
+     * @param limit the maximum number of accounts to read
+     */
+    public List<AccountDTO> findPage(UUID after, int limit) {
+        if (after == null) {
+            return jdbcTemplate.query(SELECT_ACCOUNT + "order by a.id limit ?", ACCOUNT_ROW_MAPPER, limit);
+        }
+        return jdbcTemplate.query(SELECT_ACCOUNT + "where a.id > ? order by a.id limit ?", ACCOUNT_ROW_MAPPER, after, limit);
+    }
+
+    /**
+     * Reads all accounts in id order, handing them to the consumer one at a time.
+     * The driver fetches {@code fetchSize} rows per round trip, so memory use does not depend on the
+     * number of accounts. PostgreSQL only honours the fetch size inside a transaction.
+     *
+     * @param fetchSize the number of rows fetched per round trip
+     * @param consumer  receives every account
+     */
+    public void forEach(int fetchSize, Consumer<AccountDTO> consumer) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(SELECT_ACCOUNT + "order by a.id");
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(ACCOUNT_ROW_MAPPER.mapRow(rs, 0)));
+    }
+}
@@ -1,12 +1,86 @@
 package com.example.project.repository;
 
 import com.example.project.entity.Account;
+import com.example.project.money.Money;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 @Repository
 public interface AccountRepository extends JpaRepository<Account, UUID> {
     //Account findByAccountId(String accountId);
+
+    /**
+     * Loads and row-locks all the given accounts in a single statement.
+     * Rows are locked in ascending id order, so callers locking overlapping
+     * sets of accounts always acquire them in the same order and cannot deadlock.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.id in :ids order by a.id")
+    List<Account> findAllByIdForUpdate(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Loads the accounts of a transfer, row-locking only the plain ones.
+     * A striped account keeps its balance in its stripes, which {@link com.example.project.service.StripedBalanceService}
+     * updates and locks one at a time; locking its own row as well would make every transfer to or from it wait for
+     * the others, which is what striping avoids. Accounts are only ever striped, never unstriped, so an account the
+     * locking query skips because it was striped in the meantime is found by the second query.
+     *
+     * @return the accounts found, the plain ones locked in ascending id order
+     */
+    default List<Account> findAllForTransfer(Collection<UUID> ids) {
+        List<Account> accounts = new ArrayList<>(findAllPlainByIdForUpdate(ids));
+        if (accounts.size() < ids.size()) {
+            Set<UUID> remaining = new HashSet<>(ids);
+            accounts.forEach(account -> remaining.remove(account.getId()));
+            if (!remaining.isEmpty()) {
+                accounts.addAll(findAllStripedById(remaining));
+            }
+        }
+        return accounts;
+    }
+
+    /**
+     * Loads and row-locks the given accounts that are not striped, in ascending id order.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from Account a where a.id in :ids and a.stripeCount = 0 order by a.id")
+    List<Account> findAllPlainByIdForUpdate(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Loads the given accounts that are striped, without locking them.
+     */
+    @Query("select a from Account a where a.id in :ids and a.stripeCount > 0")
+    List<Account> findAllStripedById(@Param("ids") Collection<UUID> ids);
+
+    /**
+     * Debits an account in a single conditional update, without reading it first.
+     *
+     * @return 1 if the account was debited, 0 if it does not exist, is striped or its balance is too low
+     */
+    @Modifying
+    @Query("update Account a set a.balance = a.balance - :amount, a.version = a.version + 1 " +
+            "where a.id = :id and a.balance >= :amount and a.stripeCount = 0")
+    int debitIfSufficient(@Param("id") UUID id, @Param("amount") Money amount);
+
+    /**
+     * Credits an account in a single update, without reading it first.
+     *
+     * @return 1 if the account was credited, 0 if it does not exist or is striped
+     */
+    @Modifying
+    @Query("update Account a set a.balance = a.balance + :amount, a.version = a.version + 1 " +
+            "where a.id = :id and a.stripeCount = 0")
+    int credit(@Param("id") UUID id, @Param("amount") Money amount);
 }
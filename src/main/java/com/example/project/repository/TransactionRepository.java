@@ -1,11 +1,57 @@
 package com.example.project.repository;
 
 import com.example.project.entity.Transaction;
+import com.example.project.enums.Currency;
+import com.example.project.money.Money;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
-}
\ No newline at end of file
+
+    /**
+     * Reads the newest transactions sent by an account, older than the given position and not older than {@code from}.
+     * A keyset seek on the (source_account_id, created_at, id) index, so a page costs the same
+     * no matter how long the history is. On a partitioned table only the partitions between {@code from}
+     * and the position are read.
+     */
+    @Query("select t.id as id, t.sourceAccountId as sourceAccountId, t.targetAccountId as targetAccountId, " +
+            "t.amount as amount, t.currency as currency, t.createdAt as createdAt from Transaction t " +
+            "where t.sourceAccountId = :accountId and t.createdAt >= :from and t.createdAt <= :createdAt " +
+            "and (t.createdAt < :createdAt or t.id < :id) " +
+            "order by t.createdAt desc, t.id desc")
+    List<TransactionView> findSentBefore(@Param("accountId") UUID accountId, @Param("from") LocalDateTime from,
+                                         @Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id, Limit limit);
+
+    /**
+     * Reads the newest transactions received by an account, older than the given position and not older than {@code from}.
+     * A keyset seek on the (target_account_id, created_at, id) index.
+     */
+    @Query("select t.id as id, t.sourceAccountId as sourceAccountId, t.targetAccountId as targetAccountId, " +
+            "t.amount as amount, t.currency as currency, t.createdAt as createdAt from Transaction t " +
+            "where t.targetAccountId = :accountId and t.createdAt >= :from and t.createdAt <= :createdAt " +
+            "and (t.createdAt < :createdAt or t.id < :id) " +
+            "order by t.createdAt desc, t.id desc")
+    List<TransactionView> findReceivedBefore(@Param("accountId") UUID accountId, @Param("from") LocalDateTime from,
+                                             @Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id,
+                                             Limit limit);
+
+    /**
+     * The columns of a transaction listed in an account's history, read without loading the entity.
+     */
+    interface TransactionView {
+        UUID getId();
+        UUID getSourceAccountId();
+        UUID getTargetAccountId();
+        Money getAmount();
+        Currency getCurrency();
+        LocalDateTime getCreatedAt();
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.project.service;
+
+import com.example.project.config.AccountImportProperties;
+import com.example.project.dto.AccountImportResponse;
+import com.example.project.enums.AccountImportFormat;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Imports the file named by {@code account.import.file} once the application has started, then stops it.
+ * Run with the {@code import} profile, which starts no web server. Running it again for the same import ID
+ * resumes the import after its last committed line.
+ */
+@Component
+@ConditionalOnProperty(name = "account.import.file")
+public class AccountImportRunner implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountImportRunner.class);
+
+    private final AccountImportService accountImportService;
+    private final AccountImportProperties properties;
+    private final ConfigurableApplicationContext context;
+
+    /**
+     * Constructs an AccountImportRunner.
+     *
+     * @param accountImportService the service importing the file
+     * @param properties           the import settings naming the file
+     * @param context              the application context, closed once the file is imported
+     */
+    public AccountImportRunner(AccountImportService accountImportService, AccountImportProperties properties,
+                               ConfigurableApplicationContext context) {
+        this.accountImportService = accountImportService;
+        this.properties = properties;
+        this.context = context;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        Path file = Path.of(properties.getFile());
+        String importId = properties.getId() != null ? properties.getId() : file.getFileName().toString();
+        AccountImportResponse response;
+        try (InputStream upload = Files.newInputStream(file)) {
+            response = accountImportService.importAccounts(importId, formatOf(file), upload);
+        }
+        response.rejections().forEach(rejection ->
+                log.warn("Line {} of {} rejected: {}", rejection.line(), file, rejection.message()));
+        if (response.rejected() > response.rejections().size()) {
+            log.warn("{} more rejected lines of import {} are listed in account_import_rejection",
+                    response.rejected() - response.rejections().size(), importId);
+        }
+        // Scheduled jobs would keep the JVM running
+        System.exit(SpringApplication.exit(context));
+    }
+
+    private static AccountImportFormat formatOf(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (name.endsWith(".csv")) {
+            return AccountImportFormat.CSV;
+        }
+        if (name.endsWith(".ndjson") || name.endsWith(".jsonl")) {
+            return AccountImportFormat.NDJSON;
+        }
+        throw new IllegalArgumentException("Accounts are imported from .csv or .ndjson files, not " + file);
+    }
+}
@@ -0,0 +1,426 @@
+package com.example.project.service;
+
+import com.example.project.config.AccountImportProperties;
+import com.example.project.config.IdProperties;
+import com.example.project.dto.AccountDTO;
+import com.example.project.dto.AccountImportRejection;
+import com.example.project.dto.AccountImportResponse;
+import com.example.project.entity.id.IdStyle;
+import com.example.project.enums.AccountImportFormat;
+import com.example.project.enums.BalanceSnapshotKind;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.CustomConflictException;
+import com.example.project.money.Money;
+import com.example.project.service.snapshot.BalanceSnapshots;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Service class for creating many accounts from one streamed upload, one account per line.
+ * <p>
+ * The upload is read line by line and never held in memory: lines are grouped into chunks, up to
+ * {@code parallelism} chunks are validated at the same time on a worker pool while the next ones are read, and the
+ * valid lines of every chunk are written in order, each chunk in its own database transaction. Account IDs are
+ * generated here rather than by Hibernate, and the accounts and their opening checkpoints are inserted with JDBC
+ * batches, which the PostgreSQL driver rewrites into multi-row inserts.
+ * <p>
+ * Each chunk commits together with the number of its last line in {@code account_import}. Sending the same upload
+ * again under the same import ID skips the lines already committed, so an import that failed halfway resumes where
+ * it stopped and no account is created twice. Invalid lines are rejected one by one, kept with their line number
+ * and reason in {@code account_import_rejection}, and never fail the rest of their chunk.
+ */
+@Service
+public class AccountImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountImportService.class);
+
+    private static final int MAX_IMPORT_ID_LENGTH = 255;
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+    private static final String BALANCE_COLUMN = "balance";
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv");
+    private static final MediaType NDJSON = MediaType.APPLICATION_NDJSON;
+    private static final String INSERT_ACCOUNT =
+            "insert into account (id, balance, currency, created_at, version, stripe_count) values (?, ?, 'GBP', ?, 0, 0)";
+
+    /**
+     * Lines of the upload, the first one numbered {@code firstLine}; blank lines are kept to keep the numbering.
+     */
+    private record RawChunk(long firstLine, List<String> lines) {
+    }
+
+    /**
+     * The valid balances of a chunk, in line order, and its rejected lines.
+     */
+    private record ValidatedChunk(long lastLine, List<Money> balances, List<AccountImportRejection> rejections) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BalanceSnapshots balanceSnapshots;
+    private final ObjectMapper objectMapper;
+    private final AccountImportProperties properties;
+    private final IdStyle accountIds;
+    private final ExecutorService validators;
+
+    /**
+     * Constructs an AccountImportService.
+     *
+     * @param jdbcTemplate        the template inserting accounts and tracking imports
+     * @param transactionTemplate the template running every chunk in its own transaction
+     * @param balanceSnapshots    the balance checkpoints receiving the opening balances
+     * @param objectMapper        the mapper reading NDJSON lines
+     * @param properties          the import settings
+     * @param idProperties        the ID settings, whose account style names the imported accounts
+     */
+    public AccountImportService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                BalanceSnapshots balanceSnapshots, ObjectMapper objectMapper,
+                                AccountImportProperties properties, IdProperties idProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.balanceSnapshots = balanceSnapshots;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.accountIds = idProperties.styleOf("account");
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("account-import-");
+        threadFactory.setDaemon(true);
+        this.validators = Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()), threadFactory);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        validators.shutdownNow();
+    }
+
+    /**
+     * Imports one account per line of an upload, or resumes an earlier import of the same upload.
+     * A CSV upload starts with a header line naming a {@code balance} column; other columns are ignored. Fields
+     * may be quoted as in RFC 4180, except that a quoted field cannot span lines.
+     * An NDJSON upload holds one account object per line, as accepted by {@code POST /api/accounts}.
+     *
+     * @param importId the client-chosen ID of the import; sending the upload again with it resumes the import
+     * @param format   the format of the upload
+     * @param upload   the upload, read up to its end but not closed
+     * @return the totals of the whole import and its first rejected lines
+     * @throws CustomBadRequestException if the import ID is missing or the CSV header is invalid or has no balance column
+     * @throws CustomConflictException   if the same import is running in another request
+     */
+    public AccountImportResponse importAccounts(String importId, AccountImportFormat format, InputStream upload) {
+        if (importId == null || importId.isBlank() || importId.length() > MAX_IMPORT_ID_LENGTH) {
+            throw new CustomBadRequestException("An import ID of 1 to " + MAX_IMPORT_ID_LENGTH + " characters is required.");
+        }
+        long resumedAfter = begin(importId);
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        int parallelism = Math.max(1, properties.getParallelism());
+        Deque<Future<ValidatedChunk>> pending = new ArrayDeque<>();
+        long line = 0;
+        long committed = resumedAfter;
+        boolean completed = false;
+        try {
+            BufferedReader reader = new BufferedReader(new InputStreamReader(upload, StandardCharsets.UTF_8));
+            int balanceColumn = -1;
+            if (format == AccountImportFormat.CSV) {
+                String header = reader.readLine();
+                line++;
+                try {
+                    balanceColumn = header == null ? -1 : balanceColumn(header);
+                } catch (IllegalArgumentException ex) {
+                    throw new CustomBadRequestException("Invalid CSV header: " + ex.getMessage());
+                }
+                if (balanceColumn < 0) {
+                    throw new CustomBadRequestException("The CSV header must name a " + BALANCE_COLUMN + " column.");
+                }
+            }
+            int column = balanceColumn;
+            List<String> lines = new ArrayList<>(chunkSize);
+            long firstLine = Math.max(line, resumedAfter) + 1;
+            String text;
+            while ((text = reader.readLine()) != null) {
+                if (++line <= resumedAfter) {
+                    continue;
+                }
+                lines.add(text);
+                if (lines.size() == chunkSize) {
+                    RawChunk chunk = new RawChunk(firstLine, lines);
+                    pending.add(validators.submit(() -> validate(chunk, format, column)));
+                    if (pending.size() > parallelism) {
+                        committed = write(importId, committed, pending.poll().get());
+                    }
+                    lines = new ArrayList<>(chunkSize);
+                    firstLine = line + 1;
+                }
+            }
+            if (!lines.isEmpty()) {
+                RawChunk chunk = new RawChunk(firstLine, lines);
+                pending.add(validators.submit(() -> validate(chunk, format, column)));
+            }
+            while (!pending.isEmpty()) {
+                committed = write(importId, committed, pending.poll().get());
+            }
+            completed = true;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Import " + importId + " stopped reading at line " + line, ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import " + importId + " was interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Import " + importId + " failed to validate a chunk", ex.getCause());
+        } finally {
+            pending.forEach(future -> future.cancel(true));
+            if (!completed) {
+                log.warn("Account import {} stopped at line {}, sending the upload again resumes it after line {}",
+                        importId, line, committed);
+            }
+        }
+        return finish(importId, resumedAfter, line);
+    }
+
+    /**
+     * Registers an import, unless it already exists.
+     *
+     * @return the last line committed by earlier attempts of the import
+     */
+    private long begin(String importId) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        try {
+            jdbcTemplate.update("insert into account_import (id, started_at, updated_at, committed_line, imported, rejected) " +
+                    "values (?, ?, ?, 0, 0, 0)", importId, now, now);
+        } catch (DuplicateKeyException ex) {
+            // An earlier attempt of the same import
+        }
+        Long committedLine = jdbcTemplate.queryForObject(
+                "select committed_line from account_import where id = ?", Long.class, importId);
+        if (committedLine > 0) {
+            log.info("Resuming account import {} after line {}", importId, committedLine);
+        }
+        return committedLine;
+    }
+
+    /**
+     * Commits the valid accounts and the rejections of a chunk, and moves the import past its last line.
+     * The import row is updated first: it stays locked until the commit, and a concurrent attempt of the same
+     * import finds the line already moved and fails instead of creating the accounts again.
+     *
+     * @return the last line of the chunk, now committed
+     */
+    private long write(String importId, long committed, ValidatedChunk chunk) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp createdAt = Timestamp.valueOf(now);
+        transactionTemplate.executeWithoutResult(status -> {
+            int updated = jdbcTemplate.update("update account_import set committed_line = ?, " +
+                            "imported = imported + ?, rejected = rejected + ?, updated_at = ? " +
+                            "where id = ? and committed_line = ? and finished_at is null",
+                    chunk.lastLine(), chunk.balances().size(), chunk.rejections().size(), createdAt,
+                    importId, committed);
+            if (updated == 0) {
+                throw new CustomConflictException("Import " + importId + " is already running or finished.");
+            }
+            List<UUID> ids = new ArrayList<>(chunk.balances().size());
+            List<Object[]> accounts = new ArrayList<>(chunk.balances().size());
+            for (Money balance : chunk.balances()) {
+                UUID id = accountIds.next();
+                ids.add(id);
+                accounts.add(new Object[]{id, balance.toBigDecimal(), createdAt});
+            }
+            jdbcTemplate.batchUpdate(INSERT_ACCOUNT, accounts);
+            balanceSnapshots.recordAll(ids, now, chunk.balances(), BalanceSnapshotKind.OPENING);
+            jdbcTemplate.batchUpdate("insert into account_import_rejection (import_id, line, message) values (?, ?, ?)",
+                    chunk.rejections().stream()
+                            .map(rejection -> new Object[]{importId, rejection.line(), rejection.message()})
+                            .toList());
+        });
+        log.debug("Import {} committed up to line {}", importId, chunk.lastLine());
+        return chunk.lastLine();
+    }
+
+    /**
+     * Marks an import as finished, so it is never written again, and reports its totals.
+     */
+    private AccountImportResponse finish(String importId, long resumedAfter, long lines) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.update("update account_import set finished_at = ?, updated_at = ? where id = ? and finished_at is null",
+                now, now, importId);
+        AccountImportResponse response = jdbcTemplate.queryForObject(
+                "select imported, rejected from account_import where id = ?",
+                (rs, rowNum) -> new AccountImportResponse(importId, resumedAfter, lines,
+                        rs.getLong("imported"), rs.getLong("rejected"), List.of()),
+                importId);
+        List<AccountImportRejection> rejections = response.rejected() == 0 ? List.of() : jdbcTemplate.query(
+                "select line, message from account_import_rejection where import_id = ? order by line limit ?",
+                (rs, rowNum) -> new AccountImportRejection(rs.getLong("line"), rs.getString("message")),
+                importId, Math.max(0, properties.getMaxReportedRejections()));
+        log.info("Account import {} finished: {} lines, {} accounts imported, {} lines rejected",
+                importId, lines, response.imported(), response.rejected());
+        return new AccountImportResponse(importId, resumedAfter, lines, response.imported(), response.rejected(),
+                rejections);
+    }
+
+    /**
+     * Parses the balance of every line of a chunk. Runs on the worker pool.
+     */
+    private ValidatedChunk validate(RawChunk chunk, AccountImportFormat format, int balanceColumn) {
+        List<Money> balances = new ArrayList<>(chunk.lines().size());
+        List<AccountImportRejection> rejections = new ArrayList<>();
+        long line = chunk.firstLine();
+        for (String text : chunk.lines()) {
+            if (!text.isBlank()) {
+                try {
+                    balances.add(format == AccountImportFormat.CSV ? parseCsv(text, balanceColumn) : parseNdjson(text));
+                } catch (IllegalArgumentException | ArithmeticException ex) {
+                    rejections.add(new AccountImportRejection(line, truncate(ex.getMessage())));
+                }
+            }
+            line++;
+        }
+        return new ValidatedChunk(line - 1, balances, rejections);
+    }
+
+    /**
+     * @return the import format of a content type, {@code text/csv} or {@code application/x-ndjson}
+     * @throws CustomBadRequestException if the content type is neither
+     */
+    public static AccountImportFormat formatOf(String contentType) {
+        try {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            if (mediaType.isCompatibleWith(CSV)) {
+                return AccountImportFormat.CSV;
+            }
+            if (mediaType.isCompatibleWith(NDJSON)) {
+                return AccountImportFormat.NDJSON;
+            }
+        } catch (InvalidMediaTypeException ex) {
+            // Reported below, like any other unsupported content type
+        }
+        throw new CustomBadRequestException("Accounts are imported from " + CSV + " or " + NDJSON + ", not " + contentType);
+    }
+
+    /**
+     * @return the index of the balance column in a CSV header, or -1 if it has none
+     * @throws IllegalArgumentException if the header is not valid CSV
+     */
+    static int balanceColumn(String header) {
+        // Excel and friends start UTF-8 files with a byte order mark
+        return csvFields(header.startsWith("\uFEFF") ? header.substring(1) : header).stream()
+                .map(column -> column.trim().toLowerCase(Locale.ROOT))
+                .toList()
+                .indexOf(BALANCE_COLUMN);
+    }
+
+    static Money parseCsv(String text, int balanceColumn) {
+        List<String> values = csvFields(text);
+        if (values.size() <= balanceColumn) {
+            throw new IllegalArgumentException("Missing " + BALANCE_COLUMN + " column");
+        }
+        String balance = values.get(balanceColumn).trim();
+        if (balance.isEmpty()) {
+            throw new IllegalArgumentException("Missing " + BALANCE_COLUMN);
+        }
+        try {
+            return Money.parse(balance);
+        } catch (ArithmeticException ex) {
+            // Overflow of the exact arithmetic carries no amount in its message
+            throw new IllegalArgumentException(ex.getMessage().startsWith("Amount")
+                    ? ex.getMessage() : "Amount out of range: " + balance);
+        }
+    }
+
+    /**
+     * Splits a CSV line into its fields as RFC 4180 quotes them: a field in double quotes may hold commas, and two
+     * double quotes inside it stand for one. Spaces around a quoted field are ignored. The upload is read line by
+     * line, so a quoted field cannot span lines.
+     *
+     * @throws IllegalArgumentException if a quoted field is not closed, or is followed by more than spaces
+     */
+    static List<String> csvFields(String text) {
+        List<String> fields = new ArrayList<>();
+        int position = 0;
+        while (true) {
+            int start = position;
+            while (position < text.length() && text.charAt(position) == ' ') {
+                position++;
+            }
+            if (position < text.length() && text.charAt(position) == '"') {
+                StringBuilder field = new StringBuilder();
+                position++;
+                while (true) {
+                    int quote = text.indexOf('"', position);
+                    if (quote < 0) {
+                        throw new IllegalArgumentException("Unclosed quoted field in column " + (fields.size() + 1));
+                    }
+                    field.append(text, position, quote);
+                    position = quote + 1;
+                    if (position < text.length() && text.charAt(position) == '"') {
+                        field.append('"');
+                        position++;
+                    } else {
+                        break;
+                    }
+                }
+                while (position < text.length() && text.charAt(position) == ' ') {
+                    position++;
+                }
+                if (position < text.length() && text.charAt(position) != ',') {
+                    throw new IllegalArgumentException("Unexpected text after quoted field in column " + (fields.size() + 1));
+                }
+                fields.add(field.toString());
+            } else {
+                int comma = text.indexOf(',', start);
+                position = comma < 0 ? text.length() : comma;
+                fields.add(text.substring(start, position));
+            }
+            if (position == text.length()) {
+                return fields;
+            }
+            // Past the comma to the next field
+            position++;
+        }
+    }
+
+    private Money parseNdjson(String text) {
+        AccountDTO account;
+        try {
+            account = objectMapper.readValue(text, AccountDTO.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Invalid account: " + ex.getOriginalMessage());
+        }
+        if (account == null || account.balance() == null) {
+            throw new IllegalArgumentException("Missing " + BALANCE_COLUMN);
+        }
+        return account.balance();
+    }
+
+    private static String truncate(String message) {
+        if (message == null) {
+            return "Invalid line";
+        }
+        return message.length() <= MAX_MESSAGE_LENGTH ? message : message.substring(0, MAX_MESSAGE_LENGTH);
+    }
+}
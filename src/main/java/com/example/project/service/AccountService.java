@@ -1,25 +1,50 @@
 package com.example.project.service;
 
+import com.example.project.config.ReadYourWrites;
+import com.example.project.dto.AccountBalanceDTO;
 import com.example.project.dto.AccountDTO;
+import com.example.project.dto.CursorPage;
 import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransactionHistoryDTO;
 import com.example.project.dto.TransferResponse;
 import com.example.project.entity.Account;
 import com.example.project.entity.Transaction;
+import com.example.project.enums.BalanceSnapshotKind;
 import com.example.project.exception.CustomBadRequestException;
 import com.example.project.exception.CustomNotFoundException;
+import com.example.project.exception.InsufficientFundsException;
+import com.example.project.exception.SameAccountException;
 import com.example.project.mapper.AccountMapper;
  import com.example.project.mapper.TransactionMapper;
+import com.example.project.repository.AccountQueryRepository;
 import com.example.project.repository.AccountRepository;
 import com.example.project.repository.TransactionRepository;
+import com.example.project.service.cache.AccountCache;
+import com.example.project.service.cache.AccountChangedEvent;
+import com.example.project.service.metrics.TransferMetrics;
+import com.example.project.service.metrics.TransferMetrics.Phase;
+import com.example.project.service.outbox.TransferOutbox;
+import com.example.project.service.snapshot.BalanceSnapshots;
+import com.example.project.service.transfer.AccountLockOrder;
+import java.time.YearMonth;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 /**
  * Service class for managing accounts and transactions.
@@ -29,29 +54,71 @@ import java.util.stream.Collectors;
 @Service
 public class AccountService {
 
+    public static final int DEFAULT_PAGE_SIZE = 100;
+    public static final int MAX_PAGE_SIZE = 1000;
+    private static final int EXPORT_FETCH_SIZE = 500;
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+    private static final UUID MAX_UUID = new UUID(-1L, -1L);
+    // Newest first, ties broken by ID in the order the database compares UUIDs
+    private static final Comparator<TransactionHistoryDTO> HISTORY_ORDER = Comparator
+            .comparing(TransactionHistoryDTO::createdAt)
+            .thenComparing(TransactionHistoryDTO::id, AccountLockOrder.COMPARATOR)
+            .reversed();
+
     private final AccountRepository accountRepository;
     private final TransactionRepository transactionRepository;
     private final AccountMapper accountMapper;
     private final TransactionMapper transactionMapper;
+    private final StripedBalanceService stripedBalanceService;
+    private final AccountQueryRepository accountQueryRepository;
+    private final AccountCache accountCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransferMetrics transferMetrics;
+    private final TransferOutbox transferOutbox;
+    private final BalanceSnapshots balanceSnapshots;
 
     /**
      * Constructs an AccountService with the given repositories and mappers.
      *
-     * @param accountRepository     the repository for managing accounts
-     * @param transactionRepository the repository for managing transactions
-     * @param accountMapper         the mapper for mapping Account entities and DTOs
-     * @param transactionMapper     the mapper for mapping Transaction entities and DTOs
+     * @param accountRepository      the repository for managing accounts
+     * @param transactionRepository  the repository for managing transactions
+     * @param accountMapper          the mapper for mapping Account entities and DTOs
+     * @param transactionMapper      the mapper for mapping Transaction entities and DTOs
+     * @param stripedBalanceService  the service holding the balances of striped accounts
+     * @param accountQueryRepository the repository for reading many accounts at once
+     * @param accountCache           the cache of account details
+     * @param eventPublisher         the publisher announcing changed accounts
+     * @param transactionManager     the manager running cache loads in a read-only transaction
+     * @param transferMetrics        the meters timing each phase of a transfer
+     * @param transferOutbox         the outbox receiving the events of completed transfers
+     * @param balanceSnapshots       the balance checkpoints answering balance-as-of queries
      */
     public AccountService(AccountRepository accountRepository, TransactionRepository transactionRepository,
-                          AccountMapper accountMapper, TransactionMapper transactionMapper) {
+                          AccountMapper accountMapper, TransactionMapper transactionMapper,
+                          StripedBalanceService stripedBalanceService, AccountQueryRepository accountQueryRepository,
+                          AccountCache accountCache, ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager, TransferMetrics transferMetrics,
+                          TransferOutbox transferOutbox, BalanceSnapshots balanceSnapshots) {
         this.accountRepository = accountRepository;
         this.transactionRepository = transactionRepository;
         this.accountMapper = accountMapper;  // use correct case
         this.transactionMapper = transactionMapper;  // use correct case
+        this.stripedBalanceService = stripedBalanceService;
+        this.accountQueryRepository = accountQueryRepository;
+        this.accountCache = accountCache;
+        this.eventPublisher = eventPublisher;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.transferMetrics = transferMetrics;
+        this.transferOutbox = transferOutbox;
+        this.balanceSnapshots = balanceSnapshots;
     }
 
     /**
-     * Creates a new account and saves it to the repository.
+     * Creates a new account and saves it to the repository, with a checkpoint of its opening balance.
      * Rolls back if the operation fails.
      *
      * @param accountDTO the account data transfer object containing account details
@@ -61,37 +128,148 @@ public class AccountService {
     public AccountDTO createAccount(AccountDTO accountDTO) {
         Account accountEntity = accountMapper.toEntity(accountDTO);
         Account savedAccount = accountRepository.save(accountEntity);
+        balanceSnapshots.record(savedAccount.getId(), savedAccount.getCreatedAt(), savedAccount.getBalance(),
+                BalanceSnapshotKind.OPENING);
         return accountMapper.toDto(savedAccount);
     }
 
     /**
-     * Retrieves all accounts from the repository.
+     * Retrieves one page of accounts, ordered by ID.
+     * Pages are read with a keyset seek on the ID rather than an offset, so every page costs the same.
+     *
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit  the maximum number of accounts to return, between 1 and {@value #MAX_PAGE_SIZE}
+     * @return the page of accounts and the cursor of the next page, null if this is the last page
+     */
+    @Transactional(readOnly = true)
+    public CursorPage<AccountDTO> getAccounts(String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new CustomBadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        UUID after = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                after = UUID.fromString(cursor);
+            } catch (IllegalArgumentException e) {
+                throw new CustomBadRequestException("Invalid cursor: " + cursor);
+            }
+        }
+
+        // Read one extra row to learn whether another page follows
+        List<AccountDTO> accounts = accountQueryRepository.findPage(after, limit + 1);
+        if (accounts.size() <= limit) {
+            return new CursorPage<>(accounts, null);
+        }
+        List<AccountDTO> page = accounts.subList(0, limit);
+        return new CursorPage<>(List.copyOf(page), page.get(limit - 1).id().toString());
+    }
+
+    /**
+     * Streams every account, ordered by ID, to the given consumer.
+     * Accounts are read from a database cursor and never collected, so memory use stays flat.
+     *
+     * @param consumer receives every account
+     */
+    @Transactional(readOnly = true)
+    public void exportAccounts(Consumer<AccountDTO> consumer) {
+        accountQueryRepository.forEach(EXPORT_FETCH_SIZE, consumer);
+    }
+
+    /**
+     * Retrieves one page of an account's transactions, sent or received, newest first.
+     * Pages are read with a keyset seek on the creation time and ID, so every page costs the same.
      *
-     * @return a list of all accounts as DTOs
+     * @param accountId the ID of the account
+     * @param cursor    the cursor returned with the previous page, or null for the first page
+     * @param limit     the maximum number of transactions to return, between 1 and {@value #MAX_PAGE_SIZE}
+     * @return the page of transactions and the cursor of the next page, null if this is the last page
      */
     @Transactional(readOnly = true)
-    public List<AccountDTO> getAllAccounts() {
-        List<Account> accounts = accountRepository.findAll();
-        return accounts.stream()
-                .map(accountMapper::toDto)
-                .collect(Collectors.toList());
+    public CursorPage<TransactionHistoryDTO> getTransactions(UUID accountId, String cursor, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new CustomBadRequestException("Page size must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (!accountRepository.existsById(accountId)) {
+            throw new CustomNotFoundException("Account not found with ID: " + accountId);
+        }
+        LocalDateTime beforeCreatedAt = HISTORY_START;
+        UUID beforeId = MAX_UUID;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                beforeCreatedAt = LocalDateTime.parse(position[0]);
+                beforeId = UUID.fromString(position[1]);
+            } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                throw new CustomBadRequestException("Invalid cursor: " + cursor);
+            }
+        }
+
+        // Read the current and previous month first: they fill most pages, and the lower bound lets a partitioned
+        // table skip every older partition. Older history is only read when those months do not fill the page.
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime recent = YearMonth.from(beforeCreatedAt.isBefore(now) ? beforeCreatedAt : now)
+                .minusMonths(1).atDay(1).atStartOfDay();
+        List<TransactionHistoryDTO> transactions = findHistory(accountId, recent, beforeCreatedAt, beforeId, limit + 1);
+        if (transactions.size() <= limit) {
+            transactions = Stream.concat(transactions.stream(),
+                            findHistory(accountId, HISTORY_END, recent, MIN_UUID, limit + 1 - transactions.size()).stream())
+                    .toList();
+        }
+        if (transactions.size() <= limit) {
+            return new CursorPage<>(transactions, null);
+        }
+        TransactionHistoryDTO last = transactions.get(limit - 1);
+        String nextCursor = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((last.createdAt() + "|" + last.id()).getBytes(StandardCharsets.UTF_8));
+        return new CursorPage<>(transactions.subList(0, limit), nextCursor);
+    }
+
+    /**
+     * Merges the newest sent and received transactions of an account created in {@code [from, before)},
+     * keeping the newest {@code fetch} of them.
+     */
+    private List<TransactionHistoryDTO> findHistory(UUID accountId, LocalDateTime from, LocalDateTime beforeCreatedAt,
+                                                    UUID beforeId, int fetch) {
+        Limit limit = Limit.of(fetch);
+        return Stream.concat(
+                        transactionRepository.findSentBefore(accountId, from, beforeCreatedAt, beforeId, limit).stream(),
+                        transactionRepository.findReceivedBefore(accountId, from, beforeCreatedAt, beforeId, limit).stream())
+                .map(view -> new TransactionHistoryDTO(view.getId(), view.getSourceAccountId(), view.getTargetAccountId(),
+                        view.getAmount(), view.getCurrency(), view.getCreatedAt()))
+                .sorted(HISTORY_ORDER)
+                .limit(fetch)
+                .toList();
     }
 
     /**
      * Retrieves an account by its ID.
+     * Served from the {@link AccountCache} when possible; a miss reads the account in a read-only transaction.
      *
      * @param id the UUID of the account to retrieve
      * @return the account as a DTO, or null if not found
      */
-    @Transactional(readOnly = true)
     public AccountDTO getAccount(UUID id) {
-        Account accountEntity = accountRepository.findById(id)
-                .orElseThrow(() -> new CustomNotFoundException("Account not found with ID: " + id));
-        return accountMapper.toDto(accountEntity);
+        // Cached balances are only evicted on writes, so they are loaded from the primary, never a lagging replica
+        return accountCache.get(id, accountId -> ReadYourWrites.onPrimary(() -> readOnlyTransaction.execute(status -> {
+            Account accountEntity = accountRepository.findById(accountId)
+                    .orElseThrow(() -> new CustomNotFoundException("Account not found with ID: " + accountId));
+            return toDto(accountEntity);
+        })));
+    }
+
+    /**
+     * Computes the balance an account had at a point in time, see {@link BalanceSnapshots#balanceAsOf}.
+     *
+     * @param id   the UUID of the account
+     * @param asOf the point in time, not in the future
+     * @return the balance at that time
+     */
+    public AccountBalanceDTO getBalance(UUID id, LocalDateTime asOf) {
+        return balanceSnapshots.balanceAsOf(id, asOf);
     }
 
     /**
-     * Updates an existing account's balance.
+     * Updates an existing account's balance, with a checkpoint of the new balance.
      * Rolls back if the account is not found or if the operation fails.
      *
      * @param id         the UUID of the account to update
@@ -101,8 +279,14 @@ public class AccountService {
     @Transactional
     public void updateAccount(UUID id, AccountDTO accountDTO) {
         Account accountEntity = accountRepository.findById(id).orElseThrow(() -> new CustomNotFoundException("Account not found with ID: " + id));
-        accountEntity.setBalance(accountDTO.balance());
+        if (accountEntity.isStriped()) {
+            stripedBalanceService.overwrite(accountEntity, accountDTO.balance());
+        } else {
+            accountEntity.setBalance(accountDTO.balance());
+        }
         accountRepository.save(accountEntity);
+        balanceSnapshots.record(id, LocalDateTime.now(), accountDTO.balance(), BalanceSnapshotKind.ADJUSTMENT);
+        eventPublisher.publishEvent(AccountChangedEvent.of(id));
     }
 
     /**
@@ -116,6 +300,7 @@ public class AccountService {
     public void deleteAccount(UUID id) {
         Account accountEntity = accountRepository.findById(id).orElseThrow(() -> new CustomNotFoundException("Account not found with ID: " + id));
         accountRepository.delete(accountEntity);
+        eventPublisher.publishEvent(AccountChangedEvent.of(id));
     }
 
     @Transactional(propagation = Propagation.REQUIRED, isolation = Isolation.REPEATABLE_READ)
@@ -123,29 +308,52 @@ public class AccountService {
 
         // Check if the source and target account IDs are the same
         if (transactionDTO.sourceAccountId().equals(transactionDTO.targetAccountId())) {
-            throw new CustomBadRequestException("Source and target account IDs cannot be the same.");
+            throw new SameAccountException();
         }
 
+        long phase = transferMetrics.start();
         Account sourceAccount = accountRepository.findById(transactionDTO.sourceAccountId())
                 .orElseThrow(() -> new CustomNotFoundException("Source Account not found with ID: "));
         Account targetAccount = accountRepository.findById(transactionDTO.targetAccountId())
                 .orElseThrow(() -> new CustomNotFoundException("Target Account not found with ID: "));
+        phase = transferMetrics.lap(Phase.LOAD, phase);
 
-        if (sourceAccount.getBalance().compareTo(transactionDTO.amount()) < 0) {
-            throw new CustomBadRequestException("Insufficient balance in the source account.");
+        if (sourceAccount.isStriped()) {
+            stripedBalanceService.debit(sourceAccount, transactionDTO.amount());
+        } else {
+            if (sourceAccount.getBalance().isLessThan(transactionDTO.amount())) {
+                throw new InsufficientFundsException();
+            }
+            sourceAccount.setBalance(sourceAccount.getBalance().minus(transactionDTO.amount()));
         }
+        phase = transferMetrics.lap(Phase.CHECK, phase);
 
-        sourceAccount.setBalance(sourceAccount.getBalance().subtract(transactionDTO.amount()));
-        targetAccount.setBalance(targetAccount.getBalance().add(transactionDTO.amount()));
+        if (targetAccount.isStriped()) {
+            stripedBalanceService.credit(targetAccount, transactionDTO.amount());
+        } else {
+            targetAccount.setBalance(targetAccount.getBalance().plus(transactionDTO.amount()));
+        }
         accountRepository.save(sourceAccount);
         accountRepository.save(targetAccount);
+        eventPublisher.publishEvent(AccountChangedEvent.of(transactionDTO.sourceAccountId(), transactionDTO.targetAccountId()));
+        phase = transferMetrics.lap(Phase.SAVE, phase);
 
         Transaction transaction = transactionMapper.toEntity(transactionDTO);
         Transaction savedTransaction = transactionRepository.save(transaction);
+        transferOutbox.append(savedTransaction);
+        transferMetrics.lap(Phase.INSERT, phase);
+        transferMetrics.timeCommit();
 
         return new TransferResponse(
                 "Transfer successful",
                 transactionDTO.amount() // Amount is the same as in the request
         );
     }
-}
\ No newline at end of file
+
+    private AccountDTO toDto(Account accountEntity) {
+        if (accountEntity.isStriped()) {
+            return accountMapper.toDto(accountEntity, stripedBalanceService.balanceOf(accountEntity));
+        }
+        return accountMapper.toDto(accountEntity);
+    }
+}
@@ -0,0 +1,252 @@
+package com.example.project.service;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.dto.BatchTransferResponse;
+import com.example.project.dto.BatchTransferResult;
+import com.example.project.dto.TransactionDTO;
+import com.example.project.entity.Account;
+import com.example.project.entity.Transaction;
+import com.example.project.enums.BatchTransferStatus;
+import com.example.project.enums.TransferStrategy;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.VelocityLimitExceededException;
+import com.example.project.mapper.TransactionMapper;
+import com.example.project.money.Money;
+import com.example.project.repository.AccountRepository;
+import com.example.project.repository.TransactionRepository;
+import com.example.project.service.cache.AccountChangedEvent;
+import com.example.project.service.limit.VelocityLimiter;
+import com.example.project.service.outbox.TransferOutbox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Service class for applying large batches of transfers.
+ * The batch is split into chunks and every chunk is applied in its own database transaction:
+ * all plain accounts of a chunk are loaded and locked with one query, balances are updated in memory,
+ * and the resulting updates and transaction rows are flushed with JDBC batching.
+ * Striped accounts are read without locking their row and receive their net change of the chunk as a single
+ * stripe credit or debit, so concurrent chunks crediting the same striped account do not wait for each other.
+ * The stripe debit is conditional: if concurrent debits left the stripes short of a chunk's net debit, the chunk
+ * fails instead of overdrawing the account.
+ * Every transfer counts against the velocity limits of its source account, like a single transfer.
+ * Invalid transfers are reported individually and never roll back the rest of their chunk.
+ */
+@Service
+public class BatchTransferService {
+
+    private static final Logger log = LoggerFactory.getLogger(BatchTransferService.class);
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionMapper transactionMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferProperties transferProperties;
+    private final StripedBalanceService stripedBalanceService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransferOutbox transferOutbox;
+    private final VelocityLimiter velocityLimiter;
+
+    /**
+     * Constructs a BatchTransferService with the given repositories, mapper and transaction template.
+     *
+     * @param accountRepository     the repository for managing accounts
+     * @param transactionRepository the repository for managing transactions
+     * @param transactionMapper     the mapper for mapping Transaction entities and DTOs
+     * @param transactionTemplate   the template used to run every chunk in its own transaction
+     * @param transferProperties    the batch size limits
+     * @param stripedBalanceService the service holding the balances of striped accounts
+     * @param eventPublisher        the publisher announcing changed accounts
+     * @param transferOutbox        the outbox receiving the events of applied transfers
+     * @param velocityLimiter       the velocity limits of the source accounts
+     */
+    public BatchTransferService(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                                TransactionMapper transactionMapper, TransactionTemplate transactionTemplate,
+                                TransferProperties transferProperties, StripedBalanceService stripedBalanceService,
+                                ApplicationEventPublisher eventPublisher, TransferOutbox transferOutbox,
+                                VelocityLimiter velocityLimiter) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionMapper = transactionMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.transferProperties = transferProperties;
+        this.stripedBalanceService = stripedBalanceService;
+        this.eventPublisher = eventPublisher;
+        this.transferOutbox = transferOutbox;
+        this.velocityLimiter = velocityLimiter;
+    }
+
+    /**
+     * Applies a batch of transfers in chunked transactions.
+     *
+     * @param transfers the transfers to apply, in order
+     * @return one result per transfer, in request order
+     * @throws CustomBadRequestException if the batch is empty or larger than the configured maximum,
+     *                                   or the sharded ledger owns the balances
+     */
+    public BatchTransferResponse transferBatch(List<TransactionDTO> transfers) {
+        if (transferProperties.getStrategy() == TransferStrategy.SHARDED) {
+            throw new CustomBadRequestException("Batch transfers are not available while the sharded ledger owns the balances.");
+        }
+        if (transfers == null || transfers.isEmpty()) {
+            throw new CustomBadRequestException("Batch must contain at least one transfer.");
+        }
+        TransferProperties.Batch batch = transferProperties.getBatch();
+        if (transfers.size() > batch.getMaxSize()) {
+            throw new CustomBadRequestException("Batch cannot contain more than " + batch.getMaxSize() + " transfers.");
+        }
+
+        BatchTransferResult[] results = new BatchTransferResult[transfers.size()];
+        int chunkSize = Math.max(1, batch.getChunkSize());
+        for (int start = 0; start < transfers.size(); start += chunkSize) {
+            int from = start;
+            int to = Math.min(transfers.size(), from + chunkSize);
+            List<VelocityLimiter.Reservation> reservations = new ArrayList<>();
+            try {
+                BatchTransferResult[] chunkResults = transactionTemplate.execute(status -> applyChunk(transfers, from, to, reservations));
+                System.arraycopy(chunkResults, 0, results, from, chunkResults.length);
+            } catch (RuntimeException ex) {
+                reservations.forEach(velocityLimiter::release);
+                // Only this chunk was rolled back, earlier chunks are already committed
+                log.warn("Batch transfer chunk [{}, {}) failed", from, to, ex);
+                for (int i = from; i < to; i++) {
+                    results[i] = result(i, transfers.get(i), BatchTransferStatus.FAILED, "Chunk could not be committed.");
+                }
+            }
+        }
+
+        int applied = (int) Arrays.stream(results).filter(r -> r.status() == BatchTransferStatus.APPLIED).count();
+        return new BatchTransferResponse(applied, results.length - applied, List.of(results));
+    }
+
+    /**
+     * Applies transfers together in one database transaction, or in the caller's transaction if there is one.
+     * Each transfer is applied against the balances left by the ones before it, and a rejected transfer does not
+     * affect the others. Unlike {@link #transferBatch}, the transfers are not counted against the velocity limits,
+     * which the caller has already done.
+     *
+     * @param transfers the transfers to apply, in order
+     * @return one result per transfer, in order
+     */
+    public BatchTransferResult[] applyTogether(List<TransactionDTO> transfers) {
+        return transactionTemplate.execute(status -> applyChunk(transfers, 0, transfers.size(), null));
+    }
+
+    private BatchTransferResult[] applyChunk(List<TransactionDTO> transfers, int from, int to,
+                                             List<VelocityLimiter.Reservation> reservations) {
+        Set<UUID> accountIds = new HashSet<>();
+        for (int i = from; i < to; i++) {
+            TransactionDTO transfer = transfers.get(i);
+            if (validationError(transfer) == null) {
+                accountIds.add(transfer.sourceAccountId());
+                accountIds.add(transfer.targetAccountId());
+            }
+        }
+
+        Map<UUID, Account> accounts = new HashMap<>();
+        Map<UUID, Money> balances = new HashMap<>();
+        Map<UUID, Money> stripedOpeningBalances = new HashMap<>();
+        if (!accountIds.isEmpty()) {
+            for (Account account : accountRepository.findAllForTransfer(accountIds)) {
+                accounts.put(account.getId(), account);
+                if (account.isStriped()) {
+                    Money balance = stripedBalanceService.balanceOf(account);
+                    stripedOpeningBalances.put(account.getId(), balance);
+                    balances.put(account.getId(), balance);
+                } else {
+                    balances.put(account.getId(), account.getBalance());
+                }
+            }
+        }
+
+        BatchTransferResult[] chunkResults = new BatchTransferResult[to - from];
+        List<Transaction> transactions = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            TransactionDTO transfer = transfers.get(i);
+            BatchTransferResult result = apply(i, transfer, balances, reservations);
+            if (result.status() == BatchTransferStatus.APPLIED) {
+                transactions.add(transactionMapper.toEntity(transfer));
+            }
+            chunkResults[i - from] = result;
+        }
+
+        for (Account account : accounts.values()) {
+            Money balance = balances.get(account.getId());
+            if (account.isStriped()) {
+                stripedBalanceService.applyDelta(account, balance.minus(stripedOpeningBalances.get(account.getId())));
+            } else {
+                account.setBalance(balance);
+            }
+        }
+
+        // Dirty accounts are flushed together with the inserts on commit, both as JDBC batches
+        transferOutbox.appendAll(transactionRepository.saveAll(transactions));
+        eventPublisher.publishEvent(new AccountChangedEvent(accounts.keySet()));
+        return chunkResults;
+    }
+
+    private BatchTransferResult apply(int index, TransactionDTO transfer, Map<UUID, Money> balances,
+                                      List<VelocityLimiter.Reservation> reservations) {
+        String validationError = validationError(transfer);
+        if (validationError != null) {
+            return result(index, transfer, BatchTransferStatus.INVALID_REQUEST, validationError);
+        }
+
+        Money sourceBalance = balances.get(transfer.sourceAccountId());
+        if (sourceBalance == null) {
+            return result(index, transfer, BatchTransferStatus.ACCOUNT_NOT_FOUND, "Source Account not found with ID: " + transfer.sourceAccountId());
+        }
+        Money targetBalance = balances.get(transfer.targetAccountId());
+        if (targetBalance == null) {
+            return result(index, transfer, BatchTransferStatus.ACCOUNT_NOT_FOUND, "Target Account not found with ID: " + transfer.targetAccountId());
+        }
+
+        if (sourceBalance.isLessThan(transfer.amount())) {
+            return result(index, transfer, BatchTransferStatus.INSUFFICIENT_FUNDS, "Insufficient balance in the source account.");
+        }
+        if (reservations != null) {
+            try {
+                reservations.add(velocityLimiter.reserve(transfer.sourceAccountId(), transfer.amount()));
+            } catch (VelocityLimitExceededException ex) {
+                return result(index, transfer, BatchTransferStatus.LIMIT_EXCEEDED, ex.getMessage());
+            }
+        }
+
+        balances.put(transfer.sourceAccountId(), sourceBalance.minus(transfer.amount()));
+        balances.put(transfer.targetAccountId(), targetBalance.plus(transfer.amount()));
+        return result(index, transfer, BatchTransferStatus.APPLIED, null);
+    }
+
+    private static String validationError(TransactionDTO transfer) {
+        if (transfer == null || transfer.sourceAccountId() == null || transfer.targetAccountId() == null || transfer.amount() == null) {
+            return "Source account, target account and amount are required.";
+        }
+        if (!transfer.amount().isPositive()) {
+            return "Amount must be positive.";
+        }
+        if (transfer.sourceAccountId().equals(transfer.targetAccountId())) {
+            return "Source and target account IDs cannot be the same.";
+        }
+        return null;
+    }
+
+    private static BatchTransferResult result(int index, TransactionDTO transfer, BatchTransferStatus status, String message) {
+        if (transfer == null) {
+            return new BatchTransferResult(index, null, null, null, status, message);
+        }
+        return new BatchTransferResult(index, transfer.sourceAccountId(), transfer.targetAccountId(),
+                transfer.amount(), status, message);
+    }
+}
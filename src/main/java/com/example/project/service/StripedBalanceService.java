@@ -0,0 +1,161 @@
+package com.example.project.service;
+
+import com.example.project.dto.AccountDTO;
+import com.example.project.entity.Account;
+import com.example.project.entity.AccountBalanceStripe;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.exception.InsufficientFundsException;
+import com.example.project.mapper.AccountMapper;
+import com.example.project.money.Money;
+import com.example.project.repository.AccountBalanceStripeRepository;
+import com.example.project.repository.AccountRepository;
+import com.example.project.service.cache.AccountChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Service class for striped accounts.
+ * The balance of a striped account is spread over {@link Account#getStripeCount()} sub-balance rows:
+ * credits go to a random stripe, debits take the whole amount from one stripe when they can and
+ * sweep across all stripes otherwise, and reads sum the stripes.
+ * All methods must be called inside the caller's transaction.
+ */
+@Service
+public class StripedBalanceService {
+
+    private static final int MAX_STRIPES = 64;
+
+    private final AccountRepository accountRepository;
+    private final AccountBalanceStripeRepository stripeRepository;
+    private final AccountMapper accountMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Constructs a StripedBalanceService with the given repositories and mapper.
+     *
+     * @param accountRepository the repository for managing accounts
+     * @param stripeRepository  the repository for managing balance stripes
+     * @param accountMapper     the mapper for mapping Account entities and DTOs
+     * @param eventPublisher    the publisher announcing changed accounts
+     */
+    public StripedBalanceService(AccountRepository accountRepository, AccountBalanceStripeRepository stripeRepository,
+                                 AccountMapper accountMapper, ApplicationEventPublisher eventPublisher) {
+        this.accountRepository = accountRepository;
+        this.stripeRepository = stripeRepository;
+        this.accountMapper = accountMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Spreads the balance of an account over the given number of stripes.
+     * The whole current balance moves to stripe 0; later credits fill the others.
+     *
+     * @param id      the UUID of the account to stripe
+     * @param stripes the number of stripes
+     * @return the account as a DTO
+     * @throws CustomNotFoundException   if the account is not found
+     * @throws CustomBadRequestException if the account is already striped or the stripe count is out of range
+     */
+    @Transactional
+    public AccountDTO stripeAccount(UUID id, int stripes) {
+        if (stripes < 2 || stripes > MAX_STRIPES) {
+            throw new CustomBadRequestException("Stripe count must be between 2 and " + MAX_STRIPES + ".");
+        }
+        Account account = accountRepository.findAllByIdForUpdate(List.of(id)).stream()
+                .findFirst()
+                .orElseThrow(() -> new CustomNotFoundException("Account not found with ID: " + id));
+        if (account.isStriped()) {
+            throw new CustomBadRequestException("Account is already striped.");
+        }
+
+        List<AccountBalanceStripe> rows = new ArrayList<>(stripes);
+        for (int stripe = 0; stripe < stripes; stripe++) {
+            rows.add(new AccountBalanceStripe(id, stripe, stripe == 0 ? account.getBalance() : Money.ZERO));
+        }
+        stripeRepository.saveAll(rows);
+
+        Money balance = account.getBalance();
+        account.setBalance(Money.ZERO);
+        account.setStripeCount(stripes);
+        accountRepository.save(account);
+        eventPublisher.publishEvent(AccountChangedEvent.of(id));
+        return accountMapper.toDto(account, balance);
+    }
+
+    /**
+     * @return the balance of the account, summed over its stripes if it is striped
+     */
+    public Money balanceOf(Account account) {
+        return account.isStriped() ? Money.of(stripeRepository.sumBalance(account.getId())) : account.getBalance();
+    }
+
+    /**
+     * Credits a random stripe of a striped account.
+     */
+    public void credit(Account account, Money amount) {
+        int stripe = ThreadLocalRandom.current().nextInt(account.getStripeCount());
+        stripeRepository.credit(account.getId(), stripe, amount);
+    }
+
+    /**
+     * Debits a striped account. Stripes are tried one at a time starting from a random one; only if
+     * no single stripe holds the amount are all stripes locked and swept.
+     *
+     * @throws CustomBadRequestException if the stripes together hold less than the amount
+     */
+    public void debit(Account account, Money amount) {
+        int stripes = account.getStripeCount();
+        int start = ThreadLocalRandom.current().nextInt(stripes);
+        for (int i = 0; i < stripes; i++) {
+            if (stripeRepository.debitIfSufficient(account.getId(), (start + i) % stripes, amount) == 1) {
+                return;
+            }
+        }
+
+        List<AccountBalanceStripeRepository.StripeBalance> locked = stripeRepository.findAllForUpdate(account.getId());
+        Money total = locked.stream()
+                .map(stripe -> Money.of(stripe.getBalance()))
+                .reduce(Money.ZERO, Money::plus);
+        if (total.isLessThan(amount)) {
+            throw new InsufficientFundsException();
+        }
+
+        Money remaining = amount;
+        for (AccountBalanceStripeRepository.StripeBalance stripe : locked) {
+            Money balance = Money.of(stripe.getBalance());
+            Money taken = balance.isLessThan(remaining) ? balance : remaining;
+            if (taken.isPositive()) {
+                stripeRepository.credit(account.getId(), stripe.getStripe(), taken.negate());
+                remaining = remaining.minus(taken);
+            }
+            if (remaining.isZero()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Applies a net balance change to a striped account.
+     */
+    public void applyDelta(Account account, Money delta) {
+        if (delta.isPositive()) {
+            credit(account, delta);
+        } else if (delta.isNegative()) {
+            debit(account, delta.negate());
+        }
+    }
+
+    /**
+     * Sets the balance of a striped account, moving it all to stripe 0.
+     */
+    public void overwrite(Account account, Money balance) {
+        stripeRepository.overwrite(account.getId(), balance);
+    }
+}
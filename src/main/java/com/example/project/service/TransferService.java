@@ -0,0 +1,148 @@
+package com.example.project.service;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransferResponse;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.CustomConflictException;
+import com.example.project.exception.SameAccountException;
+import com.example.project.service.idempotency.IdempotencyStore;
+import com.example.project.service.limit.VelocityLimiter;
+import com.example.project.service.metrics.TransferMetrics;
+import com.example.project.service.transfer.TransferExecutor;
+import com.example.project.service.transfer.TransferRetryPolicy;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Entry point for single transfers.
+ * Delegates to the {@link TransferExecutor} selected by {@code transfer.strategy} and retries it
+ * when it loses a race against a concurrent transfer.
+ * Transfers carrying an idempotency key are executed at most once per key.
+ * Every transfer is counted against the velocity limits of its source account before it touches the database;
+ * a replay of an idempotency key moves no money and is not counted.
+ */
+@Service
+public class TransferService {
+
+    private final TransferExecutor transferExecutor;
+    private final TransferRetryPolicy retryPolicy;
+    private final IdempotencyStore idempotencyStore;
+    private final TransactionTemplate idempotentTransaction;
+    private final TransferMetrics transferMetrics;
+    private final VelocityLimiter velocityLimiter;
+
+    /**
+     * Constructs a TransferService using the executor of the configured strategy.
+     *
+     * @param transferExecutors  all available executors
+     * @param retryPolicy        the retry policy for concurrency failures
+     * @param transferProperties the transfer configuration
+     * @param transactionManager the transaction manager shared by a transfer and its idempotency key
+     * @param idempotencyStore   the store of completed idempotency keys
+     * @param transferMetrics    the meters of the transfer pipeline
+     * @param velocityLimiter    the velocity limits of the source accounts
+     */
+    public TransferService(List<TransferExecutor> transferExecutors, TransferRetryPolicy retryPolicy,
+                           TransferProperties transferProperties, PlatformTransactionManager transactionManager,
+                           IdempotencyStore idempotencyStore, TransferMetrics transferMetrics,
+                           VelocityLimiter velocityLimiter) {
+        this.transferExecutor = transferExecutors.stream()
+                .filter(executor -> executor.strategy() == transferProperties.getStrategy())
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No transfer executor for strategy " + transferProperties.getStrategy()));
+        this.retryPolicy = retryPolicy;
+        this.idempotencyStore = idempotencyStore;
+        this.idempotentTransaction = new TransactionTemplate(transactionManager);
+        this.idempotentTransaction.setIsolationLevel(transferExecutor.isolation().value());
+        this.transferMetrics = transferMetrics;
+        this.velocityLimiter = velocityLimiter;
+    }
+
+    /**
+     * Transfers money between two accounts.
+     * Every retry runs in a fresh transaction.
+     *
+     * @param transactionDTO the transfer to apply
+     * @return the transfer response
+     */
+    public TransferResponse transfer(TransactionDTO transactionDTO) {
+        return transferMetrics.record(() -> {
+            checkAccounts(transactionDTO);
+            VelocityLimiter.Reservation reservation = velocityLimiter.reserve(transactionDTO.sourceAccountId(), transactionDTO.amount());
+            try {
+                return retryPolicy.execute(() -> transferExecutor.transfer(transactionDTO));
+            } catch (RuntimeException ex) {
+                velocityLimiter.release(reservation);
+                throw ex;
+            }
+        });
+    }
+
+    /**
+     * Transfers money between two accounts at most once per idempotency key.
+     * A repeated key returns the stored response of the first execution without touching the accounts,
+     * and the key is stored in the same transaction as the transfer, so a transfer is never applied
+     * without its key or the other way round.
+     *
+     * @param transactionDTO the transfer to apply
+     * @param idempotencyKey the client-chosen key, or null for a plain transfer
+     * @return the transfer response
+     * @throws CustomBadRequestException if the key is blank or longer than 255 characters
+     * @throws CustomConflictException   if the key was already used for a different transfer
+     */
+    public TransferResponse transfer(TransactionDTO transactionDTO, String idempotencyKey) {
+        if (idempotencyKey == null) {
+            return transfer(transactionDTO);
+        }
+        if (idempotencyKey.isBlank() || idempotencyKey.length() > 255) {
+            throw new CustomBadRequestException("Idempotency-Key must be between 1 and 255 characters.");
+        }
+        return transferMetrics.record(() -> transferOnce(transactionDTO, idempotencyKey));
+    }
+
+    private TransferResponse transferOnce(TransactionDTO transactionDTO, String idempotencyKey) {
+        checkAccounts(transactionDTO);
+        String requestHash = idempotencyStore.requestHash(transactionDTO);
+        // Requests reusing a key for a different transfer are not coalesced, they fail on the stored key instead
+        return idempotencyStore.coalesce(idempotencyKey + "|" + requestHash, () -> {
+            TransferResponse stored = idempotencyStore.find(idempotencyKey, requestHash);
+            if (stored != null) {
+                return stored;
+            }
+            // Only now is money about to move, so a replay of a stored response never counts against the limits
+            VelocityLimiter.Reservation reservation = velocityLimiter.reserve(transactionDTO.sourceAccountId(), transactionDTO.amount());
+            TransferResponse response;
+            try {
+                response = retryPolicy.execute(() -> idempotentTransaction.execute(status -> {
+                    TransferResponse applied = transferExecutor.transfer(transactionDTO);
+                    idempotencyStore.record(idempotencyKey, requestHash, applied);
+                    return applied;
+                }));
+            } catch (DataIntegrityViolationException ex) {
+                // Another node committed the same key first, and this transfer was rolled back
+                velocityLimiter.release(reservation);
+                TransferResponse winner = idempotencyStore.find(idempotencyKey, requestHash);
+                if (winner == null) {
+                    throw ex;
+                }
+                return winner;
+            } catch (RuntimeException ex) {
+                velocityLimiter.release(reservation);
+                throw ex;
+            }
+            idempotencyStore.remember(idempotencyKey, requestHash, response);
+            return response;
+        });
+    }
+
+    private static void checkAccounts(TransactionDTO transactionDTO) {
+        if (transactionDTO.sourceAccountId().equals(transactionDTO.targetAccountId())) {
+            throw new SameAccountException();
+        }
+    }
+}
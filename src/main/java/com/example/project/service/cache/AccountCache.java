@@ -0,0 +1,123 @@
+package com.example.project.service.cache;
+
+import com.example.project.config.AccountCacheProperties;
+import com.example.project.dto.AccountDTO;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Bounded local cache of account details, keyed by account ID.
+ * Entries are dropped once a transaction changing the account commits, on this node directly and on
+ * other nodes through the {@link AccountInvalidationBus}.
+ * <p>
+ * A miss installs a pending entry and then loads the account outside any lock, so a virtual thread
+ * waiting on the database never pins its carrier. Concurrent readers of the same account share that
+ * load. Dropping the entry also drops a pending load, which is then never cached, so a load that read
+ * the account just before a change committed cannot outlive the invalidation that follows the commit,
+ * and a read starting after a commit on this node never returns an older balance.
+ */
+@Component
+public class AccountCache implements MeterBinder {
+
+    private final AsyncCache<UUID, AccountDTO> cache;
+    private final AccountInvalidationBus invalidationBus;
+
+    /**
+     * Constructs an AccountCache with the given settings.
+     *
+     * @param properties      the size and expiry of the cache
+     * @param invalidationBus the bus carrying invalidations between nodes
+     */
+    public AccountCache(AccountCacheProperties properties, AccountInvalidationBus invalidationBus) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .buildAsync();
+        this.invalidationBus = invalidationBus;
+        invalidationBus.subscribe(accountIds -> cache.synchronous().invalidateAll(accountIds));
+    }
+
+    /**
+     * Returns the cached account, loading and caching it on a miss.
+     * Exceptions thrown by the loader, such as a missing account, are passed on and nothing is cached.
+     *
+     * @param id     the ID of the account
+     * @param loader reads the account from the database
+     */
+    public AccountDTO get(UUID id, Function<UUID, AccountDTO> loader) {
+        CompletableFuture<AccountDTO> load = new CompletableFuture<>();
+        CompletableFuture<AccountDTO> entry = cache.get(id, (accountId, executor) -> load);
+        if (entry != load) {
+            try {
+                return entry.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+            }
+        }
+        try {
+            AccountDTO account = loader.apply(id);
+            load.complete(account);
+            return account;
+        } catch (RuntimeException ex) {
+            // A failed entry is removed by the cache, and waiting readers get the same exception
+            load.completeExceptionally(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * Returns the cached account without blocking, starting the loader on a miss.
+     * Concurrent readers of the same account share the pending load, and a failed load is not cached.
+     *
+     * @param id     the ID of the account
+     * @param loader starts reading the account from the database
+     */
+    public CompletableFuture<AccountDTO> getAsync(UUID id, Function<UUID, CompletableFuture<AccountDTO>> loader) {
+        return cache.get(id, (accountId, executor) -> loader.apply(accountId));
+    }
+
+    /**
+     * Drops the changed accounts once their transaction has committed.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onAccountChanged(AccountChangedEvent event) {
+        invalidate(event.accountIds());
+    }
+
+    /**
+     * Drops the given accounts on this node and announces the change to the other nodes.
+     */
+    public void invalidate(Collection<UUID> accountIds) {
+        cache.synchronous().invalidateAll(accountIds);
+        invalidationBus.publish(accountIds);
+    }
+
+    /**
+     * @return the hit, miss and eviction counts since startup
+     */
+    public CacheStats stats() {
+        return cache.synchronous().stats();
+    }
+
+    /**
+     * Exports the cache statistics as the {@code cache.*} meters of the {@code account} cache.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache.synchronous(), "account");
+    }
+}
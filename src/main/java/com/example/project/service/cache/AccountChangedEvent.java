@@ -0,0 +1,18 @@
+package com.example.project.service.cache;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Published inside a transaction that changes the balance, version or existence of accounts.
+ * Listeners act on it only once the transaction has committed.
+ *
+ * @param accountIds the IDs of the changed accounts
+ */
+public record AccountChangedEvent(Collection<UUID> accountIds) {
+
+    public static AccountChangedEvent of(UUID... accountIds) {
+        return new AccountChangedEvent(List.of(accountIds));
+    }
+}
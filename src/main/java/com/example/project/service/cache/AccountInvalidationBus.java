@@ -0,0 +1,23 @@
+package com.example.project.service.cache;
+
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Carries account cache invalidations between the nodes running the service.
+ * An implementation backed by a message broker makes every node drop an account from its
+ * {@link AccountCache} soon after any node commits a change to it.
+ */
+public interface AccountInvalidationBus {
+
+    /**
+     * Announces that the given accounts changed on this node.
+     */
+    void publish(Collection<UUID> accountIds);
+
+    /**
+     * Registers a listener called with the accounts changed on any node, this one included.
+     */
+    void subscribe(Consumer<Collection<UUID>> listener);
+}
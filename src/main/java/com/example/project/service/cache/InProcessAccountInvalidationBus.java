@@ -0,0 +1,33 @@
+package com.example.project.service.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * An {@link AccountInvalidationBus} that only reaches listeners in this JVM.
+ * Enough for a single node, and a stand-in for a broker-backed bus in tests.
+ */
+@Component
+@ConditionalOnProperty(name = "account.cache.bus", havingValue = "in-process", matchIfMissing = true)
+public class InProcessAccountInvalidationBus implements AccountInvalidationBus {
+
+    private final List<Consumer<Collection<UUID>>> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(Collection<UUID> accountIds) {
+        for (Consumer<Collection<UUID>> listener : listeners) {
+            listener.accept(accountIds);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<Collection<UUID>> listener) {
+        listeners.add(listener);
+    }
+}
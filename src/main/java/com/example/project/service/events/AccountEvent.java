@@ -0,0 +1,50 @@
+package com.example.project.service.events;
+
+import com.example.project.dto.AccountDTO;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * A change of an account pushed to its subscribers: its balance and version after a commit, or its deletion.
+ *
+ * @param accountId the ID of the account
+ * @param account   the account after the change, null once it was deleted or for a heartbeat
+ */
+public record AccountEvent(UUID accountId, AccountDTO account) {
+
+    /**
+     * Keeps idle streams open; carries no account.
+     */
+    public static final AccountEvent HEARTBEAT = new AccountEvent(null, null);
+
+    public static AccountEvent changed(AccountDTO account) {
+        return new AccountEvent(account.id(), account);
+    }
+
+    public static AccountEvent deleted(UUID accountId) {
+        return new AccountEvent(accountId, null);
+    }
+
+    public boolean isHeartbeat() {
+        return accountId == null;
+    }
+
+    public boolean isDeleted() {
+        return accountId != null && account == null;
+    }
+
+    /**
+     * @return the payload of the event: the account, or only its ID once deleted
+     */
+    public Object data() {
+        return account != null ? account : Map.of("id", accountId);
+    }
+
+    /**
+     * @return the server-sent event name, {@code balance} or {@code deleted}
+     */
+    public String name() {
+        return isDeleted() ? "deleted" : "balance";
+    }
+}
@@ -0,0 +1,277 @@
+package com.example.project.service.events;
+
+import com.example.project.config.AccountEventProperties;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.service.AccountService;
+import com.example.project.service.cache.AccountInvalidationBus;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Queue;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes the balance changes of accounts to their subscribers, such as the streams of
+ * {@code GET /api/accounts/{id}/events}.
+ * <p>
+ * Subscriptions are registered per account. Changes arrive from the {@link AccountInvalidationBus} once their
+ * transaction has committed, on this node or any other, and changes of accounts nobody subscribed to are ignored.
+ * A changed account with subscribers is read again on a small pool, one read at a time per account: changes that
+ * arrive during a read are coalesced into one more read, so a burst of transfers costs a few reads and every
+ * subscriber sees the balances in commit order.
+ * <p>
+ * Every subscription buffers up to {@code buffer-size} events, which a shared pool of sender threads writes only
+ * while there are any, so an idle subscription holds no thread or timer of its own. A subscriber whose buffer
+ * overflows, because its client reads slower than its account changes, is disconnected instead of holding up the
+ * others; its client reconnects and starts again from the current balance.
+ */
+@Component
+public class AccountEventHub implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(AccountEventHub.class);
+
+    private final ConcurrentHashMap<UUID, Topic> topics = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriptions = new AtomicInteger();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AccountService accountService;
+    private final int bufferSize;
+    private final ExecutorService refreshers;
+    private final ExecutorService senders;
+
+    /**
+     * Constructs an AccountEventHub.
+     *
+     * @param accountService  the service reading changed accounts
+     * @param invalidationBus the bus announcing committed changes of accounts on every node
+     * @param properties      the buffer size and thread pools of the subscriptions
+     */
+    public AccountEventHub(AccountService accountService, AccountInvalidationBus invalidationBus,
+                           AccountEventProperties properties) {
+        this.accountService = accountService;
+        this.bufferSize = Math.max(1, properties.getBufferSize());
+        this.refreshers = Executors.newFixedThreadPool(Math.max(1, properties.getRefreshThreads()),
+                daemonThreads("account-events-refresh-"));
+        this.senders = Executors.newFixedThreadPool(Math.max(1, properties.getSendThreads()),
+                daemonThreads("account-events-send-"));
+        invalidationBus.subscribe(this::onAccountsChanged);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refreshers.shutdownNow();
+        senders.shutdownNow();
+    }
+
+    /**
+     * Subscribes to the changes of an account. The subscriber first receives the account as it is now, and then
+     * every committed change; if the account is deleted, it receives a deletion and the stream is closed.
+     *
+     * @param accountId the ID of the account
+     * @param sink      the connection of the subscriber
+     * @return the subscription, to cancel once the connection closes
+     */
+    public Subscription subscribe(UUID accountId, AccountEventSink sink) {
+        Subscription subscription = new Subscription(accountId, sink);
+        Topic topic = topics.compute(accountId, (id, existing) -> {
+            Topic current = existing != null ? existing : new Topic(id);
+            current.subscriptions.add(subscription);
+            return current;
+        });
+        subscriptions.incrementAndGet();
+        topic.refresh();
+        return subscription;
+    }
+
+    /**
+     * Sends a heartbeat to every subscriber. Streams whose client went away fail to write it and are removed.
+     */
+    @Scheduled(fixedDelayString = "${account.events.heartbeat-interval:PT30S}")
+    public void heartbeat() {
+        for (Topic topic : topics.values()) {
+            for (Subscription subscription : topic.subscriptions) {
+                subscription.offer(AccountEvent.HEARTBEAT);
+            }
+        }
+    }
+
+    private void onAccountsChanged(Collection<UUID> accountIds) {
+        for (UUID accountId : accountIds) {
+            Topic topic = topics.get(accountId);
+            if (topic != null) {
+                topic.refresh();
+            }
+        }
+    }
+
+    /**
+     * Exports the number of open subscriptions, of accounts they follow and of subscribers dropped for being slow.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("account.events.subscriptions", subscriptions, AtomicInteger::get)
+                .description("Open account event subscriptions")
+                .register(registry);
+        Gauge.builder("account.events.accounts", topics, ConcurrentHashMap::size)
+                .description("Accounts with at least one subscription")
+                .register(registry);
+        FunctionCounter.builder("account.events.dropped", dropped, AtomicLong::get)
+                .description("Subscribers disconnected because their buffer overflowed")
+                .register(registry);
+    }
+
+    private static CustomizableThreadFactory daemonThreads(String prefix) {
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory(prefix);
+        threadFactory.setDaemon(true);
+        return threadFactory;
+    }
+
+    /**
+     * The subscriptions of one account, and its latest state pushed to them.
+     */
+    private final class Topic {
+
+        private final UUID accountId;
+        private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+        // Refreshes requested since the running one read the account; 0 when none is scheduled or running
+        private final AtomicInteger requested = new AtomicInteger();
+        // Only used by the running refresh
+        private AccountEvent last;
+
+        private Topic(UUID accountId) {
+            this.accountId = accountId;
+        }
+
+        void refresh() {
+            if (requested.getAndIncrement() == 0) {
+                refreshers.execute(this::run);
+            }
+        }
+
+        private void run() {
+            int seen;
+            do {
+                seen = requested.get();
+                AccountEvent event = read();
+                if (event != null) {
+                    boolean changed = !event.equals(last);
+                    last = event;
+                    for (Subscription subscription : subscriptions) {
+                        // New subscribers get the current state even when it did not change
+                        if (changed || !subscription.started) {
+                            subscription.started = true;
+                            subscription.offer(event);
+                        }
+                    }
+                }
+            } while (!requested.compareAndSet(seen, 0));
+        }
+
+        private AccountEvent read() {
+            try {
+                return AccountEvent.changed(accountService.getAccount(accountId));
+            } catch (CustomNotFoundException ex) {
+                return AccountEvent.deleted(accountId);
+            } catch (RuntimeException ex) {
+                // The next change of the account reads it again
+                log.warn("Reading account {} for its subscribers failed", accountId, ex);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * One subscriber of an account's events, with its bounded buffer of events not yet written.
+     */
+    public final class Subscription {
+
+        private final UUID accountId;
+        private final AccountEventSink sink;
+        private final Queue<AccountEvent> buffer = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger buffered = new AtomicInteger();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private volatile boolean started;
+        private boolean sinkClosed;
+
+        private Subscription(UUID accountId, AccountEventSink sink) {
+            this.accountId = accountId;
+            this.sink = sink;
+        }
+
+        /**
+         * Stops delivering events. Called when the subscriber's connection closes; calling it again does nothing.
+         */
+        public void cancel() {
+            if (cancelled.compareAndSet(false, true)) {
+                subscriptions.decrementAndGet();
+                topics.computeIfPresent(accountId, (id, topic) -> {
+                    topic.subscriptions.remove(this);
+                    return topic.subscriptions.isEmpty() ? null : topic;
+                });
+            }
+        }
+
+        void offer(AccountEvent event) {
+            if (cancelled.get()) {
+                return;
+            }
+            if (buffered.incrementAndGet() > bufferSize) {
+                dropped.incrementAndGet();
+                log.debug("Dropping a slow subscriber of account {}", accountId);
+                cancel();
+            } else {
+                buffer.add(event);
+            }
+            if (draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        /**
+         * Writes the buffered events, and closes the sink once the subscription ended. Only one sender drains a
+         * subscription at a time, so calls to its sink never overlap.
+         */
+        private void drain() {
+            do {
+                AccountEvent event;
+                while ((event = buffer.poll()) != null) {
+                    buffered.decrementAndGet();
+                    if (cancelled.get()) {
+                        continue;
+                    }
+                    try {
+                        sink.send(event);
+                    } catch (Exception ex) {
+                        // The client went away
+                        cancel();
+                    }
+                    if (event.isDeleted()) {
+                        cancel();
+                    }
+                }
+                if (cancelled.get() && !sinkClosed) {
+                    sinkClosed = true;
+                    sink.close();
+                }
+                draining.set(false);
+            } while (!buffer.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.project.service.events;
+
+/**
+ * The connection of one subscriber to an account's events, such as a server-sent event stream.
+ * Calls for one subscriber never overlap.
+ */
+public interface AccountEventSink {
+
+    /**
+     * Writes an event. May block while the connection is slow; the subscriber's later events wait in its buffer.
+     *
+     * @throws Exception if the connection is closed, which ends the subscription
+     */
+    void send(AccountEvent event) throws Exception;
+
+    /**
+     * Ends the stream, after the account was deleted or the subscriber fell too far behind.
+     */
+    void close();
+}
@@ -0,0 +1,154 @@
+package com.example.project.service.idempotency;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransferResponse;
+import com.example.project.entity.IdempotencyKey;
+import com.example.project.exception.CustomConflictException;
+import com.example.project.repository.IdempotencyKeyRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Durable store of completed idempotent transfers, fronted by a bounded in-memory cache.
+ * A completed key is answered from memory or from a single primary-key lookup, without touching
+ * the account rows, and concurrent requests carrying the same key on this node share one execution.
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final Cache<String, CompletedTransfer> completed;
+    private final ConcurrentMap<String, CompletableFuture<TransferResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Duration retention;
+
+    private record CompletedTransfer(String requestHash, TransferResponse response) {}
+
+    /**
+     * Constructs an IdempotencyStore.
+     *
+     * @param idempotencyKeyRepository the repository for managing idempotency keys
+     * @param transferProperties       the cache and retention settings
+     */
+    public IdempotencyStore(IdempotencyKeyRepository idempotencyKeyRepository, TransferProperties transferProperties) {
+        TransferProperties.Idempotency properties = transferProperties.getIdempotency();
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.retention = properties.getRetention();
+        this.completed = Caffeine.newBuilder()
+                .maximumSize(properties.getCacheSize())
+                .expireAfterWrite(properties.getCacheTtl())
+                .build();
+    }
+
+    /**
+     * Runs the action at most once at a time per key on this node. A request arriving while the
+     * key is in flight waits for and shares the outcome of the running one.
+     */
+    public TransferResponse coalesce(String key, Supplier<TransferResponse> action) {
+        CompletableFuture<TransferResponse> execution = new CompletableFuture<>();
+        CompletableFuture<TransferResponse> running = inFlight.putIfAbsent(key, execution);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException ex) {
+                throw ex.getCause() instanceof RuntimeException cause ? cause : ex;
+            }
+        }
+        try {
+            TransferResponse response = action.get();
+            execution.complete(response);
+            return response;
+        } catch (RuntimeException ex) {
+            execution.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, execution);
+        }
+    }
+
+    /**
+     * Looks up the outcome of a completed key, in memory first and then in the database.
+     *
+     * @return the stored response, or null if the key has not completed yet
+     * @throws CustomConflictException if the key was used for a different request
+     */
+    @Transactional(readOnly = true)
+    public TransferResponse find(String key, String requestHash) {
+        CompletedTransfer cached = completed.getIfPresent(key);
+        if (cached == null) {
+            cached = idempotencyKeyRepository.findById(key)
+                    .map(stored -> new CompletedTransfer(stored.getRequestHash(),
+                            new TransferResponse(stored.getStatus(), stored.getAmount())))
+                    .orElse(null);
+            if (cached == null) {
+                return null;
+            }
+            completed.put(key, cached);
+        }
+        if (!cached.requestHash().equals(requestHash)) {
+            throw new CustomConflictException("Idempotency-Key has already been used for a different request.");
+        }
+        return cached.response();
+    }
+
+    /**
+     * Stores the outcome of a key as part of the caller's transaction, so the transfer and its key
+     * commit or roll back together. Fails with a {@code DataIntegrityViolationException} if another
+     * transaction already committed the key.
+     */
+    public void record(String key, String requestHash, TransferResponse response) {
+        idempotencyKeyRepository.saveAndFlush(new IdempotencyKey(key, requestHash, response.status(), response.amount()));
+    }
+
+    /**
+     * Caches the outcome of a key once the transaction that stored it has committed.
+     */
+    public void remember(String key, String requestHash, TransferResponse response) {
+        completed.put(key, new CompletedTransfer(requestHash, response));
+    }
+
+    /**
+     * @return a digest of the request fields that a retry must repeat unchanged
+     */
+    public String requestHash(TransactionDTO transactionDTO) {
+        String canonical = transactionDTO.sourceAccountId() + "|" + transactionDTO.targetAccountId() + "|"
+                + transactionDTO.amount().toBigDecimal().stripTrailingZeros().toPlainString();
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(canonical.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * Deletes keys older than the configured retention.
+     */
+    @Scheduled(fixedDelayString = "${transfer.idempotency.cleanup-interval:PT10M}")
+    @Transactional
+    public void purgeExpired() {
+        int deleted = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.example.project.service.ledger;
+
+import java.util.UUID;
+
+/**
+ * A transfer acknowledged by the sharded ledger, as written to the journal.
+ * The amount is in minor units (pence).
+ */
+public record JournalEntry(
+        UUID transactionId,
+        UUID sourceAccountId,
+        UUID targetAccountId,
+        long amountMinor,
+        long createdAtMillis
+) {}
@@ -0,0 +1,198 @@
+package com.example.project.service.ledger;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * One partition of the in-memory ledger.
+ * All state is owned by the shard's single thread, so balances are plain {@code long} fields
+ * mutated without locks; other threads only interact with the shard by submitting tasks.
+ */
+class LedgerShard {
+
+    enum Result {
+        OK,
+        NOT_FOUND,
+        INSUFFICIENT_FUNDS,
+        HELD,
+    }
+
+    /**
+     * Balances of one account in minor units. {@code pendingIn} holds credits of transfers that are
+     * not yet durable; they cannot be spent until settled, so the journal never holds an entry that
+     * spends money created by a later entry.
+     * <p>
+     * {@code debits} and {@code credits} add up the transfers not yet written behind, including those still in
+     * flight, so {@code available + pendingIn} is always the database balance plus {@code credits - debits}.
+     */
+    private static final class Slot {
+        long available;
+        long pendingIn;
+        long debits;
+        long credits;
+    }
+
+    /**
+     * Loads the committed balance of an account, in minor units, when a shard first touches it.
+     */
+    interface BalanceLoader {
+        /**
+         * @return the balance, or {@code null} if the account does not exist
+         */
+        Long load(UUID accountId);
+    }
+
+    private final ExecutorService executor;
+    private final BalanceLoader loader;
+    private final Map<UUID, Slot> slots = new HashMap<>();
+    // Accounts a transaction is changing outside the ledger, with the number of such transactions
+    private final Map<UUID, Integer> held = new HashMap<>();
+
+    LedgerShard(int index, BalanceLoader loader) {
+        this.loader = loader;
+        this.executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ledger-shard-" + index);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    <T> CompletableFuture<T> submit(Function<LedgerShard, T> task) {
+        return CompletableFuture.supplyAsync(() -> task.apply(this), executor);
+    }
+
+    void shutdown() {
+        executor.shutdown();
+    }
+
+    Result reserve(UUID accountId, long amount) {
+        if (held.containsKey(accountId)) {
+            return Result.HELD;
+        }
+        Slot slot = slot(accountId);
+        if (slot == null) {
+            return Result.NOT_FOUND;
+        }
+        if (slot.available < amount) {
+            return Result.INSUFFICIENT_FUNDS;
+        }
+        slot.available -= amount;
+        slot.debits += amount;
+        return Result.OK;
+    }
+
+    void release(UUID accountId, long amount) {
+        Slot slot = slots.get(accountId);
+        slot.available += amount;
+        slot.debits -= amount;
+    }
+
+    Result creditPending(UUID accountId, long amount) {
+        if (held.containsKey(accountId)) {
+            return Result.HELD;
+        }
+        Slot slot = slot(accountId);
+        if (slot == null) {
+            return Result.NOT_FOUND;
+        }
+        slot.pendingIn = Math.addExact(slot.pendingIn, amount);
+        slot.credits += amount;
+        return Result.OK;
+    }
+
+    void settle(UUID accountId, long amount) {
+        Slot slot = slots.get(accountId);
+        slot.pendingIn -= amount;
+        slot.available += amount;
+    }
+
+    void cancelPending(UUID accountId, long amount) {
+        Slot slot = slots.get(accountId);
+        slot.pendingIn -= amount;
+        slot.credits -= amount;
+    }
+
+    /**
+     * Turns a pending credit into a debit of the same amount, for a transfer paid back before its credit could be
+     * spent. A negative amount undoes this.
+     */
+    void repay(UUID accountId, long amount) {
+        Slot slot = slots.get(accountId);
+        slot.pendingIn -= amount;
+        slot.debits += amount;
+    }
+
+    /**
+     * Credits a reserved amount back as pending. Unlike {@link #creditPending} it ignores holds: the account has a
+     * transfer not yet written behind, so no transaction can change it outside the ledger.
+     */
+    void refund(UUID accountId, long amount) {
+        Slot slot = slots.get(accountId);
+        slot.pendingIn += amount;
+        slot.credits += amount;
+    }
+
+    /**
+     * Records that transfers of an account were written behind, so the database balance now includes them.
+     */
+    void persisted(UUID accountId, long debits, long credits) {
+        Slot slot = slots.get(accountId);
+        if (slot != null) {
+            slot.debits -= debits;
+            slot.credits -= credits;
+        }
+    }
+
+    /**
+     * Stops transfers of an account while a transaction changes it outside the ledger, until {@link #resync}.
+     *
+     * @return whether every transfer of the account was already written behind
+     */
+    boolean hold(UUID accountId) {
+        held.merge(accountId, 1, Integer::sum);
+        Slot slot = slots.get(accountId);
+        return slot == null || (slot.debits == 0 && slot.credits == 0);
+    }
+
+    /**
+     * Ends a {@link #hold} and adopts the balance the account has in the database now.
+     * The transfers not yet written behind are applied on top of it, as the write-behind will do.
+     *
+     * @param balance the committed balance, or {@code null} if the account was deleted
+     */
+    void resync(UUID accountId, Long balance) {
+        held.computeIfPresent(accountId, (id, count) -> count > 1 ? count - 1 : null);
+        Slot slot = slots.get(accountId);
+        if (slot == null) {
+            return;
+        }
+        if (balance == null) {
+            slots.remove(accountId);
+        } else {
+            slot.available = balance + slot.credits - slot.debits - slot.pendingIn;
+        }
+    }
+
+    int size() {
+        return slots.size();
+    }
+
+    private Slot slot(UUID accountId) {
+        Slot slot = slots.get(accountId);
+        if (slot == null) {
+            Long balance = loader.load(accountId);
+            if (balance == null) {
+                return null;
+            }
+            slot = new Slot();
+            slot.available = balance;
+            slots.put(accountId, slot);
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.project.service.ledger;
+
+import com.example.project.entity.Account;
+import com.example.project.money.Money;
+import com.example.project.repository.AccountRepository;
+import com.example.project.service.StripedBalanceService;
+import com.example.project.service.cache.AccountChangedEvent;
+import com.example.project.service.outbox.TransferCompletedEvent;
+import com.example.project.service.outbox.TransferOutbox;
+import com.example.project.service.transfer.AccountLockOrder;
+import java.util.LongSummaryStatistics;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Writes journaled transfers to the database.
+ * Every call inserts the transaction rows and applies the net balance change of every touched
+ * account in one database transaction, so a hot account costs one update per flush no matter how
+ * many transfers it took part in. Entries whose transaction row already exists are skipped, which
+ * makes replaying the journal after a crash safe. A flush that finds one of its accounts deleted fails
+ * as a whole, so the journal and the balances never disagree.
+ */
+class LedgerWriteBehind {
+
+    private static final int JDBC_BATCH_SIZE = 500;
+    private static final int IN_LIST_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final AccountRepository accountRepository;
+    private final StripedBalanceService stripedBalanceService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransferOutbox transferOutbox;
+
+    LedgerWriteBehind(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                      AccountRepository accountRepository, StripedBalanceService stripedBalanceService,
+                      ApplicationEventPublisher eventPublisher, TransferOutbox transferOutbox) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = transactionTemplate;
+        this.accountRepository = accountRepository;
+        this.stripedBalanceService = stripedBalanceService;
+        this.eventPublisher = eventPublisher;
+        this.transferOutbox = transferOutbox;
+    }
+
+    void persist(List<JournalEntry> entries) {
+        transactionTemplate.executeWithoutResult(status -> {
+            List<JournalEntry> fresh = withoutPersisted(entries);
+
+            jdbcTemplate.batchUpdate(
+                    "insert into transaction (id, source_account_id, target_account_id, amount, currency, created_at, version) " +
+                            "values (?, ?, ?, ?, 'GBP', ?, 0)",
+                    fresh, JDBC_BATCH_SIZE, (ps, entry) -> {
+                        ps.setObject(1, entry.transactionId());
+                        ps.setObject(2, entry.sourceAccountId());
+                        ps.setObject(3, entry.targetAccountId());
+                        ps.setBigDecimal(4, BigDecimal.valueOf(entry.amountMinor(), 2));
+                        ps.setTimestamp(5, new Timestamp(entry.createdAtMillis()));
+                    });
+            List<TransferCompletedEvent> events = new ArrayList<>(fresh.size() * 2);
+            for (JournalEntry entry : fresh) {
+                events.addAll(TransferCompletedEvent.legsOf(entry.transactionId(), entry.sourceAccountId(),
+                        entry.targetAccountId(), Money.ofMinor(entry.amountMinor()), "GBP",
+                        new Timestamp(entry.createdAtMillis()).toLocalDateTime()));
+            }
+            transferOutbox.append(events);
+
+            // Net change per account, applied in lock order so flushes never deadlock with other writers
+            Map<UUID, Long> deltas = new TreeMap<>(AccountLockOrder.COMPARATOR);
+            for (JournalEntry entry : fresh) {
+                deltas.merge(entry.sourceAccountId(), -entry.amountMinor(), Math::addExact);
+                deltas.merge(entry.targetAccountId(), entry.amountMinor(), Math::addExact);
+            }
+            deltas.values().removeIf(delta -> delta == 0);
+            List<Map.Entry<UUID, Long>> updates = new ArrayList<>(deltas.entrySet());
+            int[][] updated = jdbcTemplate.batchUpdate(
+                    "update account set balance = balance + ?, version = version + 1 where id = ? and stripe_count = 0",
+                    updates, JDBC_BATCH_SIZE, (ps, delta) -> {
+                        ps.setBigDecimal(1, BigDecimal.valueOf(delta.getValue(), 2));
+                        ps.setObject(2, delta.getKey());
+                    });
+
+            // Striped accounts are skipped by the update above and take their net change on their stripes
+            int index = 0;
+            for (int[] batch : updated) {
+                for (int count : batch) {
+                    Map.Entry<UUID, Long> delta = updates.get(index++);
+                    if (count == 0) {
+                        // The ledger refuses to delete accounts with transfers not yet written behind, so a missing
+                        // account was removed behind its back; the flush fails rather than losing the change
+                        Account account = accountRepository.findById(delta.getKey())
+                                .orElseThrow(() -> new IllegalStateException("Account " + delta.getKey() +
+                                        " of journaled transfers no longer exists"));
+                        stripedBalanceService.applyDelta(account, Money.ofMinor(delta.getValue()));
+                    }
+                }
+            }
+            eventPublisher.publishEvent(new AccountChangedEvent(List.copyOf(deltas.keySet())));
+        });
+    }
+
+    private List<JournalEntry> withoutPersisted(List<JournalEntry> entries) {
+        Set<UUID> persisted = new HashSet<>();
+        for (int from = 0; from < entries.size(); from += IN_LIST_SIZE) {
+            List<JournalEntry> chunk = entries.subList(from, Math.min(entries.size(), from + IN_LIST_SIZE));
+            // The creation times bound the lookup to the partitions the chunk can be in
+            LongSummaryStatistics createdAt = chunk.stream().mapToLong(JournalEntry::createdAtMillis).summaryStatistics();
+            persisted.addAll(namedJdbcTemplate.queryForList(
+                    "select id from transaction where id in (:ids) and created_at between :from and :to",
+                    Map.of("ids", chunk.stream().map(JournalEntry::transactionId).toList(),
+                            "from", new Timestamp(createdAt.getMin()),
+                            "to", new Timestamp(createdAt.getMax())),
+                    UUID.class));
+        }
+        if (persisted.isEmpty()) {
+            return entries;
+        }
+        List<JournalEntry> fresh = new ArrayList<>(entries.size());
+        for (JournalEntry entry : entries) {
+            if (!persisted.contains(entry.transactionId())) {
+                fresh.add(entry);
+            }
+        }
+        return fresh;
+    }
+}
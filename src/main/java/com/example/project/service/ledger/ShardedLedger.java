@@ -0,0 +1,423 @@
+package com.example.project.service.ledger;
+
+import com.example.project.config.IdProperties;
+import com.example.project.config.ReadYourWrites;
+import com.example.project.config.TransferProperties;
+import com.example.project.entity.id.IdStyle;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.CustomConflictException;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.exception.InsufficientFundsException;
+import com.example.project.money.Money;
+import com.example.project.repository.AccountRepository;
+import com.example.project.service.StripedBalanceService;
+import com.example.project.service.cache.AccountChangedEvent;
+import com.example.project.service.outbox.TransferOutbox;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory transfer ledger, hash-partitioned by account id into single-writer shards.
+ *
+ * <p>A transfer reserves the amount on the source shard, credits it as pending on the target shard,
+ * appends the transfer to the {@link TransferJournal} and is acknowledged once the journal entry is
+ * durable. Transfers between two shards therefore run as a two-phase reserve/commit between the
+ * shard owners, and a failure at any step releases what was already reserved.
+ *
+ * <p>A transfer made inside a database transaction keeps its credit pending until that transaction completes.
+ * If the transaction rolls back, the transfer is reversed by journaling the opposite transfer, so the caller's own
+ * writes, such as an idempotency key, and the transfer take effect together. A crash before the transaction
+ * completes leaves the transfer applied on replay.
+ *
+ * <p>Journaled transfers are written behind to the database every {@code transfer.sharded.flush-interval},
+ * and any entry left in the journal by a crash is replayed on startup. Balances read from the database
+ * trail the ledger by at most one flush interval.
+ *
+ * <p>Other writers of balances, such as balance updates, deletions and striping, change the database directly.
+ * Before such a transaction commits, its accounts are held so that no transfer touches them, and once it has
+ * completed they are read again, with the transfers not yet written behind applied on top. A direct write of an
+ * account with transfers not yet written behind is refused, so the write-behind never finds an account deleted
+ * under it.
+ */
+@Component
+@ConditionalOnProperty(name = "transfer.strategy", havingValue = "SHARDED")
+public class ShardedLedger {
+
+    private static final Logger log = LoggerFactory.getLogger(ShardedLedger.class);
+
+    private final LedgerShard[] shards;
+    private final LedgerShard.BalanceLoader loader;
+    private final TransferJournal journal;
+    private final LedgerWriteBehind writeBehind;
+    private final TransferProperties.Sharded properties;
+    private final IdStyle transactionIds;
+    private final ConcurrentLinkedQueue<JournalEntry> durable = new ConcurrentLinkedQueue<>();
+    private final List<JournalEntry> unflushed = new ArrayList<>();
+    private final List<Path> closedSegments = new ArrayList<>();
+    // Held while writing behind and while reading back accounts changed directly, so the two never interleave
+    private final Object flushLock = new Object();
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "ledger-write-behind");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean accepting;
+
+    /**
+     * Constructs the ledger; it starts accepting transfers once the journal has been recovered.
+     *
+     * @param accountRepository     the repository used to load balances when a shard touches or resyncs an account
+     * @param jdbcTemplate          the template used to write transfers behind
+     * @param transactionTemplate   the template wrapping every write-behind flush
+     * @param transferProperties    the transfer configuration
+     * @param stripedBalanceService the service holding the balances of striped accounts
+     * @param eventPublisher        the publisher announcing accounts changed by a flush
+     * @param transferOutbox        the outbox receiving the events of flushed transfers
+     * @param idProperties          the ID settings, whose transaction style names journaled transfers
+     */
+    public ShardedLedger(AccountRepository accountRepository, JdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate, TransferProperties transferProperties,
+                         StripedBalanceService stripedBalanceService, ApplicationEventPublisher eventPublisher,
+                         TransferOutbox transferOutbox, IdProperties idProperties) {
+        this.properties = transferProperties.getSharded();
+        this.transactionIds = idProperties.styleOf("transaction");
+        this.shards = new LedgerShard[Math.max(1, properties.getShards())];
+        // Balances are read from the primary, a lagging replica would hand the ledger an old balance
+        this.loader = accountId -> ReadYourWrites.onPrimary(() -> accountRepository.findById(accountId)
+                .map(account -> stripedBalanceService.balanceOf(account).minorUnits())
+                .orElse(null));
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new LedgerShard(i, loader);
+        }
+        this.journal = new TransferJournal(Path.of(properties.getJournalDirectory()), durable::add);
+        this.writeBehind = new LedgerWriteBehind(jdbcTemplate, transactionTemplate, accountRepository, stripedBalanceService,
+                eventPublisher, transferOutbox);
+    }
+
+    @PostConstruct
+    void start() {
+        synchronized (flushLock) {
+            for (Path segment : journal.segments()) {
+                List<JournalEntry> entries = journal.read(segment);
+                if (!entries.isEmpty()) {
+                    log.info("Replaying {} journaled transfers from {}", entries.size(), segment);
+                    writeBehind.persist(entries);
+                }
+                journal.delete(segment);
+            }
+        }
+        journal.open();
+        long intervalMillis = Math.max(1, properties.getFlushInterval().toMillis());
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        accepting = true;
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        accepting = false;
+        flusher.shutdown();
+        flusher.awaitTermination(10, TimeUnit.SECONDS);
+        for (LedgerShard shard : shards) {
+            shard.shutdown();
+        }
+        try {
+            flush();
+        } finally {
+            // Whatever was not written behind stays in the journal for the next start
+            journal.close();
+        }
+    }
+
+    /**
+     * Transfers money between two accounts.
+     *
+     * @param sourceAccountId the account to debit
+     * @param targetAccountId the account to credit
+     * @param amountMinor     the amount in minor units
+     * @return the journal entry of the transfer, durable when this method returns; inside a transaction it is
+     *         reversed if that transaction rolls back
+     * @throws CustomNotFoundException   if either account does not exist
+     * @throws CustomBadRequestException if the source balance is too low
+     * @throws CannotAcquireLockException if a transaction is changing either account outside the ledger
+     */
+    public JournalEntry transfer(UUID sourceAccountId, UUID targetAccountId, long amountMinor) {
+        if (!accepting) {
+            throw new IllegalStateException("Ledger is not accepting transfers");
+        }
+        LedgerShard source = shardFor(sourceAccountId);
+        LedgerShard target = shardFor(targetAccountId);
+
+        if (source == target) {
+            await(source.submit(shard -> {
+                checkSource(shard.reserve(sourceAccountId, amountMinor));
+                LedgerShard.Result credited = shard.creditPending(targetAccountId, amountMinor);
+                if (credited != LedgerShard.Result.OK) {
+                    shard.release(sourceAccountId, amountMinor);
+                    checkTarget(credited);
+                }
+                return credited;
+            }));
+        } else {
+            checkSource(await(source.submit(shard -> shard.reserve(sourceAccountId, amountMinor))));
+            LedgerShard.Result credited = await(target.submit(shard -> shard.creditPending(targetAccountId, amountMinor)));
+            if (credited != LedgerShard.Result.OK) {
+                source.submit(shard -> {
+                    shard.release(sourceAccountId, amountMinor);
+                    return null;
+                });
+                checkTarget(credited);
+            }
+        }
+
+        JournalEntry entry = new JournalEntry(transactionIds.next(), sourceAccountId, targetAccountId, amountMinor,
+                System.currentTimeMillis());
+        try {
+            await(journal.append(entry));
+        } catch (RuntimeException ex) {
+            source.submit(shard -> {
+                shard.release(sourceAccountId, amountMinor);
+                return null;
+            });
+            target.submit(shard -> {
+                shard.cancelPending(targetAccountId, amountMinor);
+                return null;
+            });
+            throw ex;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // The caller writes more in its transaction, such as an idempotency key; the transfer shares its outcome
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        reverse(entry);
+                    } else {
+                        settle(entry);
+                    }
+                }
+            });
+        } else {
+            settle(entry);
+        }
+        return entry;
+    }
+
+    /**
+     * Lets the credit of a durable transfer be spent; nobody needs to wait for that.
+     */
+    private void settle(JournalEntry entry) {
+        shardFor(entry.targetAccountId()).submit(shard -> {
+            shard.settle(entry.targetAccountId(), entry.amountMinor());
+            return null;
+        });
+    }
+
+    /**
+     * Takes back a durable transfer whose caller's transaction rolled back, by journaling the opposite transfer.
+     * The credit was never spendable, so the target can always pay it back. If the reversal cannot be journaled,
+     * the transfer stands.
+     */
+    private void reverse(JournalEntry entry) {
+        UUID sourceAccountId = entry.sourceAccountId();
+        UUID targetAccountId = entry.targetAccountId();
+        long amountMinor = entry.amountMinor();
+        LedgerShard source = shardFor(sourceAccountId);
+        LedgerShard target = shardFor(targetAccountId);
+
+        await(target.submit(shard -> {
+            shard.repay(targetAccountId, amountMinor);
+            return null;
+        }));
+        await(source.submit(shard -> {
+            shard.refund(sourceAccountId, amountMinor);
+            return null;
+        }));
+        JournalEntry reversal = new JournalEntry(transactionIds.next(), targetAccountId, sourceAccountId, amountMinor,
+                System.currentTimeMillis());
+        try {
+            await(journal.append(reversal));
+        } catch (RuntimeException ex) {
+            log.error("Transfer {} stands although its transaction rolled back, its reversal was not journaled",
+                    entry.transactionId(), ex);
+            source.submit(shard -> {
+                shard.cancelPending(sourceAccountId, amountMinor);
+                return null;
+            });
+            target.submit(shard -> {
+                shard.repay(targetAccountId, -amountMinor);
+                shard.settle(targetAccountId, amountMinor);
+                return null;
+            });
+            return;
+        }
+        settle(reversal);
+    }
+
+    /**
+     * Converts an amount to minor units.
+     *
+     * @throws CustomBadRequestException if the amount is not positive
+     */
+    public static long toMinorUnits(Money amount) {
+        if (!amount.isPositive()) {
+            throw new CustomBadRequestException("Amount must be positive.");
+        }
+        return amount.minorUnits();
+    }
+
+    /**
+     * Holds the accounts a transaction is about to change outside the ledger, so no transfer touches them until
+     * {@link #onAccountChanged} has read them again.
+     *
+     * @throws CustomConflictException if one of the accounts has transfers not yet written behind
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onAccountChanging(AccountChangedEvent event) {
+        if (Thread.holdsLock(flushLock)) {
+            // The write-behind's own change
+            return;
+        }
+        for (UUID accountId : event.accountIds()) {
+            if (!await(shardFor(accountId).submit(shard -> shard.hold(accountId)))) {
+                throw new CustomConflictException("Account " + accountId + " has transfers not yet written to the " +
+                        "database, please retry.");
+            }
+        }
+    }
+
+    /**
+     * Reads the accounts a transaction changed outside the ledger once it has committed or rolled back, and ends
+     * their hold. Deleted accounts are dropped from their shard.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMPLETION, fallbackExecution = true)
+    public void onAccountChanged(AccountChangedEvent event) {
+        if (Thread.holdsLock(flushLock)) {
+            return;
+        }
+        synchronized (flushLock) {
+            for (UUID accountId : event.accountIds()) {
+                Long balance = loader.load(accountId);
+                await(shardFor(accountId).submit(shard -> {
+                    shard.resync(accountId, balance);
+                    return null;
+                }));
+            }
+        }
+    }
+
+    void flush() {
+        synchronized (flushLock) {
+            if (durable.isEmpty() && unflushed.isEmpty()) {
+                return;
+            }
+            closedSegments.add(await(journal.roll()));
+            JournalEntry entry;
+            while ((entry = durable.poll()) != null) {
+                unflushed.add(entry);
+            }
+            writeBehind.persist(unflushed);
+            if (accepting) {
+                markPersisted(unflushed);
+            }
+            unflushed.clear();
+            closedSegments.forEach(journal::delete);
+            closedSegments.clear();
+        }
+    }
+
+    /**
+     * Tells the shards that the given entries are now part of the database balances. Their tasks run before any
+     * resync submitted after this flush, so a resync always reads a balance that matches its shard.
+     */
+    private void markPersisted(List<JournalEntry> entries) {
+        // Debits and credits written behind, per account
+        Map<UUID, long[]> written = new HashMap<>();
+        for (JournalEntry entry : entries) {
+            written.computeIfAbsent(entry.sourceAccountId(), id -> new long[2])[0] += entry.amountMinor();
+            written.computeIfAbsent(entry.targetAccountId(), id -> new long[2])[1] += entry.amountMinor();
+        }
+        written.forEach((accountId, amounts) -> shardFor(accountId).submit(shard -> {
+            shard.persisted(accountId, amounts[0], amounts[1]);
+            return null;
+        }));
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            // The entries stay in the journal and in memory, the next flush retries them
+            log.error("Write-behind of {} journaled transfers failed", unflushed.size(), ex);
+        }
+    }
+
+    private LedgerShard shardFor(UUID accountId) {
+        int hash = accountId.hashCode();
+        return shards[Math.floorMod(hash ^ (hash >>> 16), shards.length)];
+    }
+
+    /**
+     * Maps a failed reservation to the same errors the other transfer strategies raise.
+     */
+    private static void checkSource(LedgerShard.Result result) {
+        switch (result) {
+            case NOT_FOUND -> throw new CustomNotFoundException("Source Account not found with ID: ");
+            case INSUFFICIENT_FUNDS -> throw new InsufficientFundsException();
+            case HELD -> throw held();
+            case OK -> { }
+        }
+    }
+
+    private static void checkTarget(LedgerShard.Result result) {
+        switch (result) {
+            case NOT_FOUND -> throw new CustomNotFoundException("Target Account not found with ID: ");
+            case HELD -> throw held();
+            case OK, INSUFFICIENT_FUNDS -> { }
+        }
+    }
+
+    /**
+     * A held account is retried like a row lock that could not be taken.
+     */
+    private static CannotAcquireLockException held() {
+        return new CannotAcquireLockException("Account is being changed outside the ledger");
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+}
@@ -0,0 +1,323 @@
+package com.example.project.service.ledger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, fsync'ed journal of acknowledged transfers.
+ * A single writer thread drains all pending appends, writes them with one {@code write} and makes
+ * them durable with one {@code force}, so concurrent transfers share the cost of an fsync.
+ * The journal is split into segments; a segment is deleted once every entry in it has been
+ * written behind to the database.
+ * <p>
+ * Every append has one outcome. A batch whose write or fsync fails is cut off the segment again before its
+ * callers are failed, so it is never replayed after a restart. If even that fails, whether the batch survived
+ * is unknown: the journal stops taking entries, and the replay on the next start decides.
+ */
+class TransferJournal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferJournal.class);
+
+    // seq, transaction id, source id, target id, amount, timestamp, crc
+    static final int RECORD_SIZE = 8 + 16 + 16 + 16 + 8 + 8 + 4;
+    private static final int MAX_BATCH = 1024;
+
+    private final Path directory;
+    private final Consumer<JournalEntry> onDurable;
+    private final BlockingQueue<Request> requests = new LinkedBlockingQueue<>();
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * MAX_BATCH);
+
+    private FileChannel channel;
+    private Path segment;
+    private long nextSegment;
+    private long nextSeq;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile boolean failed;
+
+    /**
+     * @param directory the directory holding the segments
+     * @param onDurable called on the writer thread, in journal order, once an entry has been forced to disk
+     */
+    TransferJournal(Path directory, Consumer<JournalEntry> onDurable) {
+        this.directory = directory;
+        this.onDurable = onDurable;
+    }
+
+    /**
+     * @return the segments on disk, oldest first
+     */
+    List<Path> segments() {
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                return files.filter(path -> path.getFileName().toString().startsWith("journal-"))
+                        .sorted()
+                        .toList();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /**
+     * Reads the entries of a segment left over from a previous run.
+     * A torn record at the tail of the segment ends it.
+     */
+    List<JournalEntry> read(Path segment) {
+        List<JournalEntry> entries = new ArrayList<>();
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+            while (in.read(record) == RECORD_SIZE) {
+                record.flip();
+                JournalEntry entry = decode(record);
+                if (entry == null) {
+                    log.warn("Ignoring torn record at the end of journal segment {}", segment);
+                    break;
+                }
+                entries.add(entry);
+                record.clear();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return entries;
+    }
+
+    void delete(Path segment) {
+        try {
+            Files.deleteIfExists(segment);
+        } catch (IOException ex) {
+            log.warn("Could not delete journal segment {}", segment, ex);
+        }
+    }
+
+    /**
+     * Opens a fresh segment and starts the writer thread.
+     */
+    void open() {
+        nextSegment = segments().stream()
+                .mapToLong(TransferJournal::segmentNumber)
+                .max()
+                .orElse(0) + 1;
+        openSegment();
+        running = true;
+        writer = new Thread(this::writeLoop, "transfer-journal");
+        writer.start();
+    }
+
+    /**
+     * Appends an entry; the returned future completes once the entry is durable.
+     */
+    CompletableFuture<?> append(JournalEntry entry) {
+        Request request = new Request(entry, new CompletableFuture<>());
+        if (!running) {
+            request.future.completeExceptionally(new IllegalStateException("Transfer journal is closed"));
+        } else {
+            requests.add(request);
+        }
+        return request.future;
+    }
+
+    /**
+     * Closes the current segment after every entry appended before this call and starts a new one.
+     * Every entry of the returned segment has already been passed to {@code onDurable}.
+     *
+     * @return a future of the segment that was closed
+     */
+    CompletableFuture<Path> roll() {
+        Request request = new Request(null, new CompletableFuture<>());
+        requests.add(request);
+        return request.future.thenApply(Path.class::cast);
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        if (writer != null) {
+            try {
+                writer.join(TimeUnit.SECONDS.toMillis(10));
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        Request request;
+        while ((request = requests.poll()) != null) {
+            request.future.completeExceptionally(new IllegalStateException("Transfer journal is closed"));
+        }
+        closeSegment();
+    }
+
+    private void writeLoop() {
+        List<Request> batch = new ArrayList<>(MAX_BATCH);
+        List<Request> written = new ArrayList<>(MAX_BATCH);
+        while (running || !requests.isEmpty()) {
+            try {
+                Request first = requests.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                requests.drainTo(batch, MAX_BATCH - 1);
+                if (failed) {
+                    batch.forEach(request -> request.future.completeExceptionally(
+                            new IllegalStateException("Transfer journal failed")));
+                    continue;
+                }
+                for (Request request : batch) {
+                    if (request.entry == null) {
+                        force(written);
+                        Path closed = segment;
+                        closeSegment();
+                        openSegment();
+                        request.future.complete(closed);
+                    } else {
+                        encode(request.entry, buffer);
+                        written.add(request);
+                    }
+                }
+                force(written);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException ex) {
+                log.error("Transfer journal write failed", ex);
+                RuntimeException failure = failed
+                        ? new IllegalStateException("Transfer journal failed, the transfer is applied if the " +
+                                "journal still holds it when the ledger restarts", ex)
+                        : ex;
+                batch.forEach(request -> request.future.completeExceptionally(failure));
+                written.clear();
+                buffer.clear();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void force(List<Request> written) {
+        if (written.isEmpty()) {
+            return;
+        }
+        long start = -1;
+        try {
+            start = channel.position();
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException ex) {
+            discard(start, ex);
+            throw new UncheckedIOException(ex);
+        } finally {
+            buffer.clear();
+        }
+        for (Request request : written) {
+            onDurable.accept(request.entry);
+            request.future.complete(null);
+        }
+        written.clear();
+    }
+
+    /**
+     * Cuts a batch whose write failed off the current segment, so a replay never applies transfers whose callers
+     * were told they failed. Marks the journal failed if the segment cannot be restored.
+     */
+    private void discard(long start, IOException cause) {
+        if (start < 0) {
+            // Nothing of the batch was written
+            return;
+        }
+        try {
+            channel.truncate(start);
+            channel.position(start);
+            channel.force(false);
+        } catch (IOException ex) {
+            cause.addSuppressed(ex);
+            failed = true;
+            log.error("Could not remove a failed write from journal segment {}; no more transfers are accepted " +
+                    "until the ledger restarts and replays it", segment, ex);
+        }
+    }
+
+    private void openSegment() {
+        segment = directory.resolve(String.format("journal-%020d.log", nextSegment++));
+        try {
+            channel = FileChannel.open(segment, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private void closeSegment() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException ex) {
+                log.warn("Could not close journal segment {}", segment, ex);
+            }
+            channel = null;
+        }
+    }
+
+    private void encode(JournalEntry entry, ByteBuffer out) {
+        int start = out.position();
+        out.putLong(nextSeq++);
+        putUuid(out, entry.transactionId());
+        putUuid(out, entry.sourceAccountId());
+        putUuid(out, entry.targetAccountId());
+        out.putLong(entry.amountMinor());
+        out.putLong(entry.createdAtMillis());
+        out.putInt(checksum(out, start, RECORD_SIZE - 4));
+    }
+
+    private static JournalEntry decode(ByteBuffer record) {
+        int expected = checksum(record, 0, RECORD_SIZE - 4);
+        if (record.getInt(RECORD_SIZE - 4) != expected) {
+            return null;
+        }
+        record.getLong();
+        return new JournalEntry(getUuid(record), getUuid(record), getUuid(record), record.getLong(), record.getLong());
+    }
+
+    private static int checksum(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate().position(offset).limit(offset + length));
+        return (int) crc.getValue();
+    }
+
+    private static void putUuid(ByteBuffer out, UUID id) {
+        out.putLong(id.getMostSignificantBits());
+        out.putLong(id.getLeastSignificantBits());
+    }
+
+    private static UUID getUuid(ByteBuffer in) {
+        return new UUID(in.getLong(), in.getLong());
+    }
+
+    private static long segmentNumber(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring("journal-".length(), name.length() - ".log".length()));
+    }
+
+    private record Request(JournalEntry entry, CompletableFuture<Object> future) {}
+}
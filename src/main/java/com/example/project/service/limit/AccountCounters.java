@@ -0,0 +1,81 @@
+package com.example.project.service.limit;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The sliding-window counters of one account, as one flat array of buckets shared by all windows.
+ * <p>
+ * Every bucket is a single long holding the number of its period, its epoch, in the upper 20 bits and its
+ * value in the lower 44 bits, so a bucket is reset for a new period and added to with one compare-and-set.
+ * Counters are never locked. A bucket whose epoch is more than a window behind is simply ignored, and
+ * reused by the next period mapping to it.
+ */
+final class AccountCounters {
+
+    static final int EPOCH_BITS = 20;
+    static final int VALUE_BITS = 64 - EPOCH_BITS;
+    static final long MAX_VALUE = (1L << VALUE_BITS) - 1;
+    private static final long EPOCH_MASK = (1L << EPOCH_BITS) - 1;
+
+    private final AtomicLongArray buckets;
+
+    /**
+     * Time of the last transfer counted, in epoch milliseconds.
+     */
+    volatile long lastUsedMillis;
+
+    /**
+     * Set while the account is being evicted; counters of a retired account may be dropped at any time.
+     */
+    volatile boolean retired;
+
+    AccountCounters(int size) {
+        this.buckets = new AtomicLongArray(size);
+    }
+
+    /**
+     * Adds to a bucket if it still belongs to the given epoch, first resetting it if it belongs to an older one.
+     * Nothing is added to a bucket already reused by a newer epoch, whose value the delta would have expired from.
+     */
+    void add(int index, long epoch, long delta) {
+        long stamp = epoch & EPOCH_MASK;
+        while (true) {
+            long current = buckets.get(index);
+            long currentStamp = current >>> VALUE_BITS;
+            long value;
+            if (currentStamp == stamp) {
+                value = (current & MAX_VALUE) + delta;
+            } else if (current != 0 && isAfter(currentStamp, stamp)) {
+                return;
+            } else {
+                value = delta;
+            }
+            long updated = stamp << VALUE_BITS | Math.min(MAX_VALUE, Math.max(0, value));
+            if (buckets.compareAndSet(index, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Sums the buckets from {@code first} to {@code first + count}, stepping by {@code stride}, that belong to
+     * one of the {@code count} epochs up to and including {@code epoch}.
+     */
+    long sum(int first, int stride, int count, long epoch) {
+        long stamp = epoch & EPOCH_MASK;
+        long sum = 0;
+        for (int i = 0, index = first; i < count; i++, index += stride) {
+            long bucket = buckets.get(index);
+            long age = (stamp - (bucket >>> VALUE_BITS)) & EPOCH_MASK;
+            if (age < count) {
+                sum += bucket & MAX_VALUE;
+            }
+        }
+        return sum;
+    }
+
+    private static boolean isAfter(long stamp, long other) {
+        long distance = (stamp - other) & EPOCH_MASK;
+        return distance != 0 && distance < 1L << (EPOCH_BITS - 1);
+    }
+}
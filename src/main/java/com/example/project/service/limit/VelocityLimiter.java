@@ -0,0 +1,259 @@
+package com.example.project.service.limit;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.exception.VelocityLimitExceededException;
+import com.example.project.money.Money;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Enforces the velocity limits of {@code transfer.limits.windows}: per source account, at most so many
+ * transfers and so much money within each sliding window.
+ * <p>
+ * Every window is split into {@code buckets} periods, and each account keeps a count and an amount per
+ * period in {@link AccountCounters}, so a check sums a few in-memory longs instead of aggregating the
+ * {@code transaction} table. A transfer is added to its counters first and then checked, and taken back
+ * if it exceeds a limit, so concurrent transfers of one account never need a lock. A transfer that fails
+ * later is taken back with {@link #release}. Counters of accounts without a transfer in the longest window
+ * are dropped, and on startup they are rebuilt from the transfers of the longest window.
+ * <p>
+ * Counters live on each node, so with several nodes an account is limited per node unless its transfers
+ * always reach the same node.
+ */
+@Component
+public class VelocityLimiter implements MeterBinder {
+
+    private static final Logger log = LoggerFactory.getLogger(VelocityLimiter.class);
+
+    private static final int COUNT = 0;
+    private static final int AMOUNT = 1;
+
+    /**
+     * A transfer counted against the limits of its source account.
+     *
+     * @param accountId       the source account, or null if nothing was counted
+     * @param amount          the amount in minor units
+     * @param timestampMillis when the transfer was counted
+     */
+    public record Reservation(UUID accountId, long amount, long timestampMillis) {
+        public static final Reservation NONE = new Reservation(null, 0, 0);
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final Window[] windows;
+    private final int size;
+    private final long longestMillis;
+    private final Map<UUID, AccountCounters> accounts = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs a VelocityLimiter for the configured windows.
+     *
+     * @param transferProperties the transfer configuration holding the limits
+     * @param jdbcTemplate       the template reading recent transfers on startup
+     */
+    public VelocityLimiter(TransferProperties transferProperties, JdbcTemplate jdbcTemplate) {
+        TransferProperties.Limits limits = transferProperties.getLimits();
+        this.jdbcTemplate = jdbcTemplate;
+        this.windows = new Window[limits.getWindows().size()];
+        int offset = 0;
+        long longest = 0;
+        for (int i = 0; i < windows.length; i++) {
+            windows[i] = Window.of(limits.getWindows().get(i), offset);
+            offset += 2 * windows[i].buckets();
+            longest = Math.max(longest, windows[i].millis());
+        }
+        this.size = offset;
+        this.longestMillis = longest;
+        this.enabled = limits.isEnabled() && windows.length > 0;
+    }
+
+    /**
+     * Counts a transfer against the limits of its source account.
+     *
+     * @param accountId the source account
+     * @param amount    the amount sent
+     * @return the reservation to {@link #release} if the transfer is not applied after all
+     * @throws VelocityLimitExceededException if the transfer would exceed a limit; nothing is counted then
+     */
+    public Reservation reserve(UUID accountId, Money amount) {
+        if (!enabled) {
+            return Reservation.NONE;
+        }
+        return reserve(accountId, amount.minorUnits(), System.currentTimeMillis());
+    }
+
+    Reservation reserve(UUID accountId, long amount, long now) {
+        for (Window window : windows) {
+            if (amount > window.maxAmount()) {
+                throw window.exceeded();
+            }
+        }
+        while (true) {
+            AccountCounters counters = accounts.computeIfAbsent(accountId, id -> new AccountCounters(size));
+            counters.lastUsedMillis = now;
+            for (Window window : windows) {
+                window.add(counters, now, 1, amount);
+            }
+            if (counters.retired) {
+                // Evicted meanwhile: count on the counters that replace these
+                subtract(counters, amount, now);
+                Thread.onSpinWait();
+                continue;
+            }
+            for (Window window : windows) {
+                if (window.isExceeded(counters, now)) {
+                    subtract(counters, amount, now);
+                    throw window.exceeded();
+                }
+            }
+            return new Reservation(accountId, amount, now);
+        }
+    }
+
+    /**
+     * Takes back a transfer that was counted but not applied.
+     *
+     * @param reservation the reservation returned when the transfer was counted
+     */
+    public void release(Reservation reservation) {
+        if (reservation.accountId() == null) {
+            return;
+        }
+        AccountCounters counters = accounts.get(reservation.accountId());
+        if (counters != null) {
+            subtract(counters, reservation.amount(), reservation.timestampMillis());
+        }
+    }
+
+    /**
+     * Counts the transfers of the longest window, so a restarted node enforces the limits from its first transfer.
+     */
+    @PostConstruct
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long[] transfers = new long[1];
+        jdbcTemplate.query("select source_account_id, amount, created_at from transaction where created_at >= ?",
+                rs -> {
+                    count(rs.getObject("source_account_id", UUID.class), Money.of(rs.getBigDecimal("amount")).minorUnits(),
+                            rs.getTimestamp("created_at").getTime(), now);
+                    transfers[0]++;
+                }, new Timestamp(now - longestMillis));
+        log.info("Counted {} recent transfers of {} accounts against the velocity limits", transfers[0], accounts.size());
+    }
+
+    void count(UUID accountId, long amount, long timestampMillis, long now) {
+        AccountCounters counters = accounts.computeIfAbsent(accountId, id -> new AccountCounters(size));
+        counters.lastUsedMillis = Math.max(counters.lastUsedMillis, timestampMillis);
+        for (Window window : windows) {
+            if (timestampMillis > now - window.millis()) {
+                window.add(counters, timestampMillis, 1, amount);
+            }
+        }
+    }
+
+    /**
+     * Drops the counters of accounts without a transfer in the longest window.
+     */
+    @Scheduled(fixedDelayString = "${transfer.limits.eviction-interval:PT1M}")
+    public void evictIdle() {
+        evictIdle(System.currentTimeMillis());
+    }
+
+    void evictIdle(long now) {
+        long idleBefore = now - longestMillis;
+        int evicted = 0;
+        for (Map.Entry<UUID, AccountCounters> entry : accounts.entrySet()) {
+            AccountCounters counters = entry.getValue();
+            if (counters.lastUsedMillis >= idleBefore) {
+                continue;
+            }
+            counters.retired = true;
+            // A transfer counted before it saw the flag has updated lastUsedMillis by now
+            if (counters.lastUsedMillis < idleBefore) {
+                accounts.remove(entry.getKey(), counters);
+                evicted++;
+            } else {
+                counters.retired = false;
+            }
+        }
+        if (evicted > 0) {
+            log.debug("Evicted the velocity counters of {} idle accounts", evicted);
+        }
+    }
+
+    /**
+     * Exports the number of accounts with counters in memory as {@code transfer.limits.accounts}.
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("transfer.limits.accounts", accounts, Map::size)
+                .description("Accounts whose velocity counters are held in memory")
+                .register(registry);
+    }
+
+    private void subtract(AccountCounters counters, long amount, long timestampMillis) {
+        for (Window window : windows) {
+            window.add(counters, timestampMillis, -1, -amount);
+        }
+    }
+
+    /**
+     * A sliding window and its slice of the buckets of every account, one count and one amount per period.
+     */
+    private record Window(String description, long millis, long bucketMillis, int buckets, long maxTransfers,
+                          long maxAmount, int offset) {
+
+        static Window of(TransferProperties.Limits.Window window, int offset) {
+            Duration duration = window.getDuration();
+            if (duration == null || window.getBuckets() < 1 || window.getBuckets() >= 1 << (AccountCounters.EPOCH_BITS - 1)
+                    || duration.toMillis() < window.getBuckets()) {
+                throw new IllegalStateException("Velocity limit windows need a duration of at least one millisecond per bucket");
+            }
+            String period = duration.toString().substring(2).toLowerCase(Locale.ROOT);
+            long maxTransfers = window.getMaxTransfers() > 0 ? window.getMaxTransfers() : Long.MAX_VALUE;
+            long maxAmount = window.getMaxAmount() != null ? Money.of(window.getMaxAmount()).minorUnits() : Long.MAX_VALUE;
+            String description = (window.getMaxTransfers() > 0 ? window.getMaxTransfers() + " transfers" : "")
+                    + (window.getMaxTransfers() > 0 && window.getMaxAmount() != null ? " and " : "")
+                    + (window.getMaxAmount() != null ? Money.ofMinor(maxAmount) : "")
+                    + " per " + period;
+            return new Window(description, duration.toMillis(), duration.toMillis() / window.getBuckets(),
+                    window.getBuckets(), maxTransfers, maxAmount, offset);
+        }
+
+        void add(AccountCounters counters, long timestampMillis, long transfers, long amount) {
+            long epoch = timestampMillis / bucketMillis;
+            int index = offset + 2 * (int) (epoch % buckets);
+            counters.add(index + COUNT, epoch, transfers);
+            counters.add(index + AMOUNT, epoch, amount);
+        }
+
+        boolean isExceeded(AccountCounters counters, long now) {
+            long epoch = now / bucketMillis;
+            return counters.sum(offset + COUNT, 2, buckets, epoch) > maxTransfers
+                    || counters.sum(offset + AMOUNT, 2, buckets, epoch) > maxAmount;
+        }
+
+        VelocityLimitExceededException exceeded() {
+            // The window moves on by one bucket at the latest after this long
+            return new VelocityLimitExceededException(description, Duration.ofMillis(bucketMillis));
+        }
+    }
+}
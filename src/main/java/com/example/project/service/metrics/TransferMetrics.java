@@ -0,0 +1,220 @@
+package com.example.project.service.metrics;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.CustomConflictException;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.exception.CustomTooManyRequestsException;
+import com.example.project.exception.InsufficientFundsException;
+import com.example.project.exception.SameAccountException;
+import com.example.project.service.transfer.TransferRetryPolicy;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Meters of the single-transfer pipeline.
+ * <ul>
+ *     <li>{@code transfer.requests}: a timer per {@link Outcome}; its count is the number of transfers ending that way.</li>
+ *     <li>{@code transfer.phase}: a timer per {@link Phase} of a transfer that completed the phase.</li>
+ *     <li>{@code transfer.in.flight}: transfers currently being applied.</li>
+ *     <li>{@code transfer.retries}: attempts retried after a concurrency failure.</li>
+ * </ul>
+ * All meters are tagged with the configured strategy only. Account IDs are never used as tags, so the
+ * number of time series does not grow with the number of accounts.
+ */
+@Component
+public class TransferMetrics {
+
+    /**
+     * The steps of a transfer inside its database transaction.
+     */
+    public enum Phase {
+        /** Reading or locking the two accounts. */
+        LOAD,
+        /** Checking and debiting the source balance. */
+        CHECK,
+        /** Writing the new balances; with JPA the updates themselves are flushed in {@link #COMMIT}. */
+        SAVE,
+        /** Inserting the transaction row. */
+        INSERT,
+        /** Flushing and committing the database transaction. */
+        COMMIT
+    }
+
+    /**
+     * How a transfer ended.
+     */
+    public enum Outcome {
+        SUCCESS,
+        INSUFFICIENT_FUNDS,
+        NOT_FOUND,
+        SAME_ACCOUNT,
+        INVALID_REQUEST,
+        LIMIT_EXCEEDED,
+        CONFLICT,
+        ERROR
+    }
+
+    private final Map<Phase, Timer> phases = new EnumMap<>(Phase.class);
+    private final Map<Outcome, Timer> outcomes = new EnumMap<>(Outcome.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * Registers the transfer meters.
+     *
+     * @param registry           the registry to register the meters with
+     * @param transferProperties the transfer configuration, whose strategy tags every meter
+     * @param retryPolicy        the retry policy counting retried attempts
+     */
+    public TransferMetrics(MeterRegistry registry, TransferProperties transferProperties, TransferRetryPolicy retryPolicy) {
+        String strategy = tagValue(transferProperties.getStrategy());
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, Timer.builder("transfer.phase")
+                    .description("Time spent in each phase of a transfer")
+                    .tag("strategy", strategy)
+                    .tag("phase", tagValue(phase))
+                    .register(registry));
+        }
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, Timer.builder("transfer.requests")
+                    .description("Transfers by outcome, timed including their retries")
+                    .tag("strategy", strategy)
+                    .tag("outcome", tagValue(outcome))
+                    .register(registry));
+        }
+        Gauge.builder("transfer.in.flight", inFlight, AtomicInteger::get)
+                .description("Transfers currently being applied")
+                .tag("strategy", strategy)
+                .register(registry);
+        FunctionCounter.builder("transfer.retries", retryPolicy, TransferRetryPolicy::retryCount)
+                .description("Transfer attempts retried after a serialization, deadlock or optimistic-lock failure")
+                .tag("strategy", strategy)
+                .register(registry);
+    }
+
+    /**
+     * Runs a whole transfer, timing it by outcome and counting it as in flight meanwhile.
+     *
+     * @param transfer the transfer, including its retries
+     * @return the result of the transfer
+     */
+    public <T> T record(Supplier<T> transfer) {
+        long start = begin();
+        Throwable failure = null;
+        try {
+            return transfer.get();
+        } catch (RuntimeException ex) {
+            failure = ex;
+            throw ex;
+        } finally {
+            end(start, failure);
+        }
+    }
+
+    /**
+     * Counts a transfer as in flight, for callers that cannot wrap it in {@link #record}, such as a non-blocking one.
+     * Every call must be followed by one call to {@link #end}.
+     *
+     * @return the start of the transfer
+     */
+    public long begin() {
+        inFlight.incrementAndGet();
+        return System.nanoTime();
+    }
+
+    /**
+     * Times a transfer started with {@link #begin} by its outcome.
+     *
+     * @param start   the start of the transfer
+     * @param failure the exception the transfer ended with, or null if it succeeded
+     */
+    public void end(long start, Throwable failure) {
+        inFlight.decrementAndGet();
+        Outcome outcome = failure == null ? Outcome.SUCCESS : outcomeOf(failure);
+        outcomes.get(outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return the start of the first phase
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records a completed phase.
+     *
+     * @param phase the phase that completed
+     * @param start the start of the phase, as returned by {@link #start()} or the previous lap
+     * @return the start of the next phase
+     */
+    public long lap(Phase phase, long start) {
+        long end = System.nanoTime();
+        phases.get(phase).record(end - start, TimeUnit.NANOSECONDS);
+        return end;
+    }
+
+    /**
+     * Times the commit of the current transaction as {@link Phase#COMMIT}, whether it succeeds or not.
+     * Does nothing outside a transaction.
+     */
+    public void timeCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long start;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                start = System.nanoTime();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (start != 0) {
+                    lap(Phase.COMMIT, start);
+                }
+            }
+        });
+    }
+
+    private static Outcome outcomeOf(Throwable ex) {
+        if (ex instanceof InsufficientFundsException) {
+            return Outcome.INSUFFICIENT_FUNDS;
+        }
+        if (ex instanceof SameAccountException) {
+            return Outcome.SAME_ACCOUNT;
+        }
+        if (ex instanceof CustomBadRequestException) {
+            return Outcome.INVALID_REQUEST;
+        }
+        if (ex instanceof CustomTooManyRequestsException) {
+            return Outcome.LIMIT_EXCEEDED;
+        }
+        if (ex instanceof CustomNotFoundException) {
+            return Outcome.NOT_FOUND;
+        }
+        if (ex instanceof CustomConflictException || ex instanceof ConcurrencyFailureException) {
+            return Outcome.CONFLICT;
+        }
+        return Outcome.ERROR;
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.project.service.outbox;
+
+import com.example.project.config.TransferProperties;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Appends outbox events to a newline-delimited JSON file and forces it to disk before returning.
+ * A stand-in for a broker when running locally or in tests.
+ */
+@Component
+@ConditionalOnProperty(name = "transfer.outbox.sink", havingValue = "file")
+public class FileTransferEventSink implements TransferEventSink {
+
+    private final ObjectMapper objectMapper;
+    private final Path file;
+    // A lock rather than synchronized, so a virtual thread writing the file does not pin its carrier
+    private final ReentrantLock appendLock = new ReentrantLock();
+
+    public FileTransferEventSink(ObjectMapper objectMapper, TransferProperties transferProperties) throws IOException {
+        this.objectMapper = objectMapper;
+        this.file = Path.of(transferProperties.getOutbox().getFile());
+        Path directory = file.toAbsolutePath().getParent();
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+    }
+
+    @Override
+    public void publish(List<TransferCompletedEvent> events) {
+        StringBuilder lines = new StringBuilder();
+        try {
+            for (TransferCompletedEvent event : events) {
+                lines.append(objectMapper.writeValueAsString(event)).append('\n');
+            }
+            appendLock.lock();
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } finally {
+                appendLock.unlock();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Could not append transfer events to " + file, ex);
+        }
+    }
+}
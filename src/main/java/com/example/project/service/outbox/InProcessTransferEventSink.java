@@ -0,0 +1,26 @@
+package com.example.project.service.outbox;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Publishes outbox events as Spring application events of this node, for tests and single-node setups.
+ */
+@Component
+@ConditionalOnProperty(name = "transfer.outbox.sink", havingValue = "in-process", matchIfMissing = true)
+public class InProcessTransferEventSink implements TransferEventSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public InProcessTransferEventSink(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void publish(List<TransferCompletedEvent> events) {
+        events.forEach(eventPublisher::publishEvent);
+    }
+}
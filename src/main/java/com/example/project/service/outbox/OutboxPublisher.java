@@ -0,0 +1,131 @@
+package com.example.project.service.outbox;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.money.Money;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Drains the transfer outbox into the {@link TransferEventSink} in the background, off the request path.
+ * <p>
+ * A drain owns one partition at a time by locking its {@code transfer_outbox_partition} row with
+ * {@code FOR UPDATE SKIP LOCKED}: nodes draining concurrently each take the partitions nobody else holds,
+ * and a partition is never drained by two nodes at once, which keeps its events in order. Within the
+ * same database transaction a batch is read by ID, published and deleted, so a failure at any point
+ * leaves the batch in place to be published again: delivery is at least once.
+ */
+@Component
+@ConditionalOnProperty(name = "transfer.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxPublisher {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxPublisher.class);
+
+    private static final RowMapper<OutboxRow> ROW_MAPPER = (rs, rowNum) -> new OutboxRow(
+            rs.getLong("id"),
+            new TransferCompletedEvent(
+                    rs.getObject("transaction_id", UUID.class),
+                    rs.getObject("account_id", UUID.class),
+                    rs.getObject("counterparty_id", UUID.class),
+                    Money.of(rs.getBigDecimal("amount")),
+                    rs.getString("currency"),
+                    rs.getTimestamp("created_at").toLocalDateTime()));
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransferEventSink sink;
+    private final int batchSize;
+    private final Counter published;
+
+    /**
+     * Constructs an OutboxPublisher draining into the given sink.
+     *
+     * @param jdbcTemplate       the template reading and deleting outbox rows
+     * @param transactionManager the manager of the transaction around each batch
+     * @param sink               the destination of the events
+     * @param transferProperties the transfer configuration
+     * @param meterRegistry      the registry counting published events
+     */
+    public OutboxPublisher(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                           TransferEventSink sink, TransferProperties transferProperties, MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.sink = sink;
+        this.batchSize = Math.max(1, transferProperties.getOutbox().getBatchSize());
+        this.published = Counter.builder("transfer.outbox.published")
+                .description("Transfer events handed to the sink, including redeliveries")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Drains every partition not held by another node, starting at a random one so nodes spread out.
+     */
+    @Scheduled(fixedDelayString = "${transfer.outbox.poll-interval:PT0.1S}")
+    public void drain() {
+        if (jdbcTemplate.queryForList("select id from transfer_outbox limit 1", Long.class).isEmpty()) {
+            return;
+        }
+        int first = ThreadLocalRandom.current().nextInt(TransferOutbox.PARTITIONS);
+        try {
+            for (int i = 0; i < TransferOutbox.PARTITIONS; i++) {
+                int partition = (first + i) % TransferOutbox.PARTITIONS;
+                while (drainBatch(partition) == batchSize) {
+                    // A full batch means more events are probably waiting in this partition
+                }
+            }
+        } catch (RuntimeException ex) {
+            // The failed batch was rolled back and is published again on the next drain
+            log.warn("Publishing transfer events failed, retrying in the next drain", ex);
+        }
+    }
+
+    /**
+     * Publishes and deletes the oldest events of a partition.
+     *
+     * @return the number of events published, 0 if the partition is empty or held by another node
+     */
+    int drainBatch(int partition) {
+        Integer count = transactionTemplate.execute(status -> {
+            List<Integer> owned = jdbcTemplate.queryForList(
+                    "select partition_no from transfer_outbox_partition where partition_no = ? for update skip locked",
+                    Integer.class, partition);
+            if (owned.isEmpty()) {
+                return 0;
+            }
+            List<OutboxRow> rows = jdbcTemplate.query(
+                    "select id, transaction_id, account_id, counterparty_id, amount, currency, created_at " +
+                            "from transfer_outbox where partition_no = ? order by id limit ?",
+                    ROW_MAPPER, partition, batchSize);
+            if (rows.isEmpty()) {
+                return 0;
+            }
+
+            sink.publish(rows.stream().map(OutboxRow::event).toList());
+            // Deleted by ID, since an older event of another account may commit after this batch was read
+            namedJdbcTemplate.update("delete from transfer_outbox where id in (:ids)",
+                    Map.of("ids", rows.stream().map(OutboxRow::id).toList()));
+            return rows.size();
+        });
+        published.increment(count);
+        return count;
+    }
+
+    private record OutboxRow(long id, TransferCompletedEvent event) {
+    }
+}
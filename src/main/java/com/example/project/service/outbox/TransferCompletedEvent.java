@@ -0,0 +1,33 @@
+package com.example.project.service.outbox;
+
+import com.example.project.money.Money;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One leg of a completed transfer, as seen by one of its two accounts.
+ * Every transfer produces a debit leg for the source account and a credit leg for the target account,
+ * so each account's events can be delivered in order without looking at the other account.
+ *
+ * @param transactionId  the ID of the transaction row; together with the account ID it identifies a redelivery
+ * @param accountId      the account whose balance changed
+ * @param counterpartyId the other account of the transfer
+ * @param amount         the change of the account's balance, negative for the source account
+ * @param currency       the currency of the amount
+ * @param createdAt      when the transfer was applied
+ */
+public record TransferCompletedEvent(UUID transactionId, UUID accountId, UUID counterpartyId, Money amount,
+                                     String currency, LocalDateTime createdAt) {
+
+    /**
+     * @return the debit leg of the source account followed by the credit leg of the target account
+     */
+    public static List<TransferCompletedEvent> legsOf(UUID transactionId, UUID sourceAccountId, UUID targetAccountId,
+                                                      Money amount, String currency, LocalDateTime createdAt) {
+        return List.of(
+                new TransferCompletedEvent(transactionId, sourceAccountId, targetAccountId, amount.negate(), currency, createdAt),
+                new TransferCompletedEvent(transactionId, targetAccountId, sourceAccountId, amount, currency, createdAt));
+    }
+}
@@ -0,0 +1,21 @@
+package com.example.project.service.outbox;
+
+import java.util.List;
+
+/**
+ * Destination of the events drained from the transfer outbox, such as a message broker.
+ * A batch is deleted from the outbox only after {@link #publish} returned, so an implementation
+ * must have durably handed over every event when it returns, and must expect to see events
+ * again after a failure.
+ */
+public interface TransferEventSink {
+
+    /**
+     * Publishes a batch of events, in order.
+     * Events of the same account appear in the order their transfers committed.
+     *
+     * @param events the events to publish
+     * @throws RuntimeException if the batch could not be published; it is retried on the next drain
+     */
+    void publish(List<TransferCompletedEvent> events);
+}
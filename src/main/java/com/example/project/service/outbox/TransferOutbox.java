@@ -0,0 +1,98 @@
+package com.example.project.service.outbox;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.entity.Transaction;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes the events of completed transfers to the {@code transfer_outbox} table, in the database
+ * transaction applying the transfer, so an event exists exactly when its transfer committed.
+ * The {@link OutboxPublisher} later hands them to the {@link TransferEventSink}.
+ * <p>
+ * Each event lands in the partition of its account. A transfer writes its events after it has read
+ * or locked its accounts, so two transfers of the same account get their outbox IDs in commit order,
+ * and draining a partition by ID keeps every account's events in order.
+ */
+@Component
+public class TransferOutbox {
+
+    /**
+     * Number of outbox partitions, matching the rows of {@code transfer_outbox_partition}.
+     */
+    public static final int PARTITIONS = 16;
+
+    private static final int JDBC_BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public TransferOutbox(JdbcTemplate jdbcTemplate, TransferProperties transferProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = transferProperties.getOutbox().isEnabled();
+    }
+
+    /**
+     * Appends the events of a saved transaction. Must run in the transaction that saved it.
+     *
+     * @param transaction the transaction, after it was saved
+     */
+    public void append(Transaction transaction) {
+        append(legsOf(transaction));
+    }
+
+    /**
+     * Appends the events of several saved transactions, in the given order. Must run in the transaction that saved them.
+     *
+     * @param transactions the transactions, after they were saved
+     */
+    public void appendAll(Collection<Transaction> transactions) {
+        List<TransferCompletedEvent> events = new ArrayList<>(transactions.size() * 2);
+        for (Transaction transaction : transactions) {
+            events.addAll(legsOf(transaction));
+        }
+        append(events);
+    }
+
+    /**
+     * Appends events in the given order, as one JDBC batch. Must run in the transaction applying their transfers.
+     *
+     * @param events the events to append
+     */
+    public void append(List<TransferCompletedEvent> events) {
+        if (!enabled || events.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(
+                "insert into transfer_outbox (partition_no, transaction_id, account_id, counterparty_id, amount, currency, created_at) " +
+                        "values (?, ?, ?, ?, ?, ?, ?)",
+                events, JDBC_BATCH_SIZE, (ps, event) -> {
+                    ps.setInt(1, partitionOf(event.accountId()));
+                    ps.setObject(2, event.transactionId());
+                    ps.setObject(3, event.accountId());
+                    ps.setObject(4, event.counterpartyId());
+                    ps.setBigDecimal(5, event.amount().toBigDecimal());
+                    ps.setString(6, event.currency());
+                    ps.setTimestamp(7, Timestamp.valueOf(event.createdAt()));
+                });
+    }
+
+    /**
+     * @return the outbox partition holding the events of the account
+     */
+    public static int partitionOf(UUID accountId) {
+        return Math.floorMod(accountId.hashCode(), PARTITIONS);
+    }
+
+    private static List<TransferCompletedEvent> legsOf(Transaction transaction) {
+        return TransferCompletedEvent.legsOf(transaction.getId(), transaction.getSourceAccountId(),
+                transaction.getTargetAccountId(), transaction.getAmount(), transaction.getCurrency().name(),
+                transaction.getCreatedAt());
+    }
+}
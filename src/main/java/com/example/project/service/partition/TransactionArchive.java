@@ -0,0 +1,59 @@
+package com.example.project.service.partition;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * File layout of an archived month of transactions.
+ * <p>
+ * A month is archived as two files. The data file {@code transaction-YYYY-MM.tca} is a magic number followed by
+ * blocks of up to {@code block-size} transactions, ordered by creation time. Each block has a 16-byte header
+ * (compressed length, uncompressed length, number of transactions and CRC-32 of the compressed bytes) and a
+ * deflate-compressed columnar payload: the IDs, the source IDs, the target IDs, the amounts in pence, the creation
+ * times as microsecond deltas, and the length-prefixed currency codes. Storing each column together lets similar
+ * values sit next to each other, so they compress well.
+ * <p>
+ * The index file {@code transaction-YYYY-MM.tci} is a magic number, the number of blocks and of transactions, then
+ * the offset, transaction count and first and last creation time of every block, so a reader only decompresses the
+ * blocks overlapping the period it asks for. The index is written last, so an archive without an index is
+ * incomplete.
+ */
+public final class TransactionArchive {
+
+    static final long DATA_MAGIC = 0x54584E4152433031L;   // TXNARC01
+    static final long INDEX_MAGIC = 0x54584E4944583031L;  // TXNIDX01
+    static final int BLOCK_HEADER_SIZE = 4 * 4;
+    static final int INDEX_HEADER_SIZE = 8 + 4 + 8;
+    static final int INDEX_ENTRY_SIZE = 8 + 4 + 8 + 8;
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private TransactionArchive() {
+    }
+
+    /**
+     * @return the data file of a month in an archive directory
+     */
+    public static Path dataFile(Path directory, YearMonth month) {
+        return directory.resolve("transaction-" + MONTH.format(month) + ".tca");
+    }
+
+    /**
+     * @return the index file of a month in an archive directory
+     */
+    public static Path indexFile(Path directory, YearMonth month) {
+        return directory.resolve("transaction-" + MONTH.format(month) + ".tci");
+    }
+
+    static long toMicros(LocalDateTime time) {
+        return Math.addExact(Math.multiplyExact(time.toEpochSecond(ZoneOffset.UTC), 1_000_000L), time.getNano() / 1_000);
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,147 @@
+package com.example.project.service.partition;
+
+import com.example.project.dto.TransactionHistoryDTO;
+import com.example.project.enums.Currency;
+import com.example.project.money.Money;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads the transactions of an archived month, decompressing only the blocks that overlap the requested period.
+ */
+public final class TransactionArchiveReader {
+
+    private TransactionArchiveReader() {
+    }
+
+    /**
+     * Reads the archived transactions of a month created in {@code [from, to)}, in creation order.
+     *
+     * @param directory the archive directory
+     * @param month     the archived month
+     * @param from      the earliest creation time, inclusive
+     * @param to        the latest creation time, exclusive
+     * @param consumer  receives the transactions
+     * @return the number of transactions passed to the consumer
+     * @throws UncheckedIOException if the archive is missing, incomplete or corrupt
+     */
+    public static long read(Path directory, YearMonth month, LocalDateTime from, LocalDateTime to,
+                            Consumer<TransactionHistoryDTO> consumer) {
+        Path dataFile = TransactionArchive.dataFile(directory, month);
+        long fromMicros = TransactionArchive.toMicros(from);
+        long toMicros = TransactionArchive.toMicros(to);
+        long read = 0;
+        try (FileChannel index = FileChannel.open(TransactionArchive.indexFile(directory, month), StandardOpenOption.READ);
+             FileChannel data = FileChannel.open(dataFile, StandardOpenOption.READ)) {
+            ByteBuffer header = readFully(index, 0, TransactionArchive.INDEX_HEADER_SIZE);
+            if (header.getLong() != TransactionArchive.INDEX_MAGIC
+                    || readFully(data, 0, 8).getLong() != TransactionArchive.DATA_MAGIC) {
+                throw new IOException("Not a transaction archive");
+            }
+            int blocks = header.getInt();
+            ByteBuffer entries = readFully(index, TransactionArchive.INDEX_HEADER_SIZE,
+                    blocks * TransactionArchive.INDEX_ENTRY_SIZE);
+            Inflater inflater = new Inflater();
+            try {
+                for (int i = 0; i < blocks; i++) {
+                    long offset = entries.getLong();
+                    entries.getInt();
+                    long first = entries.getLong();
+                    long last = entries.getLong();
+                    if (last >= fromMicros && first < toMicros) {
+                        read += readBlock(data, offset, first, inflater, fromMicros, toMicros, consumer);
+                    }
+                }
+            } finally {
+                inflater.end();
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot read transaction archive " + dataFile, ex);
+        }
+        return read;
+    }
+
+    private static long readBlock(FileChannel data, long offset, long first, Inflater inflater, long fromMicros,
+                                  long toMicros, Consumer<TransactionHistoryDTO> consumer) throws IOException {
+        ByteBuffer header = readFully(data, offset, TransactionArchive.BLOCK_HEADER_SIZE);
+        int compressedLength = header.getInt();
+        int uncompressedLength = header.getInt();
+        int count = header.getInt();
+        int checksum = header.getInt();
+
+        ByteBuffer compressed = readFully(data, offset + TransactionArchive.BLOCK_HEADER_SIZE, compressedLength);
+        CRC32 crc = new CRC32();
+        crc.update(compressed.duplicate());
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Corrupt block at offset " + offset);
+        }
+        byte[] payload = new byte[uncompressedLength];
+        inflater.reset();
+        inflater.setInput(compressed.array());
+        try {
+            if (inflater.inflate(payload) != uncompressedLength) {
+                throw new IOException("Truncated block at offset " + offset);
+            }
+        } catch (DataFormatException ex) {
+            throw new IOException("Corrupt block at offset " + offset, ex);
+        }
+
+        ByteBuffer columns = ByteBuffer.wrap(payload);
+        UUID[] ids = readUuids(columns, count);
+        UUID[] sources = readUuids(columns, count);
+        UUID[] targets = readUuids(columns, count);
+        long[] amounts = new long[count];
+        for (int i = 0; i < count; i++) {
+            amounts[i] = columns.getLong();
+        }
+        long[] createdAt = new long[count];
+        long micros = first;
+        for (int i = 0; i < count; i++) {
+            micros += columns.getLong();
+            createdAt[i] = micros;
+        }
+        long read = 0;
+        for (int i = 0; i < count; i++) {
+            byte[] code = new byte[columns.get()];
+            columns.get(code);
+            if (createdAt[i] >= fromMicros && createdAt[i] < toMicros) {
+                consumer.accept(new TransactionHistoryDTO(ids[i], sources[i], targets[i], Money.ofMinor(amounts[i]),
+                        Currency.valueOf(new String(code, StandardCharsets.US_ASCII)),
+                        TransactionArchive.fromMicros(createdAt[i])));
+                read++;
+            }
+        }
+        return read;
+    }
+
+    private static ByteBuffer readFully(FileChannel channel, long position, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+        return buffer.flip();
+    }
+
+    private static UUID[] readUuids(ByteBuffer columns, int count) {
+        UUID[] uuids = new UUID[count];
+        for (int i = 0; i < count; i++) {
+            uuids[i] = new UUID(columns.getLong(), columns.getLong());
+        }
+        return uuids;
+    }
+}
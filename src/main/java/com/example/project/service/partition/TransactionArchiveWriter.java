@@ -0,0 +1,189 @@
+package com.example.project.service.partition;
+
+import com.example.project.dto.TransactionHistoryDTO;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes one month of transactions in the {@link TransactionArchive} format.
+ * Transactions must be added in creation order. Both files are written under a temporary name, forced to disk
+ * and only then renamed, so an archive is either complete or absent.
+ */
+class TransactionArchiveWriter implements AutoCloseable {
+
+    private final Path dataFile;
+    private final Path indexFile;
+    private final Path dataTemp;
+    private final Path indexTemp;
+    private final int blockSize;
+    private final FileChannel channel;
+    private final List<TransactionHistoryDTO> block;
+    private final ByteArrayOutputStream index = new ByteArrayOutputStream();
+    private final DataOutputStream indexOut = new DataOutputStream(index);
+    private final Deflater deflater = new Deflater();
+    private int blocks;
+    private long count;
+    private boolean finished;
+
+    /**
+     * @param directory the archive directory, created if missing
+     * @param month     the month being archived
+     * @param blockSize the number of transactions per compressed block
+     */
+    TransactionArchiveWriter(Path directory, YearMonth month, int blockSize) {
+        this.dataFile = TransactionArchive.dataFile(directory, month);
+        this.indexFile = TransactionArchive.indexFile(directory, month);
+        this.dataTemp = dataFile.resolveSibling(dataFile.getFileName() + ".tmp");
+        this.indexTemp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        this.blockSize = Math.max(1, blockSize);
+        this.block = new ArrayList<>(this.blockSize);
+        try {
+            Files.createDirectories(directory);
+            this.channel = FileChannel.open(dataTemp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            write(ByteBuffer.allocate(8).putLong(TransactionArchive.DATA_MAGIC).flip());
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot create transaction archive " + dataTemp, ex);
+        }
+    }
+
+    void add(TransactionHistoryDTO transaction) {
+        block.add(transaction);
+        if (block.size() == blockSize) {
+            flushBlock();
+        }
+    }
+
+    /**
+     * Writes the remaining block and the index, forces both files to disk and renames them into place.
+     *
+     * @return the number of archived transactions
+     */
+    long finish() {
+        flushBlock();
+        try {
+            ByteBuffer header = ByteBuffer.allocate(TransactionArchive.INDEX_HEADER_SIZE)
+                    .putLong(TransactionArchive.INDEX_MAGIC).putInt(blocks).putLong(count).flip();
+            try (FileChannel indexChannel = FileChannel.open(indexTemp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer[] buffers = {header, ByteBuffer.wrap(index.toByteArray())};
+                while (buffers[1].hasRemaining()) {
+                    indexChannel.write(buffers);
+                }
+                indexChannel.force(true);
+            }
+            channel.force(true);
+            channel.close();
+            Files.move(dataTemp, dataFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(indexTemp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot complete transaction archive " + dataFile, ex);
+        }
+        finished = true;
+        return count;
+    }
+
+    @Override
+    public void close() {
+        deflater.end();
+        if (finished) {
+            return;
+        }
+        try {
+            channel.close();
+            Files.deleteIfExists(dataTemp);
+            Files.deleteIfExists(indexTemp);
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot discard transaction archive " + dataTemp, ex);
+        }
+    }
+
+    private void flushBlock() {
+        if (block.isEmpty()) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream(block.size() * 64);
+            DataOutputStream out = new DataOutputStream(payload);
+            for (TransactionHistoryDTO transaction : block) {
+                writeUuid(out, transaction.id());
+            }
+            for (TransactionHistoryDTO transaction : block) {
+                writeUuid(out, transaction.sourceAccountId());
+            }
+            for (TransactionHistoryDTO transaction : block) {
+                writeUuid(out, transaction.targetAccountId());
+            }
+            for (TransactionHistoryDTO transaction : block) {
+                out.writeLong(transaction.amount().minorUnits());
+            }
+            long first = TransactionArchive.toMicros(block.get(0).createdAt());
+            long previous = first;
+            for (TransactionHistoryDTO transaction : block) {
+                long micros = TransactionArchive.toMicros(transaction.createdAt());
+                out.writeLong(micros - previous);
+                previous = micros;
+            }
+            for (TransactionHistoryDTO transaction : block) {
+                byte[] currency = transaction.currency().name().getBytes(StandardCharsets.US_ASCII);
+                out.writeByte(currency.length);
+                out.write(currency);
+            }
+            out.flush();
+
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(payload.size() / 2);
+            deflater.reset();
+            try (DeflaterOutputStream deflated = new DeflaterOutputStream(compressed, deflater)) {
+                payload.writeTo(deflated);
+            }
+            byte[] bytes = compressed.toByteArray();
+            CRC32 crc = new CRC32();
+            crc.update(bytes);
+
+            long offset = channel.position();
+            ByteBuffer header = ByteBuffer.allocate(TransactionArchive.BLOCK_HEADER_SIZE)
+                    .putInt(bytes.length).putInt(payload.size()).putInt(block.size()).putInt((int) crc.getValue())
+                    .flip();
+            write(header);
+            write(ByteBuffer.wrap(bytes));
+
+            indexOut.writeLong(offset);
+            indexOut.writeInt(block.size());
+            indexOut.writeLong(first);
+            indexOut.writeLong(previous);
+            blocks++;
+            count += block.size();
+            block.clear();
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot write transaction archive " + dataTemp, ex);
+        }
+    }
+
+    private void write(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static void writeUuid(DataOutputStream out, UUID uuid) throws IOException {
+        out.writeLong(uuid.getMostSignificantBits());
+        out.writeLong(uuid.getLeastSignificantBits());
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.project.service.partition;
+
+import com.example.project.config.TransactionPartitionProperties;
+import com.example.project.dto.TransactionHistoryDTO;
+import com.example.project.enums.Currency;
+import com.example.project.money.Money;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Maintains the monthly partitions of the {@code transaction} table on PostgreSQL.
+ * <p>
+ * Every run creates the partitions of the next {@code premake-months} months, so inserts never miss a
+ * partition. Partitions older than {@code retention-months} are detached concurrently, which does not block
+ * transfers, written to the archive directory, checked against the row count of the partition and only then dropped.
+ * Each step can be repeated, so a run interrupted at any point is completed by the next one. Runs hold a session
+ * advisory lock, so only one node maintains partitions at a time. Does nothing when the table is not partitioned.
+ */
+@Component
+public class TransactionPartitionMaintainer {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionPartitionMaintainer.class);
+
+    private static final String PARTITION_PREFIX = "transaction_p";
+    private static final DateTimeFormatter PARTITION_MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final String LOCK_NAME = "transaction_partitions";
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionPartitionProperties properties;
+    private volatile Boolean partitioned;
+
+    /**
+     * Constructs a TransactionPartitionMaintainer.
+     *
+     * @param jdbcTemplate the template providing the maintenance connection
+     * @param properties   the partition configuration
+     */
+    public TransactionPartitionMaintainer(JdbcTemplate jdbcTemplate, TransactionPartitionProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.partitions.maintenance-interval:PT1H}")
+    public void maintain() {
+        try {
+            if (!isPartitioned()) {
+                return;
+            }
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                if (!queryBoolean(connection, "select pg_try_advisory_lock(hashtext('" + LOCK_NAME + "'))")) {
+                    return null;
+                }
+                try {
+                    maintain(connection, YearMonth.now());
+                } finally {
+                    queryBoolean(connection, "select pg_advisory_unlock(hashtext('" + LOCK_NAME + "'))");
+                }
+                return null;
+            });
+        } catch (RuntimeException ex) {
+            // Every step is repeatable, so the next run picks up where this one failed
+            log.warn("Transaction partition maintenance failed, retrying in the next run", ex);
+        }
+    }
+
+    private void maintain(Connection connection, YearMonth now) throws SQLException {
+        for (int ahead = 0; ahead <= properties.getPremakeMonths(); ahead++) {
+            createPartition(connection, now.plusMonths(ahead));
+        }
+        if (properties.getRetentionMonths() <= 0) {
+            return;
+        }
+        YearMonth oldestKept = now.minusMonths(properties.getRetentionMonths());
+
+        // A detach interrupted by a crash leaves the partition pending until it is finalized
+        for (String partition : queryNames(connection, "select c.relname from pg_inherits i " +
+                "join pg_class c on c.oid = i.inhrelid " +
+                "where i.inhparent = 'transaction'::regclass and i.inhdetachpending")) {
+            execute(connection, "alter table transaction detach partition " + partition + " finalize");
+        }
+        for (String partition : queryNames(connection, "select c.relname from pg_inherits i " +
+                "join pg_class c on c.oid = i.inhrelid where i.inhparent = 'transaction'::regclass")) {
+            YearMonth month = monthOf(partition);
+            if (month != null && month.isBefore(oldestKept)) {
+                log.info("Detaching transaction partition {}", partition);
+                execute(connection, "alter table transaction detach partition " + partition + " concurrently");
+            }
+        }
+        // Expired partitions detached by this or an earlier run
+        for (String partition : queryNames(connection, "select c.relname from pg_class c " +
+                "where c.relkind = 'r' and not c.relispartition and c.relname like '" + PARTITION_PREFIX + "%' " +
+                "and c.relnamespace = current_schema()::regnamespace")) {
+            YearMonth month = monthOf(partition);
+            if (month != null && month.isBefore(oldestKept)) {
+                archive(connection, partition, month);
+            }
+        }
+    }
+
+    private void createPartition(Connection connection, YearMonth month) throws SQLException {
+        execute(connection, "create table if not exists " + partitionName(month) + " partition of transaction " +
+                "for values from ('" + month.atDay(1) + "') to ('" + month.plusMonths(1).atDay(1) + "')");
+    }
+
+    private void archive(Connection connection, String partition, YearMonth month) throws SQLException {
+        Path directory = Path.of(properties.getArchive().getDirectory());
+        long archived;
+        long rows;
+        connection.setAutoCommit(false);
+        try (TransactionArchiveWriter writer = new TransactionArchiveWriter(directory, month,
+                properties.getArchive().getBlockSize());
+             PreparedStatement statement = connection.prepareStatement(
+                     "select id, source_account_id, target_account_id, amount, currency, created_at from " +
+                             partition + " order by created_at, id")) {
+            // PostgreSQL only streams with a fetch size inside a transaction
+            statement.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = statement.executeQuery()) {
+                while (rs.next()) {
+                    writer.add(new TransactionHistoryDTO(
+                            rs.getObject("id", UUID.class),
+                            rs.getObject("source_account_id", UUID.class),
+                            rs.getObject("target_account_id", UUID.class),
+                            Money.of(rs.getBigDecimal("amount")),
+                            Currency.valueOf(rs.getString("currency")),
+                            rs.getTimestamp("created_at").toLocalDateTime()));
+                }
+            }
+            rows = queryLong(connection, "select count(*) from " + partition);
+            archived = writer.finish();
+            connection.commit();
+        } catch (SQLException | RuntimeException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(true);
+        }
+        if (archived != rows) {
+            throw new IllegalStateException("Archived " + archived + " of " + rows + " transactions of " + partition);
+        }
+        execute(connection, "drop table " + partition);
+        log.info("Archived {} transactions of {} to {} and dropped the partition", archived, month,
+                TransactionArchive.dataFile(directory, month));
+    }
+
+    /**
+     * @return the start of the oldest month whose transactions are kept in the database, or null if no month is
+     * ever archived
+     */
+    public LocalDateTime retainedFrom() {
+        if (properties.getRetentionMonths() <= 0 || !isPartitioned()) {
+            return null;
+        }
+        return YearMonth.now().minusMonths(properties.getRetentionMonths()).atDay(1).atStartOfDay();
+    }
+
+    private boolean isPartitioned() {
+        if (partitioned == null) {
+            partitioned = jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())
+                            && queryBoolean(connection, "select exists (select 1 from pg_partitioned_table " +
+                            "where partrelid = to_regclass('transaction'))"));
+        }
+        return partitioned;
+    }
+
+    static String partitionName(YearMonth month) {
+        return PARTITION_PREFIX + PARTITION_MONTH.format(month);
+    }
+
+    /**
+     * @return the month of a partition, or null if the table is not named like a partition
+     */
+    static YearMonth monthOf(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_MONTH);
+        } catch (DateTimeParseException ex) {
+            return null;
+        }
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+
+    private static boolean queryBoolean(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            return rs.next() && rs.getBoolean(1);
+        }
+    }
+
+    private static long queryLong(Connection connection, String sql) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            rs.next();
+            return rs.getLong(1);
+        }
+    }
+
+    private static List<String> queryNames(Connection connection, String sql) throws SQLException {
+        List<String> names = new ArrayList<>();
+        try (Statement statement = connection.createStatement(); ResultSet rs = statement.executeQuery(sql)) {
+            while (rs.next()) {
+                names.add(rs.getString(1));
+            }
+        }
+        return names;
+    }
+}
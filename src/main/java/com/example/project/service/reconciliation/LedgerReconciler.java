@@ -0,0 +1,352 @@
+package com.example.project.service.reconciliation;
+
+import com.example.project.config.ReconciliationProperties;
+import com.example.project.money.Money;
+import com.example.project.service.partition.TransactionPartitionMaintainer;
+import com.example.project.service.snapshot.BalanceSnapshotJob;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checks that the balance of every account matches its transactions, in parallel ranges of accounts.
+ * <p>
+ * A run splits the accounts into ranges of {@code range-size} consecutive IDs, taken from the account table, so
+ * ranges stay even whatever the distribution of IDs. Workers claim one unfinished range at a time with
+ * {@code FOR UPDATE SKIP LOCKED}, so several workers and nodes share a run and never reconcile a range twice; a
+ * range claimed longer than {@code claim-timeout} ago, by a worker that crashed, is claimed again. A range is read
+ * with one streamed query in a read-only, repeatable-read transaction, which a replica serves when replicas are
+ * enabled, so balances and transactions come from one snapshot and memory use does not depend on the range size.
+ * Its totals, checksum and mismatching accounts are then recorded together with its end, so an interrupted run
+ * resumes from its unfinished ranges.
+ * <p>
+ * An account's expected balance is its anchor plus the transactions created after it. Checkpoints of the
+ * {@link BalanceSnapshotJob} are derived from the balance itself, so the anchor is the newest opening balance or
+ * overwrite, or else the account's first checkpoint, such as the one written by the migration. When older months
+ * were archived, the anchor is the first checkpoint after them instead, since their transactions are no longer
+ * in the table. An account without checkpoints is expected to hold the sum of all its transactions.
+ */
+@Component
+public class LedgerReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(LedgerReconciler.class);
+
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int JDBC_BATCH_SIZE = 500;
+    private static final int LOGGED_MISMATCHES = 20;
+
+    private static final String SELECT_RANGE =
+            "select r.id, r.balance, " +
+                    "coalesce((select b.balance from balance_snapshot b where b.account_id = r.id and b.taken_at = r.anchored_at), 0) " +
+                    "+ (select coalesce(sum(t.amount), 0) from transaction t where t.target_account_id = r.id and t.created_at > r.anchored_at) " +
+                    "- (select coalesce(sum(t.amount), 0) from transaction t where t.source_account_id = r.id and t.created_at > r.anchored_at) " +
+                    "as expected " +
+                    "from (select a.id, " +
+                    "case when a.stripe_count > 0 " +
+                    "then (select coalesce(sum(s.balance), 0) from account_balance_stripe s where s.account_id = a.id) " +
+                    "else a.balance end as balance, " +
+                    "coalesce(" +
+                    "(select max(b.taken_at) from balance_snapshot b where b.account_id = a.id and b.kind <> 'SCHEDULED' and b.taken_at >= ?), " +
+                    "(select min(b.taken_at) from balance_snapshot b where b.account_id = a.id and b.taken_at >= ?), " +
+                    "(select max(b.taken_at) from balance_snapshot b where b.account_id = a.id), " +
+                    "?) as anchored_at " +
+                    "from account a where %s) r " +
+                    "order by r.id";
+
+    private static final RowMapper<AccountRange> RANGE_ROW_MAPPER = (rs, rowNum) -> new AccountRange(
+            rs.getInt("range_no"),
+            rs.getObject("lower_id", UUID.class),
+            rs.getObject("upper_id", UUID.class));
+
+    /**
+     * The accounts with an ID above {@code lowerId} and up to {@code upperId}; a null bound is open.
+     */
+    private record AccountRange(int number, UUID lowerId, UUID upperId) {
+    }
+
+    private record Mismatch(UUID accountId, Money balance, Money expected) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate readTransaction;
+    private final TransactionPartitionMaintainer partitionMaintainer;
+    private final int parallelism;
+    private final int rangeSize;
+    private final int fetchSize;
+    private final Duration claimTimeout;
+    private final Counter reconciledAccounts;
+    private final Counter mismatchingAccounts;
+    private final Timer rangeTimer;
+    private final AtomicLong remainingRanges = new AtomicLong();
+
+    /**
+     * Constructs a LedgerReconciler.
+     *
+     * @param jdbcTemplate        the template reading accounts and recording results
+     * @param transactionManager  the manager of the claim, read and result transactions
+     * @param partitionMaintainer the maintainer telling which months were archived
+     * @param properties          the reconciliation configuration
+     * @param meterRegistry       the registry of the progress meters
+     */
+    public LedgerReconciler(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                            TransactionPartitionMaintainer partitionMaintainer, ReconciliationProperties properties,
+                            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readTransaction = new TransactionTemplate(transactionManager);
+        this.readTransaction.setReadOnly(true);
+        this.readTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.partitionMaintainer = partitionMaintainer;
+        this.parallelism = Math.max(1, properties.getParallelism());
+        this.rangeSize = Math.max(1, properties.getRangeSize());
+        this.fetchSize = Math.max(1, properties.getFetchSize());
+        this.claimTimeout = properties.getClaimTimeout();
+        this.reconciledAccounts = Counter.builder("reconciliation.accounts")
+                .description("Accounts reconciled against their transactions")
+                .register(meterRegistry);
+        this.mismatchingAccounts = Counter.builder("reconciliation.mismatches")
+                .description("Reconciled accounts whose balance does not match their transactions")
+                .register(meterRegistry);
+        this.rangeTimer = Timer.builder("reconciliation.range")
+                .description("Time to reconcile one range of accounts")
+                .register(meterRegistry);
+        Gauge.builder("reconciliation.ranges.remaining", remainingRanges, AtomicLong::get)
+                .description("Unfinished ranges of the current reconciliation run")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts a run, or resumes the last one if it did not finish, and works on its ranges until none is left.
+     */
+    @Scheduled(cron = "${reconciliation.cron:0 0 1 * * *}")
+    public void reconcile() {
+        try {
+            long run = startOrResume();
+            ExecutorService workers = Executors.newFixedThreadPool(parallelism,
+                    new CustomizableThreadFactory("reconciliation-"));
+            try {
+                List<Future<?>> results = new ArrayList<>(parallelism);
+                for (int i = 0; i < parallelism; i++) {
+                    results.add(workers.submit(() -> work(run)));
+                }
+                for (Future<?> result : results) {
+                    result.get();
+                }
+            } finally {
+                workers.shutdownNow();
+                workers.awaitTermination(1, TimeUnit.MINUTES);
+            }
+            finish(run);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | RuntimeException ex) {
+            // Finished ranges are kept, the next run resumes from the others
+            log.warn("Ledger reconciliation failed, resuming in the next run", ex);
+        }
+    }
+
+    private long startOrResume() {
+        List<Long> unfinished = jdbcTemplate.queryForList(
+                "select id from reconciliation_run where finished_at is null order by id desc limit 1", Long.class);
+        if (!unfinished.isEmpty()) {
+            log.info("Resuming reconciliation run {}", unfinished.get(0));
+            return unfinished.get(0);
+        }
+        try {
+            return transactionTemplate.execute(status -> plan());
+        } catch (DuplicateKeyException ex) {
+            // Another node planned the same run first
+            return jdbcTemplate.queryForObject("select max(id) from reconciliation_run", Long.class);
+        }
+    }
+
+    /**
+     * Creates a run and its ranges. Bounds are found by skipping {@code range-size} accounts at a time along the
+     * primary key index, which never reads the accounts themselves.
+     */
+    private long plan() {
+        long run = jdbcTemplate.queryForObject("select coalesce(max(id), 0) + 1 from reconciliation_run", Long.class);
+        jdbcTemplate.update("insert into reconciliation_run (id, started_at, ranges) values (?, ?, 0)",
+                run, Timestamp.valueOf(LocalDateTime.now()));
+        List<UUID> bounds = new ArrayList<>();
+        List<UUID> next = jdbcTemplate.queryForList(
+                "select id from account order by id limit 1 offset ?", UUID.class, rangeSize - 1);
+        while (!next.isEmpty()) {
+            bounds.add(next.get(0));
+            next = jdbcTemplate.queryForList("select id from account where id > ? order by id limit 1 offset ?",
+                    UUID.class, next.get(0), rangeSize - 1);
+        }
+        List<AccountRange> ranges = new ArrayList<>(bounds.size() + 1);
+        for (int i = 0; i <= bounds.size(); i++) {
+            ranges.add(new AccountRange(i, i == 0 ? null : bounds.get(i - 1), i < bounds.size() ? bounds.get(i) : null));
+        }
+        jdbcTemplate.batchUpdate(
+                "insert into reconciliation_range (run_id, range_no, lower_id, upper_id) values (?, ?, ?, ?)",
+                ranges, JDBC_BATCH_SIZE, (ps, range) -> {
+                    ps.setLong(1, run);
+                    ps.setInt(2, range.number());
+                    ps.setObject(3, range.lowerId());
+                    ps.setObject(4, range.upperId());
+                });
+        jdbcTemplate.update("update reconciliation_run set ranges = ? where id = ?", ranges.size(), run);
+        log.info("Started reconciliation run {} over {} ranges", run, ranges.size());
+        return run;
+    }
+
+    private void work(long run) {
+        AccountRange range;
+        while ((range = claim(run)) != null) {
+            try {
+                reconcileRange(run, range);
+            } catch (RuntimeException ex) {
+                // The claim expires and the range is reconciled again by a later worker or run
+                log.warn("Reconciling range {} of run {} failed", range.number(), run, ex);
+            }
+        }
+    }
+
+    /**
+     * @return an unfinished range nobody works on, now claimed by the caller, or null if there is none
+     */
+    private AccountRange claim(long run) {
+        return transactionTemplate.execute(status -> {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<AccountRange> ranges = jdbcTemplate.query(
+                    "select range_no, lower_id, upper_id from reconciliation_range " +
+                            "where run_id = ? and finished_at is null and (claimed_at is null or claimed_at < ?) " +
+                            "order by range_no limit 1 for update skip locked",
+                    RANGE_ROW_MAPPER, run, Timestamp.valueOf(now.toLocalDateTime().minus(claimTimeout)));
+            if (ranges.isEmpty()) {
+                return null;
+            }
+            AccountRange range = ranges.get(0);
+            jdbcTemplate.update("update reconciliation_range set claimed_at = ? where run_id = ? and range_no = ?",
+                    now, run, range.number());
+            return range;
+        });
+    }
+
+    private void reconcileRange(long run, AccountRange range) {
+        long start = System.nanoTime();
+        LocalDateTime retainedFrom = partitionMaintainer.retainedFrom();
+        Timestamp horizon = Timestamp.valueOf(retainedFrom != null ? retainedFrom : BEGINNING);
+        String where = range.lowerId() == null && range.upperId() == null ? "1 = 1"
+                : range.lowerId() == null ? "a.id <= ?"
+                : range.upperId() == null ? "a.id > ?"
+                : "a.id > ? and a.id <= ?";
+        RangeChecksum totals = new RangeChecksum();
+        List<Mismatch> mismatches = new ArrayList<>();
+        readTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(String.format(SELECT_RANGE, where));
+            int index = 1;
+            statement.setTimestamp(index++, horizon);
+            statement.setTimestamp(index++, horizon);
+            statement.setTimestamp(index++, Timestamp.valueOf(BEGINNING));
+            if (range.lowerId() != null) {
+                statement.setObject(index++, range.lowerId());
+            }
+            if (range.upperId() != null) {
+                statement.setObject(index, range.upperId());
+            }
+            // PostgreSQL only streams with a fetch size inside a transaction
+            statement.setFetchSize(fetchSize);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            UUID accountId = rs.getObject("id", UUID.class);
+            Money balance = Money.of(rs.getBigDecimal("balance"));
+            Money expected = Money.of(rs.getBigDecimal("expected"));
+            totals.add(accountId, balance);
+            if (!balance.equals(expected)) {
+                mismatches.add(new Mismatch(accountId, balance, expected));
+            }
+        }));
+
+        Boolean recorded = transactionTemplate.execute(status -> {
+            int updated = jdbcTemplate.update("update reconciliation_range " +
+                            "set finished_at = ?, accounts = ?, balance_total = ?, checksum = ?, mismatches = ? " +
+                            "where run_id = ? and range_no = ? and finished_at is null",
+                    Timestamp.valueOf(LocalDateTime.now()), totals.accounts(), totals.balanceTotal().toBigDecimal(),
+                    totals.checksum(), mismatches.size(), run, range.number());
+            if (updated == 0) {
+                // Another worker took the range over after the claim expired, and finished first
+                return false;
+            }
+            jdbcTemplate.batchUpdate(
+                    "insert into reconciliation_mismatch (run_id, account_id, balance, expected) values (?, ?, ?, ?)",
+                    mismatches, JDBC_BATCH_SIZE, (ps, mismatch) -> {
+                        ps.setLong(1, run);
+                        ps.setObject(2, mismatch.accountId());
+                        ps.setBigDecimal(3, mismatch.balance().toBigDecimal());
+                        ps.setBigDecimal(4, mismatch.expected().toBigDecimal());
+                    });
+            return true;
+        });
+        if (!Boolean.TRUE.equals(recorded)) {
+            return;
+        }
+        rangeTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        reconciledAccounts.increment(totals.accounts());
+        mismatchingAccounts.increment(mismatches.size());
+        remainingRanges.set(jdbcTemplate.queryForObject(
+                "select count(*) from reconciliation_range where run_id = ? and finished_at is null", Long.class, run));
+        if (!mismatches.isEmpty()) {
+            log.warn("Range {} of reconciliation run {}: {} of {} accounts do not match their transactions",
+                    range.number(), run, mismatches.size(), totals.accounts());
+        }
+    }
+
+    private void finish(long run) {
+        Integer finished = transactionTemplate.execute(status -> jdbcTemplate.update("update reconciliation_run " +
+                        "set finished_at = ?, " +
+                        "accounts = (select coalesce(sum(accounts), 0) from reconciliation_range where run_id = ?), " +
+                        "mismatches = (select coalesce(sum(mismatches), 0) from reconciliation_range where run_id = ?) " +
+                        "where id = ? and finished_at is null " +
+                        "and not exists (select 1 from reconciliation_range where run_id = ? and finished_at is null)",
+                Timestamp.valueOf(LocalDateTime.now()), run, run, run, run));
+        if (finished == null || finished == 0) {
+            log.info("Reconciliation run {} has ranges left, which another node or the next run finishes", run);
+            return;
+        }
+        Map<String, Object> summary = jdbcTemplate.queryForMap(
+                "select accounts, mismatches from reconciliation_run where id = ?", run);
+        long accounts = ((Number) summary.get("accounts")).longValue();
+        long mismatches = ((Number) summary.get("mismatches")).longValue();
+        if (mismatches == 0) {
+            log.info("Reconciliation run {} finished: all {} accounts match their transactions", run, accounts);
+            return;
+        }
+        List<UUID> examples = jdbcTemplate.queryForList("select account_id from reconciliation_mismatch " +
+                "where run_id = ? order by account_id limit ?", UUID.class, run, LOGGED_MISMATCHES);
+        log.warn("Reconciliation run {} finished: {} of {} accounts do not match their transactions, such as {}",
+                run, mismatches, accounts, examples);
+    }
+}
@@ -0,0 +1,45 @@
+package com.example.project.service.reconciliation;
+
+import com.example.project.money.Money;
+
+import java.util.UUID;
+
+/**
+ * Totals of the accounts of one reconciled range.
+ * The checksum adds up a hash of every account's ID and balance, so it does not depend on the order the accounts
+ * were read in: two runs over unchanged accounts, or a primary and its replica, give the same checksum.
+ */
+final class RangeChecksum {
+
+    private long accounts;
+    private long balanceMinor;
+    private long checksum;
+
+    void add(UUID accountId, Money balance) {
+        accounts++;
+        balanceMinor = Math.addExact(balanceMinor, balance.minorUnits());
+        checksum += mix(accountId.getMostSignificantBits()
+                ^ mix(accountId.getLeastSignificantBits() ^ mix(balance.minorUnits())));
+    }
+
+    long accounts() {
+        return accounts;
+    }
+
+    Money balanceTotal() {
+        return Money.ofMinor(balanceMinor);
+    }
+
+    long checksum() {
+        return checksum;
+    }
+
+    /**
+     * The SplitMix64 finalizer, spreading every input bit over the whole result.
+     */
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.project.service.snapshot;
+
+import com.example.project.config.BalanceSnapshotProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Writes a balance checkpoint for every account touched since the previous run, see {@link BalanceSnapshots}.
+ * <p>
+ * A run checkpoints the balances as of {@code settle-time} ago, so every transaction created before that time has
+ * committed. The accounts are those of the transactions created between the previous run's time, kept in
+ * {@code balance_snapshot_watermark}, and this run's time; accounts nobody touched are not read at all. Each balance
+ * is the current one less the transactions created after the checkpoint time, computed in one statement so both
+ * come from the same database snapshot. An account whose balance was overwritten after the checkpoint time already
+ * has a later checkpoint and is skipped.
+ * <p>
+ * The watermark row is locked for the run, so only one node checkpoints at a time. A failed run changes nothing
+ * and the next one covers its transactions.
+ */
+@Component
+public class BalanceSnapshotJob {
+
+    private static final Logger log = LoggerFactory.getLogger(BalanceSnapshotJob.class);
+
+    private static final String INSERT_CHECKPOINTS =
+            "insert into balance_snapshot (account_id, taken_at, balance, kind) " +
+                    "select a.id, ?, " +
+                    "case when a.stripe_count > 0 " +
+                    "then (select coalesce(sum(s.balance), 0) from account_balance_stripe s where s.account_id = a.id) " +
+                    "else a.balance end " +
+                    "- (select coalesce(sum(t.amount), 0) from transaction t where t.target_account_id = a.id and t.created_at > ?) " +
+                    "+ (select coalesce(sum(t.amount), 0) from transaction t where t.source_account_id = a.id and t.created_at > ?), " +
+                    "'SCHEDULED' " +
+                    "from account a " +
+                    "where a.id in (select t.source_account_id from transaction t where t.created_at > ? and t.created_at <= ? " +
+                    "union select t.target_account_id from transaction t where t.created_at > ? and t.created_at <= ?) " +
+                    "and not exists (select 1 from balance_snapshot b where b.account_id = a.id and b.taken_at >= ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration settleTime;
+
+    /**
+     * Constructs a BalanceSnapshotJob.
+     *
+     * @param jdbcTemplate       the template writing the checkpoints
+     * @param transactionManager the manager running each run in one transaction
+     * @param properties         the checkpoint configuration
+     */
+    public BalanceSnapshotJob(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              BalanceSnapshotProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.settleTime = properties.getSettleTime();
+    }
+
+    @Scheduled(fixedDelayString = "${account.snapshots.interval:PT15M}")
+    public void checkpoint() {
+        try {
+            checkpoint(LocalDateTime.now().minus(settleTime));
+        } catch (RuntimeException ex) {
+            log.warn("Balance checkpoint failed, retrying in the next run", ex);
+        }
+    }
+
+    /**
+     * Checkpoints the accounts touched between the previous checkpoint time and the given one.
+     *
+     * @param takenAt the time of the new checkpoints
+     * @return the number of checkpoints written
+     */
+    int checkpoint(LocalDateTime takenAt) {
+        Integer written = transactionTemplate.execute(status -> {
+            LocalDateTime previous = jdbcTemplate.queryForObject(
+                    "select taken_at from balance_snapshot_watermark where id = 1 for update", LocalDateTime.class);
+            if (!takenAt.isAfter(previous)) {
+                return 0;
+            }
+            Timestamp from = Timestamp.valueOf(previous);
+            Timestamp to = Timestamp.valueOf(takenAt);
+            int accounts = jdbcTemplate.update(INSERT_CHECKPOINTS, to, to, to, from, to, from, to, to);
+            jdbcTemplate.update("update balance_snapshot_watermark set taken_at = ? where id = 1", to);
+            return accounts;
+        });
+        log.debug("Wrote {} balance checkpoints as of {}", written, takenAt);
+        return written;
+    }
+}
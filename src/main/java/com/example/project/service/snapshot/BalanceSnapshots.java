@@ -0,0 +1,123 @@
+package com.example.project.service.snapshot;
+
+import com.example.project.dto.AccountBalanceDTO;
+import com.example.project.enums.BalanceSnapshotKind;
+import com.example.project.enums.Currency;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.money.Money;
+import com.example.project.service.partition.TransactionPartitionMaintainer;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Balance checkpoints of accounts in the {@code balance_snapshot} table, and the balance-as-of queries they answer.
+ * <p>
+ * A checkpoint is the balance of an account at a point in time, including every transaction created up to then.
+ * One is written when an account is opened and whenever its balance is overwritten, in that database transaction,
+ * and the {@link BalanceSnapshotJob} adds one for every account touched since its previous run. The balance at any
+ * later time is the nearest earlier checkpoint plus the transactions created since, so a query replays at most the
+ * transactions of one checkpoint interval, however long the account's history is. Times whose transactions
+ * were archived by the {@link TransactionPartitionMaintainer} cannot be replayed and are refused.
+ */
+@Component
+public class BalanceSnapshots {
+
+    private static final String INSERT_SNAPSHOT =
+            "insert into balance_snapshot (account_id, taken_at, balance, kind) values (?, ?, ?, ?)";
+
+    private record Checkpoint(LocalDateTime takenAt, Money balance) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionPartitionMaintainer partitionMaintainer;
+
+    public BalanceSnapshots(JdbcTemplate jdbcTemplate, TransactionPartitionMaintainer partitionMaintainer) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.partitionMaintainer = partitionMaintainer;
+    }
+
+    /**
+     * Writes a checkpoint of a balance that did not come from transactions. Must run in the transaction setting it.
+     *
+     * @param accountId the ID of the account
+     * @param takenAt   when the balance was set
+     * @param balance   the balance set
+     * @param kind      why the balance was set
+     */
+    public void record(UUID accountId, LocalDateTime takenAt, Money balance, BalanceSnapshotKind kind) {
+        jdbcTemplate.update(INSERT_SNAPSHOT, accountId, Timestamp.valueOf(takenAt), balance.toBigDecimal(), kind.name());
+    }
+
+    /**
+     * Writes the checkpoints of many accounts with one JDBC batch, as {@link #record} does for one.
+     *
+     * @param accountIds the IDs of the accounts
+     * @param takenAt    when the balances were set
+     * @param balances   the balances set, in the order of the IDs
+     * @param kind       why the balances were set
+     */
+    public void recordAll(List<UUID> accountIds, LocalDateTime takenAt, List<Money> balances, BalanceSnapshotKind kind) {
+        Timestamp timestamp = Timestamp.valueOf(takenAt);
+        List<Object[]> rows = new ArrayList<>(accountIds.size());
+        for (int i = 0; i < accountIds.size(); i++) {
+            rows.add(new Object[]{accountIds.get(i), timestamp, balances.get(i).toBigDecimal(), kind.name()});
+        }
+        jdbcTemplate.batchUpdate(INSERT_SNAPSHOT, rows);
+    }
+
+    /**
+     * Computes the balance of an account at a point in time, from its nearest earlier checkpoint and the
+     * transactions created between the two. Transactions are summed on the (account, created_at) indexes.
+     *
+     * @param accountId the ID of the account
+     * @param asOf      the point in time, not in the future
+     * @return the balance at that time
+     */
+    @Transactional(readOnly = true)
+    public AccountBalanceDTO balanceAsOf(UUID accountId, LocalDateTime asOf) {
+        if (asOf.isAfter(LocalDateTime.now())) {
+            throw new CustomBadRequestException("Balance time must not be in the future: " + asOf);
+        }
+        LocalDateTime retainedFrom = partitionMaintainer.retainedFrom();
+        if (retainedFrom != null && asOf.isBefore(retainedFrom)) {
+            throw new CustomBadRequestException("Transactions before " + retainedFrom + " are archived, " +
+                    "balances before then are not available");
+        }
+        List<LocalDateTime> createdAt = jdbcTemplate.queryForList(
+                "select created_at from account where id = ?", LocalDateTime.class, accountId);
+        if (createdAt.isEmpty()) {
+            throw new CustomNotFoundException("Account not found with ID: " + accountId);
+        }
+        if (asOf.isBefore(createdAt.get(0))) {
+            throw new CustomBadRequestException("Account " + accountId + " did not exist at " + asOf);
+        }
+        Timestamp until = Timestamp.valueOf(asOf);
+        List<Checkpoint> checkpoints = jdbcTemplate.query(
+                "select taken_at, balance from balance_snapshot where account_id = ? and taken_at <= ? " +
+                        "order by taken_at desc limit 1",
+                (rs, rowNum) -> new Checkpoint(rs.getTimestamp("taken_at").toLocalDateTime(),
+                        Money.of(rs.getBigDecimal("balance"))),
+                accountId, until);
+        if (checkpoints.isEmpty()) {
+            throw new CustomBadRequestException("No balance history of account " + accountId + " before " + asOf);
+        }
+        Checkpoint checkpoint = checkpoints.get(0);
+        Timestamp since = Timestamp.valueOf(checkpoint.takenAt());
+        BigDecimal change = jdbcTemplate.queryForObject(
+                "select (select coalesce(sum(amount), 0) from transaction " +
+                        "where target_account_id = ? and created_at > ? and created_at <= ?) - " +
+                        "(select coalesce(sum(amount), 0) from transaction " +
+                        "where source_account_id = ? and created_at > ? and created_at <= ?)",
+                BigDecimal.class, accountId, since, until, accountId, since, until);
+        return new AccountBalanceDTO(accountId, checkpoint.balance().plus(Money.of(change)), Currency.GBP, asOf);
+    }
+}
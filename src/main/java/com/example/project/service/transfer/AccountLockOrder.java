@@ -0,0 +1,28 @@
+package com.example.project.service.transfer;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * The order in which transfers lock account rows.
+ * PostgreSQL compares UUIDs as unsigned bytes, while {@link UUID#compareTo} compares signed longs,
+ * so this comparator is used wherever Java decides the order, keeping it identical to the
+ * {@code order by id} used by the locking queries.
+ */
+public final class AccountLockOrder {
+
+    public static final Comparator<UUID> COMPARATOR = (a, b) -> {
+        int result = Long.compareUnsigned(a.getMostSignificantBits(), b.getMostSignificantBits());
+        return result != 0 ? result : Long.compareUnsigned(a.getLeastSignificantBits(), b.getLeastSignificantBits());
+    };
+
+    private AccountLockOrder() {
+    }
+
+    /**
+     * @return true if {@code first} has to be locked before {@code second}
+     */
+    public static boolean lockFirst(UUID first, UUID second) {
+        return COMPARATOR.compare(first, second) < 0;
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.project.service.transfer;
+
+import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransferResponse;
+import com.example.project.entity.Account;
+import com.example.project.enums.TransferStrategy;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.exception.InsufficientFundsException;
+import com.example.project.mapper.TransactionMapper;
+import com.example.project.repository.AccountRepository;
+import com.example.project.repository.TransactionRepository;
+import com.example.project.service.StripedBalanceService;
+import com.example.project.service.cache.AccountChangedEvent;
+import com.example.project.service.metrics.TransferMetrics;
+import com.example.project.service.metrics.TransferMetrics.Phase;
+import com.example.project.service.outbox.TransferOutbox;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Applies the transfer as two single-statement updates that never read the accounts first.
+ * The debit is conditional on the balance, so the balance check and the write happen under the
+ * same row lock and concurrent transfers on a hot account simply queue on that lock instead of
+ * failing. The two updates run in {@link AccountLockOrder} to rule out deadlocks.
+ * Striped accounts never match the updates and are handled by {@link StripedBalanceService}.
+ */
+@Component
+public class AtomicUpdateTransferExecutor implements TransferExecutor {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionMapper transactionMapper;
+    private final StripedBalanceService stripedBalanceService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransferMetrics transferMetrics;
+    private final TransferOutbox transferOutbox;
+
+    public AtomicUpdateTransferExecutor(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                                        TransactionMapper transactionMapper, StripedBalanceService stripedBalanceService,
+                                        ApplicationEventPublisher eventPublisher, TransferMetrics transferMetrics,
+                                        TransferOutbox transferOutbox) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionMapper = transactionMapper;
+        this.stripedBalanceService = stripedBalanceService;
+        this.eventPublisher = eventPublisher;
+        this.transferMetrics = transferMetrics;
+        this.transferOutbox = transferOutbox;
+    }
+
+    @Override
+    public TransferStrategy strategy() {
+        return TransferStrategy.ATOMIC_UPDATE;
+    }
+
+    @Override
+    @Transactional
+    public TransferResponse transfer(TransactionDTO transactionDTO) {
+        // The balance check is part of the conditional debit, so it is timed as part of the save
+        long phase = transferMetrics.start();
+        if (AccountLockOrder.lockFirst(transactionDTO.sourceAccountId(), transactionDTO.targetAccountId())) {
+            debit(transactionDTO);
+            credit(transactionDTO);
+        } else {
+            credit(transactionDTO);
+            debit(transactionDTO);
+        }
+        phase = transferMetrics.lap(Phase.SAVE, phase);
+
+        transferOutbox.append(transactionRepository.save(transactionMapper.toEntity(transactionDTO)));
+        eventPublisher.publishEvent(AccountChangedEvent.of(transactionDTO.sourceAccountId(), transactionDTO.targetAccountId()));
+        transferMetrics.lap(Phase.INSERT, phase);
+        transferMetrics.timeCommit();
+
+        return new TransferResponse(
+                "Transfer successful",
+                transactionDTO.amount()
+        );
+    }
+
+    private void debit(TransactionDTO transactionDTO) {
+        if (accountRepository.debitIfSufficient(transactionDTO.sourceAccountId(), transactionDTO.amount()) == 0) {
+            // Only the failure path pays for a read, to tell a missing account from a low balance or a striped account
+            Account sourceAccount = accountRepository.findById(transactionDTO.sourceAccountId())
+                    .orElseThrow(() -> new CustomNotFoundException("Source Account not found with ID: "));
+            if (!sourceAccount.isStriped()) {
+                throw new InsufficientFundsException();
+            }
+            stripedBalanceService.debit(sourceAccount, transactionDTO.amount());
+        }
+    }
+
+    private void credit(TransactionDTO transactionDTO) {
+        if (accountRepository.credit(transactionDTO.targetAccountId(), transactionDTO.amount()) == 0) {
+            Account targetAccount = accountRepository.findById(transactionDTO.targetAccountId())
+                    .orElseThrow(() -> new CustomNotFoundException("Target Account not found with ID: "));
+            stripedBalanceService.credit(targetAccount, transactionDTO.amount());
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.project.service.transfer;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.dto.BatchTransferResult;
+import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransferResponse;
+import com.example.project.enums.TransferStrategy;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.exception.InsufficientFundsException;
+import com.example.project.service.BatchTransferService;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies concurrent transfers together, so many transfers share one database transaction and one commit.
+ * <p>
+ * Callers queue their transfer and wait for its result. A single committer thread takes the first waiting
+ * transfer, gathers up to {@code transfer.group-commit.max-batch-size} transfers arriving within
+ * {@code transfer.group-commit.max-wait}, and applies them with {@link BatchTransferService#applyTogether}:
+ * one locking read of all their accounts, batched updates and inserts, and one commit. Every caller then gets
+ * the result of its own transfer; a rejected transfer, such as one with insufficient funds, does not affect
+ * the others. If the group's transaction itself fails, its transfers are applied again one by one, so only
+ * the transfer causing the failure fails.
+ * <p>
+ * A transfer requested inside a transaction, such as one recorded with its idempotency key, is applied in
+ * that transaction instead of being queued.
+ */
+@Component
+@ConditionalOnProperty(name = "transfer.strategy", havingValue = "GROUP_COMMIT")
+public class GroupCommitTransferExecutor implements TransferExecutor {
+
+    private static final Logger log = LoggerFactory.getLogger(GroupCommitTransferExecutor.class);
+
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private record Pending(TransactionDTO transfer, CompletableFuture<TransferResponse> result) {
+    }
+
+    private final BatchTransferService batchTransferService;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<Pending> queue;
+    private final DistributionSummary groupSizes;
+    private final Thread committer = new Thread(this::run, "transfer-group-commit");
+    private volatile boolean accepting;
+
+    /**
+     * Constructs the executor; it starts accepting transfers once its committer thread runs.
+     *
+     * @param batchTransferService the service applying a group of transfers in one transaction
+     * @param transferProperties   the transfer configuration
+     * @param registry             the registry of the group meters
+     */
+    public GroupCommitTransferExecutor(BatchTransferService batchTransferService, TransferProperties transferProperties,
+                                       MeterRegistry registry) {
+        TransferProperties.GroupCommit properties = transferProperties.getGroupCommit();
+        this.batchTransferService = batchTransferService;
+        this.maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+        this.maxWaitNanos = properties.getMaxWait().toNanos();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        this.groupSizes = DistributionSummary.builder("transfer.group.size")
+                .description("Transfers committed together in one database transaction")
+                .maximumExpectedValue((double) maxBatchSize)
+                .register(registry);
+        Gauge.builder("transfer.group.queued", queue, BlockingQueue::size)
+                .description("Transfers waiting to join a group")
+                .register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        accepting = true;
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        accepting = false;
+        committer.join(TimeUnit.SECONDS.toMillis(10));
+        Pending pending;
+        while ((pending = queue.poll()) != null) {
+            pending.result().completeExceptionally(new IllegalStateException("Transfers are no longer accepted"));
+        }
+    }
+
+    @Override
+    public TransferStrategy strategy() {
+        return TransferStrategy.GROUP_COMMIT;
+    }
+
+    @Override
+    public TransferResponse transfer(TransactionDTO transactionDTO) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return toResponse(transactionDTO, batchTransferService.applyTogether(List.of(transactionDTO))[0]);
+        }
+        if (!accepting) {
+            throw new IllegalStateException("Transfers are no longer accepted");
+        }
+        Pending pending = new Pending(transactionDTO, new CompletableFuture<>());
+        try {
+            queue.put(pending);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a transfer", ex);
+        }
+        try {
+            return pending.result().join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+    }
+
+    private void run() {
+        List<Pending> group = new ArrayList<>(maxBatchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                group.add(first);
+                gather(group);
+                commit(group);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Throwable ex) {
+                log.error("Group of {} transfers failed unexpectedly", group.size(), ex);
+                group.forEach(pending -> pending.result().completeExceptionally(ex));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    /**
+     * Adds waiting transfers to the group until it is full or the first transfer has waited long enough.
+     */
+    private void gather(List<Pending> group) throws InterruptedException {
+        long deadline = System.nanoTime() + maxWaitNanos;
+        while (group.size() < maxBatchSize) {
+            if (queue.drainTo(group, maxBatchSize - group.size()) > 0) {
+                continue;
+            }
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            group.add(next);
+        }
+    }
+
+    private void commit(List<Pending> group) {
+        groupSizes.record(group.size());
+        BatchTransferResult[] results;
+        try {
+            results = batchTransferService.applyTogether(group.stream().map(Pending::transfer).toList());
+        } catch (RuntimeException ex) {
+            if (group.size() == 1) {
+                group.get(0).result().completeExceptionally(ex);
+                return;
+            }
+            log.debug("Group of {} transfers failed, applying them one by one", group.size(), ex);
+            for (Pending pending : group) {
+                commit(List.of(pending));
+            }
+            return;
+        }
+        for (int i = 0; i < results.length; i++) {
+            Pending pending = group.get(i);
+            try {
+                pending.result().complete(toResponse(pending.transfer(), results[i]));
+            } catch (RuntimeException ex) {
+                pending.result().completeExceptionally(ex);
+            }
+        }
+    }
+
+    private static TransferResponse toResponse(TransactionDTO transactionDTO, BatchTransferResult result) {
+        return switch (result.status()) {
+            case APPLIED -> new TransferResponse("Transfer successful", transactionDTO.amount());
+            case INSUFFICIENT_FUNDS -> throw new InsufficientFundsException();
+            case ACCOUNT_NOT_FOUND -> throw new CustomNotFoundException(result.message());
+            default -> throw new CustomBadRequestException(result.message());
+        };
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.project.service.transfer;
+
+import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransferResponse;
+import com.example.project.enums.TransferStrategy;
+import com.example.project.service.AccountService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+
+/**
+ * Reads both accounts and saves them back under {@code REPEATABLE_READ}, relying on the
+ * {@code @Version} column to detect concurrent updates. Cheap when accounts are rarely contended.
+ */
+@Component
+public class OptimisticTransferExecutor implements TransferExecutor {
+
+    private final AccountService accountService;
+
+    public OptimisticTransferExecutor(AccountService accountService) {
+        this.accountService = accountService;
+    }
+
+    @Override
+    public TransferStrategy strategy() {
+        return TransferStrategy.OPTIMISTIC;
+    }
+
+    @Override
+    public TransferResponse transfer(TransactionDTO transactionDTO) {
+        return accountService.transferMoney(transactionDTO);
+    }
+
+    @Override
+    public Isolation isolation() {
+        return Isolation.REPEATABLE_READ;
+    }
+}
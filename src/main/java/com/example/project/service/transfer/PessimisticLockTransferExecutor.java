@@ -0,0 +1,102 @@
+package com.example.project.service.transfer;
+
+import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransferResponse;
+import com.example.project.entity.Account;
+import com.example.project.enums.TransferStrategy;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.exception.InsufficientFundsException;
+import com.example.project.mapper.TransactionMapper;
+import com.example.project.repository.AccountRepository;
+import com.example.project.repository.TransactionRepository;
+import com.example.project.service.StripedBalanceService;
+import com.example.project.service.cache.AccountChangedEvent;
+import com.example.project.service.metrics.TransferMetrics;
+import com.example.project.service.metrics.TransferMetrics.Phase;
+import com.example.project.service.outbox.TransferOutbox;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Loads both accounts with {@code SELECT ... FOR UPDATE} in ascending id order and updates them
+ * under those locks. Concurrent transfers on the same account wait for each other instead of
+ * failing their version check, and the fixed lock order rules out deadlocks.
+ * The row of a striped account is not locked; its stripes are, by {@link StripedBalanceService}.
+ */
+@Component
+public class PessimisticLockTransferExecutor implements TransferExecutor {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionMapper transactionMapper;
+    private final StripedBalanceService stripedBalanceService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransferMetrics transferMetrics;
+    private final TransferOutbox transferOutbox;
+
+    public PessimisticLockTransferExecutor(AccountRepository accountRepository, TransactionRepository transactionRepository,
+                                           TransactionMapper transactionMapper, StripedBalanceService stripedBalanceService,
+                                           ApplicationEventPublisher eventPublisher, TransferMetrics transferMetrics,
+                                           TransferOutbox transferOutbox) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionMapper = transactionMapper;
+        this.stripedBalanceService = stripedBalanceService;
+        this.eventPublisher = eventPublisher;
+        this.transferMetrics = transferMetrics;
+        this.transferOutbox = transferOutbox;
+    }
+
+    @Override
+    public TransferStrategy strategy() {
+        return TransferStrategy.PESSIMISTIC_LOCK;
+    }
+
+    @Override
+    @Transactional
+    public TransferResponse transfer(TransactionDTO transactionDTO) {
+        long phase = transferMetrics.start();
+        List<Account> accounts = accountRepository.findAllForTransfer(
+                List.of(transactionDTO.sourceAccountId(), transactionDTO.targetAccountId()));
+
+        Account sourceAccount = accounts.stream()
+                .filter(account -> account.getId().equals(transactionDTO.sourceAccountId()))
+                .findFirst()
+                .orElseThrow(() -> new CustomNotFoundException("Source Account not found with ID: "));
+        Account targetAccount = accounts.stream()
+                .filter(account -> account.getId().equals(transactionDTO.targetAccountId()))
+                .findFirst()
+                .orElseThrow(() -> new CustomNotFoundException("Target Account not found with ID: "));
+        phase = transferMetrics.lap(Phase.LOAD, phase);
+
+        if (sourceAccount.isStriped()) {
+            stripedBalanceService.debit(sourceAccount, transactionDTO.amount());
+        } else {
+            if (sourceAccount.getBalance().isLessThan(transactionDTO.amount())) {
+                throw new InsufficientFundsException();
+            }
+            sourceAccount.setBalance(sourceAccount.getBalance().minus(transactionDTO.amount()));
+        }
+        phase = transferMetrics.lap(Phase.CHECK, phase);
+
+        if (targetAccount.isStriped()) {
+            stripedBalanceService.credit(targetAccount, transactionDTO.amount());
+        } else {
+            targetAccount.setBalance(targetAccount.getBalance().plus(transactionDTO.amount()));
+        }
+        phase = transferMetrics.lap(Phase.SAVE, phase);
+
+        transferOutbox.append(transactionRepository.save(transactionMapper.toEntity(transactionDTO)));
+        eventPublisher.publishEvent(AccountChangedEvent.of(transactionDTO.sourceAccountId(), transactionDTO.targetAccountId()));
+        transferMetrics.lap(Phase.INSERT, phase);
+        transferMetrics.timeCommit();
+
+        return new TransferResponse(
+                "Transfer successful",
+                transactionDTO.amount()
+        );
+    }
+}
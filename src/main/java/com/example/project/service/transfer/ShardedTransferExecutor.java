@@ -0,0 +1,40 @@
+package com.example.project.service.transfer;
+
+import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransferResponse;
+import com.example.project.enums.TransferStrategy;
+import com.example.project.service.ledger.ShardedLedger;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Applies transfers to the in-memory {@link ShardedLedger} instead of locking account rows.
+ * The transfer is acknowledged once it is durable in the ledger journal; the database is
+ * updated asynchronously by the ledger's write-behind.
+ */
+@Component
+@ConditionalOnProperty(name = "transfer.strategy", havingValue = "SHARDED")
+public class ShardedTransferExecutor implements TransferExecutor {
+
+    private final ShardedLedger shardedLedger;
+
+    public ShardedTransferExecutor(ShardedLedger shardedLedger) {
+        this.shardedLedger = shardedLedger;
+    }
+
+    @Override
+    public TransferStrategy strategy() {
+        return TransferStrategy.SHARDED;
+    }
+
+    @Override
+    public TransferResponse transfer(TransactionDTO transactionDTO) {
+        shardedLedger.transfer(transactionDTO.sourceAccountId(), transactionDTO.targetAccountId(),
+                ShardedLedger.toMinorUnits(transactionDTO.amount()));
+
+        return new TransferResponse(
+                "Transfer successful",
+                transactionDTO.amount()
+        );
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.project.service.transfer;
+
+import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransferResponse;
+import com.example.project.enums.TransferStrategy;
+import org.springframework.transaction.annotation.Isolation;
+
+/**
+ * Applies a single transfer to the account rows in its own database transaction.
+ * One implementation exists per {@link TransferStrategy}; the active one is chosen with {@code transfer.strategy}.
+ */
+public interface TransferExecutor {
+
+    /**
+     * @return the strategy implemented by this executor
+     */
+    TransferStrategy strategy();
+
+    /**
+     * Applies the transfer and records it as a transaction.
+     *
+     * @param transactionDTO the transfer to apply
+     * @return the transfer response
+     */
+    TransferResponse transfer(TransactionDTO transactionDTO);
+
+    /**
+     * @return the isolation level of the executor's transaction, used when a caller wraps it in an outer transaction
+     */
+    default Isolation isolation() {
+        return Isolation.DEFAULT;
+    }
+}
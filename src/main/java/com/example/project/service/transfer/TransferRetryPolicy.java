@@ -0,0 +1,89 @@
+package com.example.project.service.transfer;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.exception.CustomConflictException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Retries a transactional action that lost a race against a concurrent transfer.
+ * Serialization failures, deadlocks, lock timeouts and optimistic-lock failures all surface as
+ * {@link ConcurrencyFailureException}; those are retried a bounded number of times with
+ * exponential backoff and full jitter, so colliding clients spread out instead of colliding again.
+ * Any other exception is propagated unchanged.
+ */
+@Component
+public class TransferRetryPolicy {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferRetryPolicy.class);
+
+    private final TransferProperties.Retry retry;
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder exhausted = new LongAdder();
+
+    public TransferRetryPolicy(TransferProperties transferProperties) {
+        this.retry = transferProperties.getRetry();
+    }
+
+    /**
+     * Runs the action, retrying it on concurrency failures.
+     * The action must start a new transaction on every call.
+     *
+     * @param action the action to run
+     * @return the result of the first successful attempt
+     * @throws CustomConflictException if every attempt failed with a concurrency failure
+     */
+    public <T> T execute(Supplier<T> action) {
+        int maxAttempts = Math.max(1, retry.getMaxAttempts());
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ConcurrencyFailureException ex) {
+                if (attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("Transfer gave up after {} attempts", attempt, ex);
+                    throw new CustomConflictException("Transfer could not be completed due to concurrent updates, please retry.");
+                }
+                retries.increment();
+                log.debug("Transfer attempt {} failed with {}, retrying", attempt, ex.getClass().getSimpleName());
+                backoff(attempt, ex);
+            }
+        }
+    }
+
+    /**
+     * @return the number of attempts retried since startup
+     */
+    public long retryCount() {
+        return retries.sum();
+    }
+
+    /**
+     * @return the number of actions given up after exhausting their attempts since startup
+     */
+    public long exhaustedCount() {
+        return exhausted.sum();
+    }
+
+    private void backoff(int attempt, ConcurrencyFailureException cause) {
+        long initialNanos = retry.getInitialBackoff().toNanos();
+        long maxNanos = retry.getMaxBackoff().toNanos();
+        long ceiling = Math.min(maxNanos, initialNanos << Math.min(attempt - 1, 20));
+        if (ceiling <= 0) {
+            return;
+        }
+        long sleepNanos = ThreadLocalRandom.current().nextLong(ceiling + 1);
+        try {
+            Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
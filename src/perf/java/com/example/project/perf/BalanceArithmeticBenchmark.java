@@ -0,0 +1,83 @@
+package com.example.project.perf;
+
+import com.example.project.money.Money;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The balance check, debit and credit of a transfer, on {@link Money} as the entities hold balances,
+ * on {@code BigDecimal} as they held them before, and on raw {@code long} minor units as a baseline.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BalanceArithmeticBenchmark {
+
+    private BigDecimal sourceBalance;
+    private BigDecimal targetBalance;
+    private BigDecimal amount;
+    private Money sourceMoney;
+    private Money targetMoney;
+    private Money amountMoney;
+    private long sourceMinor;
+    private long targetMinor;
+    private long amountMinor;
+
+    @Setup
+    public void setUp() {
+        sourceBalance = new BigDecimal("1000000.00");
+        targetBalance = new BigDecimal("2500.75");
+        amount = new BigDecimal("10.50");
+        sourceMoney = Money.parse("1000000.00");
+        targetMoney = Money.parse("2500.75");
+        amountMoney = Money.parse("10.50");
+        sourceMinor = 100_000_000L;
+        targetMinor = 250_075L;
+        amountMinor = 1_050L;
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalTransfer() {
+        if (sourceBalance.compareTo(amount) < 0) {
+            throw new IllegalStateException("Insufficient balance");
+        }
+        BigDecimal source = sourceBalance.subtract(amount);
+        BigDecimal target = targetBalance.add(amount);
+        return source.add(target);
+    }
+
+    @Benchmark
+    public BigDecimal bigDecimalParse() {
+        return new BigDecimal("10.50").setScale(2);
+    }
+
+    @Benchmark
+    public Money moneyTransfer() {
+        if (sourceMoney.isLessThan(amountMoney)) {
+            throw new IllegalStateException("Insufficient balance");
+        }
+        Money source = sourceMoney.minus(amountMoney);
+        Money target = targetMoney.plus(amountMoney);
+        return source.plus(target);
+    }
+
+    @Benchmark
+    public Money moneyParse() {
+        return Money.parse("10.50");
+    }
+
+    @Benchmark
+    public long minorUnitsTransfer() {
+        if (sourceMinor < amountMinor) {
+            throw new IllegalStateException("Insufficient balance");
+        }
+        long source = Math.subtractExact(sourceMinor, amountMinor);
+        long target = Math.addExact(targetMinor, amountMinor);
+        return source + target;
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.project.perf;
+
+import com.example.project.ProjectApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Starts the application against a private in-memory H2 database in PostgreSQL mode,
+ * so benchmarks and load tests need no outside services.
+ */
+public final class EmbeddedApplication {
+
+    private EmbeddedApplication() {
+    }
+
+    /**
+     * @param webApplicationType whether to start the embedded web server
+     * @param properties         extra properties, overriding the embedded defaults
+     */
+    public static ConfigurableApplicationContext start(WebApplicationType webApplicationType, Map<String, Object> properties) {
+        Map<String, Object> defaults = new HashMap<>();
+        defaults.put("spring.datasource.url", "jdbc:h2:mem:perf-" + UUID.randomUUID()
+                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+        defaults.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        defaults.put("spring.datasource.username", "sa");
+        defaults.put("spring.datasource.password", "");
+        // The PostgreSQL-only driver property from application.yml is rejected by H2
+        defaults.put("spring.datasource.hikari.data-source-properties.reWriteBatchedInserts", "");
+        defaults.put("spring.jpa.database-platform", "org.hibernate.dialect.H2Dialect");
+        defaults.put("spring.jpa.show-sql", "false");
+        defaults.put("spring.main.banner-mode", "off");
+        // Load tests move money between few accounts far faster than any velocity limit allows
+        defaults.put("transfer.limits.enabled", "false");
+        defaults.put("logging.level.root", "WARN");
+        defaults.putAll(properties);
+
+        // Passed as command line arguments, which take precedence over application.yml
+        String[] args = defaults.entrySet().stream()
+                .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                .toArray(String[]::new);
+        return new SpringApplicationBuilder(ProjectApplication.class)
+                .web(webApplicationType)
+                .run(args);
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.project.perf;
+
+import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransferResponse;
+import com.example.project.money.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reading a transfer request and writing its response, with the ObjectMapper settings Spring MVC uses.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonBenchmark {
+
+    private ObjectReader requestReader;
+    private ObjectWriter responseWriter;
+    private byte[] request;
+    private TransferResponse response;
+
+    @Setup
+    public void setUp() {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        requestReader = objectMapper.readerFor(TransactionDTO.class);
+        responseWriter = objectMapper.writerFor(TransferResponse.class);
+        request = ("{\"sourceAccountId\":\"" + UUID.randomUUID() + "\",\"targetAccountId\":\"" + UUID.randomUUID()
+                + "\",\"amount\":10.5,\"currency\":\"GBP\"}").getBytes(StandardCharsets.UTF_8);
+        response = new TransferResponse("Transfer successful", Money.parse("10.50"));
+    }
+
+    @Benchmark
+    public TransactionDTO readTransferRequest() throws IOException {
+        return requestReader.readValue(request);
+    }
+
+    @Benchmark
+    public byte[] writeTransferResponse() throws IOException {
+        return responseWriter.writeValueAsBytes(response);
+    }
+}
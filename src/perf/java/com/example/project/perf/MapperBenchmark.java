@@ -0,0 +1,57 @@
+package com.example.project.perf;
+
+import com.example.project.dto.AccountDTO;
+import com.example.project.dto.TransactionDTO;
+import com.example.project.entity.Account;
+import com.example.project.entity.Transaction;
+import com.example.project.mapper.AccountMapper;
+import com.example.project.mapper.TransactionMapper;
+import com.example.project.money.Money;
+import org.mapstruct.factory.Mappers;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The MapStruct conversions run on every transfer and account read.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MapperBenchmark {
+
+    private final AccountMapper accountMapper = Mappers.getMapper(AccountMapper.class);
+    private final TransactionMapper transactionMapper = Mappers.getMapper(TransactionMapper.class);
+
+    private Account account;
+    private AccountDTO accountDTO;
+    private TransactionDTO transactionDTO;
+
+    @Setup
+    public void setUp() {
+        account = new Account();
+        account.setId(UUID.randomUUID());
+        account.setBalance(Money.parse("1234.56"));
+        accountDTO = new AccountDTO(UUID.randomUUID(), Money.parse("1234.56"), 3);
+        transactionDTO = new TransactionDTO(UUID.randomUUID(), UUID.randomUUID(), Money.parse("10.50"), null, 0);
+    }
+
+    @Benchmark
+    public AccountDTO accountToDto() {
+        return accountMapper.toDto(account);
+    }
+
+    @Benchmark
+    public Account accountToEntity() {
+        return accountMapper.toEntity(accountDTO);
+    }
+
+    @Benchmark
+    public Transaction transactionToEntity() {
+        return transactionMapper.toEntity(transactionDTO);
+    }
+}
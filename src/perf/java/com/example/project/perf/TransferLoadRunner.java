@@ -0,0 +1,201 @@
+package com.example.project.perf;
+
+import com.example.project.controller.AccountController;
+import com.example.project.dto.AccountDTO;
+import com.example.project.dto.TransactionDTO;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.CustomConflictException;
+import com.example.project.money.Money;
+import com.example.project.service.AccountService;
+import com.example.project.service.transfer.TransferRetryPolicy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Contention load test of {@code POST /api/transfer}.
+ * Starts the application on an in-memory database, creates the accounts, then has every worker
+ * thread call {@link AccountController#transferMoney} in a closed loop between accounts drawn
+ * uniformly or with Zipfian skew. Reports throughput, latency percentiles, outcomes and retries,
+ * and fails unless the total balance of all accounts is unchanged at the end.
+ * <p>
+ * Settings are system properties:
+ * {@code load.threads} (32), {@code load.accounts} (1000), {@code load.skew} (uniform or zipf),
+ * {@code load.zipf-exponent} (1.0), {@code load.warmup} (5s), {@code load.duration} (30s),
+ * {@code load.strategy} (the configured transfer strategy) and {@code load.output}
+ * (target/load-test-result.json).
+ */
+public final class TransferLoadRunner {
+
+    private static final Money INITIAL_BALANCE = Money.parse("1000.00");
+
+    private final int threads = Integer.getInteger("load.threads", 32);
+    private final int accounts = Integer.getInteger("load.accounts", 1000);
+    private final String skew = System.getProperty("load.skew", "uniform");
+    private final double zipfExponent = Double.parseDouble(System.getProperty("load.zipf-exponent", "1.0"));
+    private final Duration warmup = DurationStyle.detectAndParse(System.getProperty("load.warmup", "5s"));
+    private final Duration duration = DurationStyle.detectAndParse(System.getProperty("load.duration", "30s"));
+    private final String strategy = System.getProperty("load.strategy");
+    private final Path output = Path.of(System.getProperty("load.output", "target/load-test-result.json"));
+
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder conflicted = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public static void main(String[] args) throws Exception {
+        boolean conserved = new TransferLoadRunner().run();
+        System.exit(conserved ? 0 : 1);
+    }
+
+    private boolean run() throws Exception {
+        Map<String, Object> properties = new LinkedHashMap<>();
+        if (strategy != null) {
+            properties.put("transfer.strategy", strategy);
+        }
+        properties.put("transfer.sharded.journal-directory", Files.createTempDirectory("load-test-journal").toString());
+        properties.put("spring.datasource.hikari.maximum-pool-size", Math.max(10, threads));
+        // Lost races are expected here and counted as retries, not logged one by one
+        properties.put("logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper", "OFF");
+        properties.put("logging.level.org.hibernate.orm.jdbc.batch", "OFF");
+        properties.put("logging.level.com.example.project.service.transfer.TransferRetryPolicy", "ERROR");
+
+        // The controller only exists in servlet applications; it is called directly, the server just idles
+        properties.put("server.port", 0);
+
+        try (ConfigurableApplicationContext context = EmbeddedApplication.start(WebApplicationType.SERVLET, properties)) {
+            AccountController controller = context.getBean(AccountController.class);
+            AccountService accountService = context.getBean(AccountService.class);
+            TransferRetryPolicy retryPolicy = context.getBean(TransferRetryPolicy.class);
+
+            UUID[] accountIds = new UUID[accounts];
+            for (int i = 0; i < accounts; i++) {
+                accountIds[i] = controller.createAccount(new AccountDTO(null, INITIAL_BALANCE, 0)).getBody().id();
+            }
+            Money expectedTotal = Money.ofMinor(Math.multiplyExact(INITIAL_BALANCE.minorUnits(), accounts));
+            ZipfianGenerator generator = new ZipfianGenerator(accounts, "zipf".equalsIgnoreCase(skew) ? zipfExponent : 0);
+
+            long retriesBefore = retryPolicy.retryCount();
+            long start = System.nanoTime();
+            long measureFrom = start + warmup.toNanos();
+            long end = measureFrom + duration.toNanos();
+            ExecutorService executor = Executors.newFixedThreadPool(threads);
+            List<Future<Histogram>> workers = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                workers.add(executor.submit(() -> drive(controller, accountIds, generator, measureFrom, end)));
+            }
+            Histogram latency = new Histogram(3);
+            for (Future<Histogram> worker : workers) {
+                latency.add(worker.get());
+            }
+            executor.shutdown();
+            long retries = retryPolicy.retryCount() - retriesBefore;
+
+            Money total = awaitTotal(accountService, expectedTotal);
+            boolean conserved = total.compareTo(expectedTotal) == 0;
+            report(latency, retries, expectedTotal, total, conserved);
+            return conserved;
+        }
+    }
+
+    private Histogram drive(AccountController controller, UUID[] accountIds, ZipfianGenerator generator,
+                            long measureFrom, long end) {
+        Histogram latency = new Histogram(3);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            int source = generator.next();
+            int target = generator.next();
+            if (source == target) {
+                continue;
+            }
+            Money amount = Money.ofMinor(1 + random.nextInt(1000));
+            TransactionDTO request = new TransactionDTO(accountIds[source], accountIds[target], amount, null, 0);
+
+            LongAdder outcome;
+            try {
+                controller.transferMoney(request, null);
+                outcome = succeeded;
+            } catch (CustomBadRequestException ex) {
+                outcome = rejected;
+            } catch (CustomConflictException ex) {
+                outcome = conflicted;
+            } catch (RuntimeException ex) {
+                outcome = failed;
+            }
+            if (now >= measureFrom) {
+                latency.recordValue((System.nanoTime() - now) / 1_000);
+                outcome.increment();
+            }
+        }
+        return latency;
+    }
+
+    /**
+     * Sums all balances. The sharded ledger writes balances behind, so its total is polled until it settles.
+     */
+    private Money awaitTotal(AccountService accountService, Money expectedTotal) throws InterruptedException {
+        Money total = sumBalances(accountService);
+        for (int attempt = 0; attempt < 50 && total.compareTo(expectedTotal) != 0; attempt++) {
+            Thread.sleep(100);
+            total = sumBalances(accountService);
+        }
+        return total;
+    }
+
+    private static Money sumBalances(AccountService accountService) {
+        Money[] total = {Money.ZERO};
+        accountService.exportAccounts(account -> total[0] = total[0].plus(account.balance()));
+        return total[0];
+    }
+
+    private void report(Histogram latency, long retries, Money expectedTotal, Money total, boolean conserved)
+            throws IOException {
+        long completed = latency.getTotalCount();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("strategy", strategy == null ? "configured" : strategy);
+        result.put("threads", threads);
+        result.put("accounts", accounts);
+        result.put("skew", skew);
+        result.put("zipfExponent", zipfExponent);
+        result.put("durationSeconds", duration.toMillis() / 1000.0);
+        result.put("throughputPerSecond", completed / (duration.toNanos() / 1e9));
+        result.put("succeeded", succeeded.sum());
+        result.put("rejected", rejected.sum());
+        result.put("conflicted", conflicted.sum());
+        result.put("failed", failed.sum());
+        result.put("retries", retries);
+        Map<String, Object> micros = new LinkedHashMap<>();
+        micros.put("p50", latency.getValueAtPercentile(50));
+        micros.put("p99", latency.getValueAtPercentile(99));
+        micros.put("p999", latency.getValueAtPercentile(99.9));
+        micros.put("max", latency.getMaxValue());
+        result.put("latencyMicros", micros);
+        result.put("expectedTotal", expectedTotal);
+        result.put("actualTotal", total);
+        result.put("moneyConserved", conserved);
+
+        String json = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValueAsString(result);
+        System.out.println(json);
+        Files.createDirectories(output.toAbsolutePath().getParent());
+        Files.writeString(output, json);
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.project.perf;
+
+import com.example.project.dto.AccountDTO;
+import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransferResponse;
+import com.example.project.money.Money;
+import com.example.project.service.AccountService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link AccountService#transferMoney} end to end: JPA reads, version-checked updates and the
+ * transaction insert, against an embedded database. Accounts are picked at random from a pool
+ * large enough that a single thread never conflicts with itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransferMoneyBenchmark {
+
+    @Param("1000")
+    public int accounts;
+
+    private ConfigurableApplicationContext context;
+    private AccountService accountService;
+    private UUID[] accountIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = EmbeddedApplication.start(WebApplicationType.NONE, Map.of());
+        accountService = context.getBean(AccountService.class);
+        accountIds = new UUID[accounts];
+        for (int i = 0; i < accounts; i++) {
+            accountIds[i] = accountService.createAccount(new AccountDTO(null, Money.parse("1000000.00"), 0)).id();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public TransferResponse transferMoney() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int source = random.nextInt(accounts);
+        int target = (source + 1 + random.nextInt(accounts - 1)) % accounts;
+        return accountService.transferMoney(
+                new TransactionDTO(accountIds[source], accountIds[target], Money.ofMinor(100), null, 0));
+    }
+}
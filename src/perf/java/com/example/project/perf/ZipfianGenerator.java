@@ -0,0 +1,31 @@
+package com.example.project.perf;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Draws indexes in {@code [0, n)} where index {@code k} has a probability proportional to
+ * {@code 1 / (k + 1)^exponent}, so a few low indexes take most of the draws, like hot accounts do.
+ * An exponent of 0 draws uniformly.
+ */
+final class ZipfianGenerator {
+
+    private final double[] cumulative;
+
+    ZipfianGenerator(int n, double exponent) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int k = 0; k < n; k++) {
+            sum += 1 / Math.pow(k + 1, exponent);
+            cumulative[k] = sum;
+        }
+        for (int k = 0; k < n; k++) {
+            cumulative[k] /= sum;
+        }
+    }
+
+    int next() {
+        int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        return Math.min(cumulative.length - 1, index >= 0 ? index : -index - 1);
+    }
+}
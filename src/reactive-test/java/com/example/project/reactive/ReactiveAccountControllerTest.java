@@ -0,0 +1,173 @@
+package com.example.project.reactive;
+
+import com.example.project.config.AccountCacheProperties;
+import com.example.project.config.IdProperties;
+import com.example.project.config.TransferProperties;
+import com.example.project.dto.AccountDTO;
+import com.example.project.dto.TransactionDTO;
+import com.example.project.enums.Currency;
+import com.example.project.enums.TransferStrategy;
+import com.example.project.money.Money;
+import com.example.project.service.cache.AccountCache;
+import com.example.project.service.cache.AccountInvalidationBus;
+import com.example.project.service.limit.VelocityLimiter;
+import com.example.project.service.metrics.TransferMetrics;
+import com.example.project.service.transfer.TransferRetryPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ReactiveAccountControllerTest {
+
+    private ReactiveAccountRepository accountRepository;
+    private final List<TransactionRow> inserted = new CopyOnWriteArrayList<>();
+    private ReactiveAccountService accountService;
+    private WebTestClient webTestClient;
+    private UUID source;
+    private UUID target;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    public void setUp() {
+        TransferProperties transferProperties = new TransferProperties();
+        transferProperties.setStrategy(TransferStrategy.ATOMIC_UPDATE);
+        transferProperties.getOutbox().setEnabled(false);
+        // One transfer per minute from each account, so a reservation that is not released blocks the next one
+        TransferProperties.Limits.Window window = new TransferProperties.Limits.Window();
+        window.setDuration(Duration.ofMinutes(1));
+        window.setMaxTransfers(1);
+        transferProperties.getLimits().setEnabled(true);
+        transferProperties.getLimits().getWindows().add(window);
+        TransferRetryPolicy retryPolicy = new TransferRetryPolicy(transferProperties);
+
+        accountRepository = mock(ReactiveAccountRepository.class);
+        // Rows count as inserted once the insert runs, which is only after both balance updates succeeded
+        R2dbcEntityTemplate entityTemplate = mock(R2dbcEntityTemplate.class);
+        when(entityTemplate.insert(any(TransactionRow.class))).thenAnswer(invocation -> Mono.fromCallable(() -> {
+            TransactionRow row = invocation.getArgument(0);
+            inserted.add(row);
+            return row;
+        }));
+        TransactionalOperator transactionalOperator = mock(TransactionalOperator.class);
+        when(transactionalOperator.transactional(any(Mono.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        accountService = new ReactiveAccountService(accountRepository, mock(ReactiveTransactionRepository.class),
+                entityTemplate, null, transactionalOperator,
+                new AccountCache(new AccountCacheProperties(), mock(AccountInvalidationBus.class)),
+                mock(ApplicationEventPublisher.class), new VelocityLimiter(transferProperties, null),
+                new TransferMetrics(new SimpleMeterRegistry(), transferProperties, retryPolicy), retryPolicy,
+                null, null, null, new IdProperties(), transferProperties);
+        webTestClient = WebTestClient.bindToController(new ReactiveAccountController(accountService, null, null, null,
+                        null, null))
+                .controllerAdvice(new ReactiveExceptionHandler())
+                .build();
+
+        source = UUID.randomUUID();
+        target = UUID.randomUUID();
+    }
+
+    @Test
+    public void testTransferMoney_AppliesTransfer() {
+        // Arrange
+        when(accountRepository.debitIfSufficient(source, Money.parse("30.00"))).thenReturn(Mono.just(1));
+        when(accountRepository.credit(target, Money.parse("30.00"))).thenReturn(Mono.just(1));
+
+        // Act & Assert
+        transfer("30.00")
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.status").isEqualTo("Transfer successful")
+                .jsonPath("$.amount").isEqualTo(30.0);
+        assertEquals(1, inserted.size());
+        assertEquals(source, inserted.get(0).sourceAccountId());
+        assertEquals(target, inserted.get(0).targetAccountId());
+        assertEquals(Money.parse("30.00"), inserted.get(0).amount());
+    }
+
+    @Test
+    public void testTransferMoney_InsufficientFundsReleasesReservation() {
+        // Arrange: the conditional debit matches no row, and the source is a plain account
+        when(accountRepository.debitIfSufficient(source, Money.parse("30.00"))).thenReturn(Mono.just(0), Mono.just(1));
+        when(accountRepository.credit(target, Money.parse("30.00"))).thenReturn(Mono.just(1));
+        when(accountRepository.findById(source)).thenReturn(Mono.just(
+                new AccountRow(source, Money.parse("10.00"), Currency.GBP, LocalDateTime.now(), 0, 0)));
+
+        // Act & Assert: the failed transfer does not use up the single transfer of the window
+        transfer("30.00").expectStatus().isBadRequest();
+        transfer("30.00").expectStatus().isOk();
+        transfer("30.00").expectStatus().isEqualTo(429);
+        assertEquals(1, inserted.size());
+    }
+
+    @Test
+    public void testTransfer_CancelledTransferReleasesReservation() {
+        // Arrange: the first debit never completes
+        AtomicBoolean cancelled = new AtomicBoolean();
+        when(accountRepository.debitIfSufficient(source, Money.parse("30.00")))
+                .thenReturn(Mono.<Integer>never().doOnCancel(() -> cancelled.set(true)), Mono.just(1));
+        when(accountRepository.credit(target, Money.parse("30.00"))).thenReturn(Mono.just(1));
+
+        // Act: the client goes away while the transfer is in flight
+        Disposable inFlight = accountService.transfer(new TransactionDTO(source, target, Money.parse("30.00"), null, 0), null)
+                .subscribe();
+        inFlight.dispose();
+
+        // Assert: the reservation was given back, so the retried transfer is within the limit
+        assertTrue(cancelled.get());
+        transfer("30.00").expectStatus().isOk();
+        assertEquals(1, inserted.size());
+    }
+
+    @Test
+    public void testGetAccount_ReadsThroughCache() {
+        // Arrange
+        UUID unknown = UUID.randomUUID();
+        when(accountRepository.findAccount(source)).thenReturn(Mono.just(new AccountDTO(source, Money.parse("12.50"), 3)));
+        when(accountRepository.findAccount(unknown)).thenReturn(Mono.empty());
+
+        // Act & Assert: the second read is served from the cache
+        for (int i = 0; i < 2; i++) {
+            webTestClient.get().uri("/api/accounts/{id}", source)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody()
+                    .jsonPath("$.id").isEqualTo(source.toString())
+                    .jsonPath("$.balance").isEqualTo(12.5)
+                    .jsonPath("$.version").isEqualTo(3);
+        }
+        verify(accountRepository, times(1)).findAccount(source);
+        webTestClient.get().uri("/api/accounts/{id}", unknown)
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.message").isEqualTo("Account not found with ID: " + unknown);
+    }
+
+    private WebTestClient.ResponseSpec transfer(String amount) {
+        return webTestClient.post().uri("/api/transfer")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("""
+                        {"sourceAccountId": "%s", "targetAccountId": "%s", "amount": "%s"}
+                        """.formatted(source, target, new BigDecimal(amount)))
+                .exchange();
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.project.reactive;
+
+import com.example.project.enums.Currency;
+import com.example.project.money.Money;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A row of the {@code account} table, as read and written with R2DBC.
+ */
+@Table("account")
+public record AccountRow(
+        @Id UUID id,
+        Money balance,
+        Currency currency,
+        LocalDateTime createdAt,
+        int version,
+        int stripeCount
+) {}
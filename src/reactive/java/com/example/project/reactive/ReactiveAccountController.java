@@ -0,0 +1,217 @@
+package com.example.project.reactive;
+
+import com.example.project.config.AccountEventProperties;
+import com.example.project.controller.AccountController;
+import com.example.project.dto.AccountBalanceDTO;
+import com.example.project.dto.AccountDTO;
+import com.example.project.dto.AccountImportResponse;
+import com.example.project.dto.BatchTransferResponse;
+import com.example.project.dto.CursorPage;
+import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransactionHistoryDTO;
+import com.example.project.dto.TransferResponse;
+import com.example.project.service.AccountImportService;
+import com.example.project.service.AccountService;
+import com.example.project.service.BatchTransferService;
+import com.example.project.service.StripedBalanceService;
+import com.example.project.service.events.AccountEvent;
+import com.example.project.service.events.AccountEventHub;
+import com.example.project.service.events.AccountEventSink;
+import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.time.LocalDateTime;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * WebFlux controller serving the routes of {@link AccountController} without blocking a thread per request.
+ * Accounts, their history and single transfers are read and written over R2DBC; striping, batches and imports,
+ * which are rare and long, run on the JPA services off the event loop.
+ */
+@RestController
+@RequestMapping("/api")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAccountController {
+
+    private static final String NDJSON = "application/x-ndjson";
+    // Buffers of the upload requested ahead of the import reading them
+    private static final int UPLOAD_DEMAND = 16;
+
+    private final ReactiveAccountService accountService;
+    private final AccountImportService accountImportService;
+    private final BatchTransferService batchTransferService;
+    private final StripedBalanceService stripedBalanceService;
+    private final AccountEventHub accountEventHub;
+    private final AccountEventProperties accountEventProperties;
+
+    /**
+     * Constructs a new ReactiveAccountController with the specified services.
+     *
+     * @param accountService         the non-blocking account and transfer service
+     * @param accountImportService   the service importing accounts in bulk
+     * @param batchTransferService   the service applying batched transfers
+     * @param stripedBalanceService  the service managing striped accounts
+     * @param accountEventHub        the hub pushing account changes to their streams
+     * @param accountEventProperties the settings of the account event streams
+     */
+    public ReactiveAccountController(ReactiveAccountService accountService, AccountImportService accountImportService,
+                                     BatchTransferService batchTransferService,
+                                     StripedBalanceService stripedBalanceService, AccountEventHub accountEventHub,
+                                     AccountEventProperties accountEventProperties) {
+        this.accountService = accountService;
+        this.accountImportService = accountImportService;
+        this.batchTransferService = batchTransferService;
+        this.stripedBalanceService = stripedBalanceService;
+        this.accountEventHub = accountEventHub;
+        this.accountEventProperties = accountEventProperties;
+    }
+
+    @PostMapping("/accounts")
+    public Mono<ResponseEntity<AccountDTO>> createAccount(@Valid @RequestBody AccountDTO accountDTO) {
+        return accountService.createAccount(accountDTO)
+                .map(createdAccount -> ResponseEntity.status(HttpStatus.CREATED).body(createdAccount));
+    }
+
+    /**
+     * Imports accounts from the upload as it arrives; the import reads it as a blocking stream off the event loop.
+     */
+    @PostMapping("/accounts/import")
+    public Mono<ResponseEntity<AccountImportResponse>> importAccounts(
+            @RequestHeader(value = "Import-Id", required = false) String importId,
+            @RequestHeader(value = "Content-Type", required = false) String contentType,
+            @RequestBody Flux<DataBuffer> upload) {
+        return ReactiveAccountService.blocking(() -> {
+            // Closing the buffers cancels the rest of the upload if the import stopped early; closing the stream
+            // releases the buffer it is reading
+            try (Stream<DataBuffer> buffers = upload.toStream(UPLOAD_DEMAND);
+                 InputStream stream = asInputStream(buffers.iterator())) {
+                return accountImportService.importAccounts(importId, AccountImportService.formatOf(contentType), stream);
+            }
+        }).map(ResponseEntity::ok);
+    }
+
+    /**
+     * Reads the buffers one after another, releasing each once it has been read.
+     */
+    private static InputStream asInputStream(Iterator<DataBuffer> buffers) {
+        return new SequenceInputStream(new Enumeration<>() {
+            @Override
+            public boolean hasMoreElements() {
+                return buffers.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return buffers.next().asInputStream(true);
+            }
+        });
+    }
+
+    @GetMapping("/accounts")
+    public Mono<ResponseEntity<CursorPage<AccountDTO>>> getAllAccounts(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + AccountService.DEFAULT_PAGE_SIZE) int limit) {
+        return accountService.getAccounts(cursor, limit).map(ResponseEntity::ok);
+    }
+
+    /**
+     * Exports all accounts as newline-delimited JSON, written as the client reads them.
+     */
+    @GetMapping(value = "/accounts/export", produces = NDJSON)
+    public Flux<AccountDTO> exportAccounts() {
+        return accountService.exportAccounts();
+    }
+
+    @GetMapping("/accounts/{id}")
+    public Mono<ResponseEntity<AccountDTO>> getAccount(@PathVariable UUID id) {
+        return accountService.getAccount(id).map(ResponseEntity::ok);
+    }
+
+    @PutMapping("/accounts/{id}")
+    public Mono<ResponseEntity<String>> updateAccount(@PathVariable UUID id, @Valid @RequestBody AccountDTO accountDTO) {
+        return accountService.updateAccount(id, accountDTO).thenReturn(ResponseEntity.ok("Account updated"));
+    }
+
+    @DeleteMapping("/accounts/{id}")
+    public Mono<ResponseEntity<String>> deleteAccount(@PathVariable UUID id) {
+        return accountService.deleteAccount(id).thenReturn(ResponseEntity.ok("Account deleted"));
+    }
+
+    @GetMapping("/accounts/{id}/transactions")
+    public Mono<ResponseEntity<CursorPage<TransactionHistoryDTO>>> getAccountTransactions(
+            @PathVariable UUID id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + AccountService.DEFAULT_PAGE_SIZE) int limit) {
+        return accountService.getTransactions(id, cursor, limit).map(ResponseEntity::ok);
+    }
+
+    @GetMapping("/accounts/{id}/balance")
+    public Mono<ResponseEntity<AccountBalanceDTO>> getAccountBalance(
+            @PathVariable UUID id,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf) {
+        return accountService.getBalance(id, asOf).map(ResponseEntity::ok);
+    }
+
+    /**
+     * Streams the changes of an account as server-sent events, like {@link AccountController#streamAccountEvents}.
+     * Events wait in a buffer of the stream's own size, and a full buffer drops the subscriber.
+     */
+    @GetMapping(value = "/accounts/{id}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> streamAccountEvents(@PathVariable UUID id) {
+        return accountService.getAccount(id).flatMapMany(account -> {
+            Sinks.Many<ServerSentEvent<Object>> events = Sinks.many().unicast()
+                    .onBackpressureBuffer(Queues.<ServerSentEvent<Object>>get(accountEventProperties.getBufferSize()).get());
+            AccountEventHub.Subscription subscription = accountEventHub.subscribe(id, new AccountEventSink() {
+                @Override
+                public void send(AccountEvent event) {
+                    ServerSentEvent<Object> sse = event.isHeartbeat()
+                            ? ServerSentEvent.builder().comment("heartbeat").build()
+                            : ServerSentEvent.builder(event.data()).event(event.name()).build();
+                    events.tryEmitNext(sse).orThrow();
+                }
+
+                @Override
+                public void close() {
+                    events.tryEmitComplete();
+                }
+            });
+            return events.asFlux()
+                    .take(accountEventProperties.getTimeout())
+                    .doFinally(signal -> subscription.cancel());
+        });
+    }
+
+    @PostMapping("/accounts/{id}/stripes")
+    public Mono<ResponseEntity<AccountDTO>> stripeAccount(@PathVariable UUID id, @RequestParam int count) {
+        return ReactiveAccountService.blocking(() -> stripedBalanceService.stripeAccount(id, count)).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/transfer")
+    public Mono<ResponseEntity<TransferResponse>> transferMoney(
+            @Valid @RequestBody TransactionDTO request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        return accountService.transfer(request, idempotencyKey).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/transfers/batch")
+    public Mono<ResponseEntity<BatchTransferResponse>> transferBatch(@RequestBody List<TransactionDTO> requests) {
+        return ReactiveAccountService.blocking(() -> batchTransferService.transferBatch(requests)).map(ResponseEntity::ok);
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.project.reactive;
+
+import com.example.project.dto.AccountDTO;
+import com.example.project.money.Money;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link com.example.project.repository.AccountRepository} and
+ * {@link com.example.project.repository.AccountQueryRepository}, running the same statements over R2DBC.
+ */
+public interface ReactiveAccountRepository extends R2dbcRepository<AccountRow, UUID> {
+
+    String SELECT_ACCOUNT =
+            "select a.id, a.version, case when a.stripe_count > 0 " +
+                    "then (select coalesce(sum(s.balance), 0) from account_balance_stripe s where s.account_id = a.id) " +
+                    "else a.balance end as balance " +
+                    "from account a ";
+
+    /**
+     * Reads an account with its balance, summing the stripes of a striped account.
+     */
+    @Query(SELECT_ACCOUNT + "where a.id = :id")
+    Mono<AccountDTO> findAccount(@Param("id") UUID id);
+
+    /**
+     * Reads the first accounts in id order.
+     */
+    @Query(SELECT_ACCOUNT + "order by a.id limit :limit")
+    Flux<AccountDTO> findPage(@Param("limit") int limit);
+
+    /**
+     * Reads the accounts following the given id, in id order.
+     */
+    @Query(SELECT_ACCOUNT + "where a.id > :after order by a.id limit :limit")
+    Flux<AccountDTO> findPage(@Param("after") UUID after, @Param("limit") int limit);
+
+    /**
+     * Streams all accounts in id order; rows are fetched as the subscriber requests them.
+     */
+    @Query(SELECT_ACCOUNT + "order by a.id")
+    Flux<AccountDTO> findAllAccounts();
+
+    /**
+     * Debits an account in a single conditional update, without reading it first.
+     *
+     * @return 1 if the account was debited, 0 if it does not exist, is striped or its balance is too low
+     */
+    @Modifying
+    @Query("update account set balance = balance - :amount, version = version + 1 " +
+            "where id = :id and balance >= :amount and stripe_count = 0")
+    Mono<Integer> debitIfSufficient(@Param("id") UUID id, @Param("amount") Money amount);
+
+    /**
+     * Credits an account in a single update, without reading it first.
+     *
+     * @return 1 if the account was credited, 0 if it does not exist or is striped
+     */
+    @Modifying
+    @Query("update account set balance = balance + :amount, version = version + 1 " +
+            "where id = :id and stripe_count = 0")
+    Mono<Integer> credit(@Param("id") UUID id, @Param("amount") Money amount);
+
+    /**
+     * Overwrites the balance of an account.
+     *
+     * @return 1 if the balance was set, 0 if the account does not exist or is striped
+     */
+    @Modifying
+    @Query("update account set balance = :balance, version = version + 1 where id = :id and stripe_count = 0")
+    Mono<Integer> setBalance(@Param("id") UUID id, @Param("balance") Money balance);
+
+    /**
+     * Deletes an account; its stripes are deleted with it.
+     *
+     * @return 1 if the account was deleted, 0 if it does not exist
+     */
+    @Modifying
+    @Query("delete from account where id = :id")
+    Mono<Integer> deleteAccount(@Param("id") UUID id);
+}
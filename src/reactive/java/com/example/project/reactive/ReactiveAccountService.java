@@ -0,0 +1,484 @@
+package com.example.project.reactive;
+
+import com.example.project.config.IdProperties;
+import com.example.project.config.TransferProperties;
+import com.example.project.dto.AccountBalanceDTO;
+import com.example.project.dto.AccountDTO;
+import com.example.project.dto.CursorPage;
+import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransactionHistoryDTO;
+import com.example.project.dto.TransferResponse;
+import com.example.project.enums.BalanceSnapshotKind;
+import com.example.project.enums.Currency;
+import com.example.project.enums.TransferStrategy;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.CustomConflictException;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.exception.InsufficientFundsException;
+import com.example.project.exception.SameAccountException;
+import com.example.project.money.Money;
+import com.example.project.service.AccountService;
+import com.example.project.service.TransferService;
+import com.example.project.service.cache.AccountCache;
+import com.example.project.service.cache.AccountChangedEvent;
+import com.example.project.service.limit.VelocityLimiter;
+import com.example.project.service.metrics.TransferMetrics;
+import com.example.project.service.outbox.TransferCompletedEvent;
+import com.example.project.service.outbox.TransferOutbox;
+import com.example.project.service.transfer.AccountLockOrder;
+import com.example.project.service.transfer.AtomicUpdateTransferExecutor;
+import com.example.project.service.transfer.TransferRetryPolicy;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.r2dbc.core.R2dbcEntityTemplate;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.retry.Retry;
+import reactor.util.retry.RetryBackoffSpec;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Non-blocking counterpart of {@link AccountService} and {@link TransferService}, reading and writing over R2DBC.
+ * <p>
+ * A transfer is applied like {@link AtomicUpdateTransferExecutor}: a conditional debit and a credit in
+ * {@link AccountLockOrder}, the transaction row and its outbox events, all in one R2DBC transaction, retried on
+ * concurrency failures and counted against the velocity limits. {@code transfer.strategy} must therefore be
+ * {@code ATOMIC_UPDATE}, and the service refuses to start with any other strategy. Work that only the JPA services
+ * implement runs on them, on the bounded elastic scheduler: transfers with an idempotency key, whose key is stored
+ * with JPA, transfers or balance updates of striped accounts, and balance-as-of queries.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAccountService {
+
+    private static final LocalDateTime HISTORY_START = LocalDateTime.of(9999, 12, 31, 0, 0);
+    private static final LocalDateTime HISTORY_END = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final UUID MIN_UUID = new UUID(0L, 0L);
+    private static final UUID MAX_UUID = new UUID(-1L, -1L);
+    // Newest first, ties broken by ID in the order the database compares UUIDs
+    private static final Comparator<TransactionHistoryDTO> HISTORY_ORDER = Comparator
+            .comparing(TransactionHistoryDTO::createdAt)
+            .thenComparing(TransactionHistoryDTO::id, AccountLockOrder.COMPARATOR)
+            .reversed();
+    private static final String INSERT_OUTBOX_EVENT =
+            "insert into transfer_outbox (partition_no, transaction_id, account_id, counterparty_id, amount, currency, created_at) " +
+                    "values (:partitionNo, :transactionId, :accountId, :counterpartyId, :amount, :currency, :createdAt)";
+    private static final String INSERT_SNAPSHOT =
+            "insert into balance_snapshot (account_id, taken_at, balance, kind) values (:accountId, :takenAt, :balance, :kind)";
+
+    /**
+     * Signals a striped account, which the conditional updates never match.
+     */
+    private static final class StripedAccountException extends RuntimeException {
+        StripedAccountException() {
+            super(null, null, false, false);
+        }
+    }
+
+    private final ReactiveAccountRepository accountRepository;
+    private final ReactiveTransactionRepository transactionRepository;
+    private final R2dbcEntityTemplate entityTemplate;
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final AccountCache accountCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VelocityLimiter velocityLimiter;
+    private final TransferMetrics transferMetrics;
+    private final TransferRetryPolicy retryPolicy;
+    private final AccountService accountService;
+    private final TransferService transferService;
+    private final AtomicUpdateTransferExecutor atomicUpdateTransferExecutor;
+    private final IdProperties idProperties;
+    private final boolean outboxEnabled;
+    private final RetryBackoffSpec retry;
+
+    /**
+     * Constructs a ReactiveAccountService.
+     *
+     * @param accountRepository            the R2DBC repository of accounts
+     * @param transactionRepository        the R2DBC repository of transactions
+     * @param entityTemplate               the template inserting new rows
+     * @param databaseClient               the client writing outbox events and balance checkpoints
+     * @param transactionalOperator        the operator running R2DBC transactions
+     * @param accountCache                 the cache of account details shared with the JPA services
+     * @param eventPublisher               the publisher announcing changed accounts
+     * @param velocityLimiter              the limiter counting transfers per source account
+     * @param transferMetrics              the meters timing transfers by outcome
+     * @param retryPolicy                  the retry policy of transfers handed to JPA
+     * @param accountService               the JPA service updating striped accounts
+     * @param transferService              the JPA service applying transfers with an idempotency key
+     * @param atomicUpdateTransferExecutor the JPA executor applying transfers of striped accounts
+     * @param idProperties                 the style of new IDs
+     * @param transferProperties           the transfer configuration holding the strategy, retry and outbox settings
+     */
+    public ReactiveAccountService(ReactiveAccountRepository accountRepository,
+                                  ReactiveTransactionRepository transactionRepository,
+                                  R2dbcEntityTemplate entityTemplate, DatabaseClient databaseClient,
+                                  TransactionalOperator transactionalOperator, AccountCache accountCache,
+                                  ApplicationEventPublisher eventPublisher, VelocityLimiter velocityLimiter,
+                                  TransferMetrics transferMetrics, TransferRetryPolicy retryPolicy,
+                                  AccountService accountService, TransferService transferService,
+                                  AtomicUpdateTransferExecutor atomicUpdateTransferExecutor,
+                                  IdProperties idProperties, TransferProperties transferProperties) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.entityTemplate = entityTemplate;
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.accountCache = accountCache;
+        this.eventPublisher = eventPublisher;
+        this.velocityLimiter = velocityLimiter;
+        this.transferMetrics = transferMetrics;
+        this.retryPolicy = retryPolicy;
+        this.accountService = accountService;
+        this.transferService = transferService;
+        this.atomicUpdateTransferExecutor = atomicUpdateTransferExecutor;
+        this.idProperties = idProperties;
+        if (transferProperties.getStrategy() != TransferStrategy.ATOMIC_UPDATE) {
+            // The other strategies lock, version or journal accounts in ways the R2DBC updates would bypass
+            throw new IllegalStateException("The reactive variant only supports transfer.strategy ATOMIC_UPDATE, not "
+                    + transferProperties.getStrategy());
+        }
+        this.outboxEnabled = transferProperties.getOutbox().isEnabled();
+        TransferProperties.Retry retry = transferProperties.getRetry();
+        this.retry = Retry.backoff(Math.max(0, retry.getMaxAttempts() - 1), retry.getInitialBackoff())
+                .maxBackoff(retry.getMaxBackoff())
+                .filter(ConcurrencyFailureException.class::isInstance)
+                .onRetryExhaustedThrow((spec, signal) -> new CustomConflictException(
+                        "Transfer could not be completed due to concurrent updates, please retry."));
+    }
+
+    /**
+     * Creates a new account, with a checkpoint of its opening balance.
+     *
+     * @param accountDTO the account data transfer object containing account details
+     * @return the created account
+     */
+    public Mono<AccountDTO> createAccount(AccountDTO accountDTO) {
+        AccountRow account = new AccountRow(idProperties.styleOf("account").next(), accountDTO.balance(), Currency.GBP,
+                LocalDateTime.now(), 0, 0);
+        return entityTemplate.insert(account)
+                .flatMap(saved -> recordSnapshot(saved.id(), saved.createdAt(), saved.balance(), BalanceSnapshotKind.OPENING)
+                        .thenReturn(new AccountDTO(saved.id(), saved.balance(), saved.version())))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Retrieves one page of accounts, ordered by ID, like {@link AccountService#getAccounts}.
+     *
+     * @param cursor the cursor returned with the previous page, or null for the first page
+     * @param limit  the maximum number of accounts to return
+     * @return the page of accounts and the cursor of the next page, null if this is the last page
+     */
+    public Mono<CursorPage<AccountDTO>> getAccounts(String cursor, int limit) {
+        return Mono.defer(() -> {
+            checkLimit(limit);
+            Flux<AccountDTO> accounts;
+            if (cursor == null || cursor.isEmpty()) {
+                accounts = accountRepository.findPage(limit + 1);
+            } else {
+                UUID after;
+                try {
+                    after = UUID.fromString(cursor);
+                } catch (IllegalArgumentException e) {
+                    throw new CustomBadRequestException("Invalid cursor: " + cursor);
+                }
+                accounts = accountRepository.findPage(after, limit + 1);
+            }
+            // Read one extra row to learn whether another page follows
+            return accounts.collectList().map(page -> page.size() <= limit
+                    ? new CursorPage<>(page, null)
+                    : new CursorPage<>(List.copyOf(page.subList(0, limit)), page.get(limit - 1).id().toString()));
+        });
+    }
+
+    /**
+     * Streams every account, ordered by ID, as fast as the client reads them.
+     *
+     * @return all accounts
+     */
+    public Flux<AccountDTO> exportAccounts() {
+        return accountRepository.findAllAccounts();
+    }
+
+    /**
+     * Retrieves an account by its ID, from the {@link AccountCache} when possible.
+     * A miss reads the account without blocking, and concurrent readers of the same account share that read.
+     *
+     * @param id the UUID of the account to retrieve
+     * @return the account
+     */
+    public Mono<AccountDTO> getAccount(UUID id) {
+        // The load is shared with other readers, so one of them going away must not cancel it
+        return Mono.fromFuture(() -> accountCache.getAsync(id, accountId -> accountRepository.findAccount(accountId)
+                .switchIfEmpty(Mono.error(() -> new CustomNotFoundException("Account not found with ID: " + accountId)))
+                .toFuture()), true);
+    }
+
+    /**
+     * Overwrites the balance of an account, with a checkpoint of the new balance.
+     *
+     * @param id         the UUID of the account to update
+     * @param accountDTO the account DTO containing the new balance
+     * @return completes once the balance is set
+     */
+    public Mono<Void> updateAccount(UUID id, AccountDTO accountDTO) {
+        return accountRepository.setBalance(id, accountDTO.balance())
+                .flatMap(updated -> updated == 0
+                        ? Mono.just(updated)
+                        : recordSnapshot(id, LocalDateTime.now(), accountDTO.balance(), BalanceSnapshotKind.ADJUSTMENT)
+                        .thenReturn(updated))
+                .as(transactionalOperator::transactional)
+                .filter(updated -> updated == 0)
+                .flatMap(notUpdated -> accountRepository.findById(id)
+                        .switchIfEmpty(Mono.error(() -> new CustomNotFoundException("Account not found with ID: " + id)))
+                        // Only the JPA service maintains the balance rows of a striped account
+                        .flatMap(striped -> blocking(() -> {
+                            accountService.updateAccount(id, accountDTO);
+                            return null;
+                        })))
+                .then(Mono.fromRunnable(() -> eventPublisher.publishEvent(AccountChangedEvent.of(id))));
+    }
+
+    /**
+     * Computes the balance an account had at a point in time, with {@link AccountService#getBalance}.
+     *
+     * @param id   the UUID of the account
+     * @param asOf the point in time, not in the future
+     * @return the balance at that time
+     */
+    public Mono<AccountBalanceDTO> getBalance(UUID id, LocalDateTime asOf) {
+        return blocking(() -> accountService.getBalance(id, asOf));
+    }
+
+    /**
+     * Deletes an account by its ID.
+     *
+     * @param id the UUID of the account to delete
+     * @return completes once the account is deleted
+     */
+    public Mono<Void> deleteAccount(UUID id) {
+        return accountRepository.deleteAccount(id)
+                .flatMap(deleted -> deleted == 0
+                        ? Mono.<Void>error(new CustomNotFoundException("Account not found with ID: " + id))
+                        : Mono.<Void>fromRunnable(() -> eventPublisher.publishEvent(AccountChangedEvent.of(id))));
+    }
+
+    /**
+     * Retrieves one page of an account's transactions, newest first, like {@link AccountService#getTransactions}.
+     *
+     * @param accountId the ID of the account
+     * @param cursor    the cursor returned with the previous page, or null for the first page
+     * @param limit     the maximum number of transactions to return
+     * @return the page of transactions and the cursor of the next page, null if this is the last page
+     */
+    public Mono<CursorPage<TransactionHistoryDTO>> getTransactions(UUID accountId, String cursor, int limit) {
+        return Mono.defer(() -> {
+            checkLimit(limit);
+            LocalDateTime beforeCreatedAt = HISTORY_START;
+            UUID beforeId = MAX_UUID;
+            if (cursor != null && !cursor.isEmpty()) {
+                try {
+                    String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                    beforeCreatedAt = LocalDateTime.parse(position[0]);
+                    beforeId = UUID.fromString(position[1]);
+                } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+                    throw new CustomBadRequestException("Invalid cursor: " + cursor);
+                }
+            }
+            // The current and previous month fill most pages; older partitions are only read when they do not
+            LocalDateTime before = beforeCreatedAt;
+            UUID id = beforeId;
+            LocalDateTime now = LocalDateTime.now();
+            LocalDateTime recent = YearMonth.from(before.isBefore(now) ? before : now).minusMonths(1).atDay(1).atStartOfDay();
+            return accountRepository.existsById(accountId)
+                    .flatMap(exists -> exists
+                            ? findHistory(accountId, recent, before, id, limit + 1)
+                            : Mono.error(new CustomNotFoundException("Account not found with ID: " + accountId)))
+                    .flatMap(transactions -> transactions.size() > limit
+                            ? Mono.just(transactions)
+                            : findHistory(accountId, HISTORY_END, recent, MIN_UUID, limit + 1 - transactions.size())
+                            .map(older -> concat(transactions, older)))
+                    .map(transactions -> {
+                        if (transactions.size() <= limit) {
+                            return new CursorPage<>(transactions, null);
+                        }
+                        TransactionHistoryDTO last = transactions.get(limit - 1);
+                        String nextCursor = Base64.getUrlEncoder().withoutPadding()
+                                .encodeToString((last.createdAt() + "|" + last.id()).getBytes(StandardCharsets.UTF_8));
+                        return new CursorPage<>(List.copyOf(transactions.subList(0, limit)), nextCursor);
+                    });
+        });
+    }
+
+    /**
+     * Transfers money between two accounts, at most once per idempotency key if one is given.
+     *
+     * @param transactionDTO the transfer to apply
+     * @param idempotencyKey the client-chosen key, or null for a plain transfer
+     * @return the transfer response
+     */
+    public Mono<TransferResponse> transfer(TransactionDTO transactionDTO, String idempotencyKey) {
+        if (idempotencyKey != null) {
+            // Keys are stored by the JPA service, in the transaction of the transfer
+            return blocking(() -> transferService.transfer(transactionDTO, idempotencyKey));
+        }
+        return Mono.defer(() -> {
+            long start = transferMetrics.begin();
+            return Mono.defer(() -> transferOnce(transactionDTO))
+                    .doOnEach(signal -> {
+                        if (signal.isOnComplete() || signal.isOnError()) {
+                            transferMetrics.end(start, signal.getThrowable());
+                        }
+                    })
+                    .doOnCancel(() -> transferMetrics.end(start, new CancellationException()));
+        });
+    }
+
+    private Mono<TransferResponse> transferOnce(TransactionDTO transactionDTO) {
+        if (transactionDTO.sourceAccountId().equals(transactionDTO.targetAccountId())) {
+            throw new SameAccountException();
+        }
+        VelocityLimiter.Reservation reservation = velocityLimiter.reserve(transactionDTO.sourceAccountId(), transactionDTO.amount());
+        AtomicBoolean applied = new AtomicBoolean();
+        return apply(transactionDTO)
+                .retryWhen(retry)
+                .onErrorResume(StripedAccountException.class, ex -> blocking(
+                        () -> retryPolicy.execute(() -> atomicUpdateTransferExecutor.transfer(transactionDTO))))
+                .doOnNext(response -> applied.set(true))
+                // Also on cancellation, such as a client disconnecting before the response
+                .doFinally(signal -> {
+                    if (!applied.get()) {
+                        velocityLimiter.release(reservation);
+                    }
+                });
+    }
+
+    /**
+     * Applies the transfer in one R2DBC transaction and drops the cached accounts once it has committed.
+     */
+    private Mono<TransferResponse> apply(TransactionDTO transactionDTO) {
+        UUID sourceId = transactionDTO.sourceAccountId();
+        UUID targetId = transactionDTO.targetAccountId();
+        Mono<Void> updates = AccountLockOrder.lockFirst(sourceId, targetId)
+                ? debit(transactionDTO).then(credit(transactionDTO))
+                : credit(transactionDTO).then(debit(transactionDTO));
+        return Mono.defer(() -> {
+                    TransactionRow transaction = new TransactionRow(idProperties.styleOf("transaction").next(), sourceId,
+                            targetId, transactionDTO.amount(), Currency.GBP, LocalDateTime.now(), 0);
+                    return updates.then(entityTemplate.insert(transaction)).flatMap(this::appendToOutbox);
+                })
+                .as(transactionalOperator::transactional)
+                .then(Mono.fromCallable(() -> {
+                    eventPublisher.publishEvent(AccountChangedEvent.of(sourceId, targetId));
+                    return new TransferResponse("Transfer successful", transactionDTO.amount());
+                }));
+    }
+
+    private Mono<Void> debit(TransactionDTO transactionDTO) {
+        // Only the failure path pays for a read, to tell a missing account from a low balance or a striped account
+        return accountRepository.debitIfSufficient(transactionDTO.sourceAccountId(), transactionDTO.amount())
+                .filter(updated -> updated == 0)
+                .flatMap(notUpdated -> accountRepository.findById(transactionDTO.sourceAccountId())
+                        .switchIfEmpty(Mono.error(() -> new CustomNotFoundException("Source Account not found with ID: ")))
+                        .flatMap(account -> Mono.error(account.stripeCount() > 0
+                                ? new StripedAccountException() : new InsufficientFundsException())));
+    }
+
+    private Mono<Void> credit(TransactionDTO transactionDTO) {
+        return accountRepository.credit(transactionDTO.targetAccountId(), transactionDTO.amount())
+                .filter(updated -> updated == 0)
+                .flatMap(notUpdated -> accountRepository.findById(transactionDTO.targetAccountId())
+                        .switchIfEmpty(Mono.error(() -> new CustomNotFoundException("Target Account not found with ID: ")))
+                        .flatMap(account -> Mono.error(new StripedAccountException())));
+    }
+
+    /**
+     * Writes the events of a transaction to the outbox, like {@link TransferOutbox#append}.
+     */
+    private Mono<Void> appendToOutbox(TransactionRow transaction) {
+        if (!outboxEnabled) {
+            return Mono.empty();
+        }
+        return Flux.fromIterable(TransferCompletedEvent.legsOf(transaction.id(), transaction.sourceAccountId(),
+                        transaction.targetAccountId(), transaction.amount(), transaction.currency().name(),
+                        transaction.createdAt()))
+                .concatMap(event -> databaseClient.sql(INSERT_OUTBOX_EVENT)
+                        .bind("partitionNo", TransferOutbox.partitionOf(event.accountId()))
+                        .bind("transactionId", event.transactionId())
+                        .bind("accountId", event.accountId())
+                        .bind("counterpartyId", event.counterpartyId())
+                        .bind("amount", event.amount().toBigDecimal())
+                        .bind("currency", event.currency())
+                        .bind("createdAt", event.createdAt())
+                        .fetch()
+                        .rowsUpdated())
+                .then();
+    }
+
+    /**
+     * Writes a balance checkpoint, like {@link com.example.project.service.snapshot.BalanceSnapshots#record}.
+     */
+    private Mono<Void> recordSnapshot(UUID accountId, LocalDateTime takenAt, Money balance, BalanceSnapshotKind kind) {
+        return databaseClient.sql(INSERT_SNAPSHOT)
+                .bind("accountId", accountId)
+                .bind("takenAt", takenAt)
+                .bind("balance", balance.toBigDecimal())
+                .bind("kind", kind.name())
+                .fetch()
+                .rowsUpdated()
+                .then();
+    }
+
+    /**
+     * Merges the newest sent and received transactions of an account created in {@code [from, before)},
+     * keeping the newest {@code fetch} of them.
+     */
+    private Mono<List<TransactionHistoryDTO>> findHistory(UUID accountId, LocalDateTime from, LocalDateTime beforeCreatedAt,
+                                                          UUID beforeId, int fetch) {
+        return Flux.merge(
+                        transactionRepository.findSentBefore(accountId, from, beforeCreatedAt, beforeId, fetch),
+                        transactionRepository.findReceivedBefore(accountId, from, beforeCreatedAt, beforeId, fetch))
+                .collectSortedList(HISTORY_ORDER)
+                .map(transactions -> transactions.size() <= fetch ? transactions : transactions.subList(0, fetch));
+    }
+
+    private static List<TransactionHistoryDTO> concat(List<TransactionHistoryDTO> first, List<TransactionHistoryDTO> second) {
+        if (second.isEmpty()) {
+            return first;
+        }
+        List<TransactionHistoryDTO> all = new ArrayList<>(first);
+        all.addAll(second);
+        return all;
+    }
+
+    private static void checkLimit(int limit) {
+        if (limit < 1 || limit > AccountService.MAX_PAGE_SIZE) {
+            throw new CustomBadRequestException("Page size must be between 1 and " + AccountService.MAX_PAGE_SIZE);
+        }
+    }
+
+    /**
+     * Runs blocking work of the JPA services off the event loop.
+     */
+    static <T> Mono<T> blocking(Callable<T> work) {
+        return Mono.fromCallable(work).subscribeOn(Schedulers.boundedElastic());
+    }
+}
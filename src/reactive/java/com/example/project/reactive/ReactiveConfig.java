@@ -0,0 +1,86 @@
+package com.example.project.reactive;
+
+import com.example.project.money.Money;
+import com.zaxxer.hikari.HikariDataSource;
+import io.r2dbc.spi.ConnectionFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.data.convert.ReadingConverter;
+import org.springframework.data.convert.WritingConverter;
+import org.springframework.data.r2dbc.convert.R2dbcCustomConversions;
+import org.springframework.data.r2dbc.dialect.DialectResolver;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * R2DBC wiring of the reactive variant, which runs next to the JPA stack of the scheduled jobs.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(DataSourceProperties.class)
+public class ReactiveConfig {
+
+    /**
+     * The JDBC pool of the JPA stack, built from {@code spring.datasource.*}.
+     * Spring Boot only builds it while no R2DBC {@code ConnectionFactory} exists, so it is declared here.
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    /**
+     * Serves on Netty event loops rather than on the Tomcat that the servlet stack brings along.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    /**
+     * Stores {@link Money} in the {@code NUMERIC(38,2)} columns, as {@link com.example.project.money.MoneyConverter} does for JPA.
+     */
+    @Bean
+    public R2dbcCustomConversions r2dbcCustomConversions(ConnectionFactory connectionFactory) {
+        return R2dbcCustomConversions.of(DialectResolver.getDialect(connectionFactory),
+                List.of(new MoneyReadingConverter(), new MoneyWritingConverter()));
+    }
+
+    /**
+     * Runs reactive pipelines in R2DBC transactions.
+     * The transaction manager is deliberately not a bean: a second {@code TransactionManager} would leave the
+     * {@code @Transactional} methods of the JPA services without a default manager.
+     */
+    @Bean
+    public TransactionalOperator transactionalOperator(ConnectionFactory connectionFactory) {
+        return TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+    }
+
+    @ReadingConverter
+    static class MoneyReadingConverter implements Converter<BigDecimal, Money> {
+
+        @Override
+        public Money convert(BigDecimal amount) {
+            return Money.of(amount);
+        }
+    }
+
+    @WritingConverter
+    static class MoneyWritingConverter implements Converter<Money, BigDecimal> {
+
+        @Override
+        public BigDecimal convert(Money money) {
+            return money.toBigDecimal();
+        }
+    }
+}
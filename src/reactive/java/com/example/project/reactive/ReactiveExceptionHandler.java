@@ -0,0 +1,87 @@
+package com.example.project.reactive;
+
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.CustomConflictException;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.exception.CustomTooManyRequestsException;
+import com.example.project.exception.ExceptionResponse;
+import com.example.project.exception.GlobalExceptionHandler;
+import org.springframework.beans.TypeMismatchException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.time.LocalDateTime;
+
+/**
+ * Maps exceptions of the WebFlux controller to the same statuses and bodies as {@link GlobalExceptionHandler}.
+ * WebFlux reports an unparsable parameter or body as a {@link ServerWebInputException}, which is told apart by its cause.
+ */
+@RestControllerAdvice
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveExceptionHandler {
+
+    @ExceptionHandler(CustomNotFoundException.class)
+    public ResponseEntity<ExceptionResponse> handleNotFoundException(CustomNotFoundException ex, ServerHttpRequest request) {
+        return response(HttpStatus.NOT_FOUND, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(CustomBadRequestException.class)
+    public ResponseEntity<ExceptionResponse> handleBadRequestException(CustomBadRequestException ex, ServerHttpRequest request) {
+        return response(HttpStatus.BAD_REQUEST, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(CustomConflictException.class)
+    public ResponseEntity<ExceptionResponse> handleConflictException(CustomConflictException ex, ServerHttpRequest request) {
+        return response(HttpStatus.CONFLICT, ex.getMessage(), request);
+    }
+
+    @ExceptionHandler(CustomTooManyRequestsException.class)
+    public ResponseEntity<ExceptionResponse> handleTooManyRequestsException(CustomTooManyRequestsException ex, ServerHttpRequest request) {
+        // Whole seconds, rounded up, as Retry-After requires
+        long retryAfterSeconds = Math.max(1, (ex.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(body(ex.getMessage(), request));
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ExceptionResponse> handleWebExchangeBindException(WebExchangeBindException ex, ServerHttpRequest request) {
+        // A failed @Valid check ends up in the catch-all handler of the servlet stack too
+        return response(HttpStatus.INTERNAL_SERVER_ERROR, "An error occurred", request);
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ExceptionResponse> handleServerWebInputException(ServerWebInputException ex, ServerHttpRequest request) {
+        if (ex.getCause() instanceof TypeMismatchException mismatch) {
+            String name = ex.getMethodParameter() != null ? ex.getMethodParameter().getParameterName() : mismatch.getPropertyName();
+            return response(HttpStatus.BAD_REQUEST, "Invalid parameter: " + name + " with value: " + mismatch.getValue(), request);
+        }
+        String reason = ex.getCause() != null ? ex.getCause().getMessage() : ex.getReason();
+        return response(HttpStatus.BAD_REQUEST, "Invalid request format or value: " + reason, request);
+    }
+
+    @ExceptionHandler(RuntimeException.class)
+    public ResponseEntity<ExceptionResponse> handleRuntimeException(RuntimeException ex, ServerHttpRequest request) {
+        return response(HttpStatus.INTERNAL_SERVER_ERROR, "An unexpected error occurred", request);
+    }
+
+    @ExceptionHandler(Exception.class)
+    public ResponseEntity<ExceptionResponse> handleException(Exception ex, ServerHttpRequest request) {
+        return response(HttpStatus.INTERNAL_SERVER_ERROR, "An error occurred", request);
+    }
+
+    private static ResponseEntity<ExceptionResponse> response(HttpStatus status, String message, ServerHttpRequest request) {
+        return new ResponseEntity<>(body(message, request), status);
+    }
+
+    private static ExceptionResponse body(String message, ServerHttpRequest request) {
+        return new ExceptionResponse(LocalDateTime.now(), message, request.getPath().value());
+    }
+}
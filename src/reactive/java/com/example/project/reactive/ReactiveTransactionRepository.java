@@ -0,0 +1,39 @@
+package com.example.project.reactive;
+
+import com.example.project.dto.TransactionHistoryDTO;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.repository.query.Param;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Non-blocking counterpart of {@link com.example.project.repository.TransactionRepository}, running the same
+ * keyset seeks over R2DBC.
+ */
+public interface ReactiveTransactionRepository extends R2dbcRepository<TransactionRow, UUID> {
+
+    /**
+     * Reads the newest transactions sent by an account, older than the given position and not older than {@code from}.
+     */
+    @Query("select id, source_account_id, target_account_id, amount, currency, created_at from transaction " +
+            "where source_account_id = :accountId and created_at >= :from and created_at <= :createdAt " +
+            "and (created_at < :createdAt or id < :id) " +
+            "order by created_at desc, id desc limit :limit")
+    Flux<TransactionHistoryDTO> findSentBefore(@Param("accountId") UUID accountId, @Param("from") LocalDateTime from,
+                                               @Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id,
+                                               @Param("limit") int limit);
+
+    /**
+     * Reads the newest transactions received by an account, older than the given position and not older than {@code from}.
+     */
+    @Query("select id, source_account_id, target_account_id, amount, currency, created_at from transaction " +
+            "where target_account_id = :accountId and created_at >= :from and created_at <= :createdAt " +
+            "and (created_at < :createdAt or id < :id) " +
+            "order by created_at desc, id desc limit :limit")
+    Flux<TransactionHistoryDTO> findReceivedBefore(@Param("accountId") UUID accountId, @Param("from") LocalDateTime from,
+                                                   @Param("createdAt") LocalDateTime createdAt, @Param("id") UUID id,
+                                                   @Param("limit") int limit);
+}
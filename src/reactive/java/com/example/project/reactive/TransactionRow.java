@@ -0,0 +1,23 @@
+package com.example.project.reactive;
+
+import com.example.project.enums.Currency;
+import com.example.project.money.Money;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * A row of the {@code transaction} table, as read and written with R2DBC.
+ */
+@Table("transaction")
+public record TransactionRow(
+        @Id UUID id,
+        UUID sourceAccountId,
+        UUID targetAccountId,
+        Money amount,
+        Currency currency,
+        LocalDateTime createdAt,
+        int version
+) {}
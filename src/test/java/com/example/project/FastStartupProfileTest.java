@@ -0,0 +1,46 @@
+package com.example.project;
+
+import com.example.project.service.ledger.ShardedLedger;
+import com.example.project.service.outbox.OutboxPublisher;
+import com.example.project.service.reconciliation.LedgerReconciler;
+import com.example.project.service.snapshot.BalanceSnapshotJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Starts the application with the {@code fast-startup} profile, whose lazy initialization must not skip the
+ * background jobs. The profile leaves migrations to a separate run, so this test migrates an in-memory database.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "spring.datasource.url=jdbc:h2:mem:fast-startup;MODE=PostgreSQL",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.liquibase.enabled=true",
+        "transfer.outbox.poll-interval=PT1H",
+        "account.snapshots.interval=PT1H",
+        "transfer.strategy=SHARDED",
+        "transfer.sharded.journal-directory=target/fast-startup-journal"
+})
+@ActiveProfiles("fast-startup")
+public class FastStartupProfileTest {
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Test
+    public void testStartup_CreatesBackgroundJobsEagerly() {
+        // Assert: created during startup, not on the first lookup
+        for (Class<?> job : new Class<?>[]{OutboxPublisher.class, BalanceSnapshotJob.class, LedgerReconciler.class,
+                ShardedLedger.class}) {
+            String[] names = context.getBeanNamesForType(job, false, false);
+            assertEquals(1, names.length, job.getSimpleName());
+            assertTrue(context.getBeanFactory().containsSingleton(names[0]), job.getSimpleName() + " was not created");
+        }
+    }
+}
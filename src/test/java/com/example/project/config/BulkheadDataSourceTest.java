@@ -0,0 +1,96 @@
+package com.example.project.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BulkheadDataSourceTest {
+
+    private static final Duration ACQUIRE_TIMEOUT = Duration.ofMillis(50);
+
+    private DataSource pool;
+    private BulkheadDataSource dataSource;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        pool = mock(DataSource.class);
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        dataSource = new BulkheadDataSource(pool, 1, ACQUIRE_TIMEOUT);
+    }
+
+    @Test
+    public void testClose_ReleasesPermitOnce() throws SQLException {
+        // Arrange
+        Connection connection = dataSource.getConnection();
+
+        // Act: closed twice, as a pool wrapper and a framework both may
+        connection.close();
+        connection.close();
+
+        // Assert: only one caller gets a connection afterwards
+        Connection next = dataSource.getConnection();
+        assertThrows(SQLTransientConnectionException.class, () -> dataSource.getConnection());
+        next.close();
+        dataSource.getConnection().close();
+    }
+
+    @Test
+    public void testGetConnection_FailureReleasesPermit() throws SQLException {
+        // Arrange
+        when(pool.getConnection())
+                .thenThrow(new SQLException("connection refused"))
+                .thenThrow(new IllegalStateException("pool closed"))
+                .thenAnswer(invocation -> mock(Connection.class));
+
+        // Act & Assert: neither failure keeps the only permit
+        assertThrows(SQLException.class, () -> dataSource.getConnection());
+        assertThrows(IllegalStateException.class, () -> dataSource.getConnection());
+        Connection connection = dataSource.getConnection();
+        assertNotNull(connection);
+        connection.close();
+    }
+
+    @Test
+    public void testGetConnection_TimesOutWithoutPermit() throws SQLException {
+        // Arrange
+        Connection held = dataSource.getConnection();
+
+        // Act
+        long start = System.nanoTime();
+        SQLTransientConnectionException exception = assertThrows(SQLTransientConnectionException.class,
+                () -> dataSource.getConnection());
+        Duration waited = Duration.ofNanos(System.nanoTime() - start);
+
+        // Assert: the caller waited for the timeout, and the pool was never asked
+        assertTrue(waited.compareTo(ACQUIRE_TIMEOUT) >= 0, waited.toString());
+        assertTrue(exception.getMessage().startsWith("Timed out after"), exception.getMessage());
+        verify(pool, times(1)).getConnection();
+        held.close();
+    }
+
+    @Test
+    public void testConnection_DelegatesToPooledConnection() throws SQLException {
+        // Arrange
+        Connection pooled = mock(Connection.class);
+        when(pool.getConnection()).thenReturn(pooled);
+
+        // Act
+        Connection connection = dataSource.getConnection();
+        connection.setAutoCommit(false);
+        connection.close();
+
+        // Assert
+        verify(pooled).setAutoCommit(false);
+        verify(pooled).close();
+        assertEquals(connection, connection);
+        assertNotEquals(connection, pooled);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.project.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReplicaRoutingDataSourceTest {
+
+    private ReplicaRoutingDataSource dataSource;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void setUp() {
+        ReplicaProperties properties = new ReplicaProperties();
+        properties.setHealthCheckInterval(Duration.ofHours(1));
+        properties.setMaxLag(Duration.ofSeconds(5));
+        properties.setLagQuery("select seconds from lag");
+        dataSource = new ReplicaRoutingDataSource(database("primary", 0), List.of(
+                new ReplicaRoutingDataSource.Replica("replica-0", database("replica0", 0)),
+                new ReplicaRoutingDataSource.Replica("replica-1", database("replica1", 0))), properties);
+        dataSource.checkReplicas();
+
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @AfterEach
+    public void tearDown() throws Exception {
+        for (String name : List.of("primary", "replica0", "replica1")) {
+            new JdbcTemplate(database(name)).execute("shutdown");
+        }
+        dataSource.close();
+    }
+
+    @Test
+    public void testReadOnlyTransactions_AlternateBetweenReplicas() {
+        // Act
+        String first = readOnly.execute(status -> node());
+        String second = readOnly.execute(status -> node());
+        String written = readWrite.execute(status -> node());
+
+        // Assert
+        assertTrue(first.startsWith("replica"));
+        assertTrue(second.startsWith("replica"));
+        assertNotEquals(first, second);
+        assertEquals("primary", written);
+    }
+
+    @Test
+    public void testReadOnlyTransactions_UsePrimaryWhenReadYourWritesOrReplicasLag() {
+        // Act
+        String readYourWrites = ReadYourWrites.onPrimary(() -> readOnly.execute(status -> node()));
+        new JdbcTemplate(database("replica0")).update("update lag set seconds = 10");
+        new JdbcTemplate(database("replica1")).update("update lag set seconds = 10");
+        dataSource.checkReplicas();
+        String lagging = readOnly.execute(status -> node());
+
+        // Assert
+        assertEquals("primary", readYourWrites);
+        assertEquals("primary", lagging);
+    }
+
+    private String node() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static DataSource database(String name, int lagSeconds) {
+        DataSource database = database(name);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+        jdbcTemplate.execute("create table node (name varchar(20))");
+        jdbcTemplate.update("insert into node values (?)", name);
+        jdbcTemplate.execute("create table lag (seconds int)");
+        jdbcTemplate.update("insert into lag values (?)", lagSeconds);
+        return database;
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource database = new JdbcDataSource();
+        database.setURL("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+        return database;
+    }
+}
@@ -0,0 +1,142 @@
+package com.example.project.controller;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.entity.IdempotencyKey;
+import com.example.project.enums.TransferStrategy;
+import com.example.project.exception.GlobalExceptionHandler;
+import com.example.project.money.Money;
+import com.example.project.repository.IdempotencyKeyRepository;
+import com.example.project.service.BatchTransferService;
+import com.example.project.service.TransferService;
+import com.example.project.service.idempotency.IdempotencyStore;
+import com.example.project.service.limit.VelocityLimiter;
+import com.example.project.service.metrics.TransferMetrics;
+import com.example.project.service.transfer.TransferExecutor;
+import com.example.project.service.transfer.TransferRetryPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+public class AccountControllerTest {
+
+    @Mock
+    private TransferExecutor transferExecutor;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    public void setUp() {
+        TransferProperties transferProperties = new TransferProperties();
+        transferProperties.setStrategy(TransferStrategy.ATOMIC_UPDATE);
+        transferProperties.getBatch().setMaxSize(2);
+        when(transferExecutor.strategy()).thenReturn(TransferStrategy.ATOMIC_UPDATE);
+        when(transferExecutor.isolation()).thenCallRealMethod();
+        TransferRetryPolicy retryPolicy = new TransferRetryPolicy(transferProperties);
+        TransferService transferService = new TransferService(List.of(transferExecutor), retryPolicy, transferProperties,
+                transactionManager, new IdempotencyStore(idempotencyKeyRepository, transferProperties),
+                new TransferMetrics(new SimpleMeterRegistry(), transferProperties, retryPolicy),
+                new VelocityLimiter(transferProperties, null));
+
+        BatchTransferService batchTransferService = new BatchTransferService(null, null, null, null, transferProperties,
+                null, null, null, null);
+
+        AccountController accountController = new AccountController(null, null, transferService, batchTransferService,
+                null, null, null, null);
+        mockMvc = MockMvcBuilders.standaloneSetup(accountController)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+    }
+
+    @Test
+    public void testTransferMoney_IdempotencyKeyReusedForDifferentTransferReturnsConflict() throws Exception {
+        // Arrange
+        IdempotencyKey stored = new IdempotencyKey("key-1", "another-request", "Transfer successful", Money.parse("10.00"));
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.of(stored));
+        String request = """
+                {"sourceAccountId": "%s", "targetAccountId": "%s", "amount": "30.00"}
+                """.formatted(UUID.randomUUID(), UUID.randomUUID());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/transfer")
+                        .header("Idempotency-Key", "key-1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message").value("Idempotency-Key has already been used for a different request."));
+        verify(transferExecutor, never()).transfer(any());
+    }
+
+    @Test
+    public void testTransferMoney_MissingAmountReturnsBadRequest() throws Exception {
+        // Arrange
+        String request = """
+                {"sourceAccountId": "%s", "targetAccountId": "%s"}
+                """.formatted(UUID.randomUUID(), UUID.randomUUID());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/transfer")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid request: amount must not be null"));
+        verify(transferExecutor, never()).transfer(any());
+    }
+
+    @Test
+    public void testTransferBatch_InvalidTransferRejectsWholeBatch() throws Exception {
+        // Arrange
+        String request = """
+                [{"sourceAccountId": "%s", "targetAccountId": "%s", "amount": "30.00"},
+                 {"sourceAccountId": "%s", "amount": "30.00"}]
+                """.formatted(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID());
+
+        // Act & Assert
+        mockMvc.perform(post("/api/transfers/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid request: requests[1].targetAccountId must not be null"));
+    }
+
+    @Test
+    public void testTransferBatch_MissingOrOversizedBatchReturnsBadRequest() throws Exception {
+        // Arrange
+        String transfer = """
+                {"sourceAccountId": "%s", "targetAccountId": "%s", "amount": "1.00"}
+                """.formatted(UUID.randomUUID(), UUID.randomUUID());
+
+        // Act & Assert
+        for (String request : List.of("null", "[]", "[" + String.join(",", transfer, transfer, transfer) + "]")) {
+            mockMvc.perform(post("/api/transfers/batch")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(request))
+                    .andExpect(status().isBadRequest())
+                    .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.example.project.entity.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UuidV7Test {
+
+    @Test
+    public void testNext_IsVersion7WithClockTimestamp() {
+        long before = System.currentTimeMillis();
+
+        UUID uuid = UuidV7.next();
+
+        assertEquals(7, uuid.version());
+        assertEquals(2, uuid.variant());
+        assertTrue(UuidV7.timestampOf(uuid) >= before);
+    }
+
+    @Test
+    public void testNext_StrictlyIncreasingWithinMillisecond() {
+        // Arrange
+        UUID previous = UuidV7.next();
+
+        // Act & Assert: far more than 4096 IDs in a few milliseconds carry the counter into the timestamp
+        for (int i = 0; i < 100_000; i++) {
+            UUID current = UuidV7.next();
+            assertTrue(Long.compareUnsigned(previous.getMostSignificantBits(), current.getMostSignificantBits()) < 0,
+                    previous + " is not before " + current);
+            previous = current;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.project.money;
+
+import com.example.project.dto.TransactionDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.exc.InvalidFormatException;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MoneyTest {
+
+    @Test
+    public void testParse_ExactAmounts() {
+        assertEquals(1050, Money.parse("10.5").minorUnits());
+        assertEquals(1000, Money.parse("10").minorUnits());
+        assertEquals(-50, Money.parse("-0.50").minorUnits());
+        assertEquals(123, Money.parse("1.2300").minorUnits());
+        assertEquals(120, Money.parse("1.2E0").minorUnits());
+        assertEquals(Money.parse("10.50"), Money.of(new BigDecimal("10.500")));
+    }
+
+    @Test
+    public void testParse_RejectsFractionsOfPence() {
+        assertThrows(ArithmeticException.class, () -> Money.parse("1.234"));
+        assertThrows(ArithmeticException.class, () -> Money.of(new BigDecimal("0.001")));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1.2.3"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("-"));
+    }
+
+    @Test
+    public void testArithmetic_ThrowsOnOverflow() {
+        Money max = Money.ofMinor(Long.MAX_VALUE);
+
+        assertEquals(Money.parse("0.01"), Money.parse("10.50").minus(Money.parse("10.49")));
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofMinor(1)));
+        assertThrows(ArithmeticException.class, () -> Money.parse("99999999999999999999"));
+    }
+
+    @Test
+    public void testToString_AlwaysTwoDecimals() {
+        assertEquals("10.50", Money.parse("10.5").toString());
+        assertEquals("-0.05", Money.ofMinor(-5).toString());
+        assertEquals("-1.50", Money.ofMinor(-150).toString());
+        assertEquals(new BigDecimal("10.50"), Money.ofMinor(1050).toBigDecimal());
+    }
+
+    @Test
+    public void testJson_RoundTripsAsNumber() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+
+        TransactionDTO transaction = objectMapper.readValue("{\"amount\": 10.5}", TransactionDTO.class);
+
+        assertEquals(Money.parse("10.50"), transaction.amount());
+        assertEquals("10.50", objectMapper.writeValueAsString(transaction.amount()));
+        assertThrows(InvalidFormatException.class,
+                () -> objectMapper.readValue("{\"amount\": 1.234}", TransactionDTO.class));
+    }
+}
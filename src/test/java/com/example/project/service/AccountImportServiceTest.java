@@ -0,0 +1,241 @@
+package com.example.project.service;
+
+import com.example.project.config.AccountImportProperties;
+import com.example.project.config.IdProperties;
+import com.example.project.dto.AccountImportRejection;
+import com.example.project.dto.AccountImportResponse;
+import com.example.project.enums.AccountImportFormat;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.CustomConflictException;
+import com.example.project.money.Money;
+import com.example.project.service.snapshot.BalanceSnapshots;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+public class AccountImportServiceTest {
+
+    private static final String UPLOAD = """
+            reference,balance
+            a,10.00
+            b,20.00
+            c,30.00
+            d,40.00
+            e,50.00
+            """;
+
+    private JdbcTemplate jdbcTemplate;
+    private BalanceSnapshots balanceSnapshots;
+    private AccountImportProperties properties;
+    private AccountImportService accountImportService;
+
+    @BeforeEach
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:account-import;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table account (id uuid primary key, balance numeric(38,2) not null, " +
+                "currency varchar(3) not null, created_at timestamp not null, version bigint, stripe_count int)");
+        jdbcTemplate.execute("create table account_import (id varchar(255) primary key, started_at timestamp not null, " +
+                "updated_at timestamp not null, finished_at timestamp, committed_line bigint default 0 not null, " +
+                "imported bigint default 0 not null, rejected bigint default 0 not null)");
+        jdbcTemplate.execute("create table account_import_rejection (import_id varchar(255), line bigint, " +
+                "message varchar(1000) not null, primary key (import_id, line))");
+
+        balanceSnapshots = mock(BalanceSnapshots.class);
+        properties = new AccountImportProperties();
+        properties.setChunkSize(2);
+        properties.setParallelism(1);
+        accountImportService = new AccountImportService(jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), balanceSnapshots,
+                new ObjectMapper(), properties, new IdProperties());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        accountImportService.shutdown();
+        jdbcTemplate.execute("shutdown");
+    }
+
+    @Test
+    public void testBalanceColumn_FoundByName() {
+        assertEquals(0, AccountImportService.balanceColumn("balance"));
+        assertEquals(1, AccountImportService.balanceColumn("\uFEFFreference, \"Balance\",name"));
+        assertEquals(2, AccountImportService.balanceColumn("\"reference, external\",name,balance"));
+        assertEquals(-1, AccountImportService.balanceColumn("reference,amount"));
+    }
+
+    @Test
+    public void testParseCsv_ExactBalances() {
+        assertEquals(Money.parse("10.50"), AccountImportService.parseCsv("partner-1,10.5,Alice", 1));
+        assertEquals(Money.parse("3"), AccountImportService.parseCsv("\"3.00\"", 0));
+        assertEquals(Money.parse("7.25"), AccountImportService.parseCsv("\"Smith, Alice\",7.25", 1));
+        assertEquals(Money.parse("7.25"), AccountImportService.parseCsv("\"The \"\"Smith, Alice\"\" trust\" , \"7.25\"", 1));
+    }
+
+    @Test
+    public void testParseCsv_RejectsInvalidBalances() {
+        assertThrows(IllegalArgumentException.class, () -> AccountImportService.parseCsv("partner-1,", 1));
+        assertThrows(IllegalArgumentException.class, () -> AccountImportService.parseCsv("partner-1", 1));
+        assertThrows(IllegalArgumentException.class, () -> AccountImportService.parseCsv("partner-1,ten", 1));
+        assertThrows(IllegalArgumentException.class, () -> AccountImportService.parseCsv("partner-1,1.234", 1));
+        assertThrows(IllegalArgumentException.class, () -> AccountImportService.parseCsv("99999999999999999999", 0));
+        assertThrows(IllegalArgumentException.class, () -> AccountImportService.parseCsv("\"1,000.00\"", 0));
+    }
+
+    @Test
+    public void testCsvFields_QuotedFields() {
+        assertEquals(List.of("a", "", "b"), AccountImportService.csvFields("a,,b"));
+        assertEquals(List.of("a,b", "c\"d", ""), AccountImportService.csvFields("\"a,b\",\"c\"\"d\","));
+        assertEquals(List.of(""), AccountImportService.csvFields(""));
+        assertThrows(IllegalArgumentException.class, () -> AccountImportService.csvFields("a,\"b,c"));
+        assertThrows(IllegalArgumentException.class, () -> AccountImportService.csvFields("\"a\"b,c"));
+    }
+
+    @Test
+    public void testFormatOf_ContentTypes() {
+        assertEquals(AccountImportFormat.CSV, AccountImportService.formatOf("text/csv; charset=UTF-8"));
+        assertEquals(AccountImportFormat.NDJSON, AccountImportService.formatOf("application/x-ndjson"));
+        assertThrows(CustomBadRequestException.class, () -> AccountImportService.formatOf("application/json"));
+        assertThrows(CustomBadRequestException.class, () -> AccountImportService.formatOf(null));
+    }
+
+    @Test
+    public void testImportAccounts_CommitsEachChunkSeparately() {
+        // Arrange: the opening checkpoints of the second chunk fail
+        doNothing().doThrow(new IllegalStateException("connection reset"))
+                .when(balanceSnapshots).recordAll(anyList(), any(), anyList(), any());
+
+        // Act
+        assertThrows(IllegalStateException.class, () -> importCsv("import-1", UPLOAD));
+
+        // Assert: the first chunk stays committed, and nothing of the failed one
+        assertEquals(List.of(new BigDecimal("10.00"), new BigDecimal("20.00")), balances());
+        Map<String, Object> row = importRow("import-1");
+        assertEquals(3L, ((Number) row.get("committed_line")).longValue());
+        assertEquals(2L, ((Number) row.get("imported")).longValue());
+        assertNull(row.get("finished_at"));
+        verify(balanceSnapshots, times(2)).recordAll(anyList(), any(), anyList(), any());
+    }
+
+    @Test
+    public void testImportAccounts_ResumesAfterPartialImport() {
+        // Arrange: the first attempt loses the connection after line 5, with the chunk of lines 2 and 3 committed
+        byte[] upload = UPLOAD.getBytes(StandardCharsets.UTF_8);
+        int cut = UPLOAD.indexOf("d,40.00\n") + "d,40.00\n".length();
+        assertThrows(UncheckedIOException.class,
+                () -> accountImportService.importAccounts("import-1", AccountImportFormat.CSV, failingAfter(upload, cut)));
+        assertEquals(3L, ((Number) importRow("import-1").get("committed_line")).longValue());
+
+        // Act
+        AccountImportResponse response = importCsv("import-1", UPLOAD);
+
+        // Assert: the committed lines are skipped, and every account is created exactly once
+        assertEquals(new AccountImportResponse("import-1", 3, 6, 5, 0, List.of()), response);
+        assertEquals(List.of(new BigDecimal("10.00"), new BigDecimal("20.00"), new BigDecimal("30.00"),
+                new BigDecimal("40.00"), new BigDecimal("50.00")), balances());
+        assertNotNull(importRow("import-1").get("finished_at"));
+    }
+
+    @Test
+    public void testImportAccounts_FinishedImportIsNotWrittenAgain() {
+        // Arrange
+        String upload = """
+                reference,balance
+                a,10.00
+                b,20.00
+                """;
+        importCsv("import-1", upload);
+
+        // Act & Assert: the same upload reports the finished import, a longer one is a conflict
+        assertEquals(new AccountImportResponse("import-1", 3, 3, 2, 0, List.of()), importCsv("import-1", upload));
+        assertThrows(CustomConflictException.class, () -> importCsv("import-1", UPLOAD));
+        assertEquals(2, balances().size());
+        assertEquals(3L, ((Number) importRow("import-1").get("committed_line")).longValue());
+    }
+
+    @Test
+    public void testImportAccounts_KeepsRejectedLines() {
+        // Arrange
+        properties.setMaxReportedRejections(2);
+        String upload = """
+                name,balance
+                "Smith, Alice",10.00
+                Bob,ten
+
+                "Jones, Carol,20.00
+                Dave,1.234
+                """;
+
+        // Act
+        AccountImportResponse response = importCsv("import-1", upload);
+
+        // Assert: every rejection is kept, the first ones are reported, and the valid lines are imported
+        List<AccountImportRejection> rejections = jdbcTemplate.query(
+                "select line, message from account_import_rejection where import_id = ? order by line",
+                (rs, rowNum) -> new AccountImportRejection(rs.getLong("line"), rs.getString("message")), "import-1");
+        assertEquals(List.of(3L, 5L, 6L), rejections.stream().map(AccountImportRejection::line).toList());
+        assertTrue(rejections.get(1).message().startsWith("Unclosed quoted field"), rejections.get(1).message());
+        assertEquals(1, response.imported());
+        assertEquals(3, response.rejected());
+        assertEquals(rejections.subList(0, 2), response.rejections());
+        assertEquals(List.of(new BigDecimal("10.00")), balances());
+    }
+
+    @Test
+    public void testImportAccounts_RejectsInvalidHeader() {
+        assertThrows(CustomBadRequestException.class, () -> importCsv("import-1", "reference,amount\na,10.00\n"));
+        assertThrows(CustomBadRequestException.class, () -> importCsv("import-2", "\"reference,balance\na,10.00\n"));
+        assertTrue(balances().isEmpty());
+        assertEquals(0L, ((Number) importRow("import-1").get("committed_line")).longValue());
+    }
+
+    private AccountImportResponse importCsv(String importId, String upload) {
+        return accountImportService.importAccounts(importId, AccountImportFormat.CSV,
+                new ByteArrayInputStream(upload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private List<BigDecimal> balances() {
+        return jdbcTemplate.queryForList("select balance from account order by balance", BigDecimal.class);
+    }
+
+    private Map<String, Object> importRow(String importId) {
+        return jdbcTemplate.queryForMap("select * from account_import where id = ?", importId);
+    }
+
+    /**
+     * An upload whose connection drops after the first {@code length} bytes.
+     */
+    private static InputStream failingAfter(byte[] upload, int length) {
+        return new FilterInputStream(new ByteArrayInputStream(upload, 0, length)) {
+            @Override
+            public int read(byte[] bytes, int offset, int count) throws IOException {
+                int read = super.read(bytes, offset, count);
+                if (read < 0) {
+                    throw new IOException("connection reset");
+                }
+                return read;
+            }
+        };
+    }
+}
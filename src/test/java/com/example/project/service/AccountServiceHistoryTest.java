@@ -0,0 +1,157 @@
+package com.example.project.service;
+
+import com.example.project.controller.AccountController;
+import com.example.project.dto.CursorPage;
+import com.example.project.dto.TransactionHistoryDTO;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.exception.GlobalExceptionHandler;
+import com.example.project.money.Money;
+import com.example.project.repository.AccountRepository;
+import com.example.project.repository.TransactionRepository;
+import com.example.project.service.transfer.TransferExecutorSlice;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pages through the transaction history of accounts in the migrated schema, where the keyset queries run as written.
+ */
+@TransferExecutorSlice
+public class AccountServiceHistoryTest {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private AccountService accountService;
+    private MockMvc mockMvc;
+    private UUID account;
+    private UUID other;
+
+    @BeforeEach
+    public void setUp() {
+        accountService = new AccountService(accountRepository, transactionRepository, null, null, null, null,
+                null, null, transactionManager, null, null, null);
+        mockMvc = MockMvcBuilders.standaloneSetup(new AccountController(accountService, null, null, null, null,
+                        null, null, null))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        account = createAccount();
+        other = createAccount();
+    }
+
+    @Test
+    public void testGetTransactions_PagesAcrossMonthBoundary() {
+        // Arrange: the newest transactions are read from the current and previous month, the rest from older history
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime previousMonth = YearMonth.from(now).minusMonths(1).atDay(1).atStartOfDay();
+        List<UUID> expected = List.of(
+                transaction(other, account, "1.00", now.minusSeconds(1)),
+                transaction(account, other, "2.00", now.minusSeconds(2)),
+                transaction(account, other, "3.00", previousMonth.plusHours(1)),
+                transaction(other, account, "4.00", previousMonth.minusHours(1)),
+                transaction(account, other, "5.00", previousMonth.minusDays(40)));
+        transaction(other, createAccount(), "6.00", now.minusSeconds(3));
+
+        // Act: follow the cursors until the last page
+        List<CursorPage<TransactionHistoryDTO>> pages = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<TransactionHistoryDTO> page = accountService.getTransactions(account, cursor, 2);
+            pages.add(page);
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        // Assert: newest first, the second page joining both reads, and no cursor after the last page
+        assertEquals(List.of(2, 2, 1), pages.stream().map(page -> page.items().size()).toList());
+        assertEquals(expected, pages.stream().flatMap(page -> page.items().stream()).map(TransactionHistoryDTO::id).toList());
+        assertEquals(expected, accountService.getTransactions(account, null, 10).items().stream()
+                .map(TransactionHistoryDTO::id).toList());
+    }
+
+    @Test
+    public void testGetTransactions_IncludesSentAndReceived() {
+        // Arrange: one transaction each way at the same time
+        LocalDateTime createdAt = LocalDateTime.now().minusMinutes(1);
+        UUID received = transaction(other, account, "10.00", createdAt);
+        UUID sent = transaction(account, other, "4.00", createdAt);
+
+        // Act
+        List<TransactionHistoryDTO> items = accountService.getTransactions(account, null, 10).items();
+
+        // Assert
+        assertEquals(2, items.size());
+        TransactionHistoryDTO receivedItem = items.stream().filter(t -> t.id().equals(received)).findFirst().orElseThrow();
+        assertEquals(other, receivedItem.sourceAccountId());
+        assertEquals(account, receivedItem.targetAccountId());
+        assertEquals(Money.parse("10.00"), receivedItem.amount());
+        TransactionHistoryDTO sentItem = items.stream().filter(t -> t.id().equals(sent)).findFirst().orElseThrow();
+        assertEquals(account, sentItem.sourceAccountId());
+        assertEquals(Money.parse("4.00"), sentItem.amount());
+        assertEquals(1, accountService.getTransactions(other, null, 1).items().size());
+    }
+
+    @Test
+    public void testGetTransactions_InvalidCursorIsBadRequest() throws Exception {
+        // Arrange: not Base64, and Base64 of something other than a position
+        String garbled = Base64.getUrlEncoder().encodeToString("2024-01-01T00:00".getBytes(StandardCharsets.UTF_8));
+
+        // Act & Assert
+        assertThrows(CustomBadRequestException.class, () -> accountService.getTransactions(account, "not base64!", 10));
+        assertThrows(CustomBadRequestException.class, () -> accountService.getTransactions(account, garbled, 10));
+        mockMvc.perform(get("/api/accounts/{id}/transactions", account).param("cursor", garbled))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor: " + garbled));
+    }
+
+    @Test
+    public void testGetTransactions_UnknownAccountIsNotFound() throws Exception {
+        UUID unknown = UUID.randomUUID();
+        assertThrows(CustomNotFoundException.class, () -> accountService.getTransactions(unknown, null, 10));
+        mockMvc.perform(get("/api/accounts/{id}/transactions", unknown))
+                .andExpect(status().isNotFound());
+    }
+
+    private UUID createAccount() {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("insert into account (id, balance, currency, created_at, version, stripe_count) " +
+                "values (?, 0, 'GBP', ?, 0, 0)", id, Timestamp.valueOf(LocalDateTime.now()));
+        return id;
+    }
+
+    private UUID transaction(UUID source, UUID target, String amount, LocalDateTime createdAt) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("insert into transaction (id, source_account_id, target_account_id, amount, currency, " +
+                "created_at, version) values (?, ?, ?, ?, 'GBP', ?, 0)", id, source, target, new BigDecimal(amount),
+                Timestamp.valueOf(createdAt));
+        return id;
+    }
+}
@@ -0,0 +1,175 @@
+package com.example.project.service;
+
+import com.example.project.controller.AccountController;
+import com.example.project.dto.AccountDTO;
+import com.example.project.dto.CursorPage;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.GlobalExceptionHandler;
+import com.example.project.money.Money;
+import com.example.project.repository.AccountQueryRepository;
+import com.example.project.service.transfer.AccountLockOrder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pages through and exports the accounts of an in-memory database, where the keyset queries run as written.
+ */
+public class AccountServicePagingTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private AccountService accountService;
+    private MockMvc mockMvc;
+    private List<UUID> ids;
+
+    @BeforeEach
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:account-paging;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table account (id uuid primary key, balance numeric(38,2) not null, " +
+                "version int default 0 not null, stripe_count int default 0 not null)");
+        jdbcTemplate.execute("create table account_balance_stripe (account_id uuid, stripe int, " +
+                "balance numeric(38,2) default 0 not null, primary key (account_id, stripe))");
+
+        accountService = new AccountService(null, null, null, null, null, new AccountQueryRepository(jdbcTemplate),
+                null, null, mock(PlatformTransactionManager.class), null, null, null);
+        mockMvc = MockMvcBuilders.standaloneSetup(new AccountController(accountService, null, null, null, null,
+                        new ObjectMapper(), null, null))
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+
+        // IDs on both sides of the sign bit, which the database orders differently from UUID.compareTo
+        ids = Stream.of(new UUID(0x1000L, 1), new UUID(0x8000000000000000L, 1), new UUID(-1L, 1),
+                        new UUID(0x7000L, 2), new UUID(0x9000000000000000L, 2))
+                .sorted(AccountLockOrder.COMPARATOR)
+                .toList();
+        for (int i = 0; i < ids.size(); i++) {
+            jdbcTemplate.update("insert into account (id, balance) values (?, ?)", ids.get(i), new BigDecimal(10 * (i + 1)));
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("shutdown");
+    }
+
+    @Test
+    public void testGetAccounts_FirstPageEndsWithCursor() {
+        // Act
+        CursorPage<AccountDTO> page = accountService.getAccounts(null, 2);
+
+        // Assert
+        assertEquals(ids.subList(0, 2), idsOf(page));
+        assertEquals(ids.get(1).toString(), page.nextCursor());
+        assertEquals(Money.parse("10.00"), page.items().get(0).balance());
+    }
+
+    @Test
+    public void testGetAccounts_PagesThroughAllAccounts() {
+        // Act: follow the cursors until the last page
+        List<CursorPage<AccountDTO>> pages = new ArrayList<>();
+        String cursor = "";
+        do {
+            CursorPage<AccountDTO> page = accountService.getAccounts(cursor, 2);
+            pages.add(page);
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        // Assert: every account once, in ID order, and no cursor after the last page
+        assertEquals(3, pages.size());
+        assertEquals(ids, pages.stream().flatMap(page -> idsOf(page).stream()).toList());
+        assertEquals(List.of(ids.get(4)), idsOf(pages.get(2)));
+    }
+
+    @Test
+    public void testGetAccounts_FullLastPageHasNoCursor() {
+        // Act
+        CursorPage<AccountDTO> page = accountService.getAccounts(ids.get(0).toString(), 4);
+
+        // Assert: the extra row read tells a full last page from one with more accounts after it
+        assertEquals(ids.subList(1, 5), idsOf(page));
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    public void testGetAccounts_PageSizeWithinBounds() {
+        // Act & Assert
+        assertEquals(1, accountService.getAccounts(null, 1).items().size());
+        assertEquals(ids, idsOf(accountService.getAccounts(null, AccountService.MAX_PAGE_SIZE)));
+        assertThrows(CustomBadRequestException.class, () -> accountService.getAccounts(null, 0));
+        assertThrows(CustomBadRequestException.class, () -> accountService.getAccounts(null, AccountService.MAX_PAGE_SIZE + 1));
+    }
+
+    @Test
+    public void testGetAccounts_MalformedCursorIsBadRequest() throws Exception {
+        mockMvc.perform(get("/api/accounts").param("cursor", "not-a-uuid"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Invalid cursor: not-a-uuid"));
+        mockMvc.perform(get("/api/accounts").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void testExportAccounts_StreamsAllAccountsInOrder() {
+        // Arrange: a striped account is exported with the sum of its stripes
+        jdbcTemplate.update("update account set stripe_count = 2, balance = 0 where id = ?", ids.get(2));
+        jdbcTemplate.update("insert into account_balance_stripe (account_id, stripe, balance) values (?, 0, 12.50), (?, 1, 7.50)",
+                ids.get(2), ids.get(2));
+
+        // Act
+        List<AccountDTO> exported = new ArrayList<>();
+        accountService.exportAccounts(exported::add);
+
+        // Assert
+        assertEquals(ids, exported.stream().map(AccountDTO::id).toList());
+        assertEquals(Money.parse("20.00"), exported.get(2).balance());
+        assertEquals(Money.parse("50.00"), exported.get(4).balance());
+    }
+
+    @Test
+    public void testExportAccounts_WritesOneJsonLinePerAccount() throws Exception {
+        // Act
+        MvcResult started = mockMvc.perform(get("/api/accounts/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString();
+
+        // Assert
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<UUID> exported = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            exported.add(objectMapper.readValue(line, AccountDTO.class).id());
+        }
+        assertEquals(ids, exported);
+    }
+
+    private static List<UUID> idsOf(CursorPage<AccountDTO> page) {
+        return page.items().stream().map(AccountDTO::id).toList();
+    }
+}
@@ -1,27 +1,35 @@
 package com.example.project.service;
 
+import com.example.project.dto.AccountDTO;
 import com.example.project.dto.TransactionDTO;
 import com.example.project.dto.TransferResponse;
 import com.example.project.entity.Account;
 import com.example.project.entity.Transaction;
+import com.example.project.enums.BalanceSnapshotKind;
 import com.example.project.exception.CustomBadRequestException;
 import com.example.project.exception.CustomNotFoundException;
 import com.example.project.mapper.TransactionMapper;
+import com.example.project.money.Money;
 import com.example.project.repository.AccountRepository;
 import com.example.project.repository.TransactionRepository;
+import com.example.project.service.cache.AccountChangedEvent;
+import com.example.project.service.metrics.TransferMetrics;
+import com.example.project.service.outbox.TransferOutbox;
+import com.example.project.service.snapshot.BalanceSnapshots;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
-import java.math.BigDecimal;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,6 +44,18 @@ public class AccountServiceTest {
     @Mock
     private TransactionMapper transactionMapper;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransferMetrics transferMetrics;
+
+    @Mock
+    private TransferOutbox transferOutbox;
+
+    @Mock
+    private BalanceSnapshots balanceSnapshots;
+
     @InjectMocks
     private AccountService accountService;
 
@@ -55,20 +75,20 @@ public class AccountServiceTest {
         // Arrange
         Account sourceAccount = new Account();
         sourceAccount.setId(sourceAccountId);
-        sourceAccount.setBalance(new BigDecimal("100.00"));
+        sourceAccount.setBalance(Money.parse("100.00"));
 
         Account targetAccount = new Account();
         targetAccount.setId(targetAccountId);
-        targetAccount.setBalance(new BigDecimal("50.00"));
+        targetAccount.setBalance(Money.parse("50.00"));
 
-        TransactionDTO transactionDTO = new TransactionDTO(sourceAccountId, targetAccountId, new BigDecimal("30.00"), null, 0);
+        TransactionDTO transactionDTO = new TransactionDTO(sourceAccountId, targetAccountId, Money.parse("30.00"), null, 0);
 
         when(accountRepository.findById(sourceAccountId)).thenReturn(Optional.of(sourceAccount));
         when(accountRepository.findById(targetAccountId)).thenReturn(Optional.of(targetAccount));
 
         Transaction transaction = new Transaction();
         transaction.setId(transactionId); // Assuming transaction has an ID
-        transaction.setAmount(new BigDecimal("30.00"));
+        transaction.setAmount(Money.parse("30.00"));
 
         when(transactionMapper.toEntity(any(TransactionDTO.class))).thenReturn(transaction);
         when(transactionRepository.save(any(Transaction.class))).thenReturn(transaction);
@@ -82,10 +102,11 @@ public class AccountServiceTest {
         verify(accountRepository, times(1)).save(sourceAccount);
         verify(accountRepository, times(1)).save(targetAccount);
         verify(transactionRepository, times(1)).save(any(Transaction.class));
+        verify(eventPublisher, times(1)).publishEvent(AccountChangedEvent.of(sourceAccountId, targetAccountId));
 
         // Check balances are updated correctly
-        assertEquals(new BigDecimal("70.00"), sourceAccount.getBalance());
-        assertEquals(new BigDecimal("80.00"), targetAccount.getBalance());
+        assertEquals(Money.parse("70.00"), sourceAccount.getBalance());
+        assertEquals(Money.parse("80.00"), targetAccount.getBalance());
 
         // Check the response
         assertEquals("Transfer successful", result.status());
@@ -97,13 +118,13 @@ public class AccountServiceTest {
         // Arrange
         Account sourceAccount = new Account();
         sourceAccount.setId(sourceAccountId);
-        sourceAccount.setBalance(new BigDecimal("20.00"));
+        sourceAccount.setBalance(Money.parse("20.00"));
 
         Account targetAccount = new Account();
         targetAccount.setId(targetAccountId);
-        targetAccount.setBalance(new BigDecimal("50.00"));
+        targetAccount.setBalance(Money.parse("50.00"));
 
-        TransactionDTO transactionDTO = new TransactionDTO(sourceAccountId, targetAccountId, new BigDecimal("30.00"), null, 0);
+        TransactionDTO transactionDTO = new TransactionDTO(sourceAccountId, targetAccountId, Money.parse("30.00"), null, 0);
 
         when(accountRepository.findById(sourceAccountId)).thenReturn(Optional.of(sourceAccount));
         when(accountRepository.findById(targetAccountId)).thenReturn(Optional.of(targetAccount));
@@ -123,7 +144,7 @@ public class AccountServiceTest {
     @Test
     public void testTransferMoney_SourceAccountNotFound() {
         // Arrange
-        TransactionDTO transactionDTO = new TransactionDTO(sourceAccountId, targetAccountId, new BigDecimal("30.00"), null, 0);
+        TransactionDTO transactionDTO = new TransactionDTO(sourceAccountId, targetAccountId, Money.parse("30.00"), null, 0);
 
         when(accountRepository.findById(sourceAccountId)).thenReturn(Optional.empty());
 
@@ -146,9 +167,9 @@ public class AccountServiceTest {
         // Arrange
         Account sourceAccount = new Account();
         sourceAccount.setId(sourceAccountId);
-        sourceAccount.setBalance(new BigDecimal("100.00"));
+        sourceAccount.setBalance(Money.parse("100.00"));
 
-        TransactionDTO transactionDTO = new TransactionDTO(sourceAccountId, targetAccountId, new BigDecimal("30.00"), null, 0);
+        TransactionDTO transactionDTO = new TransactionDTO(sourceAccountId, targetAccountId, Money.parse("30.00"), null, 0);
 
         when(accountRepository.findById(sourceAccountId)).thenReturn(Optional.of(sourceAccount));
         when(accountRepository.findById(targetAccountId)).thenReturn(Optional.empty());
@@ -170,7 +191,7 @@ public class AccountServiceTest {
     @Test
     public void testTransferMoney_SameSourceAndTargetAccount() {
         // Arrange
-        TransactionDTO transactionDTO = new TransactionDTO(sourceAccountId, sourceAccountId, new BigDecimal("30.00"), null, 0);
+        TransactionDTO transactionDTO = new TransactionDTO(sourceAccountId, sourceAccountId, Money.parse("30.00"), null, 0);
 
         // Act & Assert
         CustomBadRequestException exception = assertThrows(CustomBadRequestException.class, () ->
@@ -184,4 +205,22 @@ public class AccountServiceTest {
         verify(accountRepository, never()).save(any(Account.class));
         verify(transactionRepository, never()).save(any(Transaction.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testUpdateAccount_RecordsAdjustmentCheckpoint() {
+        // Arrange
+        Account account = new Account();
+        account.setId(sourceAccountId);
+        account.setBalance(Money.parse("100.00"));
+
+        when(accountRepository.findById(sourceAccountId)).thenReturn(Optional.of(account));
+
+        // Act
+        accountService.updateAccount(sourceAccountId, new AccountDTO(sourceAccountId, Money.parse("75.00"), 0));
+
+        // Assert the overwritten balance is checkpointed, since no transaction explains it
+        assertEquals(Money.parse("75.00"), account.getBalance());
+        verify(balanceSnapshots, times(1)).record(eq(sourceAccountId), any(), eq(Money.parse("75.00")),
+                eq(BalanceSnapshotKind.ADJUSTMENT));
+    }
+}
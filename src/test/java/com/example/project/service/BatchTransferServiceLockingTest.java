@@ -0,0 +1,129 @@
+package com.example.project.service;
+
+import com.example.project.dto.BatchTransferResponse;
+import com.example.project.dto.BatchTransferResult;
+import com.example.project.dto.TransactionDTO;
+import com.example.project.enums.BatchTransferStatus;
+import com.example.project.money.Money;
+import com.example.project.repository.AccountBalanceStripeRepository;
+import com.example.project.service.transfer.TransferExecutorSlice;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs batch transfers against the database, where the rows they lock can be observed,
+ * with the transfer settings of {@code application.yml}.
+ */
+@TransferExecutorSlice
+public class BatchTransferServiceLockingTest {
+
+    @Autowired
+    private BatchTransferService batchTransferService;
+
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @Autowired
+    private AccountBalanceStripeRepository stripeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    public void testTransferBatch_StripedAccountRowIsNotLocked() throws Exception {
+        // Arrange: another transaction holds the row of a striped account, as every chunk crediting it used to
+        UUID striped = account("0.00");
+        UUID first = account("100.00");
+        UUID second = account("100.00");
+        stripedBalanceService.stripeAccount(striped, 4);
+
+        try (Connection other = dataSource.getConnection()) {
+            other.setAutoCommit(false);
+            try (PreparedStatement lock = other.prepareStatement("select id from account where id = ? for update")) {
+                lock.setObject(1, striped);
+                lock.executeQuery().close();
+            }
+
+            // Act: a batch and a group of transfers, as committed together by GROUP_COMMIT, credit it regardless
+            BatchTransferResponse batch = batchTransferService.transferBatch(List.of(
+                    transfer(first, striped, "10.00"), transfer(second, striped, "20.00")));
+            BatchTransferResult[] group = batchTransferService.applyTogether(List.of(
+                    transfer(first, striped, "1.00"), transfer(second, striped, "2.00")));
+            other.rollback();
+
+            // Assert
+            assertEquals(2, batch.applied());
+            assertTrue(Arrays.stream(group).allMatch(result -> result.status() == BatchTransferStatus.APPLIED));
+        }
+        assertEquals(0, new BigDecimal("33.00").compareTo(stripeRepository.sumBalance(striped)));
+        assertEquals(new BigDecimal("89.00"), balance(first));
+        assertEquals(new BigDecimal("78.00"), balance(second));
+    }
+
+    @Test
+    public void testTransferBatch_StripedDebitIsCheckedAgainstItsStripes() {
+        // Arrange
+        UUID striped = account("50.00");
+        UUID plain = account("0.00");
+        stripedBalanceService.stripeAccount(striped, 2);
+
+        // Act
+        BatchTransferResponse response = batchTransferService.transferBatch(List.of(
+                transfer(striped, plain, "30.00"), transfer(striped, plain, "30.00")));
+
+        // Assert: the second debit would overdraw the account
+        assertEquals(BatchTransferStatus.APPLIED, response.results().get(0).status());
+        assertEquals(BatchTransferStatus.INSUFFICIENT_FUNDS, response.results().get(1).status());
+        assertEquals(0, new BigDecimal("20.00").compareTo(stripeRepository.sumBalance(striped)));
+        assertEquals(new BigDecimal("30.00"), balance(plain));
+    }
+
+    @Test
+    public void testTransferBatch_DefaultConfigDoesNotThrottleBatch() {
+        // Arrange: a payroll batch paying 70 employees from one account
+        UUID employer = account("10000.00");
+        List<UUID> employees = IntStream.range(0, 70).mapToObj(i -> account("0.00")).toList();
+
+        // Act
+        BatchTransferResponse response = batchTransferService.transferBatch(employees.stream()
+                .map(employee -> transfer(employer, employee, "100.00"))
+                .toList());
+
+        // Assert: velocity limits are off unless configured, so every item is applied
+        assertEquals(70, response.applied());
+        assertEquals(0, response.rejected());
+        assertEquals(new BigDecimal("3000.00"), balance(employer));
+    }
+
+    private UUID account(String balance) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("insert into account (id, balance, currency, created_at, version, stripe_count) " +
+                "values (?, ?, 'GBP', ?, 0, 0)", id, new BigDecimal(balance), Timestamp.valueOf(LocalDateTime.now()));
+        return id;
+    }
+
+    private BigDecimal balance(UUID id) {
+        return jdbcTemplate.queryForObject("select balance from account where id = ?", BigDecimal.class, id);
+    }
+
+    private static TransactionDTO transfer(UUID source, UUID target, String amount) {
+        return new TransactionDTO(source, target, Money.parse(amount), null, 0);
+    }
+}
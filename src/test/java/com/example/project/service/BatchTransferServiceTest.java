@@ -0,0 +1,150 @@
+package com.example.project.service;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.dto.BatchTransferResponse;
+import com.example.project.dto.TransactionDTO;
+import com.example.project.entity.Account;
+import com.example.project.entity.Transaction;
+import com.example.project.enums.BatchTransferStatus;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.mapper.TransactionMapper;
+import com.example.project.money.Money;
+import com.example.project.repository.AccountRepository;
+import com.example.project.repository.TransactionRepository;
+import com.example.project.service.limit.VelocityLimiter;
+import com.example.project.service.outbox.TransferOutbox;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class BatchTransferServiceTest {
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private TransactionMapper transactionMapper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private StripedBalanceService stripedBalanceService;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private TransferOutbox transferOutbox;
+
+    private TransferProperties transferProperties;
+    private BatchTransferService batchTransferService;
+
+    private Account sourceAccount;
+    private Account targetAccount;
+
+    @BeforeEach
+    public void setUp() {
+        transferProperties = new TransferProperties();
+        batchTransferService = new BatchTransferService(accountRepository, transactionRepository, transactionMapper,
+                new TransactionTemplate(transactionManager), transferProperties, stripedBalanceService, eventPublisher,
+                transferOutbox, new VelocityLimiter(transferProperties, null));
+
+        sourceAccount = new Account();
+        sourceAccount.setId(UUID.randomUUID());
+        sourceAccount.setBalance(Money.parse("100.00"));
+
+        targetAccount = new Account();
+        targetAccount.setId(UUID.randomUUID());
+        targetAccount.setBalance(Money.parse("50.00"));
+    }
+
+    @Test
+    public void testTransferBatch_RejectedItemsDoNotFailTheBatch() {
+        // Arrange
+        UUID unknownAccountId = UUID.randomUUID();
+        List<TransactionDTO> transfers = List.of(
+                new TransactionDTO(sourceAccount.getId(), targetAccount.getId(), Money.parse("60.00"), null, 0),
+                new TransactionDTO(sourceAccount.getId(), targetAccount.getId(), Money.parse("60.00"), null, 0),
+                new TransactionDTO(sourceAccount.getId(), unknownAccountId, Money.parse("10.00"), null, 0),
+                new TransactionDTO(sourceAccount.getId(), sourceAccount.getId(), Money.parse("10.00"), null, 0));
+
+        when(accountRepository.findAllForTransfer(anyCollection())).thenReturn(List.of(sourceAccount, targetAccount));
+        when(transactionMapper.toEntity(any(TransactionDTO.class))).thenReturn(new Transaction());
+
+        // Act
+        BatchTransferResponse response = batchTransferService.transferBatch(transfers);
+
+        // Assert
+        assertEquals(1, response.applied());
+        assertEquals(3, response.rejected());
+        assertEquals(BatchTransferStatus.APPLIED, response.results().get(0).status());
+        assertEquals(BatchTransferStatus.INSUFFICIENT_FUNDS, response.results().get(1).status());
+        assertEquals(BatchTransferStatus.ACCOUNT_NOT_FOUND, response.results().get(2).status());
+        assertEquals(BatchTransferStatus.INVALID_REQUEST, response.results().get(3).status());
+
+        assertEquals(Money.parse("40.00"), sourceAccount.getBalance());
+        assertEquals(Money.parse("110.00"), targetAccount.getBalance());
+
+        // All accounts of the chunk are loaded with a single query
+        verify(accountRepository, times(1)).findAllForTransfer(anyCollection());
+        verify(accountRepository, never()).findById(any());
+        verify(transactionRepository, times(1)).saveAll(anyList());
+    }
+
+    @Test
+    public void testTransferBatch_FailedChunkOnlyFailsItsOwnItems() {
+        // Arrange
+        transferProperties.getBatch().setChunkSize(1);
+        List<TransactionDTO> transfers = List.of(
+                new TransactionDTO(sourceAccount.getId(), targetAccount.getId(), Money.parse("10.00"), null, 0),
+                new TransactionDTO(sourceAccount.getId(), targetAccount.getId(), Money.parse("10.00"), null, 0));
+
+        when(accountRepository.findAllForTransfer(anyCollection()))
+                .thenReturn(List.of(sourceAccount, targetAccount))
+                .thenThrow(new RuntimeException("lock timeout"));
+        when(transactionMapper.toEntity(any(TransactionDTO.class))).thenReturn(new Transaction());
+
+        // Act
+        BatchTransferResponse response = batchTransferService.transferBatch(transfers);
+
+        // Assert
+        assertEquals(BatchTransferStatus.APPLIED, response.results().get(0).status());
+        assertEquals(BatchTransferStatus.FAILED, response.results().get(1).status());
+        verify(transactionManager, times(1)).rollback(any());
+    }
+
+    @Test
+    public void testTransferBatch_OversizedBatch() {
+        // Arrange
+        transferProperties.getBatch().setMaxSize(1);
+        List<TransactionDTO> transfers = List.of(
+                new TransactionDTO(sourceAccount.getId(), targetAccount.getId(), Money.parse("10.00"), null, 0),
+                new TransactionDTO(sourceAccount.getId(), targetAccount.getId(), Money.parse("10.00"), null, 0));
+
+        // Act & Assert
+        CustomBadRequestException exception = assertThrows(CustomBadRequestException.class, () ->
+                batchTransferService.transferBatch(transfers));
+
+        assertEquals("Batch cannot contain more than 1 transfers.", exception.getMessage());
+        verify(accountRepository, never()).findAllForTransfer(anyCollection());
+    }
+}
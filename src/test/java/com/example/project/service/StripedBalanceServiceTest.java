@@ -0,0 +1,125 @@
+package com.example.project.service;
+
+import com.example.project.entity.Account;
+import com.example.project.exception.InsufficientFundsException;
+import com.example.project.money.Money;
+import com.example.project.repository.AccountBalanceStripeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+public class StripedBalanceServiceTest {
+
+    @Mock
+    private AccountBalanceStripeRepository stripeRepository;
+
+    private StripedBalanceService stripedBalanceService;
+    private Account account;
+    // The stripe rows of the account, by stripe number
+    private final TreeMap<Integer, Money> stripes = new TreeMap<>();
+
+    @BeforeEach
+    public void setUp() {
+        stripedBalanceService = new StripedBalanceService(null, stripeRepository, null, null);
+        account = new Account();
+        account.setId(UUID.randomUUID());
+        account.setBalance(Money.ZERO);
+        account.setStripeCount(3);
+        stripes.put(0, Money.parse("30.00"));
+        stripes.put(1, Money.parse("30.00"));
+        stripes.put(2, Money.parse("40.00"));
+
+        UUID accountId = account.getId();
+        when(stripeRepository.debitIfSufficient(eq(accountId), anyInt(), any())).thenAnswer(invocation -> {
+            int stripe = invocation.getArgument(1);
+            Money amount = invocation.getArgument(2);
+            if (stripes.get(stripe).isLessThan(amount)) {
+                return 0;
+            }
+            stripes.put(stripe, stripes.get(stripe).minus(amount));
+            return 1;
+        });
+        when(stripeRepository.credit(eq(accountId), anyInt(), any())).thenAnswer(invocation -> {
+            stripes.merge(invocation.getArgument(1), invocation.getArgument(2), Money::plus);
+            return 1;
+        });
+        when(stripeRepository.findAllForUpdate(accountId)).thenAnswer(invocation -> stripes.entrySet().stream()
+                .<AccountBalanceStripeRepository.StripeBalance>map(stripe -> new Row(stripe.getKey(),
+                        stripe.getValue().toBigDecimal()))
+                .toList());
+    }
+
+    @Test
+    public void testDebit_TakesAmountFromOneStripe() {
+        // Act
+        stripedBalanceService.debit(account, Money.parse("25.00"));
+
+        // Assert
+        assertEquals(Money.parse("75.00"), total());
+        assertEquals(1, stripes.values().stream().filter(balance -> balance.equals(Money.parse("5.00"))
+                || balance.equals(Money.parse("15.00"))).count());
+        verify(stripeRepository, never()).findAllForUpdate(any());
+    }
+
+    @Test
+    public void testDebit_SweepsStripesWhenNoSingleStripeHoldsAmount() {
+        // Act
+        stripedBalanceService.debit(account, Money.parse("80.00"));
+
+        // Assert: taken from the stripes in order, none of them negative
+        assertEquals(Money.parse("20.00"), total());
+        assertEquals(List.of(Money.ZERO, Money.ZERO, Money.parse("20.00")), List.copyOf(stripes.values()));
+    }
+
+    @Test
+    public void testDebit_InsufficientFundsWhenStripesTogetherHoldLess() {
+        // Act & Assert
+        assertThrows(InsufficientFundsException.class, () -> stripedBalanceService.debit(account, Money.parse("100.01")));
+        assertEquals(Money.parse("100.00"), total());
+    }
+
+    @Test
+    public void testApplyDelta_WriteBehindChanges() {
+        // Act: the net changes the ledger write-behind hands a striped account
+        stripedBalanceService.applyDelta(account, Money.parse("-65.00"));
+        stripedBalanceService.applyDelta(account, Money.parse("12.50"));
+        stripedBalanceService.applyDelta(account, Money.ZERO);
+
+        // Assert
+        assertEquals(Money.parse("47.50"), total());
+        assertTrue(stripes.values().stream().noneMatch(Money::isNegative));
+        verify(stripeRepository, times(1)).credit(eq(account.getId()), anyInt(), eq(Money.parse("12.50")));
+    }
+
+    private Money total() {
+        return stripes.values().stream().reduce(Money.ZERO, Money::plus);
+    }
+
+    private record Row(int stripe, BigDecimal balance) implements AccountBalanceStripeRepository.StripeBalance {
+
+        @Override
+        public int getStripe() {
+            return stripe;
+        }
+
+        @Override
+        public BigDecimal getBalance() {
+            return balance;
+        }
+    }
+}
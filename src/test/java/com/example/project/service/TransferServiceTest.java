@@ -0,0 +1,197 @@
+package com.example.project.service;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransferResponse;
+import com.example.project.enums.TransferStrategy;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.CustomConflictException;
+import com.example.project.exception.VelocityLimitExceededException;
+import com.example.project.entity.IdempotencyKey;
+import com.example.project.money.Money;
+import com.example.project.repository.IdempotencyKeyRepository;
+import com.example.project.service.idempotency.IdempotencyStore;
+import com.example.project.service.limit.VelocityLimiter;
+import com.example.project.service.metrics.TransferMetrics;
+import com.example.project.service.transfer.TransferExecutor;
+import com.example.project.service.transfer.TransferRetryPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class TransferServiceTest {
+
+    @Mock
+    private TransferExecutor transferExecutor;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private IdempotencyStore idempotencyStore;
+    private SimpleMeterRegistry meterRegistry;
+
+    private TransferService transferService;
+    private TransactionDTO transactionDTO;
+
+    @BeforeEach
+    public void setUp() {
+        TransferProperties transferProperties = new TransferProperties();
+        transferProperties.setStrategy(TransferStrategy.ATOMIC_UPDATE);
+        transferProperties.getRetry().setMaxAttempts(3);
+        transferProperties.getRetry().setInitialBackoff(Duration.ofMillis(1));
+
+        when(transferExecutor.strategy()).thenReturn(TransferStrategy.ATOMIC_UPDATE);
+        when(transferExecutor.isolation()).thenCallRealMethod();
+        idempotencyStore = new IdempotencyStore(idempotencyKeyRepository, transferProperties);
+        meterRegistry = new SimpleMeterRegistry();
+        TransferRetryPolicy retryPolicy = new TransferRetryPolicy(transferProperties);
+        transferService = new TransferService(List.of(transferExecutor), retryPolicy, transferProperties, transactionManager,
+                idempotencyStore, new TransferMetrics(meterRegistry, transferProperties, retryPolicy),
+                new VelocityLimiter(transferProperties, null));
+
+        transactionDTO = new TransactionDTO(UUID.randomUUID(), UUID.randomUUID(), Money.parse("30.00"), null, 0);
+    }
+
+    @Test
+    public void testTransfer_RetriesConcurrencyFailures() {
+        // Arrange
+        TransferResponse response = new TransferResponse("Transfer successful", Money.parse("30.00"));
+        when(transferExecutor.transfer(transactionDTO))
+                .thenThrow(new CannotAcquireLockException("could not serialize access"))
+                .thenThrow(new ObjectOptimisticLockingFailureException("Account", transactionDTO.sourceAccountId()))
+                .thenReturn(response);
+
+        // Act
+        TransferResponse result = transferService.transfer(transactionDTO);
+
+        // Assert
+        assertEquals(response, result);
+        verify(transferExecutor, times(3)).transfer(transactionDTO);
+        assertEquals(1, meterRegistry.get("transfer.requests").tag("outcome", "success").timer().count());
+        assertEquals(2, meterRegistry.get("transfer.retries").functionCounter().count());
+    }
+
+    @Test
+    public void testTransfer_GivesUpWithConflict() {
+        // Arrange
+        when(transferExecutor.transfer(transactionDTO)).thenThrow(new CannotAcquireLockException("could not serialize access"));
+
+        // Act & Assert
+        assertThrows(CustomConflictException.class, () -> transferService.transfer(transactionDTO));
+        verify(transferExecutor, times(3)).transfer(transactionDTO);
+    }
+
+    @Test
+    public void testTransfer_BusinessErrorsAreNotRetried() {
+        // Arrange
+        when(transferExecutor.transfer(transactionDTO))
+                .thenThrow(new CustomBadRequestException("Insufficient balance in the source account."));
+
+        // Act & Assert
+        assertThrows(CustomBadRequestException.class, () -> transferService.transfer(transactionDTO));
+        verify(transferExecutor, times(1)).transfer(transactionDTO);
+    }
+
+    @Test
+    public void testTransfer_SameSourceAndTargetAccount() {
+        // Arrange
+        TransactionDTO sameAccount = new TransactionDTO(transactionDTO.sourceAccountId(), transactionDTO.sourceAccountId(),
+                Money.parse("30.00"), null, 0);
+
+        // Act & Assert
+        assertThrows(CustomBadRequestException.class, () -> transferService.transfer(sameAccount));
+        verify(transferExecutor, never()).transfer(any());
+    }
+
+    @Test
+    public void testTransfer_RepeatedIdempotencyKeyIsAppliedOnce() {
+        // Arrange
+        TransferResponse response = new TransferResponse("Transfer successful", Money.parse("30.00"));
+        when(transferExecutor.transfer(transactionDTO)).thenReturn(response);
+
+        // Act
+        TransferResponse first = transferService.transfer(transactionDTO, "key-1");
+        TransferResponse retry = transferService.transfer(transactionDTO, "key-1");
+
+        // Assert
+        assertEquals(response, first);
+        assertEquals(response, retry);
+        verify(transferExecutor, times(1)).transfer(transactionDTO);
+        verify(idempotencyKeyRepository, times(1)).saveAndFlush(any(IdempotencyKey.class));
+    }
+
+    @Test
+    public void testTransfer_ReplayedIdempotencyKeyIsNotCountedAgainstVelocityLimit() {
+        // Arrange: one transfer a minute, already used by the first execution of the key
+        TransferProperties transferProperties = new TransferProperties();
+        transferProperties.setStrategy(TransferStrategy.ATOMIC_UPDATE);
+        transferProperties.getLimits().setEnabled(true);
+        TransferProperties.Limits.Window perMinute = new TransferProperties.Limits.Window();
+        perMinute.setDuration(Duration.ofMinutes(1));
+        perMinute.setMaxTransfers(1);
+        transferProperties.getLimits().getWindows().add(perMinute);
+        TransferRetryPolicy retryPolicy = new TransferRetryPolicy(transferProperties);
+        TransferService limitedService = new TransferService(List.of(transferExecutor), retryPolicy, transferProperties,
+                transactionManager, idempotencyStore, new TransferMetrics(meterRegistry, transferProperties, retryPolicy),
+                new VelocityLimiter(transferProperties, null));
+        TransferResponse response = new TransferResponse("Transfer successful", Money.parse("30.00"));
+        when(transferExecutor.transfer(transactionDTO)).thenReturn(response);
+        limitedService.transfer(transactionDTO, "key-1");
+
+        // Act
+        TransferResponse replay = limitedService.transfer(transactionDTO, "key-1");
+
+        // Assert
+        assertEquals(response, replay);
+        assertThrows(VelocityLimitExceededException.class, () -> limitedService.transfer(transactionDTO, "key-2"));
+        verify(transferExecutor, times(1)).transfer(transactionDTO);
+    }
+
+    @Test
+    public void testTransfer_StoredIdempotencyKeySkipsTheTransfer() {
+        // Arrange
+        IdempotencyKey stored = new IdempotencyKey("key-1", idempotencyStore.requestHash(transactionDTO),
+                "Transfer successful", Money.parse("30.00"));
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.of(stored));
+
+        // Act
+        TransferResponse result = transferService.transfer(transactionDTO, "key-1");
+
+        // Assert
+        assertEquals(new TransferResponse("Transfer successful", Money.parse("30.00")), result);
+        verify(transferExecutor, never()).transfer(any());
+    }
+
+    @Test
+    public void testTransfer_IdempotencyKeyReusedForDifferentTransfer() {
+        // Arrange
+        IdempotencyKey stored = new IdempotencyKey("key-1", "another-request", "Transfer successful", Money.parse("10.00"));
+        when(idempotencyKeyRepository.findById("key-1")).thenReturn(Optional.of(stored));
+
+        // Act & Assert
+        CustomConflictException exception = assertThrows(CustomConflictException.class, () ->
+                transferService.transfer(transactionDTO, "key-1"));
+
+        assertEquals("Idempotency-Key has already been used for a different request.", exception.getMessage());
+        verify(transferExecutor, never()).transfer(any());
+    }
+}
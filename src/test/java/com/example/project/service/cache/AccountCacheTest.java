@@ -0,0 +1,70 @@
+package com.example.project.service.cache;
+
+import com.example.project.config.AccountCacheProperties;
+import com.example.project.dto.AccountDTO;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AccountCacheTest {
+
+    private InProcessAccountInvalidationBus invalidationBus;
+    private AccountCache accountCache;
+    private UUID accountId;
+
+    @BeforeEach
+    public void setUp() {
+        invalidationBus = new InProcessAccountInvalidationBus();
+        accountCache = new AccountCache(new AccountCacheProperties(), invalidationBus);
+        accountId = UUID.randomUUID();
+    }
+
+    @Test
+    public void testGet_LoadsOnceUntilAccountChanges() {
+        // Arrange
+        AtomicInteger loads = new AtomicInteger();
+
+        // Act
+        accountCache.get(accountId, id -> new AccountDTO(id, Money.parse("100.00"), loads.incrementAndGet()));
+        AccountDTO cached = accountCache.get(accountId, id -> new AccountDTO(id, Money.parse("100.00"), loads.incrementAndGet()));
+        accountCache.onAccountChanged(AccountChangedEvent.of(accountId));
+        AccountDTO reloaded = accountCache.get(accountId, id -> new AccountDTO(id, Money.parse("70.00"), loads.incrementAndGet()));
+
+        // Assert
+        assertEquals(1, cached.version());
+        assertEquals(2, reloaded.version());
+        assertEquals(Money.parse("70.00"), reloaded.balance());
+        assertEquals(1, accountCache.stats().hitCount());
+        assertEquals(2, accountCache.stats().missCount());
+    }
+
+    @Test
+    public void testGet_DropsAccountChangedOnAnotherNode() {
+        // Arrange
+        accountCache.get(accountId, id -> new AccountDTO(id, Money.parse("100.00"), 1));
+
+        // Act
+        invalidationBus.publish(List.of(accountId));
+        AccountDTO reloaded = accountCache.get(accountId, id -> new AccountDTO(id, Money.parse("70.00"), 2));
+
+        // Assert
+        assertEquals(2, reloaded.version());
+    }
+
+    @Test
+    public void testGet_DoesNotCacheMissingAccount() {
+        // Act & Assert
+        assertThrows(CustomNotFoundException.class, () -> accountCache.get(accountId, id -> {
+            throw new CustomNotFoundException("Account not found with ID: " + id);
+        }));
+        AccountDTO created = accountCache.get(accountId, id -> new AccountDTO(id, Money.ZERO, 0));
+        assertEquals(accountId, created.id());
+    }
+}
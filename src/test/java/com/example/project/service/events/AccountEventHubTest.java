@@ -0,0 +1,111 @@
+package com.example.project.service.events;
+
+import com.example.project.config.AccountEventProperties;
+import com.example.project.dto.AccountDTO;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.money.Money;
+import com.example.project.service.AccountService;
+import com.example.project.service.cache.InProcessAccountInvalidationBus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class AccountEventHubTest {
+
+    private InProcessAccountInvalidationBus invalidationBus;
+    private AccountService accountService;
+    private AccountEventHub accountEventHub;
+    private UUID accountId;
+
+    @BeforeEach
+    public void setUp() {
+        invalidationBus = new InProcessAccountInvalidationBus();
+        accountService = mock(AccountService.class);
+        AccountEventProperties properties = new AccountEventProperties();
+        properties.setBufferSize(2);
+        accountEventHub = new AccountEventHub(accountService, invalidationBus, properties);
+        accountId = UUID.randomUUID();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        accountEventHub.shutdown();
+    }
+
+    @Test
+    public void testSubscribe_PushesCurrentStateThenChanges() throws InterruptedException {
+        // Arrange
+        when(accountService.getAccount(accountId))
+                .thenReturn(new AccountDTO(accountId, Money.parse("100.00"), 1))
+                .thenReturn(new AccountDTO(accountId, Money.parse("70.00"), 2))
+                .thenThrow(new CustomNotFoundException("Account not found with ID: " + accountId));
+        RecordingSink sink = new RecordingSink();
+
+        // Act
+        accountEventHub.subscribe(accountId, sink);
+        AccountEvent current = sink.events.poll(5, TimeUnit.SECONDS);
+        invalidationBus.publish(List.of(accountId));
+        AccountEvent changed = sink.events.poll(5, TimeUnit.SECONDS);
+        invalidationBus.publish(List.of(accountId));
+        AccountEvent deleted = sink.events.poll(5, TimeUnit.SECONDS);
+
+        // Assert
+        assertEquals(Money.parse("100.00"), current.account().balance());
+        assertEquals(2, changed.account().version());
+        assertTrue(deleted.isDeleted());
+        assertTrue(sink.closed.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testOffer_DropsSlowSubscriber() throws InterruptedException {
+        // Arrange
+        when(accountService.getAccount(accountId)).thenReturn(new AccountDTO(accountId, Money.parse("100.00"), 1));
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingSink sink = new RecordingSink() {
+            @Override
+            public void send(AccountEvent event) throws InterruptedException {
+                release.await();
+                super.send(event);
+            }
+        };
+        accountEventHub.subscribe(accountId, sink);
+
+        // Act: the first heartbeat is written, and blocks; the next ones overflow the buffer of 2
+        for (int i = 0; i < 5; i++) {
+            accountEventHub.heartbeat();
+        }
+        release.countDown();
+
+        // Assert
+        assertTrue(sink.closed.await(5, TimeUnit.SECONDS));
+        accountEventHub.heartbeat();
+        invalidationBus.publish(List.of(accountId));
+        assertTrue(sink.events.size() <= 2);
+    }
+
+    private static class RecordingSink implements AccountEventSink {
+
+        final BlockingQueue<AccountEvent> events = new LinkedBlockingQueue<>();
+        final CountDownLatch closed = new CountDownLatch(1);
+
+        @Override
+        public void send(AccountEvent event) throws InterruptedException {
+            events.add(event);
+        }
+
+        @Override
+        public void close() {
+            closed.countDown();
+        }
+    }
+}
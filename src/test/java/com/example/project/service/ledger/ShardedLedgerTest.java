@@ -0,0 +1,268 @@
+package com.example.project.service.ledger;
+
+import com.example.project.config.IdProperties;
+import com.example.project.config.TransferProperties;
+import com.example.project.entity.Account;
+import com.example.project.exception.CustomConflictException;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.exception.InsufficientFundsException;
+import com.example.project.money.Money;
+import com.example.project.repository.AccountRepository;
+import com.example.project.service.StripedBalanceService;
+import com.example.project.service.cache.AccountChangedEvent;
+import com.example.project.service.outbox.TransferOutbox;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class ShardedLedgerTest {
+
+    @TempDir
+    Path journalDirectory;
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionTemplate transactionTemplate;
+    private TransferProperties transferProperties;
+    private AccountRepository accountRepository;
+    private StripedBalanceService stripedBalanceService;
+    private final List<ShardedLedger> ledgers = new ArrayList<>();
+    private UUID source;
+    private UUID target;
+
+    @BeforeEach
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:ledger;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table account (id uuid primary key, balance numeric(38,2) not null, " +
+                "version int default 0 not null, stripe_count int default 0 not null)");
+        jdbcTemplate.execute("create table transaction (id uuid primary key, source_account_id uuid, " +
+                "target_account_id uuid, amount numeric(38,2), currency varchar(255) default 'GBP' not null, " +
+                "created_at timestamp, version int default 0 not null)");
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+
+        transferProperties = new TransferProperties();
+        transferProperties.getSharded().setShards(2);
+        transferProperties.getSharded().setJournalDirectory(journalDirectory.toString());
+        // Only the tests flush
+        transferProperties.getSharded().setFlushInterval(Duration.ofHours(1));
+        transferProperties.getOutbox().setEnabled(false);
+
+        accountRepository = mock(AccountRepository.class);
+        when(accountRepository.findById(any())).thenAnswer(invocation -> findAccount(invocation.getArgument(0)));
+        stripedBalanceService = mock(StripedBalanceService.class);
+        when(stripedBalanceService.balanceOf(any())).thenAnswer(invocation -> invocation.<Account>getArgument(0).getBalance());
+
+        source = createAccount("100.00");
+        target = createAccount("0.00");
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        for (ShardedLedger ledger : ledgers) {
+            ledger.stop();
+        }
+        jdbcTemplate.execute("shutdown");
+    }
+
+    @Test
+    public void testStart_ReplaysJournalLeftByCrash() throws Exception {
+        // Arrange: the first transfer was written behind, but the crash came before its segment was deleted
+        ShardedLedger crashed = startLedger();
+        crashed.transfer(source, target, 3000);
+        Path written = copySegments(journalDirectory.resolve("written"));
+        crashed.flush();
+        crashed.transfer(source, target, 2000);
+        try (Stream<Path> segments = Files.list(written)) {
+            for (Path segment : segments.toList()) {
+                Files.copy(segment, journalDirectory.resolve(segment.getFileName()));
+            }
+        }
+
+        // Act
+        startLedger();
+
+        // Assert: both transfers are applied once
+        assertEquals(new BigDecimal("50.00"), balance(source));
+        assertEquals(new BigDecimal("50.00"), balance(target));
+        assertEquals(2, jdbcTemplate.queryForObject("select count(*) from transaction", Integer.class));
+    }
+
+    @Test
+    public void testFlush_FailsWhenAccountWasDeleted() throws Exception {
+        // Arrange
+        ShardedLedger ledger = startLedger();
+        ledger.transfer(source, target, 1000);
+        jdbcTemplate.update("delete from account where id = ?", target);
+
+        // Act & Assert: nothing is written, and the transfer stays in the journal
+        assertThrows(IllegalStateException.class, ledger::flush);
+        assertEquals(new BigDecimal("100.00"), balance(source));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from transaction", Integer.class));
+        ledgers.remove(ledger);
+        assertThrows(IllegalStateException.class, ledger::stop);
+        try (Stream<Path> segments = Files.list(journalDirectory)) {
+            assertTrue(segments.anyMatch(segment -> segment.toFile().length() > 0));
+        }
+    }
+
+    @Test
+    public void testTransfer_ReversedWhenCallerTransactionRollsBack() {
+        // Arrange
+        ShardedLedger ledger = startLedger();
+
+        // Act: the caller fails after the transfer, as when its idempotency key cannot be stored
+        assertThrows(IllegalStateException.class, () -> transactionTemplate.executeWithoutResult(status -> {
+            ledger.transfer(source, target, 6000);
+            throw new IllegalStateException("duplicate key");
+        }));
+
+        // Assert: the credit was never spendable, and the source has its money back
+        assertThrows(InsufficientFundsException.class, () -> ledger.transfer(target, source, 1));
+        ledger.transfer(source, target, 10000);
+        ledger.flush();
+        assertEquals(new BigDecimal("0.00"), balance(source));
+        assertEquals(new BigDecimal("100.00"), balance(target));
+        assertEquals(3, jdbcTemplate.queryForObject("select count(*) from transaction", Integer.class));
+    }
+
+    @Test
+    public void testTransfer_SettledWhenCallerTransactionCommits() {
+        // Arrange
+        ShardedLedger ledger = startLedger();
+
+        // Act
+        transactionTemplate.executeWithoutResult(status -> ledger.transfer(source, target, 6000));
+
+        // Assert
+        ledger.transfer(target, source, 6000);
+        ledger.flush();
+        assertEquals(new BigDecimal("100.00"), balance(source));
+        assertEquals(new BigDecimal("0.00"), balance(target));
+    }
+
+    @Test
+    public void testDirectUpdate_SeenByShard() {
+        // Arrange: the shard holds the source account, with its transfers written behind
+        ShardedLedger ledger = startLedger();
+        ledger.transfer(source, target, 1000);
+        ledger.flush();
+
+        // Act
+        updateDirectly(ledger, source, "5.00");
+
+        // Assert
+        assertThrows(InsufficientFundsException.class, () -> ledger.transfer(source, target, 1000));
+        ledger.transfer(source, target, 500);
+        ledger.flush();
+        assertEquals(new BigDecimal("0.00"), balance(source));
+        assertEquals(new BigDecimal("15.00"), balance(target));
+    }
+
+    @Test
+    public void testDirectUpdate_RefusedWhileTransfersAreNotWrittenBehind() {
+        // Arrange
+        ShardedLedger ledger = startLedger();
+        ledger.transfer(source, target, 1000);
+
+        // Act & Assert
+        assertThrows(CustomConflictException.class, () -> updateDirectly(ledger, source, "5.00"));
+        assertEquals(new BigDecimal("100.00"), balance(source));
+        ledger.transfer(source, target, 9000);
+        ledger.flush();
+        assertEquals(new BigDecimal("0.00"), balance(source));
+    }
+
+    @Test
+    public void testDirectDelete_DropsAccountFromShard() {
+        // Arrange
+        ShardedLedger ledger = startLedger();
+        ledger.transfer(source, target, 1000);
+        ledger.flush();
+
+        // Act
+        AccountChangedEvent event = AccountChangedEvent.of(target);
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.update("delete from account where id = ?", target);
+            ledger.onAccountChanging(event);
+        });
+        ledger.onAccountChanged(event);
+
+        // Assert
+        assertThrows(CustomNotFoundException.class, () -> ledger.transfer(source, target, 1000));
+    }
+
+    /**
+     * Overwrites a balance the way {@code AccountService.updateAccount} does, with the listeners its event reaches.
+     */
+    private void updateDirectly(ShardedLedger ledger, UUID accountId, String balance) {
+        AccountChangedEvent event = AccountChangedEvent.of(accountId);
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.update("update account set balance = ?, version = version + 1 where id = ?",
+                        new BigDecimal(balance), accountId);
+                ledger.onAccountChanging(event);
+            });
+        } finally {
+            ledger.onAccountChanged(event);
+        }
+    }
+
+    private ShardedLedger startLedger() {
+        ShardedLedger ledger = new ShardedLedger(accountRepository, jdbcTemplate, transactionTemplate,
+                transferProperties, stripedBalanceService, mock(ApplicationEventPublisher.class),
+                new TransferOutbox(jdbcTemplate, transferProperties), new IdProperties());
+        ledger.start();
+        ledgers.add(ledger);
+        return ledger;
+    }
+
+    private UUID createAccount(String balance) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("insert into account (id, balance) values (?, ?)", id, new BigDecimal(balance));
+        return id;
+    }
+
+    private Optional<Account> findAccount(UUID id) {
+        return jdbcTemplate.query("select balance from account where id = ?", (rs, rowNum) -> {
+            Account account = new Account();
+            account.setId(id);
+            account.setBalance(Money.of(rs.getBigDecimal("balance")));
+            return account;
+        }, id).stream().findFirst();
+    }
+
+    private BigDecimal balance(UUID id) {
+        return jdbcTemplate.queryForObject("select balance from account where id = ?", BigDecimal.class, id);
+    }
+
+    private Path copySegments(Path to) throws Exception {
+        Files.createDirectories(to);
+        try (Stream<Path> segments = Files.list(journalDirectory)) {
+            for (Path segment : segments.filter(Files::isRegularFile).toList()) {
+                Files.copy(segment, to.resolve(segment.getFileName()));
+            }
+        }
+        return to;
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.project.service.limit;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.exception.VelocityLimitExceededException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class VelocityLimiterTest {
+
+    private static final long MINUTE = 60_000;
+
+    private VelocityLimiter velocityLimiter;
+    private UUID accountId;
+
+    @BeforeEach
+    public void setUp() {
+        TransferProperties transferProperties = new TransferProperties();
+        transferProperties.getLimits().setEnabled(true);
+        TransferProperties.Limits.Window perMinute = new TransferProperties.Limits.Window();
+        perMinute.setDuration(Duration.ofMinutes(1));
+        perMinute.setBuckets(6);
+        perMinute.setMaxTransfers(3);
+        TransferProperties.Limits.Window perDay = new TransferProperties.Limits.Window();
+        perDay.setDuration(Duration.ofDays(1));
+        perDay.setBuckets(24);
+        perDay.setMaxAmount(new BigDecimal("100.00"));
+        transferProperties.getLimits().getWindows().add(perMinute);
+        transferProperties.getLimits().getWindows().add(perDay);
+        velocityLimiter = new VelocityLimiter(transferProperties, null);
+        accountId = UUID.randomUUID();
+    }
+
+    @Test
+    public void testReserve_LimitsTransfersPerWindowUntilItSlides() {
+        // Arrange
+        long now = 100 * MINUTE;
+        for (int i = 0; i < 3; i++) {
+            velocityLimiter.reserve(accountId, 100, now);
+        }
+
+        // Act & Assert
+        assertThrows(VelocityLimitExceededException.class, () -> velocityLimiter.reserve(accountId, 100, now + 1000));
+        VelocityLimiter.Reservation released = velocityLimiter.reserve(accountId, 100, now + MINUTE);
+        velocityLimiter.release(released);
+        for (int i = 0; i < 3; i++) {
+            velocityLimiter.reserve(accountId, 100, now + MINUTE);
+        }
+        assertThrows(VelocityLimitExceededException.class, () -> velocityLimiter.reserve(accountId, 100, now + MINUTE));
+        assertDoesNotThrow(() -> velocityLimiter.reserve(UUID.randomUUID(), 100, now + MINUTE));
+    }
+
+    @Test
+    public void testReserve_CountsRebuiltTransfersAgainstAmountAndEvictsIdleAccounts() {
+        // Arrange: 95.00 sent within the last day, before a restart
+        long now = 1000 * MINUTE;
+        velocityLimiter.count(accountId, 9000, now - 600 * MINUTE, now);
+        velocityLimiter.count(accountId, 500, now - 10 * MINUTE, now);
+        velocityLimiter.count(accountId, 10_000, now - 2000 * MINUTE, now);
+
+        // Act & Assert
+        assertThrows(VelocityLimitExceededException.class, () -> velocityLimiter.reserve(accountId, 600, now));
+        velocityLimiter.reserve(accountId, 500, now);
+        assertThrows(VelocityLimitExceededException.class, () -> velocityLimiter.reserve(accountId, 1, now));
+        assertThrows(VelocityLimitExceededException.class, () -> velocityLimiter.reserve(UUID.randomUUID(), 10_001, now));
+
+        velocityLimiter.evictIdle(now + 1441 * MINUTE);
+        assertDoesNotThrow(() -> velocityLimiter.reserve(accountId, 10_000, now + 1441 * MINUTE));
+    }
+}
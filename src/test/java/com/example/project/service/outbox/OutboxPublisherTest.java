@@ -0,0 +1,137 @@
+package com.example.project.service.outbox;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.entity.Transaction;
+import com.example.project.money.Money;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OutboxPublisherTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private TransferProperties transferProperties;
+    private TransferOutbox transferOutbox;
+    private final List<TransferCompletedEvent> published = new ArrayList<>();
+    private UUID source;
+    private UUID target;
+
+    @BeforeEach
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:outbox;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table transfer_outbox (id bigint generated by default as identity primary key, " +
+                "partition_no int not null, transaction_id uuid not null, account_id uuid not null, counterparty_id uuid not null, " +
+                "amount numeric(38,2) not null, currency varchar(3) not null, created_at timestamp not null)");
+        jdbcTemplate.execute("create table transfer_outbox_partition (partition_no int primary key)");
+        for (int partition = 0; partition < TransferOutbox.PARTITIONS; partition++) {
+            jdbcTemplate.update("insert into transfer_outbox_partition (partition_no) values (?)", partition);
+        }
+        transactionManager = new DataSourceTransactionManager(dataSource);
+
+        transferProperties = new TransferProperties();
+        transferProperties.getOutbox().setBatchSize(2);
+        transferOutbox = new TransferOutbox(jdbcTemplate, transferProperties);
+        source = UUID.randomUUID();
+        target = UUID.randomUUID();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("shutdown");
+    }
+
+    @Test
+    public void testAppend_BothLegsCommitOrRollBackWithTransfer() {
+        // Arrange
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Transaction committed = transaction("30.00");
+
+        // Act
+        transactionTemplate.executeWithoutResult(status -> transferOutbox.append(committed));
+        transactionTemplate.executeWithoutResult(status -> {
+            transferOutbox.append(transaction("5.00"));
+            status.setRollbackOnly();
+        });
+
+        // Assert: the debit leg of the source and the credit leg of the target, and nothing of the rolled back transfer;
+        // the legs land in the partitions of their accounts, so only the order of each account is guaranteed
+        List<TransferCompletedEvent> events = drainAll(published::addAll);
+        assertEquals(2, events.size());
+        assertEquals(Set.of(
+                        new TransferCompletedEvent(committed.getId(), source, target, Money.parse("-30.00"), "GBP",
+                                committed.getCreatedAt()),
+                        new TransferCompletedEvent(committed.getId(), target, source, Money.parse("30.00"), "GBP",
+                                committed.getCreatedAt())),
+                Set.copyOf(events));
+    }
+
+    @Test
+    public void testDrain_PublishesAndDeletesEveryRow() {
+        // Arrange: more events of one account than fit in a batch
+        List<Transaction> transactions = List.of(transaction("1.00"), transaction("2.00"), transaction("3.00"));
+        transferOutbox.appendAll(transactions);
+
+        // Act
+        List<TransferCompletedEvent> events = drainAll(published::addAll);
+
+        // Assert: every account sees its events in order, and the outbox is empty
+        assertEquals(List.of(Money.parse("-1.00"), Money.parse("-2.00"), Money.parse("-3.00")), amountsOf(events, source));
+        assertEquals(List.of(Money.parse("1.00"), Money.parse("2.00"), Money.parse("3.00")), amountsOf(events, target));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from transfer_outbox", Integer.class));
+    }
+
+    @Test
+    public void testDrain_SinkFailureLeavesRowsForNextDrain() {
+        // Arrange
+        Transaction transaction = transaction("30.00");
+        transferOutbox.append(transaction);
+
+        // Act
+        List<TransferCompletedEvent> failed = drainAll(events -> {
+            throw new IllegalStateException("broker unavailable");
+        });
+        List<TransferCompletedEvent> retried = drainAll(published::addAll);
+
+        // Assert
+        assertTrue(failed.isEmpty());
+        assertEquals(2, retried.size());
+        assertTrue(retried.stream().allMatch(event -> event.transactionId().equals(transaction.getId())));
+        assertEquals(0, jdbcTemplate.queryForObject("select count(*) from transfer_outbox", Integer.class));
+    }
+
+    private List<TransferCompletedEvent> drainAll(TransferEventSink sink) {
+        published.clear();
+        new OutboxPublisher(jdbcTemplate, transactionManager, sink, transferProperties, new SimpleMeterRegistry()).drain();
+        return List.copyOf(published);
+    }
+
+    private Transaction transaction(String amount) {
+        Transaction transaction = new Transaction();
+        transaction.setId(UUID.randomUUID());
+        transaction.setSourceAccountId(source);
+        transaction.setTargetAccountId(target);
+        transaction.setAmount(Money.parse(amount));
+        transaction.setCreatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        return transaction;
+    }
+
+    private static List<Money> amountsOf(List<TransferCompletedEvent> events, UUID accountId) {
+        return events.stream().filter(event -> event.accountId().equals(accountId)).map(TransferCompletedEvent::amount).toList();
+    }
+}
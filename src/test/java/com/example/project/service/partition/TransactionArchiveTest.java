@@ -0,0 +1,73 @@
+package com.example.project.service.partition;
+
+import com.example.project.dto.TransactionHistoryDTO;
+import com.example.project.enums.Currency;
+import com.example.project.money.Money;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TransactionArchiveTest {
+
+    private static final YearMonth MONTH = YearMonth.of(2024, 1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testRead_ReturnsArchivedPeriodInOrder() {
+        // Arrange: 1000 transactions, one a minute, in blocks of 64
+        List<TransactionHistoryDTO> transactions = new ArrayList<>();
+        LocalDateTime start = MONTH.atDay(1).atStartOfDay();
+        for (int i = 0; i < 1000; i++) {
+            transactions.add(new TransactionHistoryDTO(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+                    Money.ofMinor(i + 1), Currency.GBP, start.plusMinutes(i).plusNanos(i * 1_000L)));
+        }
+        try (TransactionArchiveWriter writer = new TransactionArchiveWriter(directory, MONTH, 64)) {
+            transactions.forEach(writer::add);
+            assertEquals(1000, writer.finish());
+        }
+
+        // Act
+        List<TransactionHistoryDTO> all = new ArrayList<>();
+        TransactionArchiveReader.read(directory, MONTH, start, start.plusMonths(1), all::add);
+        List<TransactionHistoryDTO> hour = new ArrayList<>();
+        TransactionArchiveReader.read(directory, MONTH, start.plusMinutes(100), start.plusMinutes(160), hour::add);
+
+        // Assert
+        assertEquals(transactions, all);
+        assertEquals(transactions.subList(100, 160), hour);
+        assertFalse(Files.exists(directory.resolve("transaction-2024-01.tca.tmp")));
+    }
+
+    @Test
+    public void testRead_RejectsCorruptBlock() throws Exception {
+        // Arrange
+        try (TransactionArchiveWriter writer = new TransactionArchiveWriter(directory, MONTH, 64)) {
+            writer.add(new TransactionHistoryDTO(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+                    Money.ofMinor(100), Currency.GBP, MONTH.atDay(2).atStartOfDay()));
+            writer.finish();
+        }
+        try (FileChannel data = FileChannel.open(TransactionArchive.dataFile(directory, MONTH), StandardOpenOption.WRITE)) {
+            data.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), 8 + TransactionArchive.BLOCK_HEADER_SIZE);
+        }
+
+        // Act & Assert
+        assertThrows(UncheckedIOException.class, () -> TransactionArchiveReader.read(directory, MONTH,
+                MONTH.atDay(1).atStartOfDay(), MONTH.plusMonths(1).atDay(1).atStartOfDay(), transaction -> {
+                }));
+    }
+}
@@ -0,0 +1,280 @@
+package com.example.project.service.partition;
+
+import com.example.project.config.TransactionPartitionProperties;
+import com.example.project.dto.TransactionHistoryDTO;
+import com.example.project.enums.Currency;
+import com.example.project.money.Money;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the partition maintenance against a scripted PostgreSQL catalog, which keeps the attached, pending and
+ * detached partitions and the rows of each, and records every statement the maintainer issues.
+ */
+public class TransactionPartitionMaintainerTest {
+
+    private static final Pattern CREATE = Pattern.compile("create table if not exists (\\w+) partition of transaction .*");
+    private static final Pattern DETACH = Pattern.compile("alter table transaction detach partition (\\w+) (concurrently|finalize)");
+    private static final Pattern DROP = Pattern.compile("drop table (\\w+)");
+    private static final Pattern COUNT = Pattern.compile("select count\\(\\*\\) from (\\w+)");
+    private static final Pattern ROWS = Pattern.compile(".* from (\\w+) order by created_at, id");
+
+    @TempDir
+    Path archiveDirectory;
+
+    private final YearMonth now = YearMonth.now();
+    private final Set<String> attached = new LinkedHashSet<>();
+    private final Set<String> pending = new LinkedHashSet<>();
+    private final Set<String> detached = new LinkedHashSet<>();
+    private final Map<String, List<TransactionHistoryDTO>> rows = new HashMap<>();
+    private final Map<String, Long> extraRowCounts = new HashMap<>();
+    private final List<String> statements = new ArrayList<>();
+    private String productName = "PostgreSQL";
+    private TransactionPartitionProperties properties;
+    private TransactionPartitionMaintainer maintainer;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        properties = new TransactionPartitionProperties();
+        properties.setPremakeMonths(2);
+        properties.setRetentionMonths(13);
+        properties.getArchive().setDirectory(archiveDirectory.toString());
+        properties.getArchive().setBlockSize(2);
+
+        DataSource dataSource = mock(DataSource.class);
+        Connection connection = catalogConnection();
+        when(dataSource.getConnection()).thenReturn(connection);
+        maintainer = new TransactionPartitionMaintainer(new JdbcTemplate(dataSource), properties);
+    }
+
+    @Test
+    public void testMaintain_CreatesCurrentAndUpcomingPartitions() {
+        // Act
+        maintainer.maintain();
+        maintainer.maintain();
+
+        // Assert: each month bounded by the first day of the next, and a second run changes nothing
+        assertEquals(Set.of(name(now), name(now.plusMonths(1)), name(now.plusMonths(2))), attached);
+        assertTrue(statements.contains("create table if not exists " + name(now) + " partition of transaction " +
+                "for values from ('" + now.atDay(1) + "') to ('" + now.plusMonths(1).atDay(1) + "')"));
+        assertTrue(detached.isEmpty());
+    }
+
+    @Test
+    public void testMaintain_ArchivesExpiredPartitionsBeforeDroppingThem() {
+        // Arrange: one month past retention, one interrupted mid-detach, and the oldest month kept
+        YearMonth expired = now.minusMonths(14);
+        YearMonth interrupted = now.minusMonths(15);
+        YearMonth oldestKept = now.minusMonths(13);
+        List<TransactionHistoryDTO> expiredRows = partition(expired, 3, attached);
+        List<TransactionHistoryDTO> interruptedRows = partition(interrupted, 1, pending);
+        partition(oldestKept, 2, attached);
+
+        // Act
+        maintainer.maintain();
+
+        // Assert: both expired months detached, archived and dropped, in that order
+        for (YearMonth month : List.of(expired, interrupted)) {
+            int detach = indexOf("alter table transaction detach partition " + name(month));
+            int drop = statements.indexOf("drop table " + name(month));
+            assertTrue(detach >= 0 && detach < drop, statements.toString());
+            assertTrue(Files.exists(TransactionArchive.dataFile(archiveDirectory, month)));
+        }
+        assertEquals(expiredRows, archived(expired));
+        assertEquals(interruptedRows, archived(interrupted));
+        assertTrue(attached.contains(name(oldestKept)));
+        assertFalse(attached.contains(name(expired)));
+        assertTrue(detached.isEmpty());
+        assertTrue(pending.isEmpty());
+    }
+
+    @Test
+    public void testMaintain_KeepsPartitionWhenArchiveIsIncomplete() {
+        // Arrange: the partition counts a row that the archive read did not return
+        YearMonth expired = now.minusMonths(14);
+        partition(expired, 3, attached);
+        extraRowCounts.put(name(expired), 1L);
+
+        // Act
+        maintainer.maintain();
+
+        // Assert: detached but not dropped, so the next run archives it again
+        assertEquals(Set.of(name(expired)), detached);
+        assertFalse(statements.contains("drop table " + name(expired)));
+    }
+
+    @Test
+    public void testRetainedFrom_StartOfOldestKeptMonth() {
+        assertEquals(now.minusMonths(13).atDay(1).atStartOfDay(), maintainer.retainedFrom());
+        properties.setRetentionMonths(0);
+        assertNull(maintainer.retainedFrom());
+    }
+
+    @Test
+    public void testMaintain_DoesNothingOutsidePostgres() {
+        // Arrange
+        productName = "H2";
+
+        // Act
+        maintainer.maintain();
+
+        // Assert
+        assertNull(maintainer.retainedFrom());
+        assertTrue(statements.isEmpty());
+    }
+
+    private List<TransactionHistoryDTO> partition(YearMonth month, int count, Set<String> state) {
+        List<TransactionHistoryDTO> transactions = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            transactions.add(new TransactionHistoryDTO(UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(),
+                    Money.ofMinor(100 + i), Currency.GBP, month.atDay(1).atStartOfDay().plusHours(i)));
+        }
+        state.add(name(month));
+        rows.put(name(month), transactions);
+        return transactions;
+    }
+
+    private List<TransactionHistoryDTO> archived(YearMonth month) {
+        List<TransactionHistoryDTO> transactions = new ArrayList<>();
+        TransactionArchiveReader.read(archiveDirectory, month, month.atDay(1).atStartOfDay(),
+                month.plusMonths(1).atDay(1).atStartOfDay(), transactions::add);
+        return transactions;
+    }
+
+    private int indexOf(String prefix) {
+        for (int i = 0; i < statements.size(); i++) {
+            if (statements.get(i).startsWith(prefix)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String name(YearMonth month) {
+        return TransactionPartitionMaintainer.partitionName(month);
+    }
+
+    private Connection catalogConnection() throws SQLException {
+        Connection connection = mock(Connection.class);
+        DatabaseMetaData metaData = mock(DatabaseMetaData.class);
+        when(metaData.getDatabaseProductName()).thenAnswer(invocation -> productName);
+        when(connection.getMetaData()).thenReturn(metaData);
+        when(connection.createStatement()).thenAnswer(invocation -> {
+            Statement statement = mock(Statement.class);
+            when(statement.execute(anyString())).thenAnswer(call -> {
+                apply(call.getArgument(0));
+                return false;
+            });
+            when(statement.executeQuery(anyString())).thenAnswer(call -> query(call.getArgument(0)));
+            return statement;
+        });
+        when(connection.prepareStatement(anyString())).thenAnswer(invocation -> {
+            Matcher matcher = ROWS.matcher(invocation.<String>getArgument(0));
+            assertTrue(matcher.matches());
+            PreparedStatement statement = mock(PreparedStatement.class);
+            when(statement.executeQuery()).thenAnswer(call -> transactionRows(rows.get(matcher.group(1))));
+            return statement;
+        });
+        return connection;
+    }
+
+    private void apply(String sql) {
+        statements.add(sql);
+        Matcher matcher;
+        if ((matcher = CREATE.matcher(sql)).matches()) {
+            if (!pending.contains(matcher.group(1)) && !detached.contains(matcher.group(1))) {
+                attached.add(matcher.group(1));
+            }
+        } else if ((matcher = DETACH.matcher(sql)).matches()) {
+            Set<String> from = "finalize".equals(matcher.group(2)) ? pending : attached;
+            assertTrue(from.remove(matcher.group(1)), sql);
+            detached.add(matcher.group(1));
+        } else if ((matcher = DROP.matcher(sql)).matches()) {
+            assertTrue(detached.remove(matcher.group(1)), sql);
+        } else {
+            fail("Unexpected statement: " + sql);
+        }
+    }
+
+    private ResultSet query(String sql) throws SQLException {
+        Matcher count = COUNT.matcher(sql);
+        if (count.matches()) {
+            String partition = count.group(1);
+            return values(rows.get(partition).size() + extraRowCounts.getOrDefault(partition, 0L));
+        }
+        if (sql.contains("advisory_lock") || sql.contains("advisory_unlock") || sql.contains("pg_partitioned_table")) {
+            return values(true);
+        }
+        if (sql.contains("inhdetachpending")) {
+            return values(pending.toArray());
+        }
+        if (sql.contains("pg_inherits")) {
+            return values(attached.toArray());
+        }
+        if (sql.contains("relispartition")) {
+            return values(detached.toArray());
+        }
+        throw new AssertionError("Unexpected query: " + sql);
+    }
+
+    /**
+     * A result set of one column, one row per value.
+     */
+    private static ResultSet values(Object... values) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        int[] row = {-1};
+        when(rs.next()).thenAnswer(invocation -> ++row[0] < values.length);
+        when(rs.getString(1)).thenAnswer(invocation -> (String) values[row[0]]);
+        when(rs.getBoolean(1)).thenAnswer(invocation -> (Boolean) values[row[0]]);
+        when(rs.getLong(1)).thenAnswer(invocation -> ((Number) values[row[0]]).longValue());
+        return rs;
+    }
+
+    private static ResultSet transactionRows(List<TransactionHistoryDTO> transactions) throws SQLException {
+        ResultSet rs = mock(ResultSet.class);
+        int[] row = {-1};
+        when(rs.next()).thenAnswer(invocation -> ++row[0] < transactions.size());
+        when(rs.getObject(anyString(), eq(UUID.class))).thenAnswer(invocation -> {
+            TransactionHistoryDTO transaction = transactions.get(row[0]);
+            return switch (invocation.<String>getArgument(0)) {
+                case "id" -> transaction.id();
+                case "source_account_id" -> transaction.sourceAccountId();
+                default -> transaction.targetAccountId();
+            };
+        });
+        when(rs.getBigDecimal("amount")).thenAnswer(invocation -> transactions.get(row[0]).amount().toBigDecimal());
+        when(rs.getString("currency")).thenAnswer(invocation -> transactions.get(row[0]).currency().name());
+        when(rs.getTimestamp("created_at")).thenAnswer(invocation -> Timestamp.valueOf(transactions.get(row[0]).createdAt()));
+        when(rs.getString(anyInt())).thenThrow(new AssertionError("Columns are read by name"));
+        return rs;
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.project.service.reconciliation;
+
+import com.example.project.config.ReconciliationProperties;
+import com.example.project.service.partition.TransactionPartitionMaintainer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class LedgerReconcilerTest {
+
+    private static final LocalDateTime ARCHIVED_BEFORE = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private JdbcDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private TransactionPartitionMaintainer partitionMaintainer;
+    private LedgerReconciler reconciler;
+
+    @BeforeEach
+    public void setUp() {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:reconciliation;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table account (id uuid primary key, balance numeric(38,2) not null, " +
+                "stripe_count int default 0 not null)");
+        jdbcTemplate.execute("create table account_balance_stripe (account_id uuid, stripe int, balance numeric(38,2))");
+        jdbcTemplate.execute("create table transaction (id uuid primary key, source_account_id uuid, " +
+                "target_account_id uuid, amount numeric(38,2), created_at timestamp)");
+        jdbcTemplate.execute("create table balance_snapshot (account_id uuid, taken_at timestamp, " +
+                "balance numeric(38,2), kind varchar(16))");
+        jdbcTemplate.execute("create table reconciliation_run (id bigint primary key, started_at timestamp not null, " +
+                "finished_at timestamp, ranges int not null, accounts bigint, mismatches bigint)");
+        jdbcTemplate.execute("create table reconciliation_range (run_id bigint, range_no int, lower_id uuid, " +
+                "upper_id uuid, claimed_at timestamp, finished_at timestamp, accounts bigint, " +
+                "balance_total numeric(38,2), checksum bigint, mismatches int, primary key (run_id, range_no))");
+        jdbcTemplate.execute("create table reconciliation_mismatch (run_id bigint, account_id uuid, " +
+                "balance numeric(38,2), expected numeric(38,2), primary key (run_id, account_id))");
+
+        partitionMaintainer = mock(TransactionPartitionMaintainer.class);
+        when(partitionMaintainer.retainedFrom()).thenReturn(ARCHIVED_BEFORE);
+        ReconciliationProperties properties = new ReconciliationProperties();
+        properties.setParallelism(1);
+        properties.setRangeSize(2);
+        reconciler = new LedgerReconciler(jdbcTemplate, new DataSourceTransactionManager(dataSource), partitionMaintainer,
+                properties, new SimpleMeterRegistry());
+
+        // Five accounts in three ranges: (, 2], (2, 4] and (4, )
+        account(1, "50.00");
+        account(2, "70.00");
+        account(3, "40.00");
+        account(4, "70.00");
+        account(5, "-1034.00");
+        // No checkpoint: the sum of all transactions
+        transfer(5, 1, "50.00", date(1, 10));
+        // An opening balance: the transactions before it are not counted
+        snapshot(2, date(1, 1), "100.00", "OPENING");
+        transfer(5, 2, "999.00", LocalDateTime.of(2023, 12, 20, 0, 0));
+        transfer(2, 5, "30.00", date(1, 5));
+        // An overwrite, followed by a checkpoint derived from a balance that went wrong afterwards
+        snapshot(3, date(1, 2), "10.00", "OVERWRITE");
+        transfer(5, 3, "5.00", date(1, 3));
+        snapshot(3, date(1, 4), "40.00", "SCHEDULED");
+        // An opening balance in an archived month: the first checkpoint after the archive instead
+        snapshot(4, LocalDateTime.of(2023, 12, 1, 0, 0), "0.00", "OPENING");
+        snapshot(4, date(1, 2), "60.00", "SCHEDULED");
+        transfer(5, 4, "10.00", date(1, 3));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("shutdown");
+    }
+
+    @Test
+    public void testReconcile_AnchorsEachAccountOnItsCheckpoints() {
+        // Act
+        reconciler.reconcile();
+
+        // Assert: only the account whose balance drifted after its overwrite is reported
+        Map<String, Object> run = jdbcTemplate.queryForMap("select * from reconciliation_run");
+        assertNotNull(run.get("finished_at"));
+        assertEquals(3, ((Number) run.get("ranges")).intValue());
+        assertEquals(5, ((Number) run.get("accounts")).intValue());
+        assertEquals(1, ((Number) run.get("mismatches")).intValue());
+        Map<String, Object> mismatch = jdbcTemplate.queryForMap("select * from reconciliation_mismatch");
+        assertEquals(id(3), mismatch.get("account_id"));
+        assertEquals(new BigDecimal("40.00"), mismatch.get("balance"));
+        assertEquals(new BigDecimal("15.00"), mismatch.get("expected"));
+    }
+
+    @Test
+    public void testReconcile_LeavesRangeClaimedByAnotherWorker() throws Exception {
+        // Arrange: range 1 is claimed, and its worker is still within the claim timeout
+        interruptedRun();
+
+        // Act & Assert: neither a recent claim nor a row lock held by a claiming worker is taken over
+        reconciler.reconcile();
+        assertNull(rangeFinishedAt(1));
+        expireClaim(1);
+        jdbcTemplate.update("update reconciliation_range set claimed_at = null, finished_at = null where range_no = 2");
+        try (Connection worker = dataSource.getConnection()) {
+            worker.setAutoCommit(false);
+            try (PreparedStatement claim = worker.prepareStatement(
+                    "select range_no from reconciliation_range where run_id = 1 and range_no = 1 for update")) {
+                claim.executeQuery().close();
+            }
+            reconciler.reconcile();
+            assertNull(rangeFinishedAt(1));
+            // The locked range is skipped rather than waited for
+            assertNotNull(rangeFinishedAt(2));
+            worker.rollback();
+        }
+        assertNull(jdbcTemplate.queryForObject("select finished_at from reconciliation_run", Timestamp.class));
+    }
+
+    @Test
+    public void testReconcile_ResumesFromUnfinishedRanges() {
+        // Arrange: range 1 failed, and its claim has expired
+        interruptedRun();
+        Timestamp range0 = rangeFinishedAt(0);
+        Timestamp range2 = rangeFinishedAt(2);
+        expireClaim(1);
+        clearInvocations(partitionMaintainer);
+
+        // Act
+        reconciler.reconcile();
+
+        // Assert: the same run, with only the unfinished range reconciled again
+        assertEquals(1, jdbcTemplate.queryForObject("select count(*) from reconciliation_run", Integer.class));
+        assertNotNull(jdbcTemplate.queryForObject("select finished_at from reconciliation_run", Timestamp.class));
+        verify(partitionMaintainer, times(1)).retainedFrom();
+        assertEquals(range0, rangeFinishedAt(0));
+        assertEquals(range2, rangeFinishedAt(2));
+        assertEquals(5, jdbcTemplate.queryForObject("select accounts from reconciliation_run", Integer.class));
+        assertEquals(List.of(id(3)), jdbcTemplate.queryForList("select account_id from reconciliation_mismatch", UUID.class));
+    }
+
+    /**
+     * Runs a reconciliation whose worker fails on range 1, leaving the range claimed but unfinished.
+     */
+    private void interruptedRun() {
+        when(partitionMaintainer.retainedFrom())
+                .thenReturn(ARCHIVED_BEFORE)
+                .thenThrow(new IllegalStateException("connection reset"))
+                .thenReturn(ARCHIVED_BEFORE);
+        reconciler.reconcile();
+        assertNotNull(rangeFinishedAt(0));
+        assertNull(rangeFinishedAt(1));
+        assertNotNull(rangeFinishedAt(2));
+        when(partitionMaintainer.retainedFrom()).thenReturn(ARCHIVED_BEFORE);
+    }
+
+    private void expireClaim(int range) {
+        jdbcTemplate.update("update reconciliation_range set claimed_at = ? where range_no = ?",
+                Timestamp.valueOf(LocalDateTime.now().minusHours(2)), range);
+    }
+
+    private Timestamp rangeFinishedAt(int range) {
+        return jdbcTemplate.queryForObject("select finished_at from reconciliation_range where range_no = ?",
+                Timestamp.class, range);
+    }
+
+    private void account(int id, String balance) {
+        jdbcTemplate.update("insert into account (id, balance) values (?, ?)", id(id), new BigDecimal(balance));
+    }
+
+    private void transfer(int source, int target, String amount, LocalDateTime createdAt) {
+        jdbcTemplate.update("insert into transaction (id, source_account_id, target_account_id, amount, created_at) " +
+                "values (?, ?, ?, ?, ?)", UUID.randomUUID(), id(source), id(target), new BigDecimal(amount),
+                Timestamp.valueOf(createdAt));
+    }
+
+    private void snapshot(int account, LocalDateTime takenAt, String balance, String kind) {
+        jdbcTemplate.update("insert into balance_snapshot (account_id, taken_at, balance, kind) values (?, ?, ?, ?)",
+                id(account), Timestamp.valueOf(takenAt), new BigDecimal(balance), kind);
+    }
+
+    private static UUID id(int id) {
+        return new UUID(0, id);
+    }
+
+    private static LocalDateTime date(int month, int day) {
+        return LocalDateTime.of(2024, month, day, 0, 0);
+    }
+}
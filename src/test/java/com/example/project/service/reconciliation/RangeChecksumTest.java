@@ -0,0 +1,41 @@
+package com.example.project.service.reconciliation;
+
+import com.example.project.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RangeChecksumTest {
+
+    private final UUID first = UUID.fromString("0190a1b2-0000-7000-8000-000000000001");
+    private final UUID second = UUID.fromString("0190a1b2-0000-7000-8000-000000000002");
+
+    @Test
+    public void testChecksum_IndependentOfOrder() {
+        RangeChecksum forward = new RangeChecksum();
+        forward.add(first, Money.parse("10.50"));
+        forward.add(second, Money.parse("3"));
+        RangeChecksum backward = new RangeChecksum();
+        backward.add(second, Money.parse("3"));
+        backward.add(first, Money.parse("10.50"));
+
+        assertEquals(forward.checksum(), backward.checksum());
+        assertEquals(2, backward.accounts());
+        assertEquals(Money.parse("13.50"), backward.balanceTotal());
+    }
+
+    @Test
+    public void testChecksum_ChangesWithBalances() {
+        RangeChecksum original = new RangeChecksum();
+        original.add(first, Money.parse("10.50"));
+        original.add(second, Money.parse("3"));
+        RangeChecksum moved = new RangeChecksum();
+        moved.add(first, Money.parse("3"));
+        moved.add(second, Money.parse("10.50"));
+
+        assertEquals(original.balanceTotal(), moved.balanceTotal());
+        assertNotEquals(original.checksum(), moved.checksum());
+    }
+}
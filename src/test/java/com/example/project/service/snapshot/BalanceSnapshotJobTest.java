@@ -0,0 +1,158 @@
+package com.example.project.service.snapshot;
+
+import com.example.project.config.BalanceSnapshotProperties;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BalanceSnapshotJobTest {
+
+    private static final LocalDateTime WATERMARK = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private BalanceSnapshotJob balanceSnapshotJob;
+
+    @BeforeEach
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:balance-snapshot-job;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table account (id uuid primary key, balance numeric(38,2) not null, " +
+                "stripe_count int default 0 not null)");
+        jdbcTemplate.execute("create table account_balance_stripe (account_id uuid, stripe int, " +
+                "balance numeric(38,2) default 0 not null, primary key (account_id, stripe))");
+        jdbcTemplate.execute("create table transaction (id uuid primary key, source_account_id uuid, " +
+                "target_account_id uuid, amount numeric(38,2), created_at timestamp)");
+        jdbcTemplate.execute("create table balance_snapshot (account_id uuid, taken_at timestamp, " +
+                "balance numeric(38,2) not null, kind varchar(16) not null, primary key (account_id, taken_at))");
+        jdbcTemplate.execute("create table balance_snapshot_watermark (id int primary key, taken_at timestamp not null)");
+        jdbcTemplate.update("insert into balance_snapshot_watermark (id, taken_at) values (1, ?)",
+                Timestamp.valueOf(WATERMARK));
+
+        balanceSnapshotJob = new BalanceSnapshotJob(jdbcTemplate, new DataSourceTransactionManager(dataSource),
+                new BalanceSnapshotProperties());
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("shutdown");
+    }
+
+    @Test
+    public void testCheckpoint_WritesBalancesAsOfCheckpointTime() {
+        // Arrange: balances as they are now, after transactions on both sides of the checkpoint time
+        LocalDateTime takenAt = WATERMARK.plusMinutes(15);
+        UUID source = createAccount("60.00");
+        UUID target = createAccount("45.00");
+        UUID untouched = createAccount("10.00");
+        transaction(source, target, "30.00", WATERMARK.minusMinutes(1));
+        transaction(source, target, "25.00", WATERMARK.plusMinutes(5));
+        transaction(source, target, "15.00", takenAt);
+        transaction(target, source, "40.00", takenAt.plusMinutes(1));
+        transaction(source, target, "5.00", takenAt.plusMinutes(2));
+
+        // Act
+        int written = balanceSnapshotJob.checkpoint(takenAt);
+
+        // Assert: the later transactions are taken back, and accounts without a transaction in the run are skipped
+        assertEquals(2, written);
+        assertEquals(new BigDecimal("25.00"), checkpoint(source, takenAt));
+        assertEquals(new BigDecimal("80.00"), checkpoint(target, takenAt));
+        assertTrue(checkpoints(untouched).isEmpty());
+        assertEquals(takenAt, watermark());
+    }
+
+    @Test
+    public void testCheckpoint_NothingToDoUpToWatermark() {
+        // Arrange
+        UUID source = createAccount("100.00");
+        UUID target = createAccount("0.00");
+        transaction(source, target, "1.00", WATERMARK.minusMinutes(1));
+
+        // Act & Assert: a run at or before the previous one writes nothing and keeps the watermark
+        assertEquals(0, balanceSnapshotJob.checkpoint(WATERMARK));
+        assertEquals(0, balanceSnapshotJob.checkpoint(WATERMARK.minusHours(1)));
+        assertTrue(checkpoints(source).isEmpty());
+        assertEquals(WATERMARK, watermark());
+    }
+
+    @Test
+    public void testCheckpoint_StripedAccountSumsStripes() {
+        // Arrange: the account's own balance is 0, its stripes hold 70.00
+        LocalDateTime takenAt = WATERMARK.plusMinutes(15);
+        UUID striped = createAccount("0.00");
+        UUID payer = createAccount("100.00");
+        jdbcTemplate.update("update account set stripe_count = 2 where id = ?", striped);
+        jdbcTemplate.update("insert into account_balance_stripe (account_id, stripe, balance) values (?, 0, 40.00), (?, 1, 30.00)",
+                striped, striped);
+        transaction(payer, striped, "50.00", WATERMARK.plusMinutes(1));
+        transaction(payer, striped, "20.00", takenAt.plusMinutes(1));
+
+        // Act
+        balanceSnapshotJob.checkpoint(takenAt);
+
+        // Assert
+        assertEquals(new BigDecimal("50.00"), checkpoint(striped, takenAt));
+    }
+
+    @Test
+    public void testCheckpoint_SkipsAccountsWithLaterCheckpoint() {
+        // Arrange: the target's balance was overwritten after the checkpoint time, which wrote its own checkpoint
+        LocalDateTime takenAt = WATERMARK.plusMinutes(15);
+        UUID source = createAccount("90.00");
+        UUID target = createAccount("500.00");
+        transaction(source, target, "10.00", WATERMARK.plusMinutes(1));
+        jdbcTemplate.update("insert into balance_snapshot (account_id, taken_at, balance, kind) values (?, ?, 500.00, 'ADJUSTMENT')",
+                target, Timestamp.valueOf(takenAt.plusMinutes(1)));
+
+        // Act
+        int written = balanceSnapshotJob.checkpoint(takenAt);
+
+        // Assert
+        assertEquals(1, written);
+        assertEquals(new BigDecimal("90.00"), checkpoint(source, takenAt));
+        assertEquals(List.of(takenAt.plusMinutes(1)), checkpoints(target));
+    }
+
+    private UUID createAccount(String balance) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("insert into account (id, balance) values (?, ?)", id, new BigDecimal(balance));
+        return id;
+    }
+
+    private void transaction(UUID source, UUID target, String amount, LocalDateTime createdAt) {
+        jdbcTemplate.update("insert into transaction (id, source_account_id, target_account_id, amount, created_at) " +
+                "values (?, ?, ?, ?, ?)", UUID.randomUUID(), source, target, new BigDecimal(amount),
+                Timestamp.valueOf(createdAt));
+    }
+
+    private BigDecimal checkpoint(UUID accountId, LocalDateTime takenAt) {
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "select balance, kind from balance_snapshot where account_id = ? and taken_at = ?",
+                accountId, Timestamp.valueOf(takenAt));
+        assertEquals("SCHEDULED", row.get("kind"));
+        return (BigDecimal) row.get("balance");
+    }
+
+    private List<LocalDateTime> checkpoints(UUID accountId) {
+        return jdbcTemplate.queryForList("select taken_at from balance_snapshot where account_id = ? order by taken_at",
+                LocalDateTime.class, accountId);
+    }
+
+    private LocalDateTime watermark() {
+        return jdbcTemplate.queryForObject("select taken_at from balance_snapshot_watermark where id = 1",
+                LocalDateTime.class);
+    }
+}
@@ -0,0 +1,120 @@
+package com.example.project.service.snapshot;
+
+import com.example.project.enums.BalanceSnapshotKind;
+import com.example.project.exception.CustomBadRequestException;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.money.Money;
+import com.example.project.service.partition.TransactionPartitionMaintainer;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class BalanceSnapshotsTest {
+
+    private static final LocalDateTime OPENED = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    private JdbcTemplate jdbcTemplate;
+    private TransactionPartitionMaintainer partitionMaintainer;
+    private BalanceSnapshots balanceSnapshots;
+    private UUID account;
+    private UUID other;
+
+    @BeforeEach
+    public void setUp() {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:balance-snapshots;MODE=PostgreSQL;DB_CLOSE_DELAY=-1");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table account (id uuid primary key, balance numeric(38,2) not null, " +
+                "created_at timestamp not null, stripe_count int default 0 not null)");
+        jdbcTemplate.execute("create table transaction (id uuid primary key, source_account_id uuid, " +
+                "target_account_id uuid, amount numeric(38,2), created_at timestamp)");
+        jdbcTemplate.execute("create table balance_snapshot (account_id uuid, taken_at timestamp, " +
+                "balance numeric(38,2) not null, kind varchar(16) not null, primary key (account_id, taken_at))");
+
+        partitionMaintainer = mock(TransactionPartitionMaintainer.class);
+        balanceSnapshots = new BalanceSnapshots(jdbcTemplate, partitionMaintainer);
+
+        account = createAccount("100.00");
+        other = createAccount("1000.00");
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jdbcTemplate.execute("shutdown");
+    }
+
+    @Test
+    public void testBalanceAsOf_ReplaysTransactionsSinceNearestCheckpoint() {
+        // Arrange: 30.00 received and 20.00 sent, then the balance overwritten to 500.00, then 5.00 received
+        transaction(other, account, "30.00", OPENED.plusHours(1));
+        transaction(account, other, "20.00", OPENED.plusHours(2));
+        transaction(other, account, "7.00", OPENED.plusHours(3));
+        balanceSnapshots.record(account, OPENED.plusHours(3), Money.parse("500.00"), BalanceSnapshotKind.ADJUSTMENT);
+        transaction(other, account, "5.00", OPENED.plusHours(4));
+
+        // Act & Assert: a transaction created at the queried time counts, one created at the checkpoint time does not
+        assertEquals(Money.parse("100.00"), balanceAt(OPENED));
+        assertEquals(Money.parse("130.00"), balanceAt(OPENED.plusHours(1)));
+        assertEquals(Money.parse("110.00"), balanceAt(OPENED.plusHours(2).plusMinutes(30)));
+        assertEquals(Money.parse("500.00"), balanceAt(OPENED.plusHours(3)));
+        assertEquals(Money.parse("505.00"), balanceAt(OPENED.plusHours(4)));
+    }
+
+    @Test
+    public void testBalanceAsOf_UnknownAccountIsNotFound() {
+        assertThrows(CustomNotFoundException.class,
+                () -> balanceSnapshots.balanceAsOf(UUID.randomUUID(), OPENED.plusHours(1)));
+    }
+
+    @Test
+    public void testBalanceAsOf_RejectsTimesWithoutHistory() {
+        // Arrange: the months before June are archived
+        when(partitionMaintainer.retainedFrom()).thenReturn(LocalDateTime.of(2024, 6, 1, 0, 0));
+        UUID unrecorded = UUID.randomUUID();
+        jdbcTemplate.update("insert into account (id, balance, created_at) values (?, 0, ?)",
+                unrecorded, Timestamp.valueOf(LocalDateTime.of(2024, 7, 1, 0, 0)));
+
+        // Act & Assert
+        CustomBadRequestException future = assertThrows(CustomBadRequestException.class,
+                () -> balanceSnapshots.balanceAsOf(account, LocalDateTime.now().plusMinutes(1)));
+        assertTrue(future.getMessage().contains("in the future"), future.getMessage());
+        CustomBadRequestException archived = assertThrows(CustomBadRequestException.class,
+                () -> balanceSnapshots.balanceAsOf(account, LocalDateTime.of(2024, 5, 31, 23, 59)));
+        assertTrue(archived.getMessage().contains("archived"), archived.getMessage());
+        CustomBadRequestException beforeCreation = assertThrows(CustomBadRequestException.class,
+                () -> balanceSnapshots.balanceAsOf(unrecorded, LocalDateTime.of(2024, 6, 30, 0, 0)));
+        assertTrue(beforeCreation.getMessage().contains("did not exist"), beforeCreation.getMessage());
+        CustomBadRequestException noCheckpoint = assertThrows(CustomBadRequestException.class,
+                () -> balanceSnapshots.balanceAsOf(unrecorded, LocalDateTime.of(2024, 7, 2, 0, 0)));
+        assertTrue(noCheckpoint.getMessage().startsWith("No balance history"), noCheckpoint.getMessage());
+        assertEquals(Money.parse("100.00"), balanceAt(LocalDateTime.of(2024, 6, 1, 0, 0)));
+    }
+
+    private Money balanceAt(LocalDateTime asOf) {
+        return balanceSnapshots.balanceAsOf(account, asOf).balance();
+    }
+
+    private UUID createAccount(String balance) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("insert into account (id, balance, created_at) values (?, ?, ?)",
+                id, new BigDecimal(balance), Timestamp.valueOf(OPENED));
+        balanceSnapshots.record(id, OPENED, Money.parse(balance), BalanceSnapshotKind.OPENING);
+        return id;
+    }
+
+    private void transaction(UUID source, UUID target, String amount, LocalDateTime createdAt) {
+        jdbcTemplate.update("insert into transaction (id, source_account_id, target_account_id, amount, created_at) " +
+                "values (?, ?, ?, ?, ?)", UUID.randomUUID(), source, target, new BigDecimal(amount),
+                Timestamp.valueOf(createdAt));
+    }
+}
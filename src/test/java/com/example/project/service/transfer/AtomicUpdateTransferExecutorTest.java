@@ -0,0 +1,156 @@
+package com.example.project.service.transfer;
+
+import com.example.project.dto.TransactionDTO;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.exception.InsufficientFundsException;
+import com.example.project.money.Money;
+import com.example.project.repository.AccountBalanceStripeRepository;
+import com.example.project.repository.AccountRepository;
+import com.example.project.service.StripedBalanceService;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@TransferExecutorSlice
+public class AtomicUpdateTransferExecutorTest {
+
+    @Autowired
+    private AtomicUpdateTransferExecutor executor;
+
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @Autowired
+    private AccountBalanceStripeRepository stripeRepository;
+
+    @SpyBean
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void testTransfer_MovesMoneyWithConditionalUpdates() {
+        // Arrange
+        UUID source = account("100.00");
+        UUID target = account("5.00");
+
+        // Act
+        executor.transfer(transfer(source, target, "30.00"));
+
+        // Assert: both rows updated without being read, and the transfer recorded with its outbox events
+        assertEquals(new BigDecimal("70.00"), balance(source));
+        assertEquals(new BigDecimal("35.00"), balance(target));
+        assertEquals(1, version(source));
+        assertEquals(1, version(target));
+        verify(accountRepository, never()).findById(any());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from transaction where source_account_id = ?", Integer.class, source));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "select count(*) from transfer_outbox where transaction_id in " +
+                        "(select id from transaction where source_account_id = ?)", Integer.class, source));
+    }
+
+    @Test
+    public void testTransfer_UpdatesRowsInLockOrder() {
+        // Arrange: the same two accounts, once in each direction
+        UUID first = account("100.00");
+        UUID second = account("100.00");
+        if (!AccountLockOrder.lockFirst(first, second)) {
+            UUID swap = first;
+            first = second;
+            second = swap;
+        }
+
+        // Act
+        executor.transfer(transfer(first, second, "1.00"));
+        executor.transfer(transfer(second, first, "1.00"));
+
+        // Assert: the first account in lock order is always updated first
+        InOrder order = inOrder(accountRepository);
+        order.verify(accountRepository).debitIfSufficient(first, Money.parse("1.00"));
+        order.verify(accountRepository).credit(second, Money.parse("1.00"));
+        order.verify(accountRepository).credit(first, Money.parse("1.00"));
+        order.verify(accountRepository).debitIfSufficient(second, Money.parse("1.00"));
+    }
+
+    @Test
+    public void testTransfer_InsufficientFundsChangesNothing() {
+        // Arrange
+        UUID source = account("10.00");
+        UUID target = account("0.00");
+
+        // Act & Assert: whichever row is updated first, the failed debit rolls it back
+        assertThrows(InsufficientFundsException.class, () -> executor.transfer(transfer(source, target, "10.01")));
+        assertThrows(InsufficientFundsException.class, () -> executor.transfer(transfer(source, target, "10.01")));
+        assertEquals(new BigDecimal("10.00"), balance(source));
+        assertEquals(new BigDecimal("0.00"), balance(target));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from transaction where source_account_id = ?", Integer.class, source));
+    }
+
+    @Test
+    public void testTransfer_UnknownAccountIsNotFound() {
+        // Arrange
+        UUID account = account("50.00");
+
+        // Act & Assert
+        CustomNotFoundException source = assertThrows(CustomNotFoundException.class,
+                () -> executor.transfer(transfer(UUID.randomUUID(), account, "1.00")));
+        assertTrue(source.getMessage().startsWith("Source Account not found"));
+        CustomNotFoundException target = assertThrows(CustomNotFoundException.class,
+                () -> executor.transfer(transfer(account, UUID.randomUUID(), "1.00")));
+        assertTrue(target.getMessage().startsWith("Target Account not found"));
+        assertEquals(new BigDecimal("50.00"), balance(account));
+    }
+
+    @Test
+    public void testTransfer_StripedAccountsUseTheirStripes() {
+        // Arrange
+        UUID striped = account("100.00");
+        UUID plain = account("100.00");
+        stripedBalanceService.stripeAccount(striped, 4);
+
+        // Act
+        executor.transfer(transfer(striped, plain, "60.00"));
+        executor.transfer(transfer(plain, striped, "10.00"));
+
+        // Assert: the striped account's own balance stays 0, its stripes hold the balance
+        assertEquals(new BigDecimal("0.00"), balance(striped));
+        assertEquals(0, new BigDecimal("50.00").compareTo(stripeRepository.sumBalance(striped)));
+        assertEquals(new BigDecimal("150.00"), balance(plain));
+        assertThrows(InsufficientFundsException.class, () -> executor.transfer(transfer(striped, plain, "50.01")));
+        assertEquals(0, new BigDecimal("50.00").compareTo(stripeRepository.sumBalance(striped)));
+        assertEquals(new BigDecimal("150.00"), balance(plain));
+    }
+
+    private UUID account(String balance) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("insert into account (id, balance, currency, created_at, version, stripe_count) " +
+                "values (?, ?, 'GBP', ?, 0, 0)", id, new BigDecimal(balance), Timestamp.valueOf(LocalDateTime.now()));
+        return id;
+    }
+
+    private BigDecimal balance(UUID id) {
+        return jdbcTemplate.queryForObject("select balance from account where id = ?", BigDecimal.class, id);
+    }
+
+    private int version(UUID id) {
+        return jdbcTemplate.queryForObject("select version from account where id = ?", Integer.class, id);
+    }
+
+    private static TransactionDTO transfer(UUID source, UUID target, String amount) {
+        return new TransactionDTO(source, target, Money.parse(amount), null, 0);
+    }
+}
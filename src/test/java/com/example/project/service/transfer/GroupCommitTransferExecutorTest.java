@@ -0,0 +1,118 @@
+package com.example.project.service.transfer;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.dto.BatchTransferResult;
+import com.example.project.dto.TransactionDTO;
+import com.example.project.dto.TransferResponse;
+import com.example.project.enums.BatchTransferStatus;
+import com.example.project.exception.InsufficientFundsException;
+import com.example.project.money.Money;
+import com.example.project.service.BatchTransferService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class GroupCommitTransferExecutorTest {
+
+    @Mock
+    private BatchTransferService batchTransferService;
+
+    private GroupCommitTransferExecutor executor;
+
+    @BeforeEach
+    public void setUp() {
+        TransferProperties transferProperties = new TransferProperties();
+        transferProperties.getGroupCommit().setMaxBatchSize(3);
+        transferProperties.getGroupCommit().setMaxWait(Duration.ofSeconds(1));
+        executor = new GroupCommitTransferExecutor(batchTransferService, transferProperties, new SimpleMeterRegistry());
+        executor.start();
+    }
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        executor.stop();
+    }
+
+    @Test
+    public void testTransfer_CommitsConcurrentTransfersTogether() throws Exception {
+        // Arrange: the second transfer is rejected
+        List<List<TransactionDTO>> groups = new ArrayList<>();
+        when(batchTransferService.applyTogether(anyList())).thenAnswer(invocation -> {
+            List<TransactionDTO> group = invocation.getArgument(0);
+            groups.add(group);
+            BatchTransferResult[] results = new BatchTransferResult[group.size()];
+            for (int i = 0; i < results.length; i++) {
+                BatchTransferStatus status = group.get(i).amount().equals(Money.parse("2.00"))
+                        ? BatchTransferStatus.INSUFFICIENT_FUNDS : BatchTransferStatus.APPLIED;
+                results[i] = new BatchTransferResult(i, null, null, group.get(i).amount(), status, null);
+            }
+            return results;
+        });
+
+        // Act
+        List<CompletableFuture<TransferResponse>> responses = new ArrayList<>();
+        for (String amount : List.of("1.00", "2.00", "3.00")) {
+            responses.add(CompletableFuture.supplyAsync(() -> executor.transfer(transfer(amount))));
+        }
+
+        // Assert
+        assertEquals(Money.parse("1.00"), responses.get(0).get(5, TimeUnit.SECONDS).amount());
+        Exception ex = assertThrows(Exception.class, () -> responses.get(1).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(InsufficientFundsException.class, ex.getCause());
+        assertEquals(Money.parse("3.00"), responses.get(2).get(5, TimeUnit.SECONDS).amount());
+        assertEquals(1, groups.size());
+        assertEquals(3, groups.get(0).size());
+    }
+
+    @Test
+    public void testTransfer_AppliesTransfersAloneWhenTheirGroupFails() throws Exception {
+        // Arrange: any group containing 2.00 deadlocks
+        CountDownLatch grouped = new CountDownLatch(1);
+        when(batchTransferService.applyTogether(anyList())).thenAnswer(invocation -> {
+            List<TransactionDTO> group = invocation.getArgument(0);
+            if (group.size() > 1) {
+                grouped.countDown();
+            }
+            if (group.stream().anyMatch(transfer -> transfer.amount().equals(Money.parse("2.00")))) {
+                throw new CannotAcquireLockException("deadlock");
+            }
+            return new BatchTransferResult[]{
+                    new BatchTransferResult(0, null, null, group.get(0).amount(), BatchTransferStatus.APPLIED, null)};
+        });
+
+        // Act
+        List<CompletableFuture<TransferResponse>> responses = new ArrayList<>();
+        for (String amount : List.of("1.00", "2.00", "3.00")) {
+            responses.add(CompletableFuture.supplyAsync(() -> executor.transfer(transfer(amount))));
+        }
+
+        // Assert
+        assertEquals(Money.parse("1.00"), responses.get(0).get(5, TimeUnit.SECONDS).amount());
+        Exception ex = assertThrows(Exception.class, () -> responses.get(1).get(5, TimeUnit.SECONDS));
+        assertInstanceOf(CannotAcquireLockException.class, ex.getCause());
+        assertEquals(Money.parse("3.00"), responses.get(2).get(5, TimeUnit.SECONDS).amount());
+        assertTrue(grouped.await(0, TimeUnit.SECONDS));
+    }
+
+    private static TransactionDTO transfer(String amount) {
+        return new TransactionDTO(UUID.randomUUID(), UUID.randomUUID(), Money.parse(amount), null, 0);
+    }
+}
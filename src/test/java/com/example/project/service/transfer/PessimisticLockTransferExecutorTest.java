@@ -0,0 +1,191 @@
+package com.example.project.service.transfer;
+
+import com.example.project.dto.TransactionDTO;
+import com.example.project.entity.Account;
+import com.example.project.exception.CustomNotFoundException;
+import com.example.project.exception.InsufficientFundsException;
+import com.example.project.money.Money;
+import com.example.project.repository.AccountBalanceStripeRepository;
+import com.example.project.repository.AccountRepository;
+import com.example.project.service.StripedBalanceService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@TransferExecutorSlice
+public class PessimisticLockTransferExecutorTest {
+
+    @Autowired
+    private PessimisticLockTransferExecutor executor;
+
+    @Autowired
+    private StripedBalanceService stripedBalanceService;
+
+    @Autowired
+    private AccountBalanceStripeRepository stripeRepository;
+
+    @SpyBean
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    public void testTransfer_MovesMoneyUnderRowLocks() {
+        // Arrange
+        UUID source = account("100.00");
+        UUID target = account("5.00");
+
+        // Act
+        executor.transfer(transfer(source, target, "30.00"));
+
+        // Assert: both accounts loaded with one locking query, and the transfer recorded with its outbox events
+        verify(accountRepository).findAllForTransfer(List.of(source, target));
+        assertEquals(new BigDecimal("70.00"), balance(source));
+        assertEquals(new BigDecimal("35.00"), balance(target));
+        assertEquals(1, version(source));
+        assertEquals(1, version(target));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from transaction where source_account_id = ?", Integer.class, source));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "select count(*) from transfer_outbox where transaction_id in " +
+                        "(select id from transaction where source_account_id = ?)", Integer.class, source));
+    }
+
+    @Test
+    public void testTransfer_LocksRowsInAccountLockOrder() {
+        // Arrange: IDs ordered differently by signed and by unsigned comparison
+        UUID low = account(new UUID(0x1000L, 1), "10.00");
+        UUID high = account(new UUID(0x8000000000000000L, 1), "10.00");
+        assertTrue(high.compareTo(low) < 0);
+
+        // Act
+        List<UUID> locked = transactionTemplate.execute(status ->
+                accountRepository.findAllForTransfer(List.of(high, low)).stream()
+                        .map(Account::getId)
+                        .toList());
+
+        // Assert: the database locks in the order that transfers compute in Java
+        assertEquals(List.of(low, high), locked);
+        assertTrue(AccountLockOrder.lockFirst(low, high));
+    }
+
+    @Test
+    public void testTransfer_InsufficientFundsChangesNothing() {
+        // Arrange
+        UUID source = account("10.00");
+        UUID target = account("0.00");
+
+        // Act & Assert
+        assertThrows(InsufficientFundsException.class, () -> executor.transfer(transfer(source, target, "10.01")));
+        assertEquals(new BigDecimal("10.00"), balance(source));
+        assertEquals(new BigDecimal("0.00"), balance(target));
+        assertEquals(0, version(source));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from transaction where source_account_id = ?", Integer.class, source));
+    }
+
+    @Test
+    public void testTransfer_UnknownAccountIsNotFound() {
+        // Arrange
+        UUID account = account("50.00");
+
+        // Act & Assert
+        CustomNotFoundException source = assertThrows(CustomNotFoundException.class,
+                () -> executor.transfer(transfer(UUID.randomUUID(), account, "1.00")));
+        assertTrue(source.getMessage().startsWith("Source Account not found"));
+        CustomNotFoundException target = assertThrows(CustomNotFoundException.class,
+                () -> executor.transfer(transfer(account, UUID.randomUUID(), "1.00")));
+        assertTrue(target.getMessage().startsWith("Target Account not found"));
+        assertEquals(new BigDecimal("50.00"), balance(account));
+    }
+
+    @Test
+    public void testTransfer_StripedAccountsUseTheirStripes() {
+        // Arrange
+        UUID striped = account("100.00");
+        UUID plain = account("100.00");
+        stripedBalanceService.stripeAccount(striped, 4);
+
+        // Act
+        executor.transfer(transfer(striped, plain, "60.00"));
+        executor.transfer(transfer(plain, striped, "10.00"));
+
+        // Assert: the striped account's own balance stays 0, its stripes hold the balance
+        assertEquals(new BigDecimal("0.00"), balance(striped));
+        assertEquals(0, new BigDecimal("50.00").compareTo(stripeRepository.sumBalance(striped)));
+        assertEquals(new BigDecimal("150.00"), balance(plain));
+        assertThrows(InsufficientFundsException.class, () -> executor.transfer(transfer(striped, plain, "50.01")));
+        assertEquals(0, new BigDecimal("50.00").compareTo(stripeRepository.sumBalance(striped)));
+        assertEquals(new BigDecimal("150.00"), balance(plain));
+    }
+
+    @Test
+    public void testTransfer_StripedAccountRowIsNotLocked() throws Exception {
+        // Arrange: another transaction holds the row of a striped account, as every transfer to it used to
+        UUID striped = account("0.00");
+        UUID first = account("100.00");
+        UUID second = account("100.00");
+        stripedBalanceService.stripeAccount(striped, 4);
+
+        try (Connection other = dataSource.getConnection()) {
+            other.setAutoCommit(false);
+            try (PreparedStatement lock = other.prepareStatement("select id from account where id = ? for update")) {
+                lock.setObject(1, striped);
+                lock.executeQuery().close();
+            }
+
+            // Act: credits to it do not wait for that row
+            executor.transfer(transfer(first, striped, "10.00"));
+            executor.transfer(transfer(second, striped, "20.00"));
+            other.rollback();
+        }
+
+        // Assert
+        assertEquals(0, new BigDecimal("30.00").compareTo(stripeRepository.sumBalance(striped)));
+        assertEquals(new BigDecimal("90.00"), balance(first));
+        assertEquals(new BigDecimal("80.00"), balance(second));
+    }
+
+    private UUID account(String balance) {
+        return account(UUID.randomUUID(), balance);
+    }
+
+    private UUID account(UUID id, String balance) {
+        jdbcTemplate.update("insert into account (id, balance, currency, created_at, version, stripe_count) " +
+                "values (?, ?, 'GBP', ?, 0, 0)", id, new BigDecimal(balance), Timestamp.valueOf(LocalDateTime.now()));
+        return id;
+    }
+
+    private BigDecimal balance(UUID id) {
+        return jdbcTemplate.queryForObject("select balance from account where id = ?", BigDecimal.class, id);
+    }
+
+    private int version(UUID id) {
+        return jdbcTemplate.queryForObject("select version from account where id = ?", Integer.class, id);
+    }
+
+    private static TransactionDTO transfer(UUID source, UUID target, String amount) {
+        return new TransactionDTO(source, target, Money.parse(amount), null, 0);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.project.service.transfer;
+
+import com.example.project.config.TransferProperties;
+import com.example.project.mapper.AccountMapperImpl;
+import com.example.project.mapper.TransactionMapperImpl;
+import com.example.project.service.BatchTransferService;
+import com.example.project.service.StripedBalanceService;
+import com.example.project.service.limit.VelocityLimiter;
+import com.example.project.service.metrics.TransferMetrics;
+import com.example.project.service.outbox.TransferOutbox;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs the executors and the batch transfers against the migrated schema on an in-memory database, each transfer in
+ * its own committed transaction rather than in a test transaction, so rollbacks and row locks behave as in production.
+ * The test classes share one application context.
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:transfer-executors;MODE=PostgreSQL;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=2000",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.show-sql=false",
+        "spring.liquibase.enabled=true"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@EnableConfigurationProperties(TransferProperties.class)
+@Import({AtomicUpdateTransferExecutor.class, PessimisticLockTransferExecutor.class, BatchTransferService.class,
+        StripedBalanceService.class, AccountMapperImpl.class, TransactionMapperImpl.class, TransferOutbox.class,
+        TransferMetrics.class, TransferRetryPolicy.class, VelocityLimiter.class, SimpleMeterRegistry.class})
+public @interface TransferExecutorSlice {
+}